@@ -0,0 +1,153 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.actuate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.HdrHistogram.Histogram;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.service.tracing.OperationAttributes;
+import org.springframework.cloud.servicebroker.service.tracing.OperationTracer;
+
+/**
+ * An {@link OperationTracer} that keeps track of the operations in progress and records the latency of each operation.
+ * Only the phase that covers a whole operation is recorded; the other phases are passed through.
+ *
+ * <p>
+ * Recording does not take locks: operations in progress are kept in a concurrent set, and latencies are recorded with
+ * a {@link StripedLatencyRecorder} for each operation name.
+ */
+public class OperationActivityRecorder implements OperationTracer {
+
+	private final Set<InFlightOperation> inFlightOperations = ConcurrentHashMap.newKeySet();
+
+	private final ConcurrentMap<String, StripedLatencyRecorder> latencies = new ConcurrentHashMap<>();
+
+	@Override
+	public <T> Mono<T> trace(String name, OperationAttributes attributes, Supplier<Mono<T>> phase) {
+		if (!isOperation(name, attributes)) {
+			return phase.get();
+		}
+		return Mono.defer(() -> {
+			InFlightOperation operation = new InFlightOperation(attributes, System.nanoTime());
+			this.inFlightOperations.add(operation);
+			try {
+				return phase.get()
+						.doFinally(signal -> complete(operation));
+			}
+			catch (RuntimeException e) {
+				complete(operation);
+				throw e;
+			}
+		});
+	}
+
+	/**
+	 * @return the operations in progress, oldest first
+	 */
+	public List<InFlightOperation> getInFlightOperations() {
+		List<InFlightOperation> operations = new ArrayList<>(this.inFlightOperations);
+		operations.sort((first, second) -> Long.compare(first.startNanos, second.startNanos));
+		return operations;
+	}
+
+	/**
+	 * @return the latencies of the completed operations in microseconds, by operation name
+	 */
+	public Map<String, Histogram> getLatencies() {
+		Map<String, Histogram> snapshots = new TreeMap<>();
+		this.latencies.forEach((operation, recorder) -> snapshots.put(operation, recorder.snapshot()));
+		return Collections.unmodifiableMap(snapshots);
+	}
+
+	private void complete(InFlightOperation operation) {
+		if (this.inFlightOperations.remove(operation)) {
+			latencyRecorder(operation.getOperation()).record(System.nanoTime() - operation.startNanos);
+		}
+	}
+
+	private StripedLatencyRecorder latencyRecorder(String operation) {
+		StripedLatencyRecorder recorder = this.latencies.get(operation);
+		if (recorder == null) {
+			recorder = this.latencies.computeIfAbsent(operation, key -> new StripedLatencyRecorder());
+		}
+		return recorder;
+	}
+
+	private static boolean isOperation(String name, OperationAttributes attributes) {
+		String operation = attributes.getOperation();
+		return operation != null
+				&& name.length() == OPERATION_SPAN_PREFIX.length() + operation.length()
+				&& name.startsWith(OPERATION_SPAN_PREFIX)
+				&& name.endsWith(operation);
+	}
+
+	/**
+	 * An operation in progress.
+	 */
+	public static final class InFlightOperation {
+
+		private final OperationAttributes attributes;
+
+		private final long startNanos;
+
+		private InFlightOperation(OperationAttributes attributes, long startNanos) {
+			this.attributes = attributes;
+			this.startNanos = startNanos;
+		}
+
+		/**
+		 * @return the operation name
+		 */
+		public String getOperation() {
+			return this.attributes.getOperation();
+		}
+
+		/**
+		 * @return the service instance ID
+		 */
+		public String getServiceInstanceId() {
+			return this.attributes.getServiceInstanceId();
+		}
+
+		/**
+		 * @return the service instance binding ID, or {@literal null} for service instance operations
+		 */
+		public String getBindingId() {
+			return this.attributes.getBindingId();
+		}
+
+		/**
+		 * @return the time since the operation started, in milliseconds
+		 */
+		public long getAgeMillis() {
+			return (System.nanoTime() - this.startNanos) / 1_000_000;
+		}
+
+	}
+
+}
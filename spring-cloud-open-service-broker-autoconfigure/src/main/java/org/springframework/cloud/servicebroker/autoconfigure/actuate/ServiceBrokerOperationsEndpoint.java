@@ -0,0 +1,297 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.actuate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.cloud.servicebroker.autoconfigure.actuate.OperationActivityRecorder.InFlightOperation;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.outbox.EventFlowOutbox;
+import org.springframework.cloud.servicebroker.service.events.outbox.FileEventFlowOutbox;
+import org.springframework.cloud.servicebroker.service.resilience.Bulkhead;
+import org.springframework.cloud.servicebroker.service.resilience.CircuitBreaker;
+import org.springframework.cloud.servicebroker.service.resilience.ResilienceRegistry;
+
+/**
+ * {@link Endpoint} that exposes the service broker operations in progress, the latency percentiles of each operation,
+ * the number of events waiting in the event flow queues, and the state of the circuit breakers and bulkheads of each
+ * service definition.
+ */
+@Endpoint(id = "servicebroker")
+public class ServiceBrokerOperationsEndpoint {
+
+	private static final String EVENT_OUTBOX = "event_outbox";
+
+	private final OperationActivityRecorder recorder;
+
+	private final EventFlowRegistries eventFlowRegistries;
+
+	private final EventFlowOutbox eventFlowOutbox;
+
+	private final ResilienceRegistry resilienceRegistry;
+
+	/**
+	 * Construct a new {@link ServiceBrokerOperationsEndpoint}
+	 *
+	 * @param recorder the recorder of the operations
+	 * @param eventFlowRegistries the event flow registries, or {@literal null} if there are none
+	 * @param eventFlowOutbox the event flow outbox, or {@literal null} if completion and error flows are not deferred
+	 * @param resilienceRegistry the registry of circuit breakers and bulkheads, or {@literal null} if calls to services
+	 * are not guarded
+	 */
+	public ServiceBrokerOperationsEndpoint(OperationActivityRecorder recorder,
+			EventFlowRegistries eventFlowRegistries, EventFlowOutbox eventFlowOutbox,
+			ResilienceRegistry resilienceRegistry) {
+		this.recorder = recorder;
+		this.eventFlowRegistries = eventFlowRegistries;
+		this.eventFlowOutbox = eventFlowOutbox;
+		this.resilienceRegistry = resilienceRegistry;
+	}
+
+	@ReadOperation
+	public ServiceBrokerOperationsDescriptor operations() {
+		return new ServiceBrokerOperationsDescriptor(this.recorder.getInFlightOperations(), latencies(),
+				queueDepths(), guards());
+	}
+
+	private Map<String, LatencyDescriptor> latencies() {
+		Map<String, LatencyDescriptor> latencies = new LinkedHashMap<>();
+		this.recorder.getLatencies().forEach((operation, histogram) ->
+				latencies.put(operation, new LatencyDescriptor(histogram)));
+		return latencies;
+	}
+
+	private Map<String, Integer> queueDepths() {
+		Map<String, Integer> queueDepths = new LinkedHashMap<>();
+		if (this.eventFlowRegistries != null) {
+			addQueueDepth(queueDepths, "create_service_instance", this.eventFlowRegistries.getCreateInstanceRegistry());
+			addQueueDepth(queueDepths, "update_service_instance", this.eventFlowRegistries.getUpdateInstanceRegistry());
+			addQueueDepth(queueDepths, "delete_service_instance", this.eventFlowRegistries.getDeleteInstanceRegistry());
+			addQueueDepth(queueDepths, "get_last_service_operation",
+					this.eventFlowRegistries.getAsyncOperationRegistry());
+			addQueueDepth(queueDepths, "create_service_instance_binding",
+					this.eventFlowRegistries.getCreateInstanceBindingRegistry());
+			addQueueDepth(queueDepths, "delete_service_instance_binding",
+					this.eventFlowRegistries.getDeleteInstanceBindingRegistry());
+			addQueueDepth(queueDepths, "get_last_service_binding_operation",
+					this.eventFlowRegistries.getAsyncOperationBindingRegistry());
+		}
+		if (this.eventFlowOutbox instanceof FileEventFlowOutbox) {
+			queueDepths.put(EVENT_OUTBOX, ((FileEventFlowOutbox) this.eventFlowOutbox).getPendingEventCount());
+		}
+		return queueDepths;
+	}
+
+	private Map<String, GuardDescriptor> guards() {
+		Map<String, GuardDescriptor> guards = new LinkedHashMap<>();
+		if (this.resilienceRegistry != null) {
+			this.resilienceRegistry.getGuards().forEach((serviceDefinitionId, guard) ->
+					guards.put(serviceDefinitionId, new GuardDescriptor(guard)));
+		}
+		return guards;
+	}
+
+	private static void addQueueDepth(Map<String, Integer> queueDepths, String operation,
+			EventFlowRegistry<?, ?, ?, ?, ?> registry) {
+		if (registry != null) {
+			queueDepths.put(operation, registry.getPendingBufferedCompletionCount());
+		}
+	}
+
+	/**
+	 * Description of the service broker operations.
+	 */
+	public static final class ServiceBrokerOperationsDescriptor {
+
+		private final List<InFlightOperation> inFlight;
+
+		private final Map<String, LatencyDescriptor> latencies;
+
+		private final Map<String, Integer> queueDepths;
+
+		private final Map<String, GuardDescriptor> circuitBreakers;
+
+		private ServiceBrokerOperationsDescriptor(List<InFlightOperation> inFlight,
+				Map<String, LatencyDescriptor> latencies, Map<String, Integer> queueDepths,
+				Map<String, GuardDescriptor> circuitBreakers) {
+			this.inFlight = inFlight;
+			this.latencies = latencies;
+			this.queueDepths = queueDepths;
+			this.circuitBreakers = circuitBreakers;
+		}
+
+		/**
+		 * @return the operations in progress, oldest first
+		 */
+		public List<InFlightOperation> getInFlight() {
+			return this.inFlight;
+		}
+
+		/**
+		 * @return the latencies of the completed operations, by operation name
+		 */
+		public Map<String, LatencyDescriptor> getLatencies() {
+			return this.latencies;
+		}
+
+		/**
+		 * @return the number of events waiting to be delivered to batched completion flows, by operation name, and to
+		 * 		the event outbox
+		 */
+		public Map<String, Integer> getQueueDepths() {
+			return this.queueDepths;
+		}
+
+		/**
+		 * @return the circuit breakers and bulkheads, by service definition ID
+		 */
+		public Map<String, GuardDescriptor> getCircuitBreakers() {
+			return this.circuitBreakers;
+		}
+
+	}
+
+	/**
+	 * Description of the circuit breaker and bulkhead of a service definition.
+	 */
+	public static final class GuardDescriptor {
+
+		private final CircuitBreaker.State state;
+
+		private final float failureRate;
+
+		private final long calls;
+
+		private final int concurrentCalls;
+
+		private final int maxConcurrentCalls;
+
+		private final long rejectedCalls;
+
+		private GuardDescriptor(ResilienceRegistry.Guard guard) {
+			CircuitBreaker circuitBreaker = guard.getCircuitBreaker();
+			Bulkhead bulkhead = guard.getBulkhead();
+			this.state = circuitBreaker.getState();
+			this.failureRate = circuitBreaker.getFailureRate();
+			this.calls = circuitBreaker.getNumberOfCalls();
+			this.concurrentCalls = bulkhead.getConcurrentCalls();
+			this.maxConcurrentCalls = bulkhead.getMaxConcurrentCalls();
+			this.rejectedCalls = circuitBreaker.getRejectedCalls() + bulkhead.getRejectedCalls();
+		}
+
+		public CircuitBreaker.State getState() {
+			return this.state;
+		}
+
+		/**
+		 * @return the percentage of failed calls in the sliding window
+		 */
+		public float getFailureRate() {
+			return this.failureRate;
+		}
+
+		/**
+		 * @return the number of calls in the sliding window
+		 */
+		public long getCalls() {
+			return this.calls;
+		}
+
+		public int getConcurrentCalls() {
+			return this.concurrentCalls;
+		}
+
+		public int getMaxConcurrentCalls() {
+			return this.maxConcurrentCalls;
+		}
+
+		/**
+		 * @return the number of calls rejected by the circuit breaker or the bulkhead
+		 */
+		public long getRejectedCalls() {
+			return this.rejectedCalls;
+		}
+
+	}
+
+	/**
+	 * Description of the latencies of an operation, in milliseconds.
+	 */
+	public static final class LatencyDescriptor {
+
+		private static final double MICROS_PER_MILLI = 1000.0;
+
+		private final long count;
+
+		private final double p50;
+
+		private final double p90;
+
+		private final double p99;
+
+		private final double p999;
+
+		private final double max;
+
+		private LatencyDescriptor(Histogram histogram) {
+			this.count = histogram.getTotalCount();
+			this.p50 = millis(histogram.getValueAtPercentile(50.0));
+			this.p90 = millis(histogram.getValueAtPercentile(90.0));
+			this.p99 = millis(histogram.getValueAtPercentile(99.0));
+			this.p999 = millis(histogram.getValueAtPercentile(99.9));
+			this.max = millis(histogram.getMaxValue());
+		}
+
+		private static double millis(long micros) {
+			return micros / MICROS_PER_MILLI;
+		}
+
+		public long getCount() {
+			return this.count;
+		}
+
+		public double getP50() {
+			return this.p50;
+		}
+
+		public double getP90() {
+			return this.p90;
+		}
+
+		public double getP99() {
+			return this.p99;
+		}
+
+		public double getP999() {
+			return this.p999;
+		}
+
+		public double getMax() {
+			return this.max;
+		}
+
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.actuate;
+
+import org.HdrHistogram.Recorder;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnEnabledEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.cloud.servicebroker.autoconfigure.web.EventFlowsAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.ServiceBrokerAutoConfiguration;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.outbox.EventFlowOutbox;
+import org.springframework.cloud.servicebroker.service.resilience.ResilienceRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link ServiceBrokerOperationsEndpoint}.
+ * <p>
+ * Provides an {@link OperationActivityRecorder}, which the web auto-configurations use together with any other
+ * {@link org.springframework.cloud.servicebroker.service.tracing.OperationTracer} to record each operation.
+ */
+@Configuration
+@ConditionalOnClass({Endpoint.class, Recorder.class})
+@ConditionalOnEnabledEndpoint(endpoint = ServiceBrokerOperationsEndpoint.class)
+@AutoConfigureAfter({ServiceBrokerAutoConfiguration.class, EventFlowsAutoConfiguration.class})
+public class ServiceBrokerOperationsEndpointAutoConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	public OperationActivityRecorder operationActivityRecorder() {
+		return new OperationActivityRecorder();
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public ServiceBrokerOperationsEndpoint serviceBrokerOperationsEndpoint(OperationActivityRecorder recorder,
+			ObjectProvider<EventFlowRegistries> eventFlowRegistries, ObjectProvider<EventFlowOutbox> eventFlowOutbox,
+			ObjectProvider<ResilienceRegistry> resilienceRegistry) {
+		return new ServiceBrokerOperationsEndpoint(recorder, eventFlowRegistries.getIfAvailable(),
+				eventFlowOutbox.getIfAvailable(), resilienceRegistry.getIfAvailable());
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.actuate;
+
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Records operation latencies into several HdrHistogram {@link Recorder}s, chosen by the recording thread, so that
+ * threads completing operations at the same time rarely update the same counts. Reading swaps the interval histogram
+ * of each recorder and adds it to the histogram of all recorded latencies.
+ */
+final class StripedLatencyRecorder {
+
+	private static final int SIGNIFICANT_DIGITS = 2;
+
+	private static final int MAX_STRIPES = 8;
+
+	private final Recorder[] stripes;
+
+	private final Histogram[] intervals;
+
+	private final Histogram accumulated = new Histogram(SIGNIFICANT_DIGITS);
+
+	StripedLatencyRecorder() {
+		int stripeCount = Math.min(MAX_STRIPES,
+				Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+		this.stripes = new Recorder[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			this.stripes[i] = new Recorder(SIGNIFICANT_DIGITS);
+		}
+		this.intervals = new Histogram[stripeCount];
+	}
+
+	/**
+	 * Record a latency. Never blocks.
+	 *
+	 * @param nanos the latency in nanoseconds
+	 */
+	void record(long nanos) {
+		int stripe = (int) (Thread.currentThread().getId() & (this.stripes.length - 1));
+		this.stripes[stripe].recordValue(TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos)));
+	}
+
+	/**
+	 * @return a copy of all latencies recorded so far, in microseconds
+	 */
+	synchronized Histogram snapshot() {
+		for (int i = 0; i < this.stripes.length; i++) {
+			this.intervals[i] = this.stripes[i].getIntervalHistogram(this.intervals[i]);
+			this.accumulated.add(this.intervals[i]);
+		}
+		return this.accumulated.copy();
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Internal class for marshaling {@link ServiceBrokerProperties} configuration properties
+ * that configure basic authentication of the platforms calling the broker.
+ *
+ * @see BrokerCredentialVerifier
+ */
+public class AuthenticationProperties {
+
+	/**
+	 * Whether requests to the service broker API are authenticated against the
+	 * configured platform credentials.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * The credentials accepted from the platforms calling the broker.
+	 */
+	private List<PlatformCredentials> credentials = new ArrayList<>();
+
+	/**
+	 * The maximum number of verified Authorization headers remembered.
+	 */
+	private int cacheSize = 1000;
+
+	/**
+	 * How long a verified Authorization header is accepted without verifying the
+	 * password again.
+	 */
+	private Duration cacheTimeToLive = Duration.ofMinutes(5);
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public List<PlatformCredentials> getCredentials() {
+		return this.credentials;
+	}
+
+	public void setCredentials(List<PlatformCredentials> credentials) {
+		this.credentials = credentials;
+	}
+
+	public int getCacheSize() {
+		return this.cacheSize;
+	}
+
+	public void setCacheSize(int cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+
+	public Duration getCacheTimeToLive() {
+		return this.cacheTimeToLive;
+	}
+
+	public void setCacheTimeToLive(Duration cacheTimeToLive) {
+		this.cacheTimeToLive = cacheTimeToLive;
+	}
+
+}
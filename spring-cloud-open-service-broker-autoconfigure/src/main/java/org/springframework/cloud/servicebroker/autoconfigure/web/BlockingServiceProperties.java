@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+/**
+ * Internal class for marshaling {@link ServiceBrokerProperties} configuration properties
+ * that configure the schedulers used to run blocking service implementations.
+ *
+ * @see org.springframework.cloud.servicebroker.service.BlockingServiceSchedulers
+ */
+public class BlockingServiceProperties {
+
+	/**
+	 * The maximum number of threads available to each blocking scheduler.
+	 */
+	private int maxThreads = 10 * Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The maximum number of calls queued on each blocking scheduler before new calls are
+	 * rejected.
+	 */
+	private int queueCapacity = 1000;
+
+	/**
+	 * How long idle threads are kept alive.
+	 */
+	private Duration keepAlive = Duration.ofSeconds(60);
+
+	/**
+	 * Whether each service definition gets a dedicated scheduler.
+	 */
+	private boolean isolatePerServiceDefinition = true;
+
+	/**
+	 * The maximum number of dedicated schedulers, after which service definitions share
+	 * a common scheduler.
+	 */
+	private int maxIsolatedSchedulers = 64;
+
+	/**
+	 * Whether to run blocking calls on virtual threads. Requires Java 21 or later.
+	 */
+	private boolean virtualThreads = false;
+
+	public int getMaxThreads() {
+		return this.maxThreads;
+	}
+
+	public void setMaxThreads(int maxThreads) {
+		this.maxThreads = maxThreads;
+	}
+
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	public Duration getKeepAlive() {
+		return this.keepAlive;
+	}
+
+	public void setKeepAlive(Duration keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	public boolean isIsolatePerServiceDefinition() {
+		return this.isolatePerServiceDefinition;
+	}
+
+	public void setIsolatePerServiceDefinition(boolean isolatePerServiceDefinition) {
+		this.isolatePerServiceDefinition = isolatePerServiceDefinition;
+	}
+
+	public int getMaxIsolatedSchedulers() {
+		return this.maxIsolatedSchedulers;
+	}
+
+	public void setMaxIsolatedSchedulers(int maxIsolatedSchedulers) {
+		this.maxIsolatedSchedulers = maxIsolatedSchedulers;
+	}
+
+	public boolean isVirtualThreads() {
+		return this.virtualThreads;
+	}
+
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Verifies the basic authentication credentials sent by platforms against the configured {@link PlatformCredentials}.
+ *
+ * <p>
+ * Verifying an encoded password, for example with BCrypt, deliberately takes milliseconds of CPU time, and platforms
+ * send the same credentials with every catalog and last operation poll. Once an Authorization header has been
+ * verified for a platform instance ID, it is remembered for the configured time to live, so that later requests with
+ * the same header only cost a keyed hash and a map lookup. The cache holds a HMAC of the header under a key generated
+ * at startup rather than the header itself, so the credentials are not kept in memory in a recoverable form. Failed
+ * verifications are not remembered.
+ */
+public class BrokerCredentialVerifier {
+
+	private static final String BASIC_PREFIX = "Basic ";
+
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+	private static final String ENCODING_ID_PREFIX = "{";
+
+	private final List<PlatformCredentials> credentials;
+
+	private final PasswordEncoder passwordEncoder;
+
+	private final int cacheSize;
+
+	private final long timeToLiveMillis;
+
+	private final Clock clock;
+
+	private final SecretKeySpec key;
+
+	private final ThreadLocal<Mac> macs;
+
+	private final Map<String, Long> verified = new ConcurrentHashMap<>();
+
+	/**
+	 * Construct a verifier.
+	 *
+	 * @param credentials the accepted credentials
+	 * @param passwordEncoder the encoder used to verify passwords that are prefixed with an encoding ID
+	 * @param cacheSize the maximum number of verified Authorization headers remembered
+	 * @param timeToLive how long a verified Authorization header is remembered
+	 */
+	public BrokerCredentialVerifier(List<PlatformCredentials> credentials, PasswordEncoder passwordEncoder,
+			int cacheSize, Duration timeToLive) {
+		this(credentials, passwordEncoder, cacheSize, timeToLive, Clock.systemUTC());
+	}
+
+	BrokerCredentialVerifier(List<PlatformCredentials> credentials, PasswordEncoder passwordEncoder,
+			int cacheSize, Duration timeToLive, Clock clock) {
+		if (credentials == null || credentials.isEmpty()) {
+			throw new IllegalArgumentException("At least one set of platform credentials must be configured");
+		}
+		for (PlatformCredentials credential : credentials) {
+			if (credential.getUsername() == null || credential.getPassword() == null) {
+				throw new IllegalArgumentException("Platform credentials must have a username and a password");
+			}
+		}
+		this.credentials = new ArrayList<>(credentials);
+		this.passwordEncoder = passwordEncoder;
+		this.cacheSize = cacheSize;
+		this.timeToLiveMillis = timeToLive.toMillis();
+		this.clock = clock;
+		byte[] secret = new byte[32];
+		new SecureRandom().nextBytes(secret);
+		this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+		this.macs = ThreadLocal.withInitial(this::createMac);
+	}
+
+	/**
+	 * Check whether an Authorization header has recently been verified, without verifying it.
+	 *
+	 * @param authorization the value of the Authorization header, or {@literal null} if the request has none
+	 * @param platformInstanceId the platform instance ID in the request path, or {@literal null} if there is none
+	 * @return whether the header was verified within the time to live
+	 */
+	public boolean isVerified(String authorization, String platformInstanceId) {
+		if (authorization == null) {
+			return false;
+		}
+		Long expiry = this.verified.get(cacheKey(authorization, platformInstanceId));
+		return expiry != null && expiry > this.clock.millis();
+	}
+
+	/**
+	 * Verify the credentials in an Authorization header, using the remembered result if the header has recently
+	 * been verified.
+	 *
+	 * @param authorization the value of the Authorization header, or {@literal null} if the request has none
+	 * @param platformInstanceId the platform instance ID in the request path, or {@literal null} if there is none
+	 * @return whether the header holds credentials accepted for the platform instance ID
+	 */
+	public boolean verify(String authorization, String platformInstanceId) {
+		if (authorization == null || !authorization.startsWith(BASIC_PREFIX)) {
+			return false;
+		}
+		String cacheKey = cacheKey(authorization, platformInstanceId);
+		long now = this.clock.millis();
+		Long expiry = this.verified.get(cacheKey);
+		if (expiry != null && expiry > now) {
+			return true;
+		}
+		if (!matches(authorization, platformInstanceId)) {
+			return false;
+		}
+		remember(cacheKey, now + this.timeToLiveMillis, now);
+		return true;
+	}
+
+	private boolean matches(String authorization, String platformInstanceId) {
+		String decoded;
+		try {
+			decoded = new String(Base64.getDecoder().decode(authorization.substring(BASIC_PREFIX.length()).trim()),
+					StandardCharsets.UTF_8);
+		}
+		catch (IllegalArgumentException e) {
+			return false;
+		}
+		int separator = decoded.indexOf(':');
+		if (separator < 0) {
+			return false;
+		}
+		String username = decoded.substring(0, separator);
+		String password = decoded.substring(separator + 1);
+		for (PlatformCredentials credential : this.credentials) {
+			if (appliesTo(credential, platformInstanceId) && credential.getUsername().equals(username)
+					&& passwordMatches(password, credential.getPassword())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean appliesTo(PlatformCredentials credential, String platformInstanceId) {
+		return credential.getPlatformInstanceId() == null
+				|| credential.getPlatformInstanceId().equals(platformInstanceId);
+	}
+
+	private boolean passwordMatches(String password, String expected) {
+		if (expected.startsWith(ENCODING_ID_PREFIX)) {
+			return this.passwordEncoder.matches(password, expected);
+		}
+		return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+				expected.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void remember(String cacheKey, long expiry, long now) {
+		if (this.verified.size() >= this.cacheSize) {
+			this.verified.values().removeIf(entryExpiry -> entryExpiry <= now);
+			Iterator<String> keys = this.verified.keySet().iterator();
+			while (this.verified.size() >= this.cacheSize && keys.hasNext()) {
+				keys.next();
+				keys.remove();
+			}
+		}
+		this.verified.put(cacheKey, expiry);
+	}
+
+	private String cacheKey(String authorization, String platformInstanceId) {
+		Mac mac = this.macs.get();
+		if (platformInstanceId != null) {
+			mac.update(platformInstanceId.getBytes(StandardCharsets.UTF_8));
+		}
+		mac.update((byte) 0);
+		return Base64.getEncoder().encodeToString(mac.doFinal(authorization.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private Mac createMac() {
+		try {
+			Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+			mac.init(this.key);
+			return mac;
+		}
+		catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to create " + HMAC_ALGORITHM + " for credential verification", e);
+		}
+	}
+
+}
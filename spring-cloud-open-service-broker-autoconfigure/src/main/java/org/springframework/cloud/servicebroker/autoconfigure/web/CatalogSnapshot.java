@@ -0,0 +1,219 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import org.springframework.boot.context.properties.source.ConfigurationProperty;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.context.properties.source.IterableConfigurationPropertySource;
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.core.env.Environment;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Reads and writes binary snapshots of a {@link Catalog} built from configuration
+ * properties.
+ * <p>
+ * A snapshot holds a fingerprint of the catalog configuration properties it was built
+ * from, followed by the catalog serialized as JSON. Loading a snapshot memory-maps the
+ * file and reads the catalog model straight from the mapped buffer, which avoids binding
+ * every catalog property to {@link ServiceBrokerProperties} and converting the bound
+ * properties to the model.
+ * <p>
+ * The JSON in a snapshot only encodes the catalog model, so loading it still parses the
+ * JSON into the model. A snapshot holds neither the service definition index nor the
+ * serialized catalog views sent to platforms. The index is rebuilt from the loaded
+ * model by the catalog service. The views depend on the application's
+ * {@link ObjectMapper} and catalog view rules, which the fingerprint does not cover, so
+ * they are still serialized on the first catalog request.
+ *
+ * @see CatalogSnapshotLoader
+ */
+public final class CatalogSnapshot {
+
+	private static final int MAGIC = 0x4f534243;
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final ConfigurationPropertyName CATALOG_PROPERTY_NAME =
+			ConfigurationPropertyName.of("spring.cloud.openservicebroker.catalog");
+
+	private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+	private CatalogSnapshot() {
+	}
+
+	/**
+	 * Compute a fingerprint of the catalog configuration properties in an environment.
+	 * The fingerprint changes when any catalog property is added, removed or changed in
+	 * any property source, when a placeholder in a catalog property resolves to a
+	 * different value, and when the version of the catalog model or of this library
+	 * changes.
+	 *
+	 * @param environment the environment
+	 * @return the fingerprint
+	 */
+	public static byte[] fingerprint(Environment environment) {
+		MessageDigest digest = sha256();
+		digest.update((FORMAT_VERSION + ":" + version(Catalog.class) + ":" + version(CatalogSnapshot.class) + ":"
+				+ OBJECT_MAPPER.version() + "\n").getBytes(StandardCharsets.UTF_8));
+		int sourceIndex = 0;
+		for (ConfigurationPropertySource source : ConfigurationPropertySources.get(environment)) {
+			sourceIndex++;
+			if (!(source instanceof IterableConfigurationPropertySource)) {
+				continue;
+			}
+			List<ConfigurationPropertyName> names = new ArrayList<>();
+			((IterableConfigurationPropertySource) source)
+					.filter(CATALOG_PROPERTY_NAME::isAncestorOf)
+					.forEach(names::add);
+			names.sort(null);
+			for (ConfigurationPropertyName name : names) {
+				ConfigurationProperty property = source.getConfigurationProperty(name);
+				String value = property != null ? resolve(environment, property.getValue()) : "";
+				digest.update((sourceIndex + ":" + name + "=" + value + "\n").getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * Read the catalog from a snapshot file.
+	 *
+	 * @param location the snapshot file
+	 * @param fingerprint the fingerprint of the current catalog configuration properties
+	 * @return the catalog, or {@literal null} if the file does not exist or was written from
+	 * different catalog configuration properties
+	 * @throws IOException if the file cannot be read or is not a valid snapshot
+	 */
+	public static Catalog read(Path location, byte[] fingerprint) throws IOException {
+		if (!Files.isRegularFile(location)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(location, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+				return null;
+			}
+			int fingerprintLength = buffer.getInt();
+			if (fingerprintLength < 0 || fingerprintLength > buffer.remaining()) {
+				throw new IOException("Catalog snapshot " + location + " is corrupt");
+			}
+			byte[] storedFingerprint = new byte[fingerprintLength];
+			buffer.get(storedFingerprint);
+			if (!MessageDigest.isEqual(storedFingerprint, fingerprint)) {
+				return null;
+			}
+			int length = buffer.getInt();
+			if (length != buffer.remaining()) {
+				throw new IOException("Catalog snapshot " + location + " is truncated");
+			}
+			return OBJECT_MAPPER.readValue(new ByteBufferBackedInputStream(buffer), Catalog.class);
+		}
+		catch (BufferUnderflowException e) {
+			throw new IOException("Catalog snapshot " + location + " is truncated", e);
+		}
+	}
+
+	/**
+	 * Write a catalog to a snapshot file. The file is replaced atomically where the file
+	 * system supports it, so that concurrently starting instances never read a partial
+	 * snapshot.
+	 *
+	 * @param location the snapshot file
+	 * @param fingerprint the fingerprint of the catalog configuration properties the
+	 * catalog was built from
+	 * @param catalog the catalog
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(Path location, byte[] fingerprint, Catalog catalog) throws IOException {
+		byte[] json = OBJECT_MAPPER.writeValueAsBytes(catalog);
+		Path directory = location.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temporary = Files.createTempFile(directory, location.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(fingerprint.length);
+				out.write(fingerprint);
+				out.writeInt(json.length);
+				out.write(json);
+			}
+			try {
+				Files.move(temporary, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, location, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	private static String resolve(Environment environment, Object value) {
+		return value instanceof String ? environment.resolvePlaceholders((String) value) : String.valueOf(value);
+	}
+
+	/**
+	 * The version of the jar holding a class, or the location of its class file for
+	 * classes loaded from a directory during development, which have no version.
+	 */
+	private static String version(Class<?> type) {
+		String version = type.getPackage() != null ? type.getPackage().getImplementationVersion() : null;
+		if (version != null) {
+			return version;
+		}
+		CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+		return codeSource != null ? String.valueOf(codeSource.getLocation()) : "unknown";
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.context.properties.ConfigurationPropertiesBindHandlerAdvisor;
+import org.springframework.boot.context.properties.bind.AbstractBindHandler;
+import org.springframework.boot.context.properties.bind.BindContext;
+import org.springframework.boot.context.properties.bind.BindHandler;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.core.env.Environment;
+
+/**
+ * Loads the catalog from a {@link CatalogSnapshot} when the snapshot was written from the
+ * current catalog configuration properties, and saves a new snapshot otherwise.
+ * <p>
+ * While an up to date snapshot is loaded, binding of the
+ * {@literal spring.cloud.openservicebroker.catalog} properties to
+ * {@link ServiceBrokerProperties} is skipped, so {@link ServiceBrokerProperties#getCatalog()}
+ * returns {@literal null}.
+ */
+public class CatalogSnapshotLoader implements ConfigurationPropertiesBindHandlerAdvisor {
+
+	/**
+	 * The property holding the location of the snapshot file.
+	 */
+	public static final String LOCATION_PROPERTY = "spring.cloud.openservicebroker.catalog-snapshot.location";
+
+	private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotLoader.class);
+
+	private static final ConfigurationPropertyName CATALOG_PROPERTY_NAME =
+			ConfigurationPropertyName.of("spring.cloud.openservicebroker.catalog");
+
+	private final Path location;
+
+	private final byte[] fingerprint;
+
+	private final Catalog catalog;
+
+	/**
+	 * Construct a loader, loading the snapshot configured in the environment if it is up
+	 * to date.
+	 *
+	 * @param environment the environment
+	 */
+	public CatalogSnapshotLoader(Environment environment) {
+		String location = environment.getRequiredProperty(LOCATION_PROPERTY);
+		this.location = Paths.get(location);
+		this.fingerprint = CatalogSnapshot.fingerprint(environment);
+		this.catalog = load();
+	}
+
+	private Catalog load() {
+		try {
+			Catalog snapshot = CatalogSnapshot.read(this.location, this.fingerprint);
+			if (snapshot == null) {
+				logger.info("Catalog snapshot {} is missing or out of date", this.location);
+			}
+			return snapshot;
+		}
+		catch (IOException e) {
+			logger.warn("Unable to load catalog snapshot " + this.location, e);
+			return null;
+		}
+	}
+
+	/**
+	 * The catalog loaded from the snapshot.
+	 *
+	 * @return the catalog, or {@literal null} if there is no up to date snapshot
+	 */
+	public Catalog getCatalog() {
+		return this.catalog;
+	}
+
+	/**
+	 * Save a catalog built from the catalog configuration properties, unless it was
+	 * loaded from an up to date snapshot. Failures are logged rather than thrown, since
+	 * the broker can run without a snapshot.
+	 *
+	 * @param catalog the catalog
+	 */
+	public void save(Catalog catalog) {
+		if (this.catalog != null) {
+			return;
+		}
+		try {
+			CatalogSnapshot.write(this.location, this.fingerprint, catalog);
+			logger.info("Wrote catalog snapshot {}", this.location);
+		}
+		catch (IOException e) {
+			logger.warn("Unable to write catalog snapshot " + this.location, e);
+		}
+	}
+
+	@Override
+	public BindHandler apply(BindHandler bindHandler) {
+		if (this.catalog == null) {
+			return bindHandler;
+		}
+		return new AbstractBindHandler(bindHandler) {
+			@Override
+			public <T> Bindable<T> onStart(ConfigurationPropertyName name, Bindable<T> target, BindContext context) {
+				if (CATALOG_PROPERTY_NAME.equals(name)) {
+					return null;
+				}
+				return super.onStart(name, target, context);
+			}
+		};
+	}
+
+}
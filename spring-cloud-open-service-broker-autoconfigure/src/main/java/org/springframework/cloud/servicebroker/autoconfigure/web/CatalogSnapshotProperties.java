@@ -0,0 +1,43 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+/**
+ * Internal class for marshaling {@link ServiceBrokerProperties} configuration properties
+ * that configure the binary snapshot of a catalog defined in configuration properties.
+ *
+ * @see CatalogSnapshotLoader
+ */
+public class CatalogSnapshotProperties {
+
+	/**
+	 * Path of the catalog snapshot file. When set, the catalog built from the
+	 * spring.cloud.openservicebroker.catalog properties is written to this file, and
+	 * later startups with unchanged catalog properties load it instead of binding them.
+	 */
+	private String location;
+
+	public String getLocation() {
+		return this.location;
+	}
+
+	public void setLocation(String location) {
+		this.location = location;
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+/**
+ * Internal class for marshaling {@link ServiceBrokerProperties} configuration properties
+ * that configure how completed operations are collected for batched completion flows.
+ *
+ * @see org.springframework.cloud.servicebroker.service.events.BatchingCompletionFlowBuffer
+ */
+public class EventBatchingProperties {
+
+	/**
+	 * The maximum number of completed operations delivered to a batched completion flow
+	 * at once.
+	 */
+	private int batchSize = 100;
+
+	/**
+	 * The maximum time a completed operation waits for a batch to fill up.
+	 */
+	private Duration maxDelay = Duration.ofSeconds(1);
+
+	/**
+	 * The number of waiting operations above which requests wait for their operation
+	 * to be delivered to the batched completion flow.
+	 */
+	private int capacity = 10000;
+
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public Duration getMaxDelay() {
+		return this.maxDelay;
+	}
+
+	public void setMaxDelay(Duration maxDelay) {
+		this.maxDelay = maxDelay;
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+}
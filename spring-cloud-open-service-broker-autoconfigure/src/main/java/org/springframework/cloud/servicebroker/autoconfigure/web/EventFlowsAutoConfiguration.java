@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.servicebroker.autoconfigure.web;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
 
 import org.springframework.cloud.servicebroker.service.events.AsyncOperationServiceInstanceBindingEventFlowRegistry;
@@ -30,21 +32,40 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.servicebroker.autoconfigure.web.exception.CatalogDefinitionDoesNotExistException;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
 import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
 import org.springframework.cloud.servicebroker.service.BeanCatalogService;
 import org.springframework.cloud.servicebroker.service.CatalogService;
 import org.springframework.cloud.servicebroker.service.NonBindableServiceInstanceBindingService;
 import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
 import org.springframework.cloud.servicebroker.service.events.AsyncOperationServiceInstanceEventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.BatchingCompletionFlowBuffer;
 import org.springframework.cloud.servicebroker.service.events.CreateServiceInstanceBindingEventFlowRegistry;
 import org.springframework.cloud.servicebroker.service.events.CreateServiceInstanceEventFlowRegistry;
 import org.springframework.cloud.servicebroker.service.events.DeleteServiceInstanceBindingEventFlowRegistry;
 import org.springframework.cloud.servicebroker.service.events.DeleteServiceInstanceEventFlowRegistry;
 import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistry;
 import org.springframework.cloud.servicebroker.service.events.UpdateServiceInstanceEventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.outbox.EventFlowOutbox;
+import org.springframework.cloud.servicebroker.service.events.outbox.FileEventFlowOutbox;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceCompletionFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceErrorFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceInitializationFlow;
+import org.springframework.cloud.servicebroker.service.events.flows.BatchedCompletionFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceBindingCompletionFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceBindingErrorFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceBindingInitializationFlow;
@@ -69,69 +90,104 @@ import org.springframework.context.annotation.Configuration;
  * @author Roy Clarkson
  */
 @Configuration
+@EnableConfigurationProperties(ServiceBrokerProperties.class)
 public class EventFlowsAutoConfiguration {
 
-	@Bean
+	private final ServiceBrokerProperties serviceBrokerProperties;
+
+	public EventFlowsAutoConfiguration(ServiceBrokerProperties serviceBrokerProperties) {
+		this.serviceBrokerProperties = serviceBrokerProperties;
+	}
+
+	@Bean(destroyMethod = "dispose")
 	@ConditionalOnMissingBean(CreateServiceInstanceEventFlowRegistry.class)
 	public CreateServiceInstanceEventFlowRegistry createInstanceRegistry(
 			@Autowired(required = false) List<CreateServiceInstanceInitializationFlow> initializationFlows,
 			@Autowired(required = false) List<CreateServiceInstanceCompletionFlow> completionFlows,
-			@Autowired(required = false) List<CreateServiceInstanceErrorFlow> errorFlows) {
-		return new CreateServiceInstanceEventFlowRegistry(initializationFlows, completionFlows, errorFlows);
+			@Autowired(required = false) List<CreateServiceInstanceErrorFlow> errorFlows,
+			@Autowired(required = false) List<BatchedCompletionFlow<CreateServiceInstanceRequest, CreateServiceInstanceResponse>> batchedCompletionFlows) {
+		CreateServiceInstanceEventFlowRegistry registry = new CreateServiceInstanceEventFlowRegistry(
+				initializationFlows, completionFlows, errorFlows);
+		addCompletionFlowBuffers(registry, batchedCompletionFlows);
+		return registry;
 	}
 
-	@Bean
+	@Bean(destroyMethod = "dispose")
 	@ConditionalOnMissingBean(DeleteServiceInstanceEventFlowRegistry.class)
 	public DeleteServiceInstanceEventFlowRegistry deleteInstanceRegistry(
 			@Autowired(required = false) List<DeleteServiceInstanceInitializationFlow> initializationFlows,
 			@Autowired(required = false) List<DeleteServiceInstanceCompletionFlow> completionFlows,
-			@Autowired(required = false) List<DeleteServiceInstanceErrorFlow> errorFlows) {
-		return new DeleteServiceInstanceEventFlowRegistry(initializationFlows, completionFlows, errorFlows);
+			@Autowired(required = false) List<DeleteServiceInstanceErrorFlow> errorFlows,
+			@Autowired(required = false) List<BatchedCompletionFlow<DeleteServiceInstanceRequest, DeleteServiceInstanceResponse>> batchedCompletionFlows) {
+		DeleteServiceInstanceEventFlowRegistry registry = new DeleteServiceInstanceEventFlowRegistry(
+				initializationFlows, completionFlows, errorFlows);
+		addCompletionFlowBuffers(registry, batchedCompletionFlows);
+		return registry;
 	}
 
-	@Bean
+	@Bean(destroyMethod = "dispose")
 	@ConditionalOnMissingBean(UpdateServiceInstanceEventFlowRegistry.class)
 	public UpdateServiceInstanceEventFlowRegistry updateInstanceRegistry(
 			@Autowired(required = false) List<UpdateServiceInstanceInitializationFlow> initializationFlows,
 			@Autowired(required = false) List<UpdateServiceInstanceCompletionFlow> completionFlows,
-			@Autowired(required = false) List<UpdateServiceInstanceErrorFlow> errorFlows) {
-		return new UpdateServiceInstanceEventFlowRegistry(initializationFlows, completionFlows, errorFlows);
+			@Autowired(required = false) List<UpdateServiceInstanceErrorFlow> errorFlows,
+			@Autowired(required = false) List<BatchedCompletionFlow<UpdateServiceInstanceRequest, UpdateServiceInstanceResponse>> batchedCompletionFlows) {
+		UpdateServiceInstanceEventFlowRegistry registry = new UpdateServiceInstanceEventFlowRegistry(
+				initializationFlows, completionFlows, errorFlows);
+		addCompletionFlowBuffers(registry, batchedCompletionFlows);
+		return registry;
 	}
 
-	@Bean
+	@Bean(destroyMethod = "dispose")
 	@ConditionalOnMissingBean(AsyncOperationServiceInstanceEventFlowRegistry.class)
 	public AsyncOperationServiceInstanceEventFlowRegistry asyncOperationRegistry(
 			@Autowired(required = false) List<AsyncOperationServiceInstanceInitializationFlow> initializationFlows,
 			@Autowired(required = false) List<AsyncOperationServiceInstanceCompletionFlow> completionFlows,
-			@Autowired(required = false) List<AsyncOperationServiceInstanceErrorFlow> errorFlows) {
-		return new AsyncOperationServiceInstanceEventFlowRegistry(initializationFlows, completionFlows, errorFlows);
+			@Autowired(required = false) List<AsyncOperationServiceInstanceErrorFlow> errorFlows,
+			@Autowired(required = false) List<BatchedCompletionFlow<GetLastServiceOperationRequest, GetLastServiceOperationResponse>> batchedCompletionFlows) {
+		AsyncOperationServiceInstanceEventFlowRegistry registry = new AsyncOperationServiceInstanceEventFlowRegistry(
+				initializationFlows, completionFlows, errorFlows);
+		addCompletionFlowBuffers(registry, batchedCompletionFlows);
+		return registry;
 	}
 
-	@Bean
+	@Bean(destroyMethod = "dispose")
 	@ConditionalOnMissingBean(CreateServiceInstanceBindingEventFlowRegistry.class)
 	public CreateServiceInstanceBindingEventFlowRegistry createInstanceBindingRegistry(
 			@Autowired(required = false) List<CreateServiceInstanceBindingInitializationFlow> initializationFlows,
 			@Autowired(required = false) List<CreateServiceInstanceBindingCompletionFlow> completionFlows,
-			@Autowired(required = false) List<CreateServiceInstanceBindingErrorFlow> errorFlows) {
-		return new CreateServiceInstanceBindingEventFlowRegistry(initializationFlows, completionFlows, errorFlows);
+			@Autowired(required = false) List<CreateServiceInstanceBindingErrorFlow> errorFlows,
+			@Autowired(required = false) List<BatchedCompletionFlow<CreateServiceInstanceBindingRequest, CreateServiceInstanceBindingResponse>> batchedCompletionFlows) {
+		CreateServiceInstanceBindingEventFlowRegistry registry = new CreateServiceInstanceBindingEventFlowRegistry(
+				initializationFlows, completionFlows, errorFlows);
+		addCompletionFlowBuffers(registry, batchedCompletionFlows);
+		return registry;
 	}
 
-	@Bean
+	@Bean(destroyMethod = "dispose")
 	@ConditionalOnMissingBean(DeleteServiceInstanceBindingEventFlowRegistry.class)
 	public DeleteServiceInstanceBindingEventFlowRegistry deleteInstanceBindingRegistry(
 			@Autowired(required = false) List<DeleteServiceInstanceBindingInitializationFlow> initializationFlows,
 			@Autowired(required = false) List<DeleteServiceInstanceBindingCompletionFlow> completionFlows,
-			@Autowired(required = false) List<DeleteServiceInstanceBindingErrorFlow> errorFlows) {
-		return new DeleteServiceInstanceBindingEventFlowRegistry(initializationFlows, completionFlows, errorFlows);
+			@Autowired(required = false) List<DeleteServiceInstanceBindingErrorFlow> errorFlows,
+			@Autowired(required = false) List<BatchedCompletionFlow<DeleteServiceInstanceBindingRequest, DeleteServiceInstanceBindingResponse>> batchedCompletionFlows) {
+		DeleteServiceInstanceBindingEventFlowRegistry registry = new DeleteServiceInstanceBindingEventFlowRegistry(
+				initializationFlows, completionFlows, errorFlows);
+		addCompletionFlowBuffers(registry, batchedCompletionFlows);
+		return registry;
 	}
 
-	@Bean
+	@Bean(destroyMethod = "dispose")
 	@ConditionalOnMissingBean(AsyncOperationServiceInstanceBindingEventFlowRegistry.class)
 	public AsyncOperationServiceInstanceBindingEventFlowRegistry asyncOperationBindingRegistry(
 			@Autowired(required = false) List<AsyncOperationServiceInstanceBindingInitializationFlow> initializationFlows,
 			@Autowired(required = false) List<AsyncOperationServiceInstanceBindingCompletionFlow> completionFlows,
-			@Autowired(required = false) List<AsyncOperationServiceInstanceBindingErrorFlow> errorFlows) {
-		return new AsyncOperationServiceInstanceBindingEventFlowRegistry(initializationFlows, completionFlows, errorFlows);
+			@Autowired(required = false) List<AsyncOperationServiceInstanceBindingErrorFlow> errorFlows,
+			@Autowired(required = false) List<BatchedCompletionFlow<GetLastServiceBindingOperationRequest, GetLastServiceBindingOperationResponse>> batchedCompletionFlows) {
+		AsyncOperationServiceInstanceBindingEventFlowRegistry registry = new AsyncOperationServiceInstanceBindingEventFlowRegistry(
+				initializationFlows, completionFlows, errorFlows);
+		addCompletionFlowBuffers(registry, batchedCompletionFlows);
+		return registry;
 	}
 
 	@Bean
@@ -149,4 +205,38 @@ public class EventFlowsAutoConfiguration {
 				deleteInstanceBindingRegistry, asyncOperationBindingRegistry);
 	}
 
+	private <R, S> void addCompletionFlowBuffers(EventFlowRegistry<?, ?, ?, R, S> registry,
+			List<BatchedCompletionFlow<R, S>> batchedCompletionFlows) {
+		if (batchedCompletionFlows == null) {
+			return;
+		}
+		EventBatchingProperties properties = this.serviceBrokerProperties.getEventBatching();
+		for (BatchedCompletionFlow<R, S> flow : batchedCompletionFlows) {
+			registry.addCompletionFlowBuffer(new BatchingCompletionFlowBuffer<>(flow, properties.getBatchSize(),
+					properties.getMaxDelay(), properties.getCapacity()))
+					.subscribe();
+		}
+	}
+
+	/**
+	 * Records completion and error events in a local journal and delivers them to the
+	 * event flows after the response has been returned.
+	 */
+	@Configuration
+	@ConditionalOnProperty(prefix = "spring.cloud.openservicebroker.event-outbox", name = "enabled", havingValue = "true")
+	@EnableConfigurationProperties(ServiceBrokerProperties.class)
+	public static class EventFlowOutboxConfiguration {
+
+		@Bean(destroyMethod = "dispose")
+		@ConditionalOnMissingBean(EventFlowOutbox.class)
+		public FileEventFlowOutbox eventFlowOutbox(ServiceBrokerProperties serviceBrokerProperties,
+				EventFlowRegistries eventFlowRegistries) throws IOException {
+			EventOutboxProperties properties = serviceBrokerProperties.getEventOutbox();
+			return new FileEventFlowOutbox(Paths.get(properties.getDirectory()), eventFlowRegistries,
+					properties.getBatchSize(), properties.getDrainInterval(), properties.isFsync(),
+					properties.getMaxAttempts());
+		}
+
+	}
+
 }
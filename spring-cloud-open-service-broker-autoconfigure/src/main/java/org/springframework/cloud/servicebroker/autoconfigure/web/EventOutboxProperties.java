@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+/**
+ * Internal class for marshaling {@link ServiceBrokerProperties} configuration properties
+ * that configure the outbox used to run completion and error event flows after the
+ * response has been returned.
+ *
+ * @see org.springframework.cloud.servicebroker.service.events.outbox.FileEventFlowOutbox
+ */
+public class EventOutboxProperties {
+
+	/**
+	 * Whether completion and error events are recorded in a local journal and delivered
+	 * to the event flows asynchronously.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * The directory holding the event journal. It must survive restarts for
+	 * undelivered events to be delivered after a restart.
+	 */
+	private String directory = "event-outbox";
+
+	/**
+	 * The maximum number of events delivered between acknowledgements.
+	 */
+	private int batchSize = 100;
+
+	/**
+	 * The delay between attempts to deliver pending events.
+	 */
+	private Duration drainInterval = Duration.ofMillis(500);
+
+	/**
+	 * Whether each event is forced to the storage device before the response is
+	 * returned.
+	 */
+	private boolean fsync = true;
+
+	/**
+	 * The number of failed deliveries in a row after which an event is moved to the
+	 * dead letter file in the outbox directory.
+	 */
+	private int maxAttempts = 10;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public String getDirectory() {
+		return this.directory;
+	}
+
+	public void setDirectory(String directory) {
+		this.directory = directory;
+	}
+
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public Duration getDrainInterval() {
+		return this.drainInterval;
+	}
+
+	public void setDrainInterval(Duration drainInterval) {
+		this.drainInterval = drainInterval;
+	}
+
+	public boolean isFsync() {
+		return this.fsync;
+	}
+
+	public void setFsync(boolean fsync) {
+		this.fsync = fsync;
+	}
+
+	public int getMaxAttempts() {
+		return this.maxAttempts;
+	}
+
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+}
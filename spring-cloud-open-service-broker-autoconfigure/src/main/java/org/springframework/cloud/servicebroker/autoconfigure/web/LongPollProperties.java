@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+/**
+ * Internal class for marshaling {@link ServiceBrokerProperties} configuration properties
+ * that configure holding last operation requests until the state of the operation changes.
+ */
+public class LongPollProperties {
+
+	/**
+	 * Whether last operation requests for an operation in progress wait for the state of
+	 * the operation to change.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * The maximum time a last operation request waits for the state of the operation to
+	 * change. The wait also ends one second before the deadline of the request, if one
+	 * applies.
+	 */
+	private Duration maxWait = Duration.ofSeconds(20);
+
+	/**
+	 * The interval at which a waiting request queries the state of the operation again,
+	 * so that operations completed without a signal are reported before the maximum wait.
+	 */
+	private Duration recheckInterval = Duration.ofSeconds(5);
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getMaxWait() {
+		return this.maxWait;
+	}
+
+	public void setMaxWait(Duration maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	public Duration getRecheckInterval() {
+		return this.recheckInterval;
+	}
+
+	public void setRecheckInterval(Duration recheckInterval) {
+		this.recheckInterval = recheckInterval;
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Internal class for marshaling {@link ServiceBrokerProperties} configuration properties
+ * that configure the deadlines applied to service instance and binding operations.
+ *
+ * @see org.springframework.cloud.servicebroker.service.deadline.OperationDeadlines
+ */
+public class OperationDeadlineProperties {
+
+	/**
+	 * Whether operations are cancelled when their deadline passes.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * The timeout of operations without a timeout configured in {@code timeouts}.
+	 */
+	private Duration timeout;
+
+	/**
+	 * The timeouts by operation name, such as create_service_instance or
+	 * get_last_service_operation.
+	 */
+	private Map<String, Duration> timeouts = new HashMap<>();
+
+	/**
+	 * The name of the request header holding the number of milliseconds the platform
+	 * waits for the response. When set, an operation is also cancelled when the platform
+	 * stops waiting for it.
+	 */
+	private String headerName;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getTimeout() {
+		return this.timeout;
+	}
+
+	public void setTimeout(Duration timeout) {
+		this.timeout = timeout;
+	}
+
+	public Map<String, Duration> getTimeouts() {
+		return this.timeouts;
+	}
+
+	public void setTimeouts(Map<String, Duration> timeouts) {
+		this.timeouts = timeouts;
+	}
+
+	public String getHeaderName() {
+		return this.headerName;
+	}
+
+	public void setHeaderName(String headerName) {
+		this.headerName = headerName;
+	}
+
+}
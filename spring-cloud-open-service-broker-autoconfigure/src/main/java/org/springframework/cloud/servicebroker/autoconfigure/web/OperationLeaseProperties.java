@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+/**
+ * Internal class for marshaling {@link ServiceBrokerProperties} configuration properties
+ * that configure the leases that give one operation at a time the ownership of a
+ * service instance across service broker nodes.
+ *
+ * @see org.springframework.cloud.servicebroker.service.lease.JdbcOperationLeaseManager
+ */
+public class OperationLeaseProperties {
+
+	/**
+	 * Whether service instance operations acquire a lease, stored in the application's
+	 * data source, before calling the service.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * The name of the lease table.
+	 */
+	private String tableName = "osb_operation_lease";
+
+	/**
+	 * The time after which a lease that is not renewed expires. Leases are renewed
+	 * several times per duration while they are held.
+	 */
+	private Duration duration = Duration.ofSeconds(30);
+
+	/**
+	 * The maximum number of lease requests executed together.
+	 */
+	private int batchSize = 100;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public String getTableName() {
+		return this.tableName;
+	}
+
+	public void setTableName(String tableName) {
+		this.tableName = tableName;
+	}
+
+	public Duration getDuration() {
+		return this.duration;
+	}
+
+	public void setDuration(Duration duration) {
+		this.duration = duration;
+	}
+
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+/**
+ * Internal class for marshaling {@link ServiceBrokerProperties} configuration properties
+ * that describe the basic authentication credentials a platform uses to call the broker.
+ */
+public class PlatformCredentials {
+
+	/**
+	 * The user name the platform authenticates with.
+	 */
+	private String username;
+
+	/**
+	 * The password the platform authenticates with. Passwords prefixed with an encoding
+	 * ID such as "{bcrypt}" are verified by the corresponding password encoder, other
+	 * passwords are compared as plain text.
+	 */
+	private String password;
+
+	/**
+	 * The platform instance ID the credentials are accepted for. When not set, the
+	 * credentials are accepted for requests with any or no platform instance ID.
+	 */
+	private String platformInstanceId;
+
+	public String getUsername() {
+		return this.username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public String getPassword() {
+		return this.password;
+	}
+
+	public void setPassword(String password) {
+		this.password = password;
+	}
+
+	public String getPlatformInstanceId() {
+		return this.platformInstanceId;
+	}
+
+	public void setPlatformInstanceId(String platformInstanceId) {
+		this.platformInstanceId = platformInstanceId;
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.cloud.servicebroker.service.priority.OperationClass;
+
+/**
+ * Internal class for marshaling {@link ServiceBrokerProperties} configuration properties
+ * that configure the admission of service broker operations by priority.
+ *
+ * @see org.springframework.cloud.servicebroker.service.priority.OperationScheduler
+ */
+public class PrioritySchedulingProperties {
+
+	/**
+	 * Whether operations are admitted by priority when the broker is under load.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * The maximum number of operations running at a time.
+	 */
+	private int maxConcurrentOperations = 50;
+
+	/**
+	 * The maximum number of operations waiting to run, beyond which operations are
+	 * rejected.
+	 */
+	private int maxQueuedOperations = 1000;
+
+	/**
+	 * The weight of each operation class, overriding its default weight.
+	 */
+	private Map<OperationClass, Integer> weights = new EnumMap<>(OperationClass.class);
+
+	/**
+	 * The time after which a waiting operation is admitted before any other.
+	 */
+	private Duration starvationThreshold = Duration.ofSeconds(10);
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getMaxConcurrentOperations() {
+		return this.maxConcurrentOperations;
+	}
+
+	public void setMaxConcurrentOperations(int maxConcurrentOperations) {
+		this.maxConcurrentOperations = maxConcurrentOperations;
+	}
+
+	public int getMaxQueuedOperations() {
+		return this.maxQueuedOperations;
+	}
+
+	public void setMaxQueuedOperations(int maxQueuedOperations) {
+		this.maxQueuedOperations = maxQueuedOperations;
+	}
+
+	public Map<OperationClass, Integer> getWeights() {
+		return this.weights;
+	}
+
+	public void setWeights(Map<OperationClass, Integer> weights) {
+		this.weights = weights;
+	}
+
+	public Duration getStarvationThreshold() {
+		return this.starvationThreshold;
+	}
+
+	public void setStarvationThreshold(Duration starvationThreshold) {
+		this.starvationThreshold = starvationThreshold;
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+/**
+ * Internal class for marshaling {@link ServiceBrokerProperties} configuration properties
+ * that configure the reconciliation of platform and backend inventories.
+ *
+ * @see ServiceBrokerReconciliationJob
+ */
+public class ReconciliationProperties {
+
+	/**
+	 * Whether orphaned service instances and bindings are periodically deleted. Requires
+	 * {@code PlatformInventorySource} and {@code BackendInventorySource} beans.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * The time between the end of a reconciliation run and the start of the next.
+	 */
+	private Duration interval = Duration.ofHours(1);
+
+	/**
+	 * The maximum number of service instances cleaned up concurrently.
+	 */
+	private int concurrency = 4;
+
+	/**
+	 * The maximum number of deletes per second, or zero for no limit.
+	 */
+	private int deletesPerSecond = 10;
+
+	/**
+	 * The maximum number of deletes in one run. A run that finds more orphans stops before deleting any.
+	 */
+	private long maxDeletes = 1000;
+
+	/**
+	 * The maximum share of the backend items, between zero and one, that may be orphaned. A run that finds a larger
+	 * share stops before deleting any.
+	 */
+	private double maxOrphanRatio = 0.25;
+
+	/**
+	 * The minimum age, at the start of a run, of the backend service instances and bindings that the run deletes.
+	 */
+	private Duration gracePeriod = Duration.ofHours(1);
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getInterval() {
+		return this.interval;
+	}
+
+	public void setInterval(Duration interval) {
+		this.interval = interval;
+	}
+
+	public int getConcurrency() {
+		return this.concurrency;
+	}
+
+	public void setConcurrency(int concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	public int getDeletesPerSecond() {
+		return this.deletesPerSecond;
+	}
+
+	public void setDeletesPerSecond(int deletesPerSecond) {
+		this.deletesPerSecond = deletesPerSecond;
+	}
+
+	public long getMaxDeletes() {
+		return this.maxDeletes;
+	}
+
+	public void setMaxDeletes(long maxDeletes) {
+		this.maxDeletes = maxDeletes;
+	}
+
+	public double getMaxOrphanRatio() {
+		return this.maxOrphanRatio;
+	}
+
+	public void setMaxOrphanRatio(double maxOrphanRatio) {
+		this.maxOrphanRatio = maxOrphanRatio;
+	}
+
+	public Duration getGracePeriod() {
+		return this.gracePeriod;
+	}
+
+	public void setGracePeriod(Duration gracePeriod) {
+		this.gracePeriod = gracePeriod;
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+/**
+ * Internal class for marshaling {@link ServiceBrokerProperties} configuration properties
+ * that configure the bulkheads and circuit breakers guarding the calls to services for
+ * each service definition.
+ *
+ * @see org.springframework.cloud.servicebroker.service.resilience.ResilienceRegistry
+ */
+public class ResilienceProperties {
+
+	/**
+	 * Whether calls to services are guarded by a bulkhead and a circuit breaker for each
+	 * service definition.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * The maximum number of concurrent calls for each service definition.
+	 */
+	private int maxConcurrentCalls = 25;
+
+	/**
+	 * The percentage of failed calls at which a circuit breaker opens.
+	 */
+	private float failureRateThreshold = 50;
+
+	/**
+	 * The number of calls in the sliding window below which a circuit breaker does not
+	 * open.
+	 */
+	private int minimumNumberOfCalls = 20;
+
+	/**
+	 * The duration over which calls are counted.
+	 */
+	private Duration slidingWindow = Duration.ofSeconds(60);
+
+	/**
+	 * The time a circuit breaker stays open before permitting a trial call.
+	 */
+	private Duration openDuration = Duration.ofSeconds(30);
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getMaxConcurrentCalls() {
+		return this.maxConcurrentCalls;
+	}
+
+	public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+		this.maxConcurrentCalls = maxConcurrentCalls;
+	}
+
+	public float getFailureRateThreshold() {
+		return this.failureRateThreshold;
+	}
+
+	public void setFailureRateThreshold(float failureRateThreshold) {
+		this.failureRateThreshold = failureRateThreshold;
+	}
+
+	public int getMinimumNumberOfCalls() {
+		return this.minimumNumberOfCalls;
+	}
+
+	public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+		this.minimumNumberOfCalls = minimumNumberOfCalls;
+	}
+
+	public Duration getSlidingWindow() {
+		return this.slidingWindow;
+	}
+
+	public void setSlidingWindow(Duration slidingWindow) {
+		this.slidingWindow = slidingWindow;
+	}
+
+	public Duration getOpenDuration() {
+		return this.openDuration;
+	}
+
+	public void setOpenDuration(Duration openDuration) {
+		this.openDuration = openDuration;
+	}
+
+}
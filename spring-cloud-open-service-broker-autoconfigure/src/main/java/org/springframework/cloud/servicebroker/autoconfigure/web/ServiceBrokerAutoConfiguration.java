@@ -16,30 +16,101 @@
 
 package org.springframework.cloud.servicebroker.autoconfigure.web;
 
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.OpenTelemetry;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.servicebroker.autoconfigure.web.exception.CatalogDefinitionDoesNotExistException;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
 import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
 import org.springframework.cloud.servicebroker.service.BeanCatalogService;
+import org.springframework.cloud.servicebroker.service.BlockingServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.BlockingServiceInstanceBindingServiceAdapter;
+import org.springframework.cloud.servicebroker.service.BlockingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.BlockingServiceInstanceServiceAdapter;
+import org.springframework.cloud.servicebroker.service.BlockingServiceSchedulers;
 import org.springframework.cloud.servicebroker.service.CatalogService;
+import org.springframework.cloud.servicebroker.service.CatalogServiceDefinitionIds;
+import org.springframework.cloud.servicebroker.service.CatalogViewRule;
+import org.springframework.cloud.servicebroker.service.CatalogViewService;
 import org.springframework.cloud.servicebroker.service.NonBindableServiceInstanceBindingService;
 import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadlines;
+import org.springframework.cloud.servicebroker.service.lease.JdbcOperationLeaseManager;
+import org.springframework.cloud.servicebroker.service.lease.OperationLeaseManager;
+import org.springframework.cloud.servicebroker.service.longpoll.OperationStateSignals;
+import org.springframework.cloud.servicebroker.service.priority.OperationScheduler;
+import org.springframework.cloud.servicebroker.service.reconcile.BackendInventorySource;
+import org.springframework.cloud.servicebroker.service.reconcile.PlatformInventorySource;
+import org.springframework.cloud.servicebroker.service.reconcile.ReconciliationEngine;
+import org.springframework.cloud.servicebroker.service.replay.ReplayCache;
+import org.springframework.cloud.servicebroker.service.resilience.ResilienceRegistry;
+import org.springframework.cloud.servicebroker.service.tracing.OpenTelemetryOperationTracer;
+import org.springframework.cloud.servicebroker.service.tracing.OperationTracer;
+import org.springframework.cloud.servicebroker.service.transfer.ServiceInstanceStateRepository;
+import org.springframework.cloud.servicebroker.service.transfer.ServiceInstanceStateTransfer;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 /**
  * {@link EnableAutoConfiguration Auto-configuration} for the service broker
  * implementation beans.
  * <p>
  * Provides a default {@link CatalogService} bean if a {@link Catalog} bean is provided. A
- * catalog may be defined in external configuration, or via a Spring bean.
+ * catalog may be defined in external configuration, or via a Spring bean. A catalog
+ * defined in external configuration is loaded from a {@link CatalogSnapshot} when one is
+ * configured and up to date.
+ * <p>
+ * Provides a {@link CatalogViewService} that applies any {@link CatalogViewRule} beans to the catalog served to each
+ * platform.
+ * <p>
+ * Provides an {@link OpenTelemetryOperationTracer} if an {@code OpenTelemetry} bean is provided, which the web
+ * auto-configurations use to trace the phases of each operation.
+ * <p>
+ * Provides a {@link JdbcOperationLeaseManager} if
+ * {@code spring.cloud.openservicebroker.operation-lease.enabled} is set, which the web auto-configurations use to
+ * give one operation at a time the ownership of a service instance across service broker nodes.
+ * <p>
+ * Provides {@link OperationStateSignals} if {@code spring.cloud.openservicebroker.long-poll.enabled} is set, which
+ * the web auto-configurations use to hold last operation requests until the state of the operation changes.
+ * <p>
+ * Provides a {@link ServiceInstanceStateTransfer} if {@code spring.cloud.openservicebroker.state-transfer.enabled} is
+ * set and a {@link ServiceInstanceStateRepository} bean is provided, which the web auto-configurations expose on admin
+ * endpoints that export and import service instance and binding state.
+ * <p>
+ * Provides a {@link ReconciliationEngine} if {@code spring.cloud.openservicebroker.reconciliation.enabled} is set and
+ * a {@link PlatformInventorySource} and a {@link BackendInventorySource} bean are provided, which the web
+ * auto-configurations run periodically to delete orphaned service instances and bindings.
+ * <p>
+ * Provides a {@link ServiceBrokerWarmUp} if {@code spring.cloud.openservicebroker.warm-up.enabled} is set, which
+ * sends synthetic requests through the service broker controllers before the web server starts.
  * <p>
  * Provides a {@link NonBindableServiceInstanceBindingService} if a
  * {@link ServiceInstanceBindingService} is not provided, indicating that the service
  * broker provides no bindable services.
+ * <p>
+ * Adapts a {@link BlockingServiceInstanceService} and {@link BlockingServiceInstanceBindingService} to their reactive
+ * counterparts if only the blocking variants are provided.
  *
  * @author Scott Frederick
  * @author Roy Clarkson
@@ -48,6 +119,8 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class ServiceBrokerAutoConfiguration {
 
+	private static final int MAX_CACHED_CATALOG_VIEW_KEYS = 1000;
+
 	@Configuration
 	@ConditionalOnMissingBean({Catalog.class, CatalogService.class})
 	@EnableConfigurationProperties(ServiceBrokerProperties.class)
@@ -61,8 +134,22 @@ public class ServiceBrokerAutoConfiguration {
 		}
 
 		@Bean
-		public Catalog catalog() {
-			return this.serviceBrokerProperties.getCatalog().toModel();
+		@ConditionalOnProperty(CatalogSnapshotLoader.LOCATION_PROPERTY)
+		public static CatalogSnapshotLoader catalogSnapshotLoader(Environment environment) {
+			return new CatalogSnapshotLoader(environment);
+		}
+
+		@Bean
+		public Catalog catalog(ObjectProvider<CatalogSnapshotLoader> catalogSnapshotLoader) {
+			CatalogSnapshotLoader snapshotLoader = catalogSnapshotLoader.getIfAvailable();
+			if (snapshotLoader != null && snapshotLoader.getCatalog() != null) {
+				return snapshotLoader.getCatalog();
+			}
+			Catalog catalog = this.serviceBrokerProperties.getCatalog().toModel();
+			if (snapshotLoader != null) {
+				snapshotLoader.save(catalog);
+			}
+			return catalog;
 		}
 	}
 
@@ -75,10 +162,288 @@ public class ServiceBrokerAutoConfiguration {
 		return new BeanCatalogService(catalog);
 	}
 
+	@Bean
+	@ConditionalOnMissingBean(CatalogViewService.class)
+	public CatalogViewService catalogViewService(CatalogService catalogService,
+			ObjectProvider<CatalogViewRule> catalogViewRules, ObjectProvider<ObjectMapper> objectMapper) {
+		return new CatalogViewService(catalogService,
+				catalogViewRules.orderedStream().collect(Collectors.toList()),
+				objectMapper.getIfAvailable(() -> Jackson2ObjectMapperBuilder.json().build()),
+				MAX_CACHED_CATALOG_VIEW_KEYS);
+	}
+
+	/**
+	 * Traces service broker operations with OpenTelemetry when the application provides an {@link OpenTelemetry}
+	 * instance.
+	 */
+	@Configuration
+	@ConditionalOnClass(OpenTelemetry.class)
+	@ConditionalOnBean(OpenTelemetry.class)
+	protected static class OpenTelemetryTracingConfiguration {
+
+		private static final String INSTRUMENTATION_NAME = "org.springframework.cloud.servicebroker";
+
+		@Bean
+		@ConditionalOnMissingBean(OperationTracer.class)
+		public OperationTracer openTelemetryOperationTracer(OpenTelemetry openTelemetry) {
+			return new OpenTelemetryOperationTracer(openTelemetry.getTracer(INSTRUMENTATION_NAME));
+		}
+
+	}
+
+	/**
+	 * Keeps service instance operation leases in the application's {@link DataSource}.
+	 */
+	@Configuration
+	@ConditionalOnClass(JdbcTemplate.class)
+	@ConditionalOnProperty(prefix = "spring.cloud.openservicebroker.operation-lease", name = "enabled", havingValue = "true")
+	@EnableConfigurationProperties(ServiceBrokerProperties.class)
+	protected static class JdbcOperationLeaseConfiguration {
+
+		@Bean(destroyMethod = "dispose")
+		@ConditionalOnMissingBean(OperationLeaseManager.class)
+		public JdbcOperationLeaseManager jdbcOperationLeaseManager(DataSource dataSource,
+				ServiceBrokerProperties serviceBrokerProperties) {
+			OperationLeaseProperties properties = serviceBrokerProperties.getOperationLease();
+			return new JdbcOperationLeaseManager(dataSource, properties.getTableName(), properties.getDuration(),
+					properties.getBatchSize());
+		}
+
+	}
+
+	/**
+	 * Keeps the responses of completed creations in memory on each node. Since a response is only removed from the
+	 * cache of the node that handled the update or delete, replay is refused when operation leases are enabled, which
+	 * indicates that several nodes serve the same service instances.
+	 */
+	@Configuration
+	@ConditionalOnProperty(prefix = "spring.cloud.openservicebroker.response-replay", name = "enabled", havingValue = "true")
+	@EnableConfigurationProperties(ServiceBrokerProperties.class)
+	protected static class ResponseReplayConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean(name = "serviceInstanceReplayCache")
+		public ReplayCache<CreateServiceInstanceResponse> serviceInstanceReplayCache(
+				ServiceBrokerProperties serviceBrokerProperties,
+				ObjectProvider<OperationLeaseManager> operationLeaseManager) {
+			assertSingleNode(operationLeaseManager);
+			ResponseReplayProperties properties = serviceBrokerProperties.getResponseReplay();
+			return new ReplayCache<>(properties.getMaxSize(), properties.getTimeToLive());
+		}
+
+		@Bean
+		@ConditionalOnMissingBean(name = "serviceInstanceBindingReplayCache")
+		public ReplayCache<CreateServiceInstanceBindingResponse> serviceInstanceBindingReplayCache(
+				ServiceBrokerProperties serviceBrokerProperties,
+				ObjectProvider<OperationLeaseManager> operationLeaseManager) {
+			assertSingleNode(operationLeaseManager);
+			ResponseReplayProperties properties = serviceBrokerProperties.getResponseReplay();
+			return new ReplayCache<>(properties.getMaxSize(), properties.getTimeToLive());
+		}
+
+		private static void assertSingleNode(ObjectProvider<OperationLeaseManager> operationLeaseManager) {
+			if (operationLeaseManager.getIfAvailable() != null) {
+				throw new IllegalStateException("Response replay keeps responses on each node and cannot be enabled "
+						+ "together with operation leases");
+			}
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnProperty(prefix = "spring.cloud.openservicebroker.operation-deadline", name = "enabled", havingValue = "true")
+	@EnableConfigurationProperties(ServiceBrokerProperties.class)
+	protected static class OperationDeadlineConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean(OperationDeadlines.class)
+		public OperationDeadlines operationDeadlines(ServiceBrokerProperties serviceBrokerProperties) {
+			OperationDeadlineProperties properties = serviceBrokerProperties.getOperationDeadline();
+			return new OperationDeadlines(properties.getTimeout(), properties.getTimeouts(),
+					properties.getHeaderName());
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnProperty(prefix = "spring.cloud.openservicebroker.resilience", name = "enabled", havingValue = "true")
+	@EnableConfigurationProperties(ServiceBrokerProperties.class)
+	protected static class ResilienceConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean(ResilienceRegistry.class)
+		public ResilienceRegistry resilienceRegistry(ServiceBrokerProperties serviceBrokerProperties,
+				ObjectProvider<CatalogService> catalogService) {
+			ResilienceProperties properties = serviceBrokerProperties.getResilience();
+			CatalogService catalog = catalogService.getIfAvailable();
+			return new ResilienceRegistry(properties.getMaxConcurrentCalls(), properties.getFailureRateThreshold(),
+					properties.getMinimumNumberOfCalls(), properties.getSlidingWindow(), properties.getOpenDuration(),
+					catalog != null ? new CatalogServiceDefinitionIds(catalog) : serviceDefinitionId -> true);
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnProperty(prefix = "spring.cloud.openservicebroker.priority-scheduling", name = "enabled", havingValue = "true")
+	@EnableConfigurationProperties(ServiceBrokerProperties.class)
+	protected static class PrioritySchedulingConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean(OperationScheduler.class)
+		public OperationScheduler operationScheduler(ServiceBrokerProperties serviceBrokerProperties) {
+			PrioritySchedulingProperties properties = serviceBrokerProperties.getPriorityScheduling();
+			return new OperationScheduler(properties.getMaxConcurrentOperations(),
+					properties.getMaxQueuedOperations(), properties.getWeights(),
+					properties.getStarvationThreshold());
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnProperty(prefix = "spring.cloud.openservicebroker.long-poll", name = "enabled", havingValue = "true")
+	@EnableConfigurationProperties(ServiceBrokerProperties.class)
+	protected static class LongPollConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean(OperationStateSignals.class)
+		public OperationStateSignals operationStateSignals(ServiceBrokerProperties serviceBrokerProperties) {
+			LongPollProperties properties = serviceBrokerProperties.getLongPoll();
+			return new OperationStateSignals(properties.getMaxWait(), properties.getRecheckInterval());
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnBean(ServiceInstanceStateRepository.class)
+	@ConditionalOnProperty(prefix = "spring.cloud.openservicebroker.state-transfer", name = "enabled", havingValue = "true")
+	@EnableConfigurationProperties(ServiceBrokerProperties.class)
+	protected static class StateTransferConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean(ServiceInstanceStateTransfer.class)
+		public ServiceInstanceStateTransfer serviceInstanceStateTransfer(ServiceBrokerProperties serviceBrokerProperties,
+				ServiceInstanceStateRepository repository, ObjectProvider<ObjectMapper> objectMapper) {
+			StateTransferProperties properties = serviceBrokerProperties.getStateTransfer();
+			return new ServiceInstanceStateTransfer(repository,
+					objectMapper.getIfAvailable(() -> Jackson2ObjectMapperBuilder.json().build()),
+					properties.getBatchSize(), properties.getConcurrency());
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnBean({PlatformInventorySource.class, BackendInventorySource.class})
+	@ConditionalOnProperty(prefix = "spring.cloud.openservicebroker.reconciliation", name = "enabled", havingValue = "true")
+	@EnableConfigurationProperties(ServiceBrokerProperties.class)
+	protected static class ReconciliationConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean(ReconciliationEngine.class)
+		public ReconciliationEngine reconciliationEngine(ServiceBrokerProperties serviceBrokerProperties,
+				PlatformInventorySource platformInventorySource, BackendInventorySource backendInventorySource,
+				CatalogService catalogService) {
+			ReconciliationProperties properties = serviceBrokerProperties.getReconciliation();
+			return new ReconciliationEngine(platformInventorySource, backendInventorySource, catalogService,
+					properties.getConcurrency(), properties.getDeletesPerSecond(), properties.getMaxDeletes(),
+					properties.getMaxOrphanRatio(), properties.getGracePeriod());
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnProperty(prefix = "spring.cloud.openservicebroker.warm-up", name = "enabled", havingValue = "true")
+	@EnableConfigurationProperties(ServiceBrokerProperties.class)
+	protected static class WarmUpConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean(ServiceBrokerWarmUp.class)
+		public ServiceBrokerWarmUp serviceBrokerWarmUp(ServiceBrokerProperties serviceBrokerProperties,
+				CatalogService catalogService, CatalogViewService catalogViewService,
+				ObjectProvider<ObjectMapper> objectMapper) {
+			WarmUpProperties properties = serviceBrokerProperties.getWarmUp();
+			return new ServiceBrokerWarmUp(catalogService, catalogViewService,
+					objectMapper.getIfAvailable(() -> Jackson2ObjectMapperBuilder.json().build()),
+					properties.getIterations(), properties.getTimeout());
+		}
+
+	}
+
+	@Configuration
+	@Conditional(BlockingServiceCondition.class)
+	@EnableConfigurationProperties(ServiceBrokerProperties.class)
+	protected static class BlockingServiceSchedulersConfiguration {
+
+		@Bean(destroyMethod = "dispose")
+		@ConditionalOnMissingBean(BlockingServiceSchedulers.class)
+		public BlockingServiceSchedulers blockingServiceSchedulers(ServiceBrokerProperties serviceBrokerProperties,
+				ObjectProvider<CatalogService> catalogService) {
+			BlockingServiceProperties properties = serviceBrokerProperties.getBlockingService();
+			Function<String, ExecutorService> executorFactory = properties.isVirtualThreads()
+					? BlockingServiceSchedulers.virtualThreadExecutorFactory()
+					: BlockingServiceSchedulers.boundedExecutorFactory(properties.getMaxThreads(),
+							properties.getQueueCapacity(), properties.getKeepAlive());
+			CatalogService catalog = catalogService.getIfAvailable();
+			return new BlockingServiceSchedulers(executorFactory, properties.isIsolatePerServiceDefinition(),
+					properties.getMaxIsolatedSchedulers(),
+					catalog != null ? new CatalogServiceDefinitionIds(catalog) : serviceDefinitionId -> true);
+		}
+
+	}
+
+	/**
+	 * Matches when a blocking service instance or binding service is provided.
+	 */
+	static class BlockingServiceCondition extends AnyNestedCondition {
+
+		BlockingServiceCondition() {
+			super(ConfigurationPhase.REGISTER_BEAN);
+		}
+
+		@ConditionalOnBean(BlockingServiceInstanceService.class)
+		static class BlockingServiceInstanceServiceProvided {
+
+		}
+
+		@ConditionalOnBean(BlockingServiceInstanceBindingService.class)
+		static class BlockingServiceInstanceBindingServiceProvided {
+
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnMissingBean(ServiceInstanceService.class)
+	@ConditionalOnBean(BlockingServiceInstanceService.class)
+	@EnableConfigurationProperties(ServiceBrokerProperties.class)
+	protected static class BlockingServiceInstanceServiceConfiguration {
+
+		@Bean
+		public ServiceInstanceService blockingServiceInstanceServiceAdapter(BlockingServiceInstanceService service,
+				BlockingServiceSchedulers schedulers) {
+			return new BlockingServiceInstanceServiceAdapter(service, schedulers);
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnMissingBean(ServiceInstanceBindingService.class)
+	@ConditionalOnBean(BlockingServiceInstanceBindingService.class)
+	@EnableConfigurationProperties(ServiceBrokerProperties.class)
+	protected static class BlockingServiceInstanceBindingServiceConfiguration {
+
+		@Bean
+		public ServiceInstanceBindingService blockingServiceInstanceBindingServiceAdapter(
+				BlockingServiceInstanceBindingService service, BlockingServiceSchedulers schedulers) {
+			return new BlockingServiceInstanceBindingServiceAdapter(service, schedulers);
+		}
+
+	}
+
 	@Bean
 	@ConditionalOnMissingBean(ServiceInstanceBindingService.class)
 	public ServiceInstanceBindingService nonBindableServiceInstanceBindingService() {
 		return new NonBindableServiceInstanceBindingService();
 	}
 
+
 }
@@ -34,6 +34,48 @@ public class ServiceBrokerProperties {
 	@NestedConfigurationProperty
 	private Catalog catalog;
 
+	@NestedConfigurationProperty
+	private CatalogSnapshotProperties catalogSnapshot = new CatalogSnapshotProperties();
+
+	@NestedConfigurationProperty
+	private BlockingServiceProperties blockingService = new BlockingServiceProperties();
+
+	@NestedConfigurationProperty
+	private EventOutboxProperties eventOutbox = new EventOutboxProperties();
+
+	@NestedConfigurationProperty
+	private EventBatchingProperties eventBatching = new EventBatchingProperties();
+
+	@NestedConfigurationProperty
+	private AuthenticationProperties authentication = new AuthenticationProperties();
+
+	@NestedConfigurationProperty
+	private OperationLeaseProperties operationLease = new OperationLeaseProperties();
+
+	@NestedConfigurationProperty
+	private ResponseReplayProperties responseReplay = new ResponseReplayProperties();
+
+	@NestedConfigurationProperty
+	private OperationDeadlineProperties operationDeadline = new OperationDeadlineProperties();
+
+	@NestedConfigurationProperty
+	private ResilienceProperties resilience = new ResilienceProperties();
+
+	@NestedConfigurationProperty
+	private PrioritySchedulingProperties priorityScheduling = new PrioritySchedulingProperties();
+
+	@NestedConfigurationProperty
+	private WarmUpProperties warmUp = new WarmUpProperties();
+
+	@NestedConfigurationProperty
+	private LongPollProperties longPoll = new LongPollProperties();
+
+	@NestedConfigurationProperty
+	private StateTransferProperties stateTransfer = new StateTransferProperties();
+
+	@NestedConfigurationProperty
+	private ReconciliationProperties reconciliation = new ReconciliationProperties();
+
 	public String getApiVersion() {
 		return apiVersion;
 	}
@@ -50,4 +92,116 @@ public class ServiceBrokerProperties {
 		this.catalog = catalog;
 	}
 
+	public CatalogSnapshotProperties getCatalogSnapshot() {
+		return catalogSnapshot;
+	}
+
+	public void setCatalogSnapshot(CatalogSnapshotProperties catalogSnapshot) {
+		this.catalogSnapshot = catalogSnapshot;
+	}
+
+	public BlockingServiceProperties getBlockingService() {
+		return blockingService;
+	}
+
+	public void setBlockingService(BlockingServiceProperties blockingService) {
+		this.blockingService = blockingService;
+	}
+
+	public EventOutboxProperties getEventOutbox() {
+		return eventOutbox;
+	}
+
+	public void setEventOutbox(EventOutboxProperties eventOutbox) {
+		this.eventOutbox = eventOutbox;
+	}
+
+	public EventBatchingProperties getEventBatching() {
+		return eventBatching;
+	}
+
+	public void setEventBatching(EventBatchingProperties eventBatching) {
+		this.eventBatching = eventBatching;
+	}
+
+	public AuthenticationProperties getAuthentication() {
+		return authentication;
+	}
+
+	public void setAuthentication(AuthenticationProperties authentication) {
+		this.authentication = authentication;
+	}
+
+	public OperationLeaseProperties getOperationLease() {
+		return operationLease;
+	}
+
+	public void setOperationLease(OperationLeaseProperties operationLease) {
+		this.operationLease = operationLease;
+	}
+
+	public ResponseReplayProperties getResponseReplay() {
+		return responseReplay;
+	}
+
+	public void setResponseReplay(ResponseReplayProperties responseReplay) {
+		this.responseReplay = responseReplay;
+	}
+
+	public OperationDeadlineProperties getOperationDeadline() {
+		return operationDeadline;
+	}
+
+	public void setOperationDeadline(OperationDeadlineProperties operationDeadline) {
+		this.operationDeadline = operationDeadline;
+	}
+
+	public ResilienceProperties getResilience() {
+		return resilience;
+	}
+
+	public void setResilience(ResilienceProperties resilience) {
+		this.resilience = resilience;
+	}
+
+	public PrioritySchedulingProperties getPriorityScheduling() {
+		return priorityScheduling;
+	}
+
+	public void setPriorityScheduling(PrioritySchedulingProperties priorityScheduling) {
+		this.priorityScheduling = priorityScheduling;
+	}
+
+	public WarmUpProperties getWarmUp() {
+		return warmUp;
+	}
+
+	public void setWarmUp(WarmUpProperties warmUp) {
+		this.warmUp = warmUp;
+	}
+
+	public LongPollProperties getLongPoll() {
+		return longPoll;
+	}
+
+	public void setLongPoll(LongPollProperties longPoll) {
+		this.longPoll = longPoll;
+	}
+
+	public StateTransferProperties getStateTransfer() {
+		return stateTransfer;
+	}
+
+	public void setStateTransfer(StateTransferProperties stateTransfer) {
+		this.stateTransfer = stateTransfer;
+	}
+
+	public ReconciliationProperties getReconciliation() {
+		return reconciliation;
+	}
+
+	public void setReconciliation(ReconciliationProperties reconciliation) {
+		this.reconciliation = reconciliation;
+	}
+
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.lease.OperationLeaseManager;
+import org.springframework.cloud.servicebroker.service.lease.OperationLeaseUnavailableException;
+import org.springframework.cloud.servicebroker.service.reconcile.ReconciliationEngine;
+import org.springframework.cloud.servicebroker.service.reconcile.ReconciliationResult;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Runs a {@link ReconciliationEngine} periodically while the application is running, deleting orphans through the
+ * same service chain that handles delete requests from the platform, so that operation leases, event flows and
+ * resilience guards apply to them.
+ *
+ * <p>
+ * Each run starts the configured interval after the previous one ends, so runs never overlap. A failed run is logged
+ * and the next run is scheduled as usual. {@link #reconcile()} starts a run on demand.
+ *
+ * <p>
+ * When an {@link OperationLeaseManager} is given, each run holds a lease under {@link #LEASE_ID}, so that only one of
+ * the service broker nodes sharing the lease store reconciles at a time; nodes that find the lease held skip the run.
+ * Without a lease manager every node runs the job.
+ */
+public class ServiceBrokerReconciliationJob implements SmartLifecycle {
+
+	/**
+	 * The ID under which runs take their lease from the {@link OperationLeaseManager}.
+	 */
+	public static final String LEASE_ID = "osb-reconciliation";
+
+	static final String RECONCILE = "reconcile";
+
+	private static final Logger logger = LoggerFactory.getLogger(ServiceBrokerReconciliationJob.class);
+
+	private final ReconciliationEngine engine;
+
+	private final ServiceInstanceService serviceInstanceService;
+
+	private final ServiceInstanceBindingService serviceInstanceBindingService;
+
+	private final Duration interval;
+
+	private final OperationLeaseManager leaseManager;
+
+	private volatile Disposable schedule;
+
+	private volatile ReconciliationResult lastResult;
+
+	/**
+	 * Construct a new {@link ServiceBrokerReconciliationJob}
+	 *
+	 * @param engine the reconciliation engine
+	 * @param serviceInstanceService the service that deletes orphaned service instances
+	 * @param serviceInstanceBindingService the service that deletes orphaned bindings
+	 * @param interval the time between the end of a run and the start of the next
+	 * @param leaseManager the manager granting the lease that runs hold, or {@literal null} to run on every node
+	 */
+	public ServiceBrokerReconciliationJob(ReconciliationEngine engine, ServiceInstanceService serviceInstanceService,
+			ServiceInstanceBindingService serviceInstanceBindingService, Duration interval,
+			OperationLeaseManager leaseManager) {
+		this.engine = engine;
+		this.serviceInstanceService = serviceInstanceService;
+		this.serviceInstanceBindingService = serviceInstanceBindingService;
+		this.interval = interval;
+		this.leaseManager = leaseManager;
+	}
+
+	/**
+	 * Run a reconciliation now.
+	 *
+	 * @return the result of the run, or an {@link OperationLeaseUnavailableException} if another node is running one
+	 */
+	public Mono<ReconciliationResult> reconcile() {
+		Mono<ReconciliationResult> run = this.engine.reconcile(this.serviceInstanceService,
+				this.serviceInstanceBindingService)
+				.doOnNext(result -> this.lastResult = result);
+		if (this.leaseManager == null) {
+			return run;
+		}
+		return this.leaseManager.acquire(LEASE_ID, RECONCILE)
+				.flatMap(lease -> run
+						.doFinally(signal -> this.leaseManager.release(lease).subscribe()));
+	}
+
+	/**
+	 * @return the result of the last successful run, or {@literal null} if none has completed
+	 */
+	public ReconciliationResult getLastResult() {
+		return this.lastResult;
+	}
+
+	@Override
+	public void start() {
+		this.schedule = Mono.delay(this.interval)
+				.then(Mono.defer(() -> reconcile()
+						.onErrorResume(OperationLeaseUnavailableException.class, e -> {
+							logger.debug("Skipping reconciliation because another node is running it");
+							return Mono.empty();
+						})
+						.onErrorResume(e -> {
+							logger.warn("Reconciliation failed", e);
+							return Mono.empty();
+						})))
+				.repeat()
+				.subscribe();
+	}
+
+	@Override
+	public void stop() {
+		Disposable schedule = this.schedule;
+		if (schedule != null) {
+			schedule.dispose();
+		}
+		this.schedule = null;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.schedule != null;
+	}
+
+}
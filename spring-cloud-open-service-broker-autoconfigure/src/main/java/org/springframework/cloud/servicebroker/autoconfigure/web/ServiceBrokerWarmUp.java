@@ -0,0 +1,291 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.controller.CatalogController;
+import org.springframework.cloud.servicebroker.controller.ServiceInstanceBindingController;
+import org.springframework.cloud.servicebroker.controller.ServiceInstanceController;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.service.CatalogService;
+import org.springframework.cloud.servicebroker.service.CatalogViewService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Exercises the service broker request handling paths before the application accepts traffic, so that the first
+ * requests from the platform do not run through cold Jackson, Reactor and controller code.
+ *
+ * <p>
+ * Each iteration sends synthetic catalog, provision, bind and last operation requests through controllers backed by
+ * the application's {@link CatalogService} and by in-memory service implementations, reading the request bodies and
+ * writing the response bodies with the application's {@link ObjectMapper}. The application's service implementations
+ * are never called, and the operations are not traced.
+ *
+ * <p>
+ * The warm-up runs when the application context starts, which happens before the embedded web server starts
+ * listening. It stops after the configured number of iterations or when the timeout passes, and a failure is logged
+ * without preventing the application from starting.
+ */
+public class ServiceBrokerWarmUp implements SmartLifecycle {
+
+	private static final Logger logger = LoggerFactory.getLogger(ServiceBrokerWarmUp.class);
+
+	private static final String INSTANCE_ID = "warm-up-instance";
+
+	private static final String BINDING_ID = "warm-up-binding";
+
+	private static final String ORIGINATING_IDENTITY = "cloudfoundry " + Base64.getEncoder()
+			.encodeToString("{\"user_id\":\"warm-up\"}".getBytes(StandardCharsets.UTF_8));
+
+	private final CatalogService catalogService;
+
+	private final ObjectMapper objectMapper;
+
+	private final int iterations;
+
+	private final Duration timeout;
+
+	private final CatalogController catalogController;
+
+	private final ServiceInstanceController serviceInstanceController;
+
+	private final ServiceInstanceBindingController serviceInstanceBindingController;
+
+	private volatile boolean running;
+
+	private volatile int completedIterations;
+
+	/**
+	 * Construct a new {@link ServiceBrokerWarmUp}
+	 *
+	 * @param catalogService the catalog service
+	 * @param catalogViewService the catalog view service
+	 * @param objectMapper the object mapper used to read requests and write responses
+	 * @param iterations the number of times each request is sent
+	 * @param timeout the time after which the warm-up stops
+	 */
+	public ServiceBrokerWarmUp(CatalogService catalogService, CatalogViewService catalogViewService,
+			ObjectMapper objectMapper, int iterations, Duration timeout) {
+		this.catalogService = catalogService;
+		this.objectMapper = objectMapper;
+		this.iterations = iterations;
+		this.timeout = timeout;
+		this.catalogController = new CatalogController(catalogService, catalogViewService);
+		this.serviceInstanceController = new ServiceInstanceController(catalogService,
+				new WarmUpServiceInstanceService());
+		this.serviceInstanceBindingController = new ServiceInstanceBindingController(catalogService,
+				new WarmUpServiceInstanceBindingService());
+	}
+
+	@Override
+	public void start() {
+		this.running = true;
+		try {
+			warmUp();
+		}
+		catch (IOException | RuntimeException e) {
+			logger.warn("Service broker warm-up failed after " + this.completedIterations + " iterations", e);
+		}
+	}
+
+	@Override
+	public void stop() {
+		this.running = false;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	/**
+	 * @return the number of iterations completed by the last warm-up
+	 */
+	public int getCompletedIterations() {
+		return this.completedIterations;
+	}
+
+	private void warmUp() throws IOException {
+		Catalog catalog = this.catalogService.getCatalog().block();
+		ServiceDefinition serviceDefinition = findServiceDefinition(catalog);
+		byte[] createRequest = serviceDefinition == null ? null : createRequestBody(serviceDefinition, false);
+		byte[] bindRequest = serviceDefinition == null ? null : createRequestBody(serviceDefinition, true);
+
+		long started = System.nanoTime();
+		long deadline = started + this.timeout.toNanos();
+		long firstIterationNanos = 0;
+		long lastIterationNanos = 0;
+		this.completedIterations = 0;
+		while (this.completedIterations < this.iterations && System.nanoTime() - deadline < 0) {
+			long iterationStarted = System.nanoTime();
+			requestCatalog();
+			if (serviceDefinition != null) {
+				provision(createRequest);
+				bind(bindRequest);
+				requestLastOperations(serviceDefinition);
+			}
+			lastIterationNanos = System.nanoTime() - iterationStarted;
+			if (this.completedIterations == 0) {
+				firstIterationNanos = lastIterationNanos;
+			}
+			this.completedIterations++;
+		}
+		logger.info("Service broker warm-up ran {} iterations in {} ms; the first iteration took {} us and the last "
+						+ "{} us", this.completedIterations, Duration.ofNanos(System.nanoTime() - started).toMillis(),
+				firstIterationNanos / 1000, lastIterationNanos / 1000);
+	}
+
+	private void requestCatalog() {
+		this.catalogController.getCatalogView(Collections.emptyMap(), ORIGINATING_IDENTITY, null).block();
+		this.catalogController.getCatalogView(Collections.emptyMap(), ORIGINATING_IDENTITY, "gzip").block();
+	}
+
+	private void provision(byte[] body) throws IOException {
+		CreateServiceInstanceRequest request = this.objectMapper.readValue(body, CreateServiceInstanceRequest.class);
+		writeBody(this.serviceInstanceController.createServiceInstance(Collections.emptyMap(), INSTANCE_ID, true,
+				null, ORIGINATING_IDENTITY, request).block());
+	}
+
+	private void bind(byte[] body) throws IOException {
+		CreateServiceInstanceBindingRequest request = this.objectMapper.readValue(body,
+				CreateServiceInstanceBindingRequest.class);
+		writeBody(this.serviceInstanceBindingController.createServiceInstanceBinding(Collections.emptyMap(),
+				INSTANCE_ID, BINDING_ID, false, null, ORIGINATING_IDENTITY, request).block());
+	}
+
+	private void requestLastOperations(ServiceDefinition serviceDefinition) throws IOException {
+		String planId = serviceDefinition.getPlans().get(0).getId();
+		writeBody(this.serviceInstanceController.getServiceInstanceLastOperation(Collections.emptyMap(), INSTANCE_ID,
+				serviceDefinition.getId(), planId, null, null, ORIGINATING_IDENTITY).block());
+		writeBody(this.serviceInstanceBindingController.getServiceInstanceBindingLastOperation(Collections.emptyMap(),
+				INSTANCE_ID, BINDING_ID, serviceDefinition.getId(), planId, null, null, ORIGINATING_IDENTITY).block());
+	}
+
+	private void writeBody(ResponseEntity<?> response) throws IOException {
+		if (response != null && response.getBody() != null) {
+			this.objectMapper.writeValueAsBytes(response.getBody());
+		}
+	}
+
+	private byte[] createRequestBody(ServiceDefinition serviceDefinition, boolean binding) throws IOException {
+		Map<String, Object> context = new LinkedHashMap<>();
+		context.put("platform", "cloudfoundry");
+		context.put("organization_guid", "warm-up-organization");
+		context.put("space_guid", "warm-up-space");
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("service_id", serviceDefinition.getId());
+		body.put("plan_id", serviceDefinition.getPlans().get(0).getId());
+		body.put("context", context);
+		body.put("parameters", Collections.singletonMap("warm_up", true));
+		if (binding) {
+			body.put("app_guid", "warm-up-app");
+			body.put("bind_resource", Collections.singletonMap("app_guid", "warm-up-app"));
+		}
+		else {
+			body.put("organization_guid", "warm-up-organization");
+			body.put("space_guid", "warm-up-space");
+		}
+		return this.objectMapper.writeValueAsBytes(body);
+	}
+
+	private static ServiceDefinition findServiceDefinition(Catalog catalog) {
+		if (catalog == null || catalog.getServiceDefinitions() == null) {
+			return null;
+		}
+		for (ServiceDefinition serviceDefinition : catalog.getServiceDefinitions()) {
+			if (serviceDefinition.getPlans() != null && !serviceDefinition.getPlans().isEmpty()) {
+				return serviceDefinition;
+			}
+		}
+		return null;
+	}
+
+	private static final class WarmUpServiceInstanceService implements ServiceInstanceService {
+
+		@Override
+		public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+			return Mono.just(CreateServiceInstanceResponse.builder()
+					.dashboardUrl("https://warm-up.example.com")
+					.build());
+		}
+
+		@Override
+		public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+			return Mono.just(GetLastServiceOperationResponse.builder()
+					.operationState(OperationState.SUCCEEDED)
+					.description("warm-up")
+					.build());
+		}
+
+		@Override
+		public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+			return Mono.just(DeleteServiceInstanceResponse.builder().build());
+		}
+
+	}
+
+	private static final class WarmUpServiceInstanceBindingService implements ServiceInstanceBindingService {
+
+		@Override
+		public Mono<CreateServiceInstanceBindingResponse> createServiceInstanceBinding(
+				CreateServiceInstanceBindingRequest request) {
+			return Mono.just(CreateServiceInstanceAppBindingResponse.builder()
+					.credentials("uri", "https://warm-up.example.com")
+					.build());
+		}
+
+		@Override
+		public Mono<GetLastServiceBindingOperationResponse> getLastOperation(
+				GetLastServiceBindingOperationRequest request) {
+			return Mono.just(GetLastServiceBindingOperationResponse.builder()
+					.operationState(OperationState.SUCCEEDED)
+					.description("warm-up")
+					.build());
+		}
+
+	}
+
+}
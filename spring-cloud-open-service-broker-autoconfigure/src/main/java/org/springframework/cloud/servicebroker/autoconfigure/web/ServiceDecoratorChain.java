@@ -0,0 +1,153 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingEventService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceEventService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.outbox.EventFlowOutbox;
+import org.springframework.cloud.servicebroker.service.lease.LeasedServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.lease.OperationLeaseManager;
+import org.springframework.cloud.servicebroker.service.longpoll.LongPollingServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.longpoll.LongPollingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.longpoll.OperationStateSignals;
+import org.springframework.cloud.servicebroker.service.priority.OperationScheduler;
+import org.springframework.cloud.servicebroker.service.priority.PrioritizedServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.priority.PrioritizedServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.replay.ReplayCache;
+import org.springframework.cloud.servicebroker.service.replay.ReplayingServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.replay.ReplayingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.resilience.ResilienceRegistry;
+import org.springframework.cloud.servicebroker.service.resilience.ResilientServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.resilience.ResilientServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.tracing.OperationTracer;
+import org.springframework.core.ResolvableType;
+
+/**
+ * Wraps the {@link ServiceInstanceService} and {@link ServiceInstanceBindingService} used by the controllers with the
+ * decorators whose beans are present in the application context, so that the servlet and reactive web
+ * configurations assemble the same chain.
+ *
+ * <p>
+ * From the innermost to the outermost, the decorators are: resilience guards, operation leases, priority scheduling,
+ * long polling of the last operation, event flows, and response replay. Long polling is inside the event flows, so
+ * that the flows run once per request however many times a waiting request queries the state of the operation, and
+ * outside priority scheduling, so that a waiting request does not hold a scheduling slot.
+ */
+public class ServiceDecoratorChain {
+
+	private final EventFlowRegistries eventFlowRegistries;
+
+	private final EventFlowOutbox eventFlowOutbox;
+
+	private final OperationTracer operationTracer;
+
+	private final ResilienceRegistry resilienceRegistry;
+
+	private final OperationLeaseManager operationLeaseManager;
+
+	private final OperationScheduler operationScheduler;
+
+	private final OperationStateSignals operationStateSignals;
+
+	private final ReplayCache<CreateServiceInstanceResponse> serviceInstanceReplayCache;
+
+	private final ReplayCache<CreateServiceInstanceBindingResponse> serviceInstanceBindingReplayCache;
+
+	/**
+	 * Construct a new {@link ServiceDecoratorChain} from the beans of an application context.
+	 *
+	 * @param beanFactory the bean factory providing the {@link EventFlowRegistries} and the optional decorator beans
+	 * @param operationTracer the tracer of the event flows
+	 */
+	public ServiceDecoratorChain(BeanFactory beanFactory, OperationTracer operationTracer) {
+		this.eventFlowRegistries = beanFactory.getBean(EventFlowRegistries.class);
+		this.eventFlowOutbox = beanFactory.getBeanProvider(EventFlowOutbox.class).getIfAvailable();
+		this.operationTracer = operationTracer;
+		this.resilienceRegistry = beanFactory.getBeanProvider(ResilienceRegistry.class).getIfAvailable();
+		this.operationLeaseManager = beanFactory.getBeanProvider(OperationLeaseManager.class).getIfAvailable();
+		this.operationScheduler = beanFactory.getBeanProvider(OperationScheduler.class).getIfAvailable();
+		this.operationStateSignals = beanFactory.getBeanProvider(OperationStateSignals.class).getIfAvailable();
+		this.serviceInstanceReplayCache = getReplayCache(beanFactory, CreateServiceInstanceResponse.class);
+		this.serviceInstanceBindingReplayCache = getReplayCache(beanFactory,
+				CreateServiceInstanceBindingResponse.class);
+	}
+
+	/**
+	 * Wrap a service instance service with the decorators of the chain.
+	 *
+	 * @param serviceInstanceService the service to wrap
+	 * @return the outermost decorator
+	 */
+	public ServiceInstanceService decorate(ServiceInstanceService serviceInstanceService) {
+		ServiceInstanceService service = serviceInstanceService;
+		if (this.resilienceRegistry != null) {
+			service = new ResilientServiceInstanceService(service, this.resilienceRegistry);
+		}
+		if (this.operationLeaseManager != null) {
+			service = new LeasedServiceInstanceService(service, this.operationLeaseManager);
+		}
+		if (this.operationScheduler != null) {
+			service = new PrioritizedServiceInstanceService(service, this.operationScheduler);
+		}
+		if (this.operationStateSignals != null) {
+			service = new LongPollingServiceInstanceService(service, this.operationStateSignals);
+		}
+		service = new ServiceInstanceEventService(service, this.eventFlowRegistries, this.eventFlowOutbox,
+				this.operationTracer);
+		if (this.serviceInstanceReplayCache != null) {
+			service = new ReplayingServiceInstanceService(service, this.serviceInstanceReplayCache);
+		}
+		return service;
+	}
+
+	/**
+	 * Wrap a service instance binding service with the decorators of the chain. Bindings are not leased.
+	 *
+	 * @param serviceInstanceBindingService the service to wrap
+	 * @return the outermost decorator
+	 */
+	public ServiceInstanceBindingService decorate(ServiceInstanceBindingService serviceInstanceBindingService) {
+		ServiceInstanceBindingService service = serviceInstanceBindingService;
+		if (this.resilienceRegistry != null) {
+			service = new ResilientServiceInstanceBindingService(service, this.resilienceRegistry);
+		}
+		if (this.operationScheduler != null) {
+			service = new PrioritizedServiceInstanceBindingService(service, this.operationScheduler);
+		}
+		if (this.operationStateSignals != null) {
+			service = new LongPollingServiceInstanceBindingService(service, this.operationStateSignals);
+		}
+		service = new ServiceInstanceBindingEventService(service, this.eventFlowRegistries, this.eventFlowOutbox,
+				this.operationTracer);
+		if (this.serviceInstanceBindingReplayCache != null) {
+			service = new ReplayingServiceInstanceBindingService(service, this.serviceInstanceBindingReplayCache);
+		}
+		return service;
+	}
+
+	private static <T> ReplayCache<T> getReplayCache(BeanFactory beanFactory, Class<T> responseType) {
+		return beanFactory.<ReplayCache<T>>getBeanProvider(
+				ResolvableType.forClassWithGenerics(ReplayCache.class, responseType)).getIfAvailable();
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.reactive;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.servicebroker.autoconfigure.web.BrokerCredentialVerifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+/**
+ * {@link WebFilter} that rejects service broker API and admin requests that do not carry basic authentication
+ * credentials accepted by a {@link BrokerCredentialVerifier}.
+ *
+ * <p>
+ * Requests whose Authorization header has recently been verified pass through on the calling thread. Other requests
+ * are verified on the parallel scheduler, so that password hashing does not hold up the server's event loop.
+ */
+public class BrokerAuthenticationWebFilter implements WebFilter {
+
+	private static final String PLATFORM_INSTANCE_ID_VARIABLE = "platformInstanceId";
+
+	private static final String WWW_AUTHENTICATE_VALUE = "Basic realm=\"service-broker\"";
+
+	private final PathPattern v2ApiPattern = new PathPatternParser().parse("/v2/**");
+
+	private final PathPattern adminApiPattern =
+			new PathPatternParser().parse(ServiceInstanceStateWebFluxController.ADMIN_PATH + "/**");
+
+	private final PathPattern platformInstanceV2ApiPattern =
+			new PathPatternParser().parse("/{" + PLATFORM_INSTANCE_ID_VARIABLE + "}/v2/**");
+
+	private final BrokerCredentialVerifier verifier;
+
+	/**
+	 * Construct a filter that verifies credentials with the given verifier.
+	 *
+	 * @param verifier the credential verifier
+	 */
+	public BrokerAuthenticationWebFilter(BrokerCredentialVerifier verifier) {
+		this.verifier = verifier;
+	}
+
+	/**
+	 * Verify the Authorization header of service broker API requests against the credentials accepted for the
+	 * platform instance ID in the path. If they are not accepted, then set an HTTP 401 status.
+	 *
+	 * @param exchange {@inheritDoc}
+	 * @param chain {@inheritDoc}
+	 * @return {@inheritDoc}
+	 */
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+		String platformInstanceId;
+		if (this.v2ApiPattern.matches(path) || this.adminApiPattern.matches(path)) {
+			platformInstanceId = null;
+		}
+		else {
+			PathPattern.PathMatchInfo matchInfo = this.platformInstanceV2ApiPattern.matchAndExtract(path);
+			if (matchInfo == null) {
+				return chain.filter(exchange);
+			}
+			platformInstanceId = matchInfo.getUriVariables().get(PLATFORM_INSTANCE_ID_VARIABLE);
+		}
+
+		String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+		if (this.verifier.isVerified(authorization, platformInstanceId)) {
+			return chain.filter(exchange);
+		}
+		return Mono.fromCallable(() -> this.verifier.verify(authorization, platformInstanceId))
+				.subscribeOn(Schedulers.parallel())
+				.flatMap(verified -> verified ? chain.filter(exchange) : unauthorized(exchange.getResponse()));
+	}
+
+	private Mono<Void> unauthorized(ServerHttpResponse response) {
+		response.setStatusCode(HttpStatus.UNAUTHORIZED);
+		response.getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, WWW_AUTHENTICATE_VALUE);
+		return response.setComplete();
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.reactive;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadline;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+/**
+ * {@link WebFilter} that reads the deadline requested by the platform from a request header and makes it available to
+ * the service broker controllers in the Reactor context.
+ */
+public class OperationDeadlineWebFilter implements WebFilter {
+
+	private final String headerName;
+
+	/**
+	 * Construct a filter that reads the deadline from a request header.
+	 *
+	 * @param headerName the name of the header holding the number of milliseconds the platform waits for the response
+	 */
+	public OperationDeadlineWebFilter(String headerName) {
+		this.headerName = headerName;
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		OperationDeadline deadline = OperationDeadline.parse(exchange.getRequest().getHeaders().getFirst(this.headerName));
+		if (deadline == null) {
+			return chain.filter(exchange);
+		}
+		return chain.filter(exchange)
+				.subscriberContext(context -> context.put(OperationDeadline.CONTEXT_KEY, deadline));
+	}
+
+}
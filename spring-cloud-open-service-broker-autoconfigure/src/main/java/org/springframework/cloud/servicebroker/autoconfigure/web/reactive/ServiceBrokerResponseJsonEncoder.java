@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.cloud.servicebroker.model.util.ServiceBrokerJacksonModule;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+
+/**
+ * {@link Jackson2JsonEncoder} that writes the service broker responses handled by the
+ * {@link ServiceBrokerJacksonModule} with an {@link ObjectMapper} that has the module registered. All other types are
+ * left to the application's encoders.
+ */
+public class ServiceBrokerResponseJsonEncoder extends Jackson2JsonEncoder {
+
+	/**
+	 * Construct a new {@link ServiceBrokerResponseJsonEncoder}
+	 *
+	 * @param objectMapper the application's {@link ObjectMapper}, which is copied before the module is registered
+	 */
+	public ServiceBrokerResponseJsonEncoder(ObjectMapper objectMapper) {
+		super(objectMapper.copy().registerModule(new ServiceBrokerJacksonModule()));
+	}
+
+	@Override
+	public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+		return ServiceBrokerJacksonModule.isSerializedType(elementType.resolve(Object.class))
+				&& super.canEncode(elementType, mimeType);
+	}
+
+}
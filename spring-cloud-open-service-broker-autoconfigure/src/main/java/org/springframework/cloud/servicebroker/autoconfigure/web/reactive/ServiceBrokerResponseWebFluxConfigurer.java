@@ -0,0 +1,39 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.reactive;
+
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * {@link WebFluxConfigurer} that registers a {@link ServiceBrokerResponseJsonEncoder}. Since the encoder only writes
+ * specific types, it is consulted before the application's generic JSON encoder.
+ */
+public class ServiceBrokerResponseWebFluxConfigurer implements WebFluxConfigurer {
+
+	private final ServiceBrokerResponseJsonEncoder encoder;
+
+	protected ServiceBrokerResponseWebFluxConfigurer(ServiceBrokerResponseJsonEncoder encoder) {
+		this.encoder = encoder;
+	}
+
+	@Override
+	public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+		configurer.customCodecs().encoder(this.encoder);
+	}
+
+}
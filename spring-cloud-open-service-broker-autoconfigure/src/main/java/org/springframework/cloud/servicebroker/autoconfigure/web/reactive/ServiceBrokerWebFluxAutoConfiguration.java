@@ -16,26 +16,42 @@
 
 package org.springframework.cloud.servicebroker.autoconfigure.web.reactive;
 
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.autoconfigure.web.reactive.WebFluxAutoConfiguration;
 import org.springframework.cloud.servicebroker.autoconfigure.web.EventFlowsAutoConfiguration;
 import org.springframework.cloud.servicebroker.autoconfigure.web.ServiceBrokerAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.ServiceBrokerProperties;
+import org.springframework.cloud.servicebroker.autoconfigure.web.ServiceBrokerReconciliationJob;
+import org.springframework.cloud.servicebroker.autoconfigure.web.ServiceDecoratorChain;
 import org.springframework.cloud.servicebroker.autoconfigure.web.exception.ServiceInstanceServiceBeanDoesNotExistException;
 import org.springframework.cloud.servicebroker.controller.CatalogController;
 import org.springframework.cloud.servicebroker.controller.ServiceBrokerExceptionHandler;
 import org.springframework.cloud.servicebroker.controller.ServiceInstanceBindingController;
 import org.springframework.cloud.servicebroker.controller.ServiceInstanceController;
 import org.springframework.cloud.servicebroker.service.CatalogService;
-import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingEventService;
+import org.springframework.cloud.servicebroker.service.CatalogViewService;
 import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
-import org.springframework.cloud.servicebroker.service.ServiceInstanceEventService;
 import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
-import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadlines;
+import org.springframework.cloud.servicebroker.service.lease.OperationLeaseManager;
+import org.springframework.cloud.servicebroker.service.reconcile.ReconciliationEngine;
+import org.springframework.cloud.servicebroker.service.tracing.CompositeOperationTracer;
+import org.springframework.cloud.servicebroker.service.tracing.OperationTracer;
+import org.springframework.cloud.servicebroker.service.transfer.ServiceInstanceStateTransfer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 /**
  * {@link EnableAutoConfiguration Auto-configuration} for the service broker REST API
@@ -51,39 +67,51 @@ public class ServiceBrokerWebFluxAutoConfiguration {
 
 	private final CatalogService catalogService;
 
-	private final ServiceInstanceEventService serviceInstanceEventService;
+	private final CatalogViewService catalogViewService;
+
+	private final ServiceInstanceService serviceInstanceService;
 
-	private final ServiceInstanceBindingEventService serviceInstanceBindingEventService;
+	private final ServiceInstanceBindingService serviceInstanceBindingService;
+
+	private final OperationTracer operationTracer;
+
+	private final OperationDeadlines operationDeadlines;
 
 	protected ServiceBrokerWebFluxAutoConfiguration(CatalogService catalogService,
+			ObjectProvider<CatalogViewService> catalogViewService,
 			@Autowired(required = false) ServiceInstanceService serviceInstanceService,
 			ServiceInstanceBindingService serviceInstanceBindingService,
-			EventFlowRegistries eventFlowRegistries) {
+			ObjectProvider<OperationTracer> operationTracers,
+			ObjectProvider<OperationDeadlines> operationDeadlines,
+			BeanFactory beanFactory) {
 		if (serviceInstanceService == null) {
 			throw new ServiceInstanceServiceBeanDoesNotExistException();
 		}
 		this.catalogService = catalogService;
-		this.serviceInstanceEventService = new ServiceInstanceEventService(
-				serviceInstanceService, eventFlowRegistries);
-		this.serviceInstanceBindingEventService = new ServiceInstanceBindingEventService(
-				serviceInstanceBindingService, eventFlowRegistries);
+		this.catalogViewService = catalogViewService.getIfAvailable(() -> new CatalogViewService(catalogService));
+		this.operationTracer = CompositeOperationTracer.of(operationTracers.orderedStream()
+				.collect(Collectors.toList()));
+		this.operationDeadlines = operationDeadlines.getIfAvailable();
+		ServiceDecoratorChain decoratorChain = new ServiceDecoratorChain(beanFactory, this.operationTracer);
+		this.serviceInstanceService = decoratorChain.decorate(serviceInstanceService);
+		this.serviceInstanceBindingService = decoratorChain.decorate(serviceInstanceBindingService);
 	}
 
 	@Bean
 	public CatalogController catalogController() {
-		return new CatalogController(this.catalogService);
+		return new CatalogController(this.catalogService, this.catalogViewService);
 	}
 
 	@Bean
 	public ServiceInstanceController serviceInstanceController() {
 		return new ServiceInstanceController(this.catalogService,
-				this.serviceInstanceEventService);
+				this.serviceInstanceService, this.operationTracer, this.operationDeadlines);
 	}
 
 	@Bean
 	public ServiceInstanceBindingController serviceInstanceBindingController() {
 		return new ServiceInstanceBindingController(this.catalogService,
-				this.serviceInstanceBindingEventService);
+				this.serviceInstanceBindingService, this.operationTracer, this.operationDeadlines);
 	}
 
 	@Bean
@@ -91,4 +119,50 @@ public class ServiceBrokerWebFluxAutoConfiguration {
 		return new ServiceBrokerExceptionHandler();
 	}
 
+	@Bean
+	public ServiceBrokerResponseWebFluxConfigurer serviceBrokerResponseWebFluxConfigurer(
+			ObjectProvider<ObjectMapper> objectMapper) {
+		return new ServiceBrokerResponseWebFluxConfigurer(new ServiceBrokerResponseJsonEncoder(
+				objectMapper.getIfAvailable(() -> Jackson2ObjectMapperBuilder.json().build())));
+	}
+
+	@Bean
+	@ConditionalOnBean(ReconciliationEngine.class)
+	public ServiceBrokerReconciliationJob serviceBrokerReconciliationJob(ReconciliationEngine reconciliationEngine,
+			ServiceBrokerProperties serviceBrokerProperties,
+			ObjectProvider<OperationLeaseManager> operationLeaseManager) {
+		return new ServiceBrokerReconciliationJob(reconciliationEngine, this.serviceInstanceService,
+				this.serviceInstanceBindingService, serviceBrokerProperties.getReconciliation().getInterval(),
+				operationLeaseManager.getIfAvailable());
+	}
+
+	/**
+	 * Exposes the admin endpoints that export and import service instance and binding state.
+	 */
+	@Configuration
+	@ConditionalOnBean(ServiceInstanceStateTransfer.class)
+	public static class StateTransferConfiguration {
+
+		@Bean
+		public ServiceInstanceStateWebFluxController serviceInstanceStateWebFluxController(ServiceInstanceStateTransfer transfer) {
+			return new ServiceInstanceStateWebFluxController(transfer);
+		}
+
+	}
+
+	/**
+	 * Reads the deadline requested by the platform from the configured request header.
+	 */
+	@Configuration
+	@ConditionalOnBean(OperationDeadlines.class)
+	@ConditionalOnProperty(prefix = "spring.cloud.openservicebroker.operation-deadline", name = "header-name")
+	public static class OperationDeadlineHeaderConfiguration {
+
+		@Bean
+		public OperationDeadlineWebFilter operationDeadlineWebFilter(OperationDeadlines operationDeadlines) {
+			return new OperationDeadlineWebFilter(operationDeadlines.getHeaderName());
+		}
+
+	}
+
 }
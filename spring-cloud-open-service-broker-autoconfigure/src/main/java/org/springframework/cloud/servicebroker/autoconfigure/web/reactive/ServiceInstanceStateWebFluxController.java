@@ -0,0 +1,65 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.reactive;
+
+import java.util.Collections;
+import java.util.Map;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.annotation.ServiceBrokerRestController;
+import org.springframework.cloud.servicebroker.service.transfer.ServiceInstanceStateTransfer;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+/**
+ * Provides admin endpoints that export and import service instance and binding state as newline-delimited JSON. The
+ * export is written to the response buffer by buffer, and the import is read from the request as it arrives.
+ */
+@ServiceBrokerRestController
+public class ServiceInstanceStateWebFluxController {
+
+	static final String ADMIN_PATH = "/admin/service_instances";
+
+	private final ServiceInstanceStateTransfer transfer;
+
+	/**
+	 * Construct a controller.
+	 *
+	 * @param transfer exports and imports the service instances
+	 */
+	public ServiceInstanceStateWebFluxController(ServiceInstanceStateTransfer transfer) {
+		this.transfer = transfer;
+	}
+
+	@GetMapping(value = ADMIN_PATH, produces = ServiceInstanceStateTransfer.NDJSON_MEDIA_TYPE)
+	public Flux<DataBuffer> exportServiceInstances(ServerHttpResponse response) {
+		return this.transfer.exportRecords(response.bufferFactory());
+	}
+
+	@PostMapping(ADMIN_PATH)
+	public Mono<Map<String, Long>> importServiceInstances(@RequestBody Flux<DataBuffer> content) {
+		return this.transfer.importRecords(content)
+				.map(count -> Collections.singletonMap("imported", count));
+	}
+
+}
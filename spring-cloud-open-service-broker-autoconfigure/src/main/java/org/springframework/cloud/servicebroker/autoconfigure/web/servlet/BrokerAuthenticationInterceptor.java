@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.cloud.servicebroker.autoconfigure.web.BrokerCredentialVerifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * {@link HandlerInterceptor} that rejects service broker API requests that do not carry basic authentication
+ * credentials accepted by a {@link BrokerCredentialVerifier}.
+ */
+public class BrokerAuthenticationInterceptor extends HandlerInterceptorAdapter {
+
+	static final String PLATFORM_INSTANCE_ID_VARIABLE = "platformInstanceId";
+
+	static final String WWW_AUTHENTICATE_VALUE = "Basic realm=\"service-broker\"";
+
+	private final BrokerCredentialVerifier verifier;
+
+	/**
+	 * Construct an interceptor that verifies credentials with the given verifier.
+	 *
+	 * @param verifier the credential verifier
+	 */
+	public BrokerAuthenticationInterceptor(BrokerCredentialVerifier verifier) {
+		this.verifier = verifier;
+	}
+
+	/**
+	 * Verifies the Authorization header against the credentials accepted for the platform instance ID in the path,
+	 * responding with an HTTP 401 status if they are not accepted.
+	 *
+	 * @param request {@inheritDoc}
+	 * @param response {@inheritDoc}
+	 * @param handler {@inheritDoc}
+	 * @return whether the request is authenticated
+	 */
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+		if (this.verifier.verify(authorization, getPlatformInstanceId(request))) {
+			return true;
+		}
+		response.setHeader(HttpHeaders.WWW_AUTHENTICATE, WWW_AUTHENTICATE_VALUE);
+		response.setStatus(HttpStatus.UNAUTHORIZED.value());
+		return false;
+	}
+
+	private static String getPlatformInstanceId(HttpServletRequest request) {
+		Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+		if (variables instanceof Map) {
+			Object platformInstanceId = ((Map<?, ?>) variables).get(PLATFORM_INSTANCE_ID_VARIABLE);
+			return platformInstanceId == null ? null : platformInstanceId.toString();
+		}
+		return null;
+	}
+
+}
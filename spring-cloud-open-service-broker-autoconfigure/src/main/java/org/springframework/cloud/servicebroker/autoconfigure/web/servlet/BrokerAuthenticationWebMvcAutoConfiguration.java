@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.servicebroker.autoconfigure.web.AuthenticationProperties;
+import org.springframework.cloud.servicebroker.autoconfigure.web.BrokerCredentialVerifier;
+import org.springframework.cloud.servicebroker.autoconfigure.web.ServiceBrokerAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.ServiceBrokerProperties;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for basic authentication of the
+ * platforms calling the service broker API. Authentication is enabled with the following
+ * configuration properties:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.authentication.enabled = true
+ * spring.cloud.openservicebroker.authentication.credentials[0].username = admin
+ * spring.cloud.openservicebroker.authentication.credentials[0].password = {bcrypt}...
+ * </pre>
+ *
+ * Encoded passwords are verified with the application's {@link PasswordEncoder} bean if
+ * there is one.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass(PasswordEncoder.class)
+@ConditionalOnBean(ServiceInstanceService.class)
+@ConditionalOnProperty(prefix = "spring.cloud.openservicebroker.authentication", name = "enabled", havingValue = "true")
+@AutoConfigureAfter({WebMvcAutoConfiguration.class, ServiceBrokerAutoConfiguration.class})
+@EnableConfigurationProperties(ServiceBrokerProperties.class)
+public class BrokerAuthenticationWebMvcAutoConfiguration {
+
+	private final ServiceBrokerProperties serviceBrokerProperties;
+
+	public BrokerAuthenticationWebMvcAutoConfiguration(ServiceBrokerProperties serviceBrokerProperties) {
+		this.serviceBrokerProperties = serviceBrokerProperties;
+	}
+
+	@Bean
+	@ConditionalOnMissingBean(BrokerCredentialVerifier.class)
+	public BrokerCredentialVerifier brokerCredentialVerifier(ObjectProvider<PasswordEncoder> passwordEncoder) {
+		AuthenticationProperties authentication = this.serviceBrokerProperties.getAuthentication();
+		return new BrokerCredentialVerifier(authentication.getCredentials(),
+				passwordEncoder.getIfAvailable(PasswordEncoderFactories::createDelegatingPasswordEncoder),
+				authentication.getCacheSize(), authentication.getCacheTimeToLive());
+	}
+
+	@Bean
+	public BrokerAuthenticationInterceptor brokerAuthenticationInterceptor(BrokerCredentialVerifier verifier) {
+		return new BrokerAuthenticationInterceptor(verifier);
+	}
+
+	@Bean
+	public BrokerAuthenticationWebMvcConfigurerAdapter brokerAuthenticationWebMvcConfigurerAdapter(
+			BrokerAuthenticationInterceptor brokerAuthenticationInterceptor) {
+		return new BrokerAuthenticationWebMvcConfigurerAdapter(brokerAuthenticationInterceptor);
+	}
+
+}
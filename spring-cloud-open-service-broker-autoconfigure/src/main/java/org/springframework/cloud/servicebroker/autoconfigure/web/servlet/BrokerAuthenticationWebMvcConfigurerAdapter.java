@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * {@link WebMvcConfigurer} that configures basic authentication of service broker API and admin requests.
+ */
+public class BrokerAuthenticationWebMvcConfigurerAdapter implements WebMvcConfigurer {
+
+	private static final String V2_API_PATH_PATTERN = "/v2/**";
+
+	private static final String PLATFORM_INSTANCE_V2_API_PATH_PATTERN = "/*/v2/**";
+
+	private static final String ADMIN_API_PATH_PATTERN = ServiceInstanceStateWebMvcController.ADMIN_PATH + "/**";
+
+	private final BrokerAuthenticationInterceptor brokerAuthenticationInterceptor;
+
+	protected BrokerAuthenticationWebMvcConfigurerAdapter(BrokerAuthenticationInterceptor brokerAuthenticationInterceptor) {
+		this.brokerAuthenticationInterceptor = brokerAuthenticationInterceptor;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(this.brokerAuthenticationInterceptor)
+				.addPathPatterns(V2_API_PATH_PATTERN, PLATFORM_INSTANCE_V2_API_PATH_PATTERN,
+						ADMIN_API_PATH_PATTERN);
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadline;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * {@link HandlerInterceptor} that reads the deadline requested by the platform from a request header and stores it in
+ * a request attribute, where the service broker controllers find it.
+ */
+public class OperationDeadlineInterceptor extends HandlerInterceptorAdapter {
+
+	private final String headerName;
+
+	/**
+	 * Construct an interceptor that reads the deadline from a request header.
+	 *
+	 * @param headerName the name of the header holding the number of milliseconds the platform waits for the response
+	 */
+	public OperationDeadlineInterceptor(String headerName) {
+		this.headerName = headerName;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		OperationDeadline deadline = OperationDeadline.parse(request.getHeader(this.headerName));
+		if (deadline != null) {
+			request.setAttribute(OperationDeadline.CONTEXT_KEY, deadline);
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.annotation.ServiceBrokerRestController;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * {@link HandlerMethodReturnValueHandler} for {@link Mono} values returned by service broker controllers on the
+ * servlet stack.
+ *
+ * <p>
+ * The {@link Mono} is subscribed on the container thread. If it has already completed when the subscription
+ * returns, as is the case for services that do their work synchronously, the value is written directly by the
+ * handler for the resolved type without starting asynchronous request processing. Otherwise, the result is handed
+ * to Spring MVC as a {@link DeferredResult}, exactly as the default reactive type support would do.
+ */
+public class ResolvedMonoReturnValueHandler implements HandlerMethodReturnValueHandler {
+
+	private final List<HandlerMethodReturnValueHandler> delegates;
+
+	/**
+	 * Construct a handler.
+	 *
+	 * @param delegates the handlers used to write resolved values
+	 */
+	public ResolvedMonoReturnValueHandler(List<HandlerMethodReturnValueHandler> delegates) {
+		this.delegates = delegates;
+	}
+
+	@Override
+	public boolean supportsReturnType(MethodParameter returnType) {
+		return Mono.class.isAssignableFrom(returnType.getParameterType())
+				&& AnnotatedElementUtils.hasAnnotation(returnType.getContainingClass(), ServiceBrokerRestController.class);
+	}
+
+	@Override
+	public void handleReturnValue(Object returnValue, MethodParameter returnType, ModelAndViewContainer mavContainer,
+			NativeWebRequest webRequest) throws Exception {
+		if (returnValue == null) {
+			mavContainer.setRequestHandled(true);
+			return;
+		}
+
+		ResultSubscriber subscriber = new ResultSubscriber();
+		((Mono<?>) returnValue).subscribe(subscriber);
+
+		DeferredResult<Object> deferredResult;
+		synchronized (subscriber) {
+			if (subscriber.done) {
+				if (subscriber.error != null) {
+					throw asException(subscriber.error);
+				}
+				handleResolvedValue(subscriber.value, returnType, mavContainer, webRequest);
+				return;
+			}
+			deferredResult = new DeferredResult<>();
+			deferredResult.onTimeout(subscriber::dispose);
+			deferredResult.onError(e -> subscriber.dispose());
+			subscriber.deferredResult = deferredResult;
+		}
+
+		WebAsyncUtils.getAsyncManager(webRequest).startDeferredResultProcessing(deferredResult, mavContainer);
+	}
+
+	private void handleResolvedValue(Object value, MethodParameter returnType, ModelAndViewContainer mavContainer,
+			NativeWebRequest webRequest) throws Exception {
+		if (value == null) {
+			mavContainer.setRequestHandled(true);
+			return;
+		}
+		MethodParameter resolvedType = new ResolvedValueMethodParameter(returnType, value);
+		for (HandlerMethodReturnValueHandler delegate : this.delegates) {
+			if (delegate != this && delegate.supportsReturnType(resolvedType)) {
+				delegate.handleReturnValue(value, resolvedType, mavContainer, webRequest);
+				return;
+			}
+		}
+		throw new IllegalStateException("No handler for resolved return value type: " + value.getClass());
+	}
+
+	private static Exception asException(Throwable t) {
+		if (t instanceof Exception) {
+			return (Exception) t;
+		}
+		if (t instanceof Error) {
+			throw (Error) t;
+		}
+		return new IllegalStateException(t);
+	}
+
+	private static final class ResultSubscriber extends BaseSubscriber<Object> {
+
+		private boolean done;
+
+		private Object value;
+
+		private Throwable error;
+
+		private DeferredResult<Object> deferredResult;
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			subscription.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		protected synchronized void hookOnNext(Object value) {
+			this.value = value;
+		}
+
+		@Override
+		protected synchronized void hookOnComplete() {
+			this.done = true;
+			if (this.deferredResult != null) {
+				this.deferredResult.setResult(this.value);
+			}
+		}
+
+		@Override
+		protected synchronized void hookOnError(Throwable throwable) {
+			this.done = true;
+			this.error = throwable;
+			if (this.deferredResult != null) {
+				this.deferredResult.setErrorResult(throwable);
+			}
+		}
+
+	}
+
+	/**
+	 * A {@link MethodParameter} that exposes the resolved value type of a {@link Mono} return type, in the same way
+	 * Spring MVC does when handling the result of asynchronous processing.
+	 */
+	private static final class ResolvedValueMethodParameter extends MethodParameter {
+
+		private final Class<?> valueType;
+
+		private final Type genericValueType;
+
+		private ResolvedValueMethodParameter(MethodParameter original, Object value) {
+			super(original);
+			this.valueType = value.getClass();
+			this.genericValueType = ResolvableType.forMethodParameter(original).getGeneric().getType();
+		}
+
+		private ResolvedValueMethodParameter(ResolvedValueMethodParameter original) {
+			super(original);
+			this.valueType = original.valueType;
+			this.genericValueType = original.genericValueType;
+		}
+
+		@Override
+		public Class<?> getParameterType() {
+			return this.valueType;
+		}
+
+		@Override
+		public Type getGenericParameterType() {
+			return this.genericValueType;
+		}
+
+		@Override
+		public ResolvedValueMethodParameter clone() {
+			return new ResolvedValueMethodParameter(this);
+		}
+
+	}
+
+}
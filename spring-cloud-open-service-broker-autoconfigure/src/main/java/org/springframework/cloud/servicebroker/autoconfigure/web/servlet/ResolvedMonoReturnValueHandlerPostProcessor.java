@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+/**
+ * {@link BeanPostProcessor} that places a {@link ResolvedMonoReturnValueHandler} ahead of the default return value
+ * handlers of each {@link RequestMappingHandlerAdapter}.
+ */
+public class ResolvedMonoReturnValueHandlerPostProcessor implements BeanPostProcessor {
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof RequestMappingHandlerAdapter) {
+			RequestMappingHandlerAdapter adapter = (RequestMappingHandlerAdapter) bean;
+			List<HandlerMethodReturnValueHandler> defaultHandlers = adapter.getReturnValueHandlers();
+			if (defaultHandlers != null) {
+				List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(defaultHandlers.size() + 1);
+				handlers.add(new ResolvedMonoReturnValueHandler(defaultHandlers));
+				handlers.addAll(defaultHandlers);
+				adapter.setReturnValueHandlers(handlers);
+			}
+		}
+		return bean;
+	}
+
+}
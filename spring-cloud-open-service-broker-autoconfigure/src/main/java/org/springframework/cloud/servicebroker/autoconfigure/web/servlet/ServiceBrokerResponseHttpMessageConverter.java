@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import java.lang.reflect.Type;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.cloud.servicebroker.model.util.ServiceBrokerJacksonModule;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * {@link MappingJackson2HttpMessageConverter} that writes the service broker responses handled by the
+ * {@link ServiceBrokerJacksonModule} with an {@link ObjectMapper} that has the module registered. It does not read,
+ * and leaves all other types to the application's converters.
+ */
+public class ServiceBrokerResponseHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+	/**
+	 * Construct a new {@link ServiceBrokerResponseHttpMessageConverter}
+	 *
+	 * @param objectMapper the application's {@link ObjectMapper}, which is copied before the module is registered
+	 */
+	public ServiceBrokerResponseHttpMessageConverter(ObjectMapper objectMapper) {
+		super(objectMapper.copy().registerModule(new ServiceBrokerJacksonModule()));
+	}
+
+	@Override
+	public boolean canRead(Class<?> clazz, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+		return ServiceBrokerJacksonModule.isSerializedType(clazz) && super.canWrite(clazz, mediaType);
+	}
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import java.util.List;
+
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * {@link WebMvcConfigurer} that places a {@link ServiceBrokerResponseHttpMessageConverter} ahead of the application's
+ * message converters.
+ */
+public class ServiceBrokerResponseWebMvcConfigurerAdapter implements WebMvcConfigurer {
+
+	private final ServiceBrokerResponseHttpMessageConverter converter;
+
+	protected ServiceBrokerResponseWebMvcConfigurerAdapter(ServiceBrokerResponseHttpMessageConverter converter) {
+		this.converter = converter;
+	}
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.add(0, this.converter);
+	}
+
+}
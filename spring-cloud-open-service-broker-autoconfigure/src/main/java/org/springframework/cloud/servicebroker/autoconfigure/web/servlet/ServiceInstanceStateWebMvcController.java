@@ -0,0 +1,61 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.cloud.servicebroker.annotation.ServiceBrokerRestController;
+import org.springframework.cloud.servicebroker.service.transfer.ServiceInstanceStateTransfer;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Provides admin endpoints that export and import service instance and binding state as newline-delimited JSON. The
+ * export is streamed to the response on an asynchronous request thread, and the import is read from the request body
+ * as it arrives.
+ */
+@ServiceBrokerRestController
+public class ServiceInstanceStateWebMvcController {
+
+	static final String ADMIN_PATH = "/admin/service_instances";
+
+	private final ServiceInstanceStateTransfer transfer;
+
+	/**
+	 * Construct a controller.
+	 *
+	 * @param transfer exports and imports the service instances
+	 */
+	public ServiceInstanceStateWebMvcController(ServiceInstanceStateTransfer transfer) {
+		this.transfer = transfer;
+	}
+
+	@GetMapping(value = ADMIN_PATH, produces = ServiceInstanceStateTransfer.NDJSON_MEDIA_TYPE)
+	public StreamingResponseBody exportServiceInstances() {
+		return outputStream -> this.transfer.exportTo(outputStream).block();
+	}
+
+	@PostMapping(ADMIN_PATH)
+	public Map<String, Long> importServiceInstances(InputStream content) {
+		return Collections.singletonMap("imported", this.transfer.importFrom(content).block());
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.actuate;
+
+import java.time.Duration;
+
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.servicebroker.autoconfigure.actuate.ServiceBrokerOperationsEndpoint.GuardDescriptor;
+import org.springframework.cloud.servicebroker.autoconfigure.actuate.ServiceBrokerOperationsEndpoint.ServiceBrokerOperationsDescriptor;
+import org.springframework.cloud.servicebroker.autoconfigure.web.EventFlowsAutoConfiguration;
+import org.springframework.cloud.servicebroker.service.resilience.CircuitBreaker;
+import org.springframework.cloud.servicebroker.service.resilience.ResilienceRegistry;
+import org.springframework.cloud.servicebroker.service.tracing.OperationAttributes;
+import org.springframework.cloud.servicebroker.service.tracing.OperationTracer;
+import org.springframework.context.annotation.Bean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ServiceBrokerOperationsEndpointAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(ServiceBrokerOperationsEndpointAutoConfiguration.class,
+					EventFlowsAutoConfiguration.class));
+
+	private final OperationAttributes attributes = OperationAttributes.builder()
+			.operation("create_service_instance_binding")
+			.serviceInstanceId("instance-id")
+			.bindingId("binding-id")
+			.build();
+
+	@Test
+	public void endpointIsCreated() {
+		this.contextRunner.run(context -> {
+			assertThat(context).hasSingleBean(OperationActivityRecorder.class);
+			assertThat(context).hasSingleBean(ServiceBrokerOperationsEndpoint.class);
+		});
+	}
+
+	@Test
+	public void endpointIsNotCreatedWhenDisabled() {
+		this.contextRunner
+				.withPropertyValues("management.endpoint.servicebroker.enabled=false")
+				.run(context -> {
+					assertThat(context).doesNotHaveBean(OperationActivityRecorder.class);
+					assertThat(context).doesNotHaveBean(ServiceBrokerOperationsEndpoint.class);
+				});
+	}
+
+	@Test
+	public void endpointReportsCompletedOperations() {
+		this.contextRunner.run(context -> {
+			OperationActivityRecorder recorder = context.getBean(OperationActivityRecorder.class);
+			ServiceBrokerOperationsEndpoint endpoint = context.getBean(ServiceBrokerOperationsEndpoint.class);
+
+			recorder.trace("osb.create_service_instance_binding", this.attributes, () -> Mono.just("done")).block();
+			recorder.trace("osb.create_service_instance_binding", this.attributes,
+					() -> Mono.error(new IllegalStateException())).onErrorResume(e -> Mono.empty()).block();
+
+			ServiceBrokerOperationsDescriptor operations = endpoint.operations();
+			assertThat(operations.getInFlight()).isEmpty();
+			assertThat(operations.getLatencies()).containsOnlyKeys("create_service_instance_binding");
+			assertThat(operations.getLatencies().get("create_service_instance_binding").getCount()).isEqualTo(2);
+			assertThat(operations.getQueueDepths())
+					.containsEntry("create_service_instance", 0)
+					.containsEntry("create_service_instance_binding", 0)
+					.doesNotContainKey("event_outbox");
+		});
+	}
+
+	@Test
+	public void endpointReportsOperationsInProgress() {
+		this.contextRunner.run(context -> {
+			OperationActivityRecorder recorder = context.getBean(OperationActivityRecorder.class);
+			ServiceBrokerOperationsEndpoint endpoint = context.getBean(ServiceBrokerOperationsEndpoint.class);
+
+			Disposable operation = recorder.trace("osb.create_service_instance_binding", this.attributes,
+					Mono::never).subscribe();
+
+			ServiceBrokerOperationsDescriptor operations = endpoint.operations();
+			assertThat(operations.getInFlight()).hasSize(1);
+			assertThat(operations.getInFlight().get(0).getOperation()).isEqualTo("create_service_instance_binding");
+			assertThat(operations.getInFlight().get(0).getServiceInstanceId()).isEqualTo("instance-id");
+			assertThat(operations.getInFlight().get(0).getBindingId()).isEqualTo("binding-id");
+			assertThat(operations.getInFlight().get(0).getAgeMillis()).isGreaterThanOrEqualTo(0);
+
+			operation.dispose();
+
+			assertThat(endpoint.operations().getInFlight()).isEmpty();
+			assertThat(endpoint.operations().getLatencies().get("create_service_instance_binding").getCount())
+					.isEqualTo(1);
+		});
+	}
+
+	@Test
+	public void endpointReportsCircuitBreakers() {
+		this.contextRunner
+				.withUserConfiguration(ResilienceConfiguration.class)
+				.run(context -> {
+					ResilienceRegistry registry = context.getBean(ResilienceRegistry.class);
+					ServiceBrokerOperationsEndpoint endpoint = context.getBean(ServiceBrokerOperationsEndpoint.class);
+
+					registry.execute("service-definition-id", () -> Mono.just("done")).block();
+
+					GuardDescriptor guard = endpoint.operations().getCircuitBreakers().get("service-definition-id");
+					assertThat(guard.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+					assertThat(guard.getCalls()).isEqualTo(1);
+					assertThat(guard.getFailureRate()).isEqualTo(0.0f);
+					assertThat(guard.getConcurrentCalls()).isEqualTo(0);
+					assertThat(guard.getMaxConcurrentCalls()).isEqualTo(10);
+					assertThat(guard.getRejectedCalls()).isEqualTo(0);
+				});
+	}
+
+	@Test
+	public void phasesOtherThanTheOperationAreNotRecorded() {
+		this.contextRunner.run(context -> {
+			OperationActivityRecorder recorder = context.getBean(OperationActivityRecorder.class);
+
+			recorder.trace(OperationTracer.SERVICE_SPAN, this.attributes, () -> Mono.just("done")).block();
+			recorder.trace(OperationTracer.CATALOG_LOOKUP_SPAN, OperationAttributes.builder().build(),
+					() -> Mono.just("done")).block();
+
+			assertThat(recorder.getLatencies()).isEmpty();
+		});
+	}
+
+	@TestConfiguration
+	public static class ResilienceConfiguration {
+		@Bean
+		public ResilienceRegistry resilienceRegistry() {
+			return new ResilienceRegistry(10, 50.0f, 20, Duration.ofSeconds(60), Duration.ofSeconds(30));
+		}
+	}
+
+}
@@ -16,7 +16,12 @@
 
 package org.springframework.cloud.servicebroker.autoconfigure.web;
 
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.diagnostics.FailureAnalysis;
@@ -32,6 +37,9 @@ import org.springframework.cloud.servicebroker.service.CatalogService;
 import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
 import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
 import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.transfer.ServiceInstanceRecord;
+import org.springframework.cloud.servicebroker.service.transfer.ServiceInstanceStateRepository;
+import org.springframework.cloud.servicebroker.service.transfer.ServiceInstanceStateTransfer;
 import org.springframework.context.annotation.Bean;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -91,6 +99,26 @@ public abstract class AbstractServiceBrokerWebAutoConfigurationTest {
 		}
 	}
 
+	@TestConfiguration
+	public static class StateTransferConfiguration {
+
+		@Bean
+		public ServiceInstanceStateTransfer serviceInstanceStateTransfer() {
+			ServiceInstanceStateRepository repository = new ServiceInstanceStateRepository() {
+				@Override
+				public Flux<ServiceInstanceRecord> findAll() {
+					return Flux.empty();
+				}
+
+				@Override
+				public Mono<Void> saveAll(List<ServiceInstanceRecord> records) {
+					return Mono.empty();
+				}
+			};
+			return new ServiceInstanceStateTransfer(repository, new ObjectMapper(), 10, 1);
+		}
+	}
+
 	@TestConfiguration
 	public static class MissingServiceInstanceServiceConfiguration {
 
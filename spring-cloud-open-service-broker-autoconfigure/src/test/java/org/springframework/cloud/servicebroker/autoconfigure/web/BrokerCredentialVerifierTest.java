@@ -0,0 +1,187 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BrokerCredentialVerifierTest {
+
+	private final AtomicInteger passwordChecks = new AtomicInteger();
+
+	private final MutableClock clock = new MutableClock();
+
+	private BrokerCredentialVerifier verifier;
+
+	@Before
+	public void setUp() {
+		BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+		PasswordEncoder countingEncoder = new PasswordEncoder() {
+			@Override
+			public String encode(CharSequence rawPassword) {
+				return bcrypt.encode(rawPassword);
+			}
+
+			@Override
+			public boolean matches(CharSequence rawPassword, String encodedPassword) {
+				passwordChecks.incrementAndGet();
+				return bcrypt.matches(rawPassword, encodedPassword.substring("{bcrypt}".length()));
+			}
+		};
+		this.verifier = new BrokerCredentialVerifier(Arrays.asList(
+				credentials("admin", "{bcrypt}" + bcrypt.encode("secret"), null),
+				credentials("cf", "cf-secret", "cf-instance"),
+				credentials("k8s", "k8s-secret", "k8s-instance")),
+				countingEncoder, 2, Duration.ofMinutes(5), this.clock);
+	}
+
+	@Test
+	public void encodedPasswordIsVerifiedOnce() {
+		assertThat(this.verifier.isVerified(basic("admin", "secret"), null)).isFalse();
+
+		assertThat(this.verifier.verify(basic("admin", "secret"), null)).isTrue();
+		assertThat(this.verifier.verify(basic("admin", "secret"), null)).isTrue();
+		assertThat(this.verifier.isVerified(basic("admin", "secret"), null)).isTrue();
+
+		assertThat(this.passwordChecks.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void verificationExpires() {
+		assertThat(this.verifier.verify(basic("admin", "secret"), null)).isTrue();
+
+		this.clock.advance(Duration.ofMinutes(6));
+
+		assertThat(this.verifier.isVerified(basic("admin", "secret"), null)).isFalse();
+		assertThat(this.verifier.verify(basic("admin", "secret"), null)).isTrue();
+		assertThat(this.passwordChecks.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void wrongPasswordIsRejectedEveryTime() {
+		assertThat(this.verifier.verify(basic("admin", "wrong"), null)).isFalse();
+		assertThat(this.verifier.verify(basic("admin", "wrong"), null)).isFalse();
+
+		assertThat(this.passwordChecks.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void credentialsAreAcceptedForTheirPlatformInstanceOnly() {
+		assertThat(this.verifier.verify(basic("cf", "cf-secret"), "cf-instance")).isTrue();
+		assertThat(this.verifier.verify(basic("cf", "cf-secret"), "k8s-instance")).isFalse();
+		assertThat(this.verifier.verify(basic("cf", "cf-secret"), null)).isFalse();
+		assertThat(this.verifier.verify(basic("k8s", "k8s-secret"), "k8s-instance")).isTrue();
+		assertThat(this.verifier.verify(basic("admin", "secret"), "k8s-instance")).isTrue();
+	}
+
+	@Test
+	public void verificationIsRememberedPerPlatformInstance() {
+		assertThat(this.verifier.verify(basic("admin", "secret"), "cf-instance")).isTrue();
+
+		assertThat(this.verifier.isVerified(basic("admin", "secret"), "cf-instance")).isTrue();
+		assertThat(this.verifier.isVerified(basic("admin", "secret"), "k8s-instance")).isFalse();
+	}
+
+	@Test
+	public void cacheIsBounded() {
+		assertThat(this.verifier.verify(basic("admin", "secret"), "one")).isTrue();
+		assertThat(this.verifier.verify(basic("admin", "secret"), "two")).isTrue();
+		assertThat(this.verifier.verify(basic("admin", "secret"), "three")).isTrue();
+
+		int remembered = 0;
+		for (String platformInstanceId : Arrays.asList("one", "two", "three")) {
+			if (this.verifier.isVerified(basic("admin", "secret"), platformInstanceId)) {
+				remembered++;
+			}
+		}
+		assertThat(remembered).isEqualTo(2);
+		assertThat(this.verifier.isVerified(basic("admin", "secret"), "three")).isTrue();
+	}
+
+	@Test
+	public void malformedHeadersAreRejected() {
+		assertThat(this.verifier.verify(null, null)).isFalse();
+		assertThat(this.verifier.verify("Bearer token", null)).isFalse();
+		assertThat(this.verifier.verify("Basic not-base64!", null)).isFalse();
+		assertThat(this.verifier.verify("Basic " + Base64.getEncoder()
+				.encodeToString("no-separator".getBytes(StandardCharsets.UTF_8)), null)).isFalse();
+	}
+
+	@Test
+	public void credentialsAreRequired() {
+		assertThatThrownBy(() -> new BrokerCredentialVerifier(Collections.emptyList(), new BCryptPasswordEncoder(),
+				10, Duration.ofMinutes(1)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static PlatformCredentials credentials(String username, String password, String platformInstanceId) {
+		PlatformCredentials credentials = new PlatformCredentials();
+		credentials.setUsername(username);
+		credentials.setPassword(password);
+		credentials.setPlatformInstanceId(platformInstanceId);
+		return credentials;
+	}
+
+	private static String basic(String username, String password) {
+		return "Basic " + Base64.getEncoder()
+				.encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private Instant instant = Instant.parse("2019-01-01T00:00:00Z");
+
+		void advance(Duration duration) {
+			this.instant = this.instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return this.instant;
+		}
+
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CatalogSnapshotTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void catalogIsReadBackWithMatchingFingerprint() throws IOException {
+		Path location = this.temporaryFolder.getRoot().toPath().resolve("catalog.snapshot");
+		Catalog catalog = catalog();
+		byte[] fingerprint = CatalogSnapshot.fingerprint(environment("Service One"));
+
+		CatalogSnapshot.write(location, fingerprint, catalog);
+
+		assertThat(CatalogSnapshot.read(location, fingerprint)).isEqualTo(catalog);
+	}
+
+	@Test
+	public void catalogIsNotReadWithDifferentFingerprint() throws IOException {
+		Path location = this.temporaryFolder.getRoot().toPath().resolve("catalog.snapshot");
+
+		CatalogSnapshot.write(location, CatalogSnapshot.fingerprint(environment("Service One")), catalog());
+
+		assertThat(CatalogSnapshot.read(location, CatalogSnapshot.fingerprint(environment("Service Two")))).isNull();
+	}
+
+	@Test
+	public void missingSnapshotIsNotRead() throws IOException {
+		Path location = this.temporaryFolder.getRoot().toPath().resolve("missing.snapshot");
+
+		assertThat(CatalogSnapshot.read(location, new byte[0])).isNull();
+	}
+
+	@Test
+	public void truncatedSnapshotIsRejected() throws IOException {
+		Path location = this.temporaryFolder.getRoot().toPath().resolve("catalog.snapshot");
+		byte[] fingerprint = CatalogSnapshot.fingerprint(environment("Service One"));
+		CatalogSnapshot.write(location, fingerprint, catalog());
+		byte[] contents = Files.readAllBytes(location);
+		Files.write(location, Arrays.copyOf(contents, contents.length - 10));
+
+		assertThatThrownBy(() -> CatalogSnapshot.read(location, fingerprint)).isInstanceOf(IOException.class);
+	}
+
+	@Test
+	public void fingerprintOnlyDependsOnCatalogProperties() {
+		StandardEnvironment environment = environment("Service One");
+		byte[] fingerprint = CatalogSnapshot.fingerprint(environment);
+
+		Map<String, Object> unrelated = new HashMap<>();
+		unrelated.put("spring.cloud.openservicebroker.api-version", "2.14");
+		unrelated.put("spring.cloud.openservicebroker.catalog-snapshot.location", "other.snapshot");
+		environment.getPropertySources().addLast(new MapPropertySource("unrelated", unrelated));
+
+		assertThat(CatalogSnapshot.fingerprint(environment)).isEqualTo(fingerprint);
+		assertThat(CatalogSnapshot.fingerprint(environment("Service Two"))).isNotEqualTo(fingerprint);
+	}
+
+	@Test
+	public void fingerprintDependsOnResolvedPlaceholders() {
+		StandardEnvironment environment = environment("${service-name}");
+		environment.getPropertySources().addLast(new MapPropertySource("names",
+				Collections.singletonMap("service-name", "Service One")));
+		byte[] fingerprint = CatalogSnapshot.fingerprint(environment);
+
+		environment.getPropertySources().replace("names", new MapPropertySource("names",
+				Collections.singletonMap("service-name", "Service Two")));
+
+		assertThat(CatalogSnapshot.fingerprint(environment)).isNotEqualTo(fingerprint);
+	}
+
+	private static StandardEnvironment environment(String serviceName) {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("spring.cloud.openservicebroker.catalog.services[0].id", "service-one-id");
+		properties.put("spring.cloud.openservicebroker.catalog.services[0].name", serviceName);
+		properties.put("spring.cloud.openservicebroker.catalog.services[0].plans[0].id", "plan-one-id");
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new MapPropertySource("catalog", properties));
+		return environment;
+	}
+
+	private static Catalog catalog() {
+		return Catalog.builder()
+				.serviceDefinitions(ServiceDefinition.builder()
+						.id("service-one-id")
+						.name("Service One")
+						.description("Description for Service One")
+						.bindable(true)
+						.tags("tag1")
+						.requires("syslog_drain")
+						.metadata("key", "value")
+						.plans(Plan.builder()
+								.id("plan-one-id")
+								.name("Plan One")
+								.description("Description for Plan One")
+								.metadata("key", "value")
+								.free(true)
+								.bindable(true)
+								.build())
+						.build())
+				.build();
+	}
+
+}
@@ -1,8 +1,12 @@
 package org.springframework.cloud.servicebroker.autoconfigure.web;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import reactor.core.publisher.Mono;
 
 import org.springframework.boot.autoconfigure.AutoConfigurations;
@@ -32,12 +36,15 @@ import org.springframework.cloud.servicebroker.service.events.DeleteServiceInsta
 import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
 import org.springframework.cloud.servicebroker.service.events.EventFlowRegistry;
 import org.springframework.cloud.servicebroker.service.events.UpdateServiceInstanceEventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.outbox.EventFlowOutbox;
+import org.springframework.cloud.servicebroker.service.events.outbox.FileEventFlowOutbox;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceBindingCompletionFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceBindingErrorFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceBindingInitializationFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceCompletionFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceErrorFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceInitializationFlow;
+import org.springframework.cloud.servicebroker.service.events.flows.BatchedCompletionFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceBindingCompletionFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceBindingErrorFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceBindingInitializationFlow;
@@ -60,6 +67,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 public class EventFlowsAutoConfigurationTest {
 
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
 			.withConfiguration(AutoConfigurations.of(EventFlowsAutoConfiguration.class));
 
@@ -75,6 +85,24 @@ public class EventFlowsAutoConfigurationTest {
 				.run(this::assertBeans);
 	}
 
+	@Test
+	public void eventFlowOutboxIsNotCreatedByDefault() {
+		this.contextRunner
+				.run(context -> assertThat(context).doesNotHaveBean(EventFlowOutbox.class));
+	}
+
+	@Test
+	public void eventFlowOutboxIsCreatedWhenEnabled() throws IOException {
+		String directory = this.temporaryFolder.newFolder("outbox").getAbsolutePath();
+		this.contextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.event-outbox.enabled=true",
+						"spring.cloud.openservicebroker.event-outbox.directory=" + directory)
+				.run(context -> {
+					assertThat(context).hasSingleBean(FileEventFlowOutbox.class);
+					assertThat(Paths.get(directory, "events.log")).exists();
+				});
+	}
+
 	@Test
 	public void createInstanceEventFlowBeansAreConfigured() {
 		this.contextRunner
@@ -159,6 +187,21 @@ public class EventFlowsAutoConfigurationTest {
 				});
 	}
 
+	@Test
+	public void batchedCompletionFlowBeansAreConfigured() {
+		this.contextRunner
+				.withUserConfiguration(BatchedCompletionFlowBeansConfiguration.class)
+				.run(context -> {
+					assertBeans(context);
+					assertThat((List<?>) ReflectionTestUtils.getField(
+							context.getBean(CreateServiceInstanceBindingEventFlowRegistry.class), "completionFlowBuffers"))
+							.hasSize(1);
+					assertThat((List<?>) ReflectionTestUtils.getField(
+							context.getBean(CreateServiceInstanceEventFlowRegistry.class), "completionFlowBuffers"))
+							.isEmpty();
+				});
+	}
+
 	private void assertBeans(AssertableApplicationContext context) {
 		assertThat(context)
 				.getBean(CreateServiceInstanceEventFlowRegistry.class)
@@ -549,4 +592,15 @@ public class EventFlowsAutoConfigurationTest {
 			};
 		}
 	}
-}
\ No newline at end of file
+
+	@TestConfiguration
+	public static class BatchedCompletionFlowBeansConfiguration {
+
+		@Bean
+		public BatchedCompletionFlow<CreateServiceInstanceBindingRequest, CreateServiceInstanceBindingResponse> createBindingBatchedFlow() {
+			return events -> Mono.empty();
+		}
+
+	}
+
+}
@@ -18,29 +18,80 @@ package org.springframework.cloud.servicebroker.autoconfigure.web;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.OpenTelemetry;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.beans.factory.UnsatisfiedDependencyException;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.diagnostics.FailureAnalysis;
 import org.springframework.boot.diagnostics.FailureAnalyzer;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.cloud.servicebroker.autoconfigure.web.exception.CatalogDefinitionDoesNotExistException;
 import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.model.util.ServiceBrokerJacksonModule;
 import org.springframework.cloud.servicebroker.service.BeanCatalogService;
+import org.springframework.cloud.servicebroker.service.BlockingServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.BlockingServiceInstanceBindingServiceAdapter;
+import org.springframework.cloud.servicebroker.service.BlockingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.BlockingServiceInstanceServiceAdapter;
+import org.springframework.cloud.servicebroker.service.BlockingServiceSchedulers;
 import org.springframework.cloud.servicebroker.service.CatalogService;
+import org.springframework.cloud.servicebroker.service.CatalogViewKey;
+import org.springframework.cloud.servicebroker.service.CatalogViewRule;
+import org.springframework.cloud.servicebroker.service.CatalogViewService;
 import org.springframework.cloud.servicebroker.service.NonBindableServiceInstanceBindingService;
 import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
 import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
 import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadlines;
+import org.springframework.cloud.servicebroker.service.lease.JdbcOperationLeaseManager;
+import org.springframework.cloud.servicebroker.service.lease.OperationLeaseManager;
+import org.springframework.cloud.servicebroker.service.longpoll.OperationStateSignals;
+import org.springframework.cloud.servicebroker.service.priority.OperationClass;
+import org.springframework.cloud.servicebroker.service.priority.OperationScheduler;
+import org.springframework.cloud.servicebroker.service.reconcile.BackendInventorySource;
+import org.springframework.cloud.servicebroker.service.reconcile.PlatformInventorySource;
+import org.springframework.cloud.servicebroker.service.reconcile.ReconciliationEngine;
+import org.springframework.cloud.servicebroker.service.replay.ReplayCache;
+import org.springframework.cloud.servicebroker.service.resilience.ResilienceRegistry;
+import org.springframework.cloud.servicebroker.service.tracing.OpenTelemetryOperationTracer;
+import org.springframework.cloud.servicebroker.service.tracing.OperationTracer;
+import org.springframework.cloud.servicebroker.service.transfer.ServiceInstanceRecord;
+import org.springframework.cloud.servicebroker.service.transfer.ServiceInstanceStateRepository;
+import org.springframework.cloud.servicebroker.service.transfer.ServiceInstanceStateTransfer;
 import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
 
 public class ServiceBrokerAutoConfigurationTest {
 
 	private static final String ANALYZER_DESCRIPTION = "A 'service broker catalog' is required for Spring Cloud Open" +
 			" Service Broker applications";
 
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
 			.withConfiguration(AutoConfigurations.of(ServiceBrokerAutoConfiguration.class));
 
@@ -191,6 +242,348 @@ public class ServiceBrokerAutoConfigurationTest {
 				});
 	}
 
+	@Test
+	public void catalogIsLoadedFromUpToDateSnapshot() {
+		String location = new File(this.temporaryFolder.getRoot(), "catalog.snapshot").getPath();
+		ApplicationContextRunner snapshotContextRunner = this.contextRunner
+				.withUserConfiguration(MissingCatalogServiceConfiguration.class)
+				.withPropertyValues(
+						CatalogSnapshotLoader.LOCATION_PROPERTY + "=" + location,
+						"spring.cloud.openservicebroker.catalog.services[0].id=service-one-id",
+						"spring.cloud.openservicebroker.catalog.services[0].name=Service One",
+						"spring.cloud.openservicebroker.catalog.services[0].description=Description for Service One",
+						"spring.cloud.openservicebroker.catalog.services[0].plans[0].id=plan-one-id",
+						"spring.cloud.openservicebroker.catalog.services[0].plans[0].name=Plan One",
+						"spring.cloud.openservicebroker.catalog.services[0].plans[0].description=Description for Plan One");
+
+		snapshotContextRunner.run((context) ->
+				assertThat(context.getBean(ServiceBrokerProperties.class).getCatalog()).isNotNull());
+		assertThat(new File(location)).exists();
+
+		snapshotContextRunner.run((context) -> {
+			assertThat(context.getBean(ServiceBrokerProperties.class).getCatalog()).isNull();
+			ServiceDefinition serviceDefinition = context.getBean(Catalog.class).getServiceDefinitions().get(0);
+			assertThat(serviceDefinition.getId()).isEqualTo("service-one-id");
+			assertThat(serviceDefinition.getName()).isEqualTo("Service One");
+			assertThat(serviceDefinition.getPlans().get(0).getId()).isEqualTo("plan-one-id");
+			assertThat(serviceDefinition.getPlans().get(0).getName()).isEqualTo("Plan One");
+		});
+
+		snapshotContextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.catalog.services[0].name=Service Renamed")
+				.run((context) -> {
+					assertThat(context.getBean(ServiceBrokerProperties.class).getCatalog()).isNotNull();
+					assertThat(context.getBean(Catalog.class).getServiceDefinitions().get(0).getName())
+							.isEqualTo("Service Renamed");
+				});
+	}
+
+	@Test
+	public void catalogViewServiceAppliesCatalogViewRules() {
+		this.contextRunner
+				.withUserConfiguration(CatalogViewRuleConfiguration.class)
+				.run((context) -> {
+					assertThat(context).hasSingleBean(CatalogViewService.class);
+
+					CatalogViewService catalogViewService = context.getBean(CatalogViewService.class);
+					assertThat(catalogViewService.getCatalogView(CatalogViewKey.of("public", null)).block()
+							.getCatalog().getServiceDefinitions()).hasSize(1);
+					assertThat(catalogViewService.getCatalogView(CatalogViewKey.of("private", null)).block()
+							.getCatalog().getServiceDefinitions()).isEmpty();
+				});
+	}
+
+	@Test
+	public void serviceBrokerJacksonModuleIsNotRegisteredWithObjectMapper() {
+		this.contextRunner
+				.withConfiguration(AutoConfigurations.of(JacksonAutoConfiguration.class))
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class)
+				.run((context) -> {
+					assertThat(context).doesNotHaveBean(ServiceBrokerJacksonModule.class);
+
+					ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+					assertThat(objectMapper.getRegisteredModuleIds())
+							.doesNotContain(new ServiceBrokerJacksonModule().getTypeId());
+					assertThat(objectMapper.writeValueAsString(GetLastServiceOperationResponse.builder()
+							.operationState(OperationState.IN_PROGRESS)
+							.build())).isEqualTo("{\"state\":\"in progress\"}");
+				});
+	}
+
+	@Test
+	public void operationTracerIsCreatedWithOpenTelemetry() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class, OpenTelemetryConfiguration.class)
+				.run((context) -> assertThat(context)
+						.getBean(OperationTracer.class)
+						.isExactlyInstanceOf(OpenTelemetryOperationTracer.class));
+	}
+
+	@Test
+	public void operationTracerIsNotCreatedWithoutOpenTelemetry() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class)
+				.run((context) -> assertThat(context).doesNotHaveBean(OperationTracer.class));
+	}
+
+	@Test
+	public void operationLeaseManagerIsCreatedWhenEnabled() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class, DataSourceConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.operation-lease.enabled=true",
+						"spring.cloud.openservicebroker.operation-lease.duration=10s")
+				.run((context) -> assertThat(context)
+						.getBean(OperationLeaseManager.class)
+						.isExactlyInstanceOf(JdbcOperationLeaseManager.class));
+	}
+
+	@Test
+	public void operationLeaseManagerIsNotCreatedByDefault() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class, DataSourceConfiguration.class)
+				.run((context) -> assertThat(context).doesNotHaveBean(OperationLeaseManager.class));
+	}
+
+	@Test
+	public void replayCachesAreCreatedWhenEnabled() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.response-replay.enabled=true",
+						"spring.cloud.openservicebroker.response-replay.max-size=100")
+				.run((context) -> assertThat(context)
+						.hasBean("serviceInstanceReplayCache")
+						.hasBean("serviceInstanceBindingReplayCache"));
+	}
+
+	@Test
+	public void replayCachesAreRefusedWithOperationLeases() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class, DataSourceConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.response-replay.enabled=true",
+						"spring.cloud.openservicebroker.operation-lease.enabled=true")
+				.run((context) -> assertThat(context).getFailure()
+						.hasRootCauseInstanceOf(IllegalStateException.class));
+	}
+
+	@Test
+	public void replayCachesAreNotCreatedByDefault() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class)
+				.run((context) -> assertThat(context).doesNotHaveBean(ReplayCache.class));
+	}
+
+	@Test
+	public void operationDeadlinesAreCreatedWhenEnabled() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.operation-deadline.enabled=true",
+						"spring.cloud.openservicebroker.operation-deadline.timeout=30s",
+						"spring.cloud.openservicebroker.operation-deadline.timeouts[get_last_service_operation]=5s",
+						"spring.cloud.openservicebroker.operation-deadline.header-name=X-Request-Timeout")
+				.run((context) -> {
+					assertThat(context).hasSingleBean(OperationDeadlines.class);
+					OperationDeadlines deadlines = context.getBean(OperationDeadlines.class);
+					assertThat(deadlines.getTimeout("create_service_instance")).isEqualTo(Duration.ofSeconds(30));
+					assertThat(deadlines.getTimeout("get_last_service_operation")).isEqualTo(Duration.ofSeconds(5));
+					assertThat(deadlines.getHeaderName()).isEqualTo("X-Request-Timeout");
+				});
+	}
+
+	@Test
+	public void operationDeadlinesAreNotCreatedByDefault() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class)
+				.run((context) -> assertThat(context).doesNotHaveBean(OperationDeadlines.class));
+	}
+
+	@Test
+	public void resilienceRegistryIsCreatedWhenEnabled() {
+		this.contextRunner
+				.withUserConfiguration(SingleServiceCatalogConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.resilience.enabled=true",
+						"spring.cloud.openservicebroker.resilience.max-concurrent-calls=5")
+				.run((context) -> {
+					assertThat(context).hasSingleBean(ResilienceRegistry.class);
+					ResilienceRegistry registry = context.getBean(ResilienceRegistry.class);
+					assertThat(registry.getGuard("service-one-id").getBulkhead().getMaxConcurrentCalls())
+							.isEqualTo(5);
+					assertThat(registry.getGuard("unknown-service-id")).isNull();
+				});
+	}
+
+	@Test
+	public void resilienceRegistryIsNotCreatedByDefault() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class)
+				.run((context) -> assertThat(context).doesNotHaveBean(ResilienceRegistry.class));
+	}
+
+	@Test
+	public void operationSchedulerIsCreatedWhenEnabled() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.priority-scheduling.enabled=true",
+						"spring.cloud.openservicebroker.priority-scheduling.weights.create=3",
+						"spring.cloud.openservicebroker.priority-scheduling.weights[last_operation]=6")
+				.run((context) -> {
+					assertThat(context).hasSingleBean(OperationScheduler.class);
+					OperationScheduler scheduler = context.getBean(OperationScheduler.class);
+					assertThat(scheduler.getWeights())
+							.containsEntry(OperationClass.CREATE, 3)
+							.containsEntry(OperationClass.LAST_OPERATION, 6)
+							.containsEntry(OperationClass.DELETE, OperationClass.DELETE.getDefaultWeight());
+				});
+	}
+
+	@Test
+	public void operationSchedulerIsNotCreatedByDefault() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class)
+				.run((context) -> assertThat(context).doesNotHaveBean(OperationScheduler.class));
+	}
+
+	@Test
+	public void operationStateSignalsAreCreatedWhenEnabled() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.long-poll.enabled=true",
+						"spring.cloud.openservicebroker.long-poll.max-wait=5s")
+				.run((context) -> {
+					assertThat(context).hasSingleBean(OperationStateSignals.class);
+					assertThat(context.getBean(OperationStateSignals.class).getMaxWait())
+							.isEqualTo(Duration.ofSeconds(5));
+				});
+	}
+
+	@Test
+	public void operationStateSignalsAreNotCreatedByDefault() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class)
+				.run((context) -> assertThat(context).doesNotHaveBean(OperationStateSignals.class));
+	}
+
+	@Test
+	public void stateTransferIsCreatedWhenEnabled() {
+		this.contextRunner
+				.withUserConfiguration(StateTransferConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.state-transfer.enabled=true")
+				.run((context) -> assertThat(context).hasSingleBean(ServiceInstanceStateTransfer.class));
+	}
+
+	@Test
+	public void stateTransferIsNotCreatedWithoutRepository() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.state-transfer.enabled=true")
+				.run((context) -> assertThat(context).doesNotHaveBean(ServiceInstanceStateTransfer.class));
+	}
+
+	@Test
+	public void stateTransferIsNotCreatedByDefault() {
+		this.contextRunner
+				.withUserConfiguration(StateTransferConfiguration.class)
+				.run((context) -> assertThat(context).doesNotHaveBean(ServiceInstanceStateTransfer.class));
+	}
+
+	@Test
+	public void reconciliationEngineIsCreatedWhenEnabled() {
+		this.contextRunner
+				.withUserConfiguration(ReconciliationConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.reconciliation.enabled=true")
+				.run((context) -> assertThat(context).hasSingleBean(ReconciliationEngine.class));
+	}
+
+	@Test
+	public void reconciliationEngineIsNotCreatedByDefault() {
+		this.contextRunner
+				.withUserConfiguration(ReconciliationConfiguration.class)
+				.run((context) -> assertThat(context).doesNotHaveBean(ReconciliationEngine.class));
+	}
+
+	@Test
+	public void warmUpRunsWhenEnabled() {
+		this.contextRunner
+				.withUserConfiguration(WarmUpConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.warm-up.enabled=true",
+						"spring.cloud.openservicebroker.warm-up.iterations=20")
+				.run((context) -> {
+					assertThat(context).hasSingleBean(ServiceBrokerWarmUp.class);
+					assertThat(context.getBean(ServiceBrokerWarmUp.class).getCompletedIterations()).isEqualTo(20);
+				});
+	}
+
+	@Test
+	public void warmUpIsNotCreatedByDefault() {
+		this.contextRunner
+				.withUserConfiguration(MinimalWithCatalogConfiguration.class)
+				.run((context) -> assertThat(context).doesNotHaveBean(ServiceBrokerWarmUp.class));
+	}
+
+	@Test
+	public void blockingServicesAreAdapted() {
+		this.contextRunner
+				.withUserConfiguration(CatalogConfiguration.class, BlockingServicesConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.blocking-service.max-threads=2")
+				.run((context) -> {
+					assertThat(context)
+							.getBean(ServiceInstanceService.class)
+							.isExactlyInstanceOf(BlockingServiceInstanceServiceAdapter.class);
+
+					assertThat(context)
+							.getBean(ServiceInstanceBindingService.class)
+							.isExactlyInstanceOf(BlockingServiceInstanceBindingServiceAdapter.class);
+
+					assertThat(context).hasSingleBean(BlockingServiceSchedulers.class);
+				});
+	}
+
+	@Test
+	public void blockingServiceIsNotAdaptedWhenServiceIsProvided() {
+		this.contextRunner
+				.withUserConfiguration(BlockingServicesConfiguration.class, MinimalWithCatalogConfiguration.class)
+				.run((context) -> {
+					assertThat(context)
+							.getBean(ServiceInstanceService.class)
+							.isExactlyInstanceOf(TestServiceInstanceService.class);
+
+					assertThat(context)
+							.getBean(ServiceInstanceBindingService.class)
+							.isExactlyInstanceOf(BlockingServiceInstanceBindingServiceAdapter.class);
+				});
+	}
+
+	@TestConfiguration
+	public static class CatalogConfiguration {
+		@Bean
+		public Catalog catalog() {
+			return Catalog.builder().build();
+		}
+	}
+
+	@TestConfiguration
+	public static class BlockingServicesConfiguration {
+		@Bean
+		public BlockingServiceInstanceService blockingServiceInstanceService() {
+			return new BlockingServiceInstanceService() {
+				@Override
+				public CreateServiceInstanceResponse createServiceInstance(CreateServiceInstanceRequest request) {
+					return CreateServiceInstanceResponse.builder().build();
+				}
+
+				@Override
+				public DeleteServiceInstanceResponse deleteServiceInstance(DeleteServiceInstanceRequest request) {
+					return DeleteServiceInstanceResponse.builder().build();
+				}
+			};
+		}
+
+		@Bean
+		public BlockingServiceInstanceBindingService blockingServiceInstanceBindingService() {
+			return new BlockingServiceInstanceBindingService() {
+			};
+		}
+	}
+
 	@TestConfiguration
 	public static class MinimalWithCatalogConfiguration {
 		@Bean
@@ -204,6 +597,146 @@ public class ServiceBrokerAutoConfigurationTest {
 		}
 	}
 
+	@TestConfiguration
+	public static class SingleServiceCatalogConfiguration {
+		@Bean
+		public Catalog catalog() {
+			return Catalog.builder()
+					.serviceDefinitions(ServiceDefinition.builder()
+							.id("service-one-id")
+							.plans(Plan.builder().id("plan-one-id").build())
+							.build())
+					.build();
+		}
+
+		@Bean
+		public ServiceInstanceService serviceInstanceService() {
+			return new TestServiceInstanceService();
+		}
+	}
+
+	@TestConfiguration
+	public static class OpenTelemetryConfiguration {
+		@Bean
+		public OpenTelemetry openTelemetry() {
+			return OpenTelemetry.noop();
+		}
+	}
+
+	@TestConfiguration
+	public static class DataSourceConfiguration {
+		@Bean(destroyMethod = "shutdown")
+		public DataSource dataSource() {
+			return new EmbeddedDatabaseBuilder()
+					.setType(EmbeddedDatabaseType.H2)
+					.generateUniqueName(true)
+					.addScript("classpath:org/springframework/cloud/servicebroker/service/lease/schema.sql")
+					.build();
+		}
+	}
+
+	@TestConfiguration
+	public static class CatalogViewRuleConfiguration {
+		@Bean
+		public Catalog catalog() {
+			return Catalog.builder()
+					.serviceDefinitions(ServiceDefinition.builder()
+							.id("service-one-id")
+							.plans(Plan.builder().id("plan-one-id").build())
+							.build())
+					.build();
+		}
+
+		@Bean
+		public CatalogViewRule publicPlatformsOnly() {
+			return (key, serviceDefinition, plan) -> "public".equals(key.getPlatformInstanceId());
+		}
+
+		@Bean
+		public ServiceInstanceService serviceInstanceService() {
+			return new TestServiceInstanceService();
+		}
+	}
+
+	@TestConfiguration
+	public static class WarmUpConfiguration {
+		@Bean
+		public Catalog catalog() {
+			return Catalog.builder()
+					.serviceDefinitions(ServiceDefinition.builder()
+							.id("service-one-id")
+							.plans(Plan.builder().id("plan-one-id").build())
+							.build())
+					.build();
+		}
+
+		@Bean
+		public ServiceInstanceService serviceInstanceService() {
+			return new ServiceInstanceService() {
+				@Override
+				public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+					return Mono.error(new IllegalStateException("Called by the warm-up"));
+				}
+
+				@Override
+				public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+					return Mono.error(new IllegalStateException("Called by the warm-up"));
+				}
+			};
+		}
+	}
+
+	@TestConfiguration
+	public static class StateTransferConfiguration {
+		@Bean
+		public Catalog catalog() {
+			return Catalog.builder().build();
+		}
+
+		@Bean
+		public ServiceInstanceService serviceInstanceService() {
+			return new TestServiceInstanceService();
+		}
+
+		@Bean
+		public ServiceInstanceStateRepository serviceInstanceStateRepository() {
+			return new ServiceInstanceStateRepository() {
+				@Override
+				public Flux<ServiceInstanceRecord> findAll() {
+					return Flux.empty();
+				}
+
+				@Override
+				public Mono<Void> saveAll(List<ServiceInstanceRecord> records) {
+					return Mono.empty();
+				}
+			};
+		}
+	}
+
+	@TestConfiguration
+	public static class ReconciliationConfiguration {
+		@Bean
+		public Catalog catalog() {
+			return Catalog.builder().build();
+		}
+
+		@Bean
+		public ServiceInstanceService serviceInstanceService() {
+			return new TestServiceInstanceService();
+		}
+
+		@Bean
+		public PlatformInventorySource platformInventorySource() {
+			return Flux::empty;
+		}
+
+		@Bean
+		public BackendInventorySource backendInventorySource() {
+			return Flux::empty;
+		}
+	}
+
 	@TestConfiguration
 	public static class FullServicesWithCatalogConfiguration {
 		@Bean
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.service.BeanCatalogService;
+import org.springframework.cloud.servicebroker.service.lease.OperationLease;
+import org.springframework.cloud.servicebroker.service.lease.OperationLeaseManager;
+import org.springframework.cloud.servicebroker.service.lease.OperationLeaseUnavailableException;
+import org.springframework.cloud.servicebroker.service.reconcile.ReconciliationEngine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ServiceBrokerReconciliationJobTest {
+
+	private final ReconciliationEngine engine = new ReconciliationEngine(Flux::empty, Flux::empty,
+			new BeanCatalogService(Catalog.builder().build()), 1, 0, 10, 0.25, Duration.ofHours(1));
+
+	private final TestLeaseManager leaseManager = new TestLeaseManager();
+
+	private final ServiceBrokerReconciliationJob job = new ServiceBrokerReconciliationJob(this.engine,
+			new TestServiceInstanceService(), new TestServiceInstanceBindingService(), Duration.ofHours(1),
+			this.leaseManager);
+
+	@Test
+	public void runHoldsLease() {
+		StepVerifier.create(this.job.reconcile())
+				.assertNext(result -> assertThat(result.getMatchedItems()).isEqualTo(0))
+				.verifyComplete();
+
+		assertThat(this.leaseManager.acquired).containsExactly(ServiceBrokerReconciliationJob.LEASE_ID);
+		assertThat(this.leaseManager.released).containsExactly(ServiceBrokerReconciliationJob.LEASE_ID);
+		assertThat(this.job.getLastResult()).isNotNull();
+	}
+
+	@Test
+	public void runFailsWhenAnotherNodeHoldsLease() {
+		this.leaseManager.held = true;
+
+		StepVerifier.create(this.job.reconcile())
+				.expectError(OperationLeaseUnavailableException.class)
+				.verify();
+
+		assertThat(this.leaseManager.released).isEmpty();
+		assertThat(this.job.getLastResult()).isNull();
+	}
+
+	private static final class TestLeaseManager implements OperationLeaseManager {
+
+		private final List<String> acquired = new CopyOnWriteArrayList<>();
+
+		private final List<String> released = new CopyOnWriteArrayList<>();
+
+		private volatile boolean held;
+
+		@Override
+		public Mono<OperationLease> acquire(String serviceInstanceId, String operation) {
+			if (this.held) {
+				return Mono.error(new OperationLeaseUnavailableException(serviceInstanceId, operation));
+			}
+			this.acquired.add(serviceInstanceId);
+			return Mono.just(new OperationLease(serviceInstanceId, operation, "owner"));
+		}
+
+		@Override
+		public Mono<Void> release(OperationLease lease) {
+			return Mono.fromRunnable(() -> this.released.add(lease.getServiceInstanceId()));
+		}
+
+		@Override
+		public Mono<String> getLeasedOperation(String serviceInstanceId) {
+			return Mono.empty();
+		}
+
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingEventService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceEventService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceCompletionFlow;
+import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceInitializationFlow;
+import org.springframework.cloud.servicebroker.service.longpoll.LongPollingServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.longpoll.LongPollingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.longpoll.OperationStateSignals;
+import org.springframework.cloud.servicebroker.service.resilience.ResilienceRegistry;
+import org.springframework.cloud.servicebroker.service.tracing.CompositeOperationTracer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ServiceDecoratorChainTest {
+
+	private DefaultListableBeanFactory beanFactory;
+
+	@Before
+	@SuppressWarnings("deprecation")
+	public void setUp() {
+		this.beanFactory = new DefaultListableBeanFactory();
+		this.beanFactory.registerSingleton("eventFlowRegistries", new EventFlowRegistries());
+	}
+
+	@Test
+	public void servicesAreWrappedWithEventServicesByDefault() {
+		ServiceDecoratorChain chain = createChain();
+
+		assertThat(chain.decorate(new TestServiceInstanceService())).isInstanceOf(ServiceInstanceEventService.class);
+		assertThat(chain.decorate(new TestServiceInstanceBindingService()))
+				.isInstanceOf(ServiceInstanceBindingEventService.class);
+	}
+
+	@Test
+	public void decoratorsArePickedUpFromBeanFactory() {
+		this.beanFactory.registerSingleton("resilienceRegistry", new ResilienceRegistry(10, 50.0f, 20,
+				Duration.ofSeconds(60), Duration.ofSeconds(30)));
+		this.beanFactory.registerSingleton("operationStateSignals", new OperationStateSignals(Duration.ofSeconds(5)));
+		ServiceDecoratorChain chain = createChain();
+
+		ServiceInstanceService service = chain.decorate(new TestServiceInstanceService());
+		ServiceInstanceBindingService bindingService = chain.decorate(new TestServiceInstanceBindingService());
+
+		assertThat(service).isInstanceOf(ServiceInstanceEventService.class);
+		assertThat(ReflectionTestUtils.getField(service, "service"))
+				.isInstanceOf(LongPollingServiceInstanceService.class);
+		assertThat(bindingService).isInstanceOf(ServiceInstanceBindingEventService.class);
+		assertThat(ReflectionTestUtils.getField(bindingService, "service"))
+				.isInstanceOf(LongPollingServiceInstanceBindingService.class);
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void eventFlowsRunOncePerLongPoll() {
+		AtomicInteger queries = new AtomicInteger();
+		AtomicInteger initializations = new AtomicInteger();
+		AtomicInteger completions = new AtomicInteger();
+		EventFlowRegistries registries = new EventFlowRegistries();
+		registries.getAsyncOperationRegistry()
+				.addInitializationFlow(new AsyncOperationServiceInstanceInitializationFlow() {
+					@Override
+					public Mono<Void> initialize(GetLastServiceOperationRequest request) {
+						return Mono.fromRunnable(initializations::incrementAndGet);
+					}
+				})
+				.then(registries.getAsyncOperationRegistry()
+						.addCompletionFlow(new AsyncOperationServiceInstanceCompletionFlow() {
+							@Override
+							public Mono<Void> complete(GetLastServiceOperationRequest request,
+									GetLastServiceOperationResponse response) {
+								return Mono.fromRunnable(completions::incrementAndGet);
+							}
+						}))
+				.block();
+		this.beanFactory = new DefaultListableBeanFactory();
+		this.beanFactory.registerSingleton("eventFlowRegistries", registries);
+		this.beanFactory.registerSingleton("operationStateSignals",
+				new OperationStateSignals(Duration.ofMillis(300), Duration.ofMillis(50)));
+		ServiceInstanceService service = createChain().decorate(new TestServiceInstanceService() {
+			@Override
+			public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+				return Mono.fromCallable(() -> {
+					queries.incrementAndGet();
+					return GetLastServiceOperationResponse.builder()
+							.operationState(OperationState.IN_PROGRESS)
+							.build();
+				});
+			}
+		});
+
+		StepVerifier.create(service.getLastOperation(GetLastServiceOperationRequest.builder()
+				.serviceInstanceId("instance-id")
+				.build()))
+				.expectNextCount(1)
+				.verifyComplete();
+
+		assertThat(queries.get()).isGreaterThan(1);
+		assertThat(initializations).hasValue(1);
+		assertThat(completions).hasValue(1);
+	}
+
+	private ServiceDecoratorChain createChain() {
+		return new ServiceDecoratorChain(this.beanFactory, CompositeOperationTracer.of(Collections.emptyList()));
+	}
+
+}
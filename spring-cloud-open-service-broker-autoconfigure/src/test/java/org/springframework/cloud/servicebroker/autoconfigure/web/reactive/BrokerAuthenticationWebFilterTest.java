@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.reactive;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.autoconfigure.web.BrokerCredentialVerifier;
+import org.springframework.cloud.servicebroker.autoconfigure.web.PlatformCredentials;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BrokerAuthenticationWebFilterTest {
+
+	@Mock
+	private WebFilterChain chain;
+
+	private BrokerAuthenticationWebFilter webFilter;
+
+	@Before
+	public void setUp() {
+		MockitoAnnotations.initMocks(this);
+		when(this.chain.filter(any(ServerWebExchange.class))).thenReturn(Mono.empty());
+		this.webFilter = new BrokerAuthenticationWebFilter(new BrokerCredentialVerifier(
+				Arrays.asList(credentials("admin", "secret", null), credentials("cf", "cf-secret", "cf-instance")),
+				PasswordEncoderFactories.createDelegatingPasswordEncoder(), 10, Duration.ofMinutes(1)));
+	}
+
+	@Test
+	public void acceptedCredentialsAreAllowed() {
+		MockServerWebExchange exchange = exchange("/v2/catalog", basic("admin", "secret"));
+
+		this.webFilter.filter(exchange, this.chain).block();
+
+		verify(this.chain).filter(exchange);
+		assertThat(exchange.getResponse().getStatusCode()).isNotEqualTo(HttpStatus.UNAUTHORIZED);
+	}
+
+	@Test
+	public void platformInstanceCredentialsAreAllowed() {
+		MockServerWebExchange exchange = exchange("/cf-instance/v2/catalog", basic("cf", "cf-secret"));
+
+		this.webFilter.filter(exchange, this.chain).block();
+
+		verify(this.chain).filter(exchange);
+	}
+
+	@Test
+	public void credentialsForAnotherPlatformInstanceAreRejected() {
+		MockServerWebExchange exchange = exchange("/other-instance/v2/catalog", basic("cf", "cf-secret"));
+
+		this.webFilter.filter(exchange, this.chain).block();
+
+		verify(this.chain, never()).filter(exchange);
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+		assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.WWW_AUTHENTICATE)).startsWith("Basic");
+	}
+
+	@Test
+	public void missingCredentialsAreRejected() {
+		MockServerWebExchange exchange = exchange("/v2/catalog", null);
+
+		this.webFilter.filter(exchange, this.chain).block();
+
+		verify(this.chain, never()).filter(exchange);
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+	}
+
+	@Test
+	public void otherPathsAreNotAuthenticated() {
+		MockServerWebExchange exchange = exchange("/actuator/health", null);
+
+		this.webFilter.filter(exchange, this.chain).block();
+
+		verify(this.chain).filter(exchange);
+	}
+
+	private static MockServerWebExchange exchange(String path, String authorization) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(path);
+		if (authorization != null) {
+			request.header(HttpHeaders.AUTHORIZATION, authorization);
+		}
+		return MockServerWebExchange.from(request.build());
+	}
+
+	private static PlatformCredentials credentials(String username, String password, String platformInstanceId) {
+		PlatformCredentials credentials = new PlatformCredentials();
+		credentials.setUsername(username);
+		credentials.setPassword(password);
+		credentials.setPlatformInstanceId(platformInstanceId);
+		return credentials;
+	}
+
+	private static String basic(String username, String password) {
+		return "Basic " + Base64.getEncoder()
+				.encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.servicebroker.autoconfigure.web.reactive;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 
 import org.springframework.beans.factory.BeanCreationException;
@@ -29,7 +30,11 @@ import org.springframework.cloud.servicebroker.autoconfigure.web.exception.Servi
 import org.springframework.cloud.servicebroker.controller.CatalogController;
 import org.springframework.cloud.servicebroker.controller.ServiceInstanceBindingController;
 import org.springframework.cloud.servicebroker.controller.ServiceInstanceController;
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
 import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -51,6 +56,20 @@ public class ServiceBrokerWebFluxAutoConfigurationTest extends AbstractServiceBr
 						.hasSingleBean(ServiceInstanceBindingController.class));
 	}
 
+	@Test
+	public void stateTransferControllerIsCreatedWithTransfer() {
+		webApplicationContextRunner()
+				.withUserConfiguration(FullServicesConfiguration.class, StateTransferConfiguration.class)
+				.run(context -> assertThat(context).hasSingleBean(ServiceInstanceStateWebFluxController.class));
+	}
+
+	@Test
+	public void stateTransferControllerIsNotCreatedByDefault() {
+		webApplicationContextRunner()
+				.withUserConfiguration(FullServicesConfiguration.class)
+				.run(context -> assertThat(context).doesNotHaveBean(ServiceInstanceStateWebFluxController.class));
+	}
+
 	@Test
 	public void controllersAreNotCreatedWithMissingInstanceService() {
 		webApplicationContextRunner()
@@ -63,6 +82,23 @@ public class ServiceBrokerWebFluxAutoConfigurationTest extends AbstractServiceBr
 				});
 	}
 
+	@Test
+	public void serviceBrokerResponseEncoderIsRegistered() {
+		webApplicationContextRunner()
+				.withUserConfiguration(FullServicesConfiguration.class)
+				.run(context -> assertThat(context).hasSingleBean(ServiceBrokerResponseWebFluxConfigurer.class));
+	}
+
+	@Test
+	public void serviceBrokerResponseEncoderOnlyEncodesServiceBrokerResponses() {
+		ServiceBrokerResponseJsonEncoder encoder = new ServiceBrokerResponseJsonEncoder(new ObjectMapper());
+
+		assertThat(encoder.canEncode(ResolvableType.forClass(GetLastServiceOperationResponse.class),
+				MediaType.APPLICATION_JSON)).isTrue();
+		assertThat(encoder.canEncode(ResolvableType.forClass(Catalog.class), MediaType.APPLICATION_JSON)).isFalse();
+		assertThat(encoder.canEncode(ResolvableType.forClass(Object.class), MediaType.APPLICATION_JSON)).isFalse();
+	}
+
 	private ReactiveWebApplicationContextRunner webApplicationContextRunner() {
 		return new ReactiveWebApplicationContextRunner().withConfiguration(autoConfigurations());
 	}
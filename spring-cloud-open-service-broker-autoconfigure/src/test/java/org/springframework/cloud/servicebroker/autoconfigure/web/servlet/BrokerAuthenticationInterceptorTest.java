@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cloud.servicebroker.autoconfigure.web.BrokerCredentialVerifier;
+import org.springframework.cloud.servicebroker.autoconfigure.web.PlatformCredentials;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BrokerAuthenticationInterceptorTest {
+
+	private BrokerAuthenticationInterceptor interceptor;
+
+	private MockHttpServletRequest request;
+
+	private MockHttpServletResponse response;
+
+	@Before
+	public void setUp() {
+		PlatformCredentials credentials = new PlatformCredentials();
+		credentials.setUsername("cf");
+		credentials.setPassword("secret");
+		credentials.setPlatformInstanceId("cf-instance");
+		this.interceptor = new BrokerAuthenticationInterceptor(new BrokerCredentialVerifier(
+				Collections.singletonList(credentials), PasswordEncoderFactories.createDelegatingPasswordEncoder(),
+				10, Duration.ofMinutes(1)));
+		this.request = new MockHttpServletRequest("GET", "/cf-instance/v2/catalog");
+		this.request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE,
+				Collections.singletonMap("platformInstanceId", "cf-instance"));
+		this.response = new MockHttpServletResponse();
+	}
+
+	@Test
+	public void acceptedCredentialsAreAllowed() {
+		this.request.addHeader(HttpHeaders.AUTHORIZATION, basic("cf", "secret"));
+
+		assertThat(this.interceptor.preHandle(this.request, this.response, null)).isTrue();
+		assertThat(this.response.getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	public void missingCredentialsAreRejected() {
+		assertThat(this.interceptor.preHandle(this.request, this.response, null)).isFalse();
+		assertThat(this.response.getStatus()).isEqualTo(401);
+		assertThat(this.response.getHeader(HttpHeaders.WWW_AUTHENTICATE)).startsWith("Basic");
+	}
+
+	@Test
+	public void credentialsForAnotherPlatformInstanceAreRejected() {
+		this.request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE,
+				Collections.singletonMap("platformInstanceId", "other-instance"));
+		this.request.addHeader(HttpHeaders.AUTHORIZATION, basic("cf", "secret"));
+
+		assertThat(this.interceptor.preHandle(this.request, this.response, null)).isFalse();
+		assertThat(this.response.getStatus()).isEqualTo(401);
+	}
+
+	private static String basic(String username, String password) {
+		return "Basic " + Base64.getEncoder()
+				.encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+	}
+
+}
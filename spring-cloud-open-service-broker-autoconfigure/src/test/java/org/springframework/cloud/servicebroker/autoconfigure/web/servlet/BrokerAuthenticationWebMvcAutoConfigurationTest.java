@@ -0,0 +1,104 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import org.junit.Test;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.cloud.servicebroker.autoconfigure.web.BrokerCredentialVerifier;
+import org.springframework.cloud.servicebroker.autoconfigure.web.TestServiceInstanceService;
+import org.springframework.cloud.servicebroker.autoconfigure.web.reactive.BrokerAuthenticationWebFilter;
+import org.springframework.cloud.servicebroker.autoconfigure.web.reactive.BrokerAuthenticationWebFluxAutoConfiguration;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BrokerAuthenticationWebMvcAutoConfigurationTest {
+
+	private static final String[] CREDENTIALS = {
+			"spring.cloud.openservicebroker.authentication.credentials[0].username=admin",
+			"spring.cloud.openservicebroker.authentication.credentials[0].password=secret"
+	};
+
+	@Test
+	public void authenticationBeansAreNotCreatedByDefault() {
+		webApplicationContextRunner()
+				.withUserConfiguration(ServicesConfiguration.class)
+				.withPropertyValues(CREDENTIALS)
+				.run((context) -> {
+					assertThat(context).doesNotHaveBean(BrokerCredentialVerifier.class);
+					assertThat(context).doesNotHaveBean(BrokerAuthenticationInterceptor.class);
+				});
+	}
+
+	@Test
+	public void authenticationBeansAreCreatedWhenEnabled() {
+		webApplicationContextRunner()
+				.withUserConfiguration(ServicesConfiguration.class)
+				.withPropertyValues(CREDENTIALS)
+				.withPropertyValues("spring.cloud.openservicebroker.authentication.enabled=true")
+				.run((context) -> {
+					assertThat(context).hasSingleBean(BrokerCredentialVerifier.class);
+					assertThat(context).hasSingleBean(BrokerAuthenticationInterceptor.class);
+					assertThat(context).hasSingleBean(BrokerAuthenticationWebMvcConfigurerAdapter.class);
+					assertThat(context).doesNotHaveBean(BrokerAuthenticationWebFilter.class);
+				});
+	}
+
+	@Test
+	public void authenticationFailsWithoutCredentials() {
+		webApplicationContextRunner()
+				.withUserConfiguration(ServicesConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.authentication.enabled=true")
+				.run((context) -> assertThat(context).hasFailed());
+	}
+
+	@Test
+	public void reactiveAuthenticationBeansAreCreatedWhenEnabled() {
+		new ReactiveWebApplicationContextRunner()
+				.withConfiguration(AutoConfigurations.of(BrokerAuthenticationWebMvcAutoConfiguration.class,
+						BrokerAuthenticationWebFluxAutoConfiguration.class))
+				.withUserConfiguration(ServicesConfiguration.class)
+				.withPropertyValues(CREDENTIALS)
+				.withPropertyValues("spring.cloud.openservicebroker.authentication.enabled=true")
+				.run((context) -> {
+					assertThat(context).hasSingleBean(BrokerCredentialVerifier.class);
+					assertThat(context).hasSingleBean(BrokerAuthenticationWebFilter.class);
+					assertThat(context).doesNotHaveBean(BrokerAuthenticationInterceptor.class);
+				});
+	}
+
+	private WebApplicationContextRunner webApplicationContextRunner() {
+		return new WebApplicationContextRunner().withConfiguration(
+				AutoConfigurations.of(BrokerAuthenticationWebMvcAutoConfiguration.class,
+						BrokerAuthenticationWebFluxAutoConfiguration.class));
+	}
+
+	@Configuration
+	public static class ServicesConfiguration {
+		@Bean
+		public ServiceInstanceService serviceInstanceService() {
+			return new TestServiceInstanceService();
+		}
+	}
+
+}
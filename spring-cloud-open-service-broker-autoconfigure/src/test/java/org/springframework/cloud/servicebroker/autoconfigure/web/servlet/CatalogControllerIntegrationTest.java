@@ -35,6 +35,7 @@ import org.springframework.cloud.servicebroker.model.catalog.Schemas;
 import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
 import org.springframework.cloud.servicebroker.service.CatalogService;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -71,7 +72,7 @@ public class CatalogControllerIntegrationTest {
 	@Before
 	public void setUp() {
 		this.mockMvc = MockMvcBuilders.standaloneSetup(this.controller)
-				.setMessageConverters(new MappingJackson2HttpMessageConverter())
+				.setMessageConverters(new ByteArrayHttpMessageConverter(), new MappingJackson2HttpMessageConverter())
 				.build();
 		this.serviceDefinition = ServiceFixture.getSimpleService();
 		Catalog catalog = Catalog.builder()
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.annotation.ServiceBrokerRestController;
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceDoesNotExistException;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.HttpEntityMethodProcessor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ResolvedMonoReturnValueHandlerTest {
+
+	private MockHttpServletRequest request;
+
+	private MockHttpServletResponse response;
+
+	private ServletWebRequest webRequest;
+
+	private ModelAndViewContainer mavContainer;
+
+	private ResolvedMonoReturnValueHandler handler;
+
+	@Before
+	public void setUp() {
+		this.request = new MockHttpServletRequest();
+		this.request.setAsyncSupported(true);
+		this.response = new MockHttpServletResponse();
+		this.webRequest = new ServletWebRequest(this.request, this.response);
+		WebAsyncUtils.getAsyncManager(this.webRequest)
+				.setAsyncWebRequest(new StandardServletAsyncWebRequest(this.request, this.response));
+		this.mavContainer = new ModelAndViewContainer();
+
+		List<HttpMessageConverter<?>> converters = Collections.singletonList(new StringHttpMessageConverter());
+		List<HandlerMethodReturnValueHandler> delegates = Collections.singletonList(new HttpEntityMethodProcessor(converters));
+		this.handler = new ResolvedMonoReturnValueHandler(delegates);
+	}
+
+	@Test
+	public void supportsMonoReturnTypesOfServiceBrokerControllers() throws Exception {
+		assertThat(this.handler.supportsReturnType(returnType(TestController.class, "handle"))).isTrue();
+		assertThat(this.handler.supportsReturnType(returnType(TestController.class, "handleSync"))).isFalse();
+		assertThat(this.handler.supportsReturnType(returnType(OtherController.class, "handle"))).isFalse();
+	}
+
+	@Test
+	public void resolvedValueIsWrittenWithoutAsyncProcessing() throws Exception {
+		this.handler.handleReturnValue(Mono.just(new ResponseEntity<>("body", HttpStatus.CREATED)),
+				returnType(TestController.class, "handle"), this.mavContainer, this.webRequest);
+
+		assertThat(this.request.isAsyncStarted()).isFalse();
+		assertThat(this.mavContainer.isRequestHandled()).isTrue();
+		assertThat(this.response.getStatus()).isEqualTo(HttpStatus.CREATED.value());
+		assertThat(this.response.getContentAsString()).isEqualTo("body");
+	}
+
+	@Test
+	public void emptyValueIsHandled() throws Exception {
+		this.handler.handleReturnValue(Mono.empty(), returnType(TestController.class, "handle"),
+				this.mavContainer, this.webRequest);
+
+		assertThat(this.request.isAsyncStarted()).isFalse();
+		assertThat(this.mavContainer.isRequestHandled()).isTrue();
+	}
+
+	@Test
+	public void resolvedErrorIsThrown() throws Exception {
+		assertThatThrownBy(() -> this.handler.handleReturnValue(
+				Mono.error(new ServiceInstanceDoesNotExistException("instance-id")),
+				returnType(TestController.class, "handle"), this.mavContainer, this.webRequest))
+				.isInstanceOf(ServiceInstanceDoesNotExistException.class);
+
+		assertThat(this.request.isAsyncStarted()).isFalse();
+	}
+
+	@Test
+	public void unresolvedValueStartsAsyncProcessing() throws Exception {
+		this.handler.handleReturnValue(Mono.just(new ResponseEntity<>("body", HttpStatus.OK)).delayElement(Duration.ofMillis(100)),
+				returnType(TestController.class, "handle"), this.mavContainer, this.webRequest);
+
+		assertThat(this.request.isAsyncStarted()).isTrue();
+	}
+
+	private MethodParameter returnType(Class<?> controller, String methodName) throws NoSuchMethodException {
+		return new MethodParameter(controller.getMethod(methodName), -1);
+	}
+
+	@ServiceBrokerRestController
+	public static class TestController {
+
+		public Mono<ResponseEntity<String>> handle() {
+			return Mono.empty();
+		}
+
+		public ResponseEntity<String> handleSync() {
+			return null;
+		}
+
+	}
+
+	public static class OtherController {
+
+		public Mono<ResponseEntity<String>> handle() {
+			return Mono.empty();
+		}
+
+	}
+
+}
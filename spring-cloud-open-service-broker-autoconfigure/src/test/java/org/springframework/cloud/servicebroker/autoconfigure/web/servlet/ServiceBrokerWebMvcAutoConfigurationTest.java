@@ -16,6 +16,9 @@
 
 package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 
 import org.springframework.beans.factory.BeanCreationException;
@@ -26,6 +29,10 @@ import org.springframework.cloud.servicebroker.autoconfigure.web.exception.Servi
 import org.springframework.cloud.servicebroker.controller.CatalogController;
 import org.springframework.cloud.servicebroker.controller.ServiceInstanceBindingController;
 import org.springframework.cloud.servicebroker.controller.ServiceInstanceController;
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -47,6 +54,20 @@ public class ServiceBrokerWebMvcAutoConfigurationTest extends AbstractServiceBro
 						.hasSingleBean(ServiceInstanceBindingController.class));
 	}
 
+	@Test
+	public void stateTransferControllerIsCreatedWithTransfer() {
+		webApplicationContextRunner()
+				.withUserConfiguration(FullServicesConfiguration.class, StateTransferConfiguration.class)
+				.run(context -> assertThat(context).hasSingleBean(ServiceInstanceStateWebMvcController.class));
+	}
+
+	@Test
+	public void stateTransferControllerIsNotCreatedByDefault() {
+		webApplicationContextRunner()
+				.withUserConfiguration(FullServicesConfiguration.class)
+				.run(context -> assertThat(context).doesNotHaveBean(ServiceInstanceStateWebMvcController.class));
+	}
+
 	@Test
 	public void controllersAreNotCreatedWithMissingInstanceService() {
 		webApplicationContextRunner()
@@ -59,6 +80,42 @@ public class ServiceBrokerWebMvcAutoConfigurationTest extends AbstractServiceBro
 				});
 	}
 
+	@Test
+	public void resolvedMonoReturnValueHandlerIsNotRegisteredByDefault() {
+		webApplicationContextRunner()
+				.withUserConfiguration(FullServicesConfiguration.class)
+				.run(context -> assertThat(context)
+						.doesNotHaveBean(ResolvedMonoReturnValueHandlerPostProcessor.class));
+	}
+
+	@Test
+	public void resolvedMonoReturnValueHandlerIsRegisteredWhenEnabled() {
+		webApplicationContextRunner()
+				.withUserConfiguration(FullServicesConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.synchronous-response-enabled=true")
+				.run(context -> assertThat(context)
+						.hasSingleBean(ResolvedMonoReturnValueHandlerPostProcessor.class));
+	}
+
+	@Test
+	public void serviceBrokerResponseConverterIsRegistered() {
+		webApplicationContextRunner()
+				.withUserConfiguration(FullServicesConfiguration.class)
+				.run(context -> {
+					assertThat(context).hasSingleBean(ServiceBrokerResponseWebMvcConfigurerAdapter.class);
+					List<HttpMessageConverter<?>> converters = new ArrayList<>();
+					context.getBean(ServiceBrokerResponseWebMvcConfigurerAdapter.class)
+							.extendMessageConverters(converters);
+					assertThat(converters).hasSize(1);
+					HttpMessageConverter<?> converter = converters.get(0);
+					assertThat(converter.canWrite(GetLastServiceOperationResponse.class, MediaType.APPLICATION_JSON))
+							.isTrue();
+					assertThat(converter.canWrite(Catalog.class, MediaType.APPLICATION_JSON)).isFalse();
+					assertThat(converter.canRead(GetLastServiceOperationResponse.class, MediaType.APPLICATION_JSON))
+							.isFalse();
+				});
+	}
+
 	private WebApplicationContextRunner webApplicationContextRunner() {
 		return new WebApplicationContextRunner().withConfiguration(autoConfigurations());
 	}
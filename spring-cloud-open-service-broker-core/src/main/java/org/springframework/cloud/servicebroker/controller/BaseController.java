@@ -18,12 +18,13 @@ package org.springframework.cloud.servicebroker.controller;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import org.springframework.cloud.servicebroker.exception.ServiceBrokerInvalidOriginatingIdentityException;
@@ -38,9 +39,15 @@ import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
 import org.springframework.cloud.servicebroker.model.catalog.Plan;
 import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
 import org.springframework.cloud.servicebroker.service.CatalogService;
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadline;
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadlines;
+import org.springframework.cloud.servicebroker.service.tracing.OperationAttributes;
+import org.springframework.cloud.servicebroker.service.tracing.OperationTracer;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.util.Base64Utils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * Base functionality shared by controllers.
@@ -53,26 +60,88 @@ public class BaseController {
 
 	private static final Logger logger = LoggerFactory.getLogger(BaseController.class);
 
+	private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+	private static final TypeReference<Map<String, Object>> MAP_TYPE_REFERENCE =
+			new TypeReference<Map<String, Object>>() {};
+
 	protected CatalogService catalogService;
 
+	private final OperationTracer operationTracer;
+
+	private final OperationDeadlines operationDeadlines;
+
 	public BaseController(CatalogService catalogService) {
+		this(catalogService, null);
+	}
+
+	/**
+	 * Construct a controller that traces the operations it handles.
+	 *
+	 * @param catalogService the catalog service
+	 * @param operationTracer the tracer, or {@literal null} to not trace operations
+	 */
+	public BaseController(CatalogService catalogService, OperationTracer operationTracer) {
+		this(catalogService, operationTracer, null);
+	}
+
+	/**
+	 * Construct a controller that traces the operations it handles and applies deadlines to them.
+	 *
+	 * @param catalogService the catalog service
+	 * @param operationTracer the tracer, or {@literal null} to not trace operations
+	 * @param operationDeadlines the deadlines, or {@literal null} to not apply deadlines to operations
+	 */
+	public BaseController(CatalogService catalogService, OperationTracer operationTracer,
+			OperationDeadlines operationDeadlines) {
 		this.catalogService = catalogService;
+		this.operationTracer = operationTracer;
+		this.operationDeadlines = operationDeadlines;
 	}
 
 	protected Mono<ServiceBrokerRequest> setCommonRequestFields(ServiceBrokerRequest request, String platformInstanceId,
 																String apiInfoLocation, String originatingIdentityString) {
-		request.setPlatformInstanceId(platformInstanceId);
-		request.setApiInfoLocation(apiInfoLocation);
-		request.setOriginatingIdentity(parseOriginatingIdentity(originatingIdentityString));
+		configureCommonRequestFields(request, platformInstanceId, apiInfoLocation, originatingIdentityString);
 		return Mono.just(request);
 	}
 
 	protected Mono<AsyncServiceBrokerRequest> setCommonRequestFields(AsyncServiceBrokerRequest request, String platformInstanceId,
 																	   String apiInfoLocation, String originatingIdentityString,
 																	   boolean asyncAccepted) {
+		configureCommonRequestFields(request, platformInstanceId, apiInfoLocation, originatingIdentityString,
+				asyncAccepted);
+		return Mono.just(request);
+	}
+
+	/**
+	 * Synchronously populate the fields common to all requests. Intended to be called from within a single
+	 * operator of a controller pipeline rather than introducing additional operators per request.
+	 *
+	 * @param request the request to populate
+	 * @param platformInstanceId the platform instance ID
+	 * @param apiInfoLocation location of the API info endpoint of the platform instance
+	 * @param originatingIdentityString the encoded identity of the user that initiated the request
+	 */
+	protected void configureCommonRequestFields(ServiceBrokerRequest request, String platformInstanceId,
+			String apiInfoLocation, String originatingIdentityString) {
+		request.setPlatformInstanceId(platformInstanceId);
+		request.setApiInfoLocation(apiInfoLocation);
+		request.setOriginatingIdentity(parseOriginatingIdentity(originatingIdentityString));
+	}
+
+	/**
+	 * Synchronously populate the fields common to all requests that support asynchronous operations.
+	 *
+	 * @param request the request to populate
+	 * @param platformInstanceId the platform instance ID
+	 * @param apiInfoLocation location of the API info endpoint of the platform instance
+	 * @param originatingIdentityString the encoded identity of the user that initiated the request
+	 * @param asyncAccepted whether the platform allows the broker to complete the request asynchronously
+	 */
+	protected void configureCommonRequestFields(AsyncServiceBrokerRequest request, String platformInstanceId,
+			String apiInfoLocation, String originatingIdentityString, boolean asyncAccepted) {
 		request.setAsyncAccepted(asyncAccepted);
-		return setCommonRequestFields(request, platformInstanceId, apiInfoLocation, originatingIdentityString)
-				.cast(AsyncServiceBrokerRequest.class);
+		configureCommonRequestFields(request, platformInstanceId, apiInfoLocation, originatingIdentityString);
 	}
 
 	protected Mono<ServiceDefinition> getRequiredServiceDefinition(String serviceDefinitionId) {
@@ -81,15 +150,100 @@ public class BaseController {
 	}
 
 	protected Mono<ServiceDefinition> getServiceDefinition(String serviceDefinitionId) {
-		return catalogService.getServiceDefinition(serviceDefinitionId);
+		if (this.operationTracer == null) {
+			return catalogService.getServiceDefinition(serviceDefinitionId);
+		}
+		return this.operationTracer.trace(OperationTracer.CATALOG_LOOKUP_SPAN,
+				OperationAttributes.builder().serviceDefinitionId(serviceDefinitionId).build(),
+				() -> catalogService.getServiceDefinition(serviceDefinitionId));
+	}
+
+	/**
+	 * Trace an operation handled by the controller, when the controller has a tracer. Intended to be applied with
+	 * {@link Mono#transform(Function)} to the end of a controller pipeline.
+	 *
+	 * @param attributes supplies the attributes of the operation, called only when the operation is traced
+	 * @param <T> the type of the operation result
+	 * @return a function that traces the operation
+	 */
+	protected <T> Function<Mono<T>, Mono<T>> traceOperation(
+			Supplier<OperationAttributes.OperationAttributesBuilder> attributes) {
+		if (this.operationTracer == null) {
+			return Function.identity();
+		}
+		OperationAttributes operationAttributes = attributes.get().build();
+		return operation -> this.operationTracer.trace(
+				OperationTracer.OPERATION_SPAN_PREFIX + operationAttributes.getOperation(), operationAttributes,
+				() -> operation);
+	}
+
+	/**
+	 * Apply the deadline of an operation handled by the controller, when the controller has deadlines. The operation
+	 * is cancelled when the deadline passes. Intended to be applied with {@link Mono#transform(Function)} to the end of
+	 * a controller pipeline, before {@link #traceOperation(Supplier)}.
+	 *
+	 * @param operation the name of the operation
+	 * @param <T> the type of the operation result
+	 * @return a function that applies the deadline to the operation
+	 */
+	protected <T> Function<Mono<T>, Mono<T>> applyDeadline(String operation) {
+		if (this.operationDeadlines == null) {
+			return Function.identity();
+		}
+		OperationDeadline requested = getRequestedDeadline();
+		return call -> this.operationDeadlines.apply(operation, requested, call);
+	}
+
+	/**
+	 * Get the deadline requested by the platform that a handler interceptor stored in the attributes of the current
+	 * request. On the reactive stack, the requested deadline is found in the Reactor context instead.
+	 *
+	 * @return the deadline, or {@literal null} if none was requested
+	 */
+	private static OperationDeadline getRequestedDeadline() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) {
+			return null;
+		}
+		return (OperationDeadline) attributes.getAttribute(OperationDeadline.CONTEXT_KEY,
+				RequestAttributes.SCOPE_REQUEST);
+	}
+
+	/**
+	 * Start describing an operation handled by the controller.
+	 *
+	 * @param operation the name of the operation
+	 * @param originatingIdentityString the encoded identity of the user that initiated the request
+	 * @return a builder for the attributes of the operation
+	 */
+	protected OperationAttributes.OperationAttributesBuilder operationAttributes(String operation,
+			String originatingIdentityString) {
+		return OperationAttributes.builder()
+				.operation(operation)
+				.platform(parseOriginatingPlatform(originatingIdentityString));
 	}
 
 	protected Mono<Plan> getServiceDefinitionPlan(ServiceDefinition serviceDefinition, String planId) {
-		return Mono.justOrEmpty(serviceDefinition)
-				.flatMap(serviceDef -> Mono.justOrEmpty(serviceDef.getPlans())
-						.flatMap(plans -> Flux.fromIterable(plans)
-								.filter(plan -> plan.getId().equals(planId))
-								.singleOrEmpty()));
+		return Mono.justOrEmpty(findServiceDefinitionPlan(serviceDefinition, planId));
+	}
+
+	/**
+	 * Find a plan in a service definition by ID without going through a reactive pipeline.
+	 *
+	 * @param serviceDefinition the service definition to search, may be {@literal null}
+	 * @param planId the ID of the plan
+	 * @return the matching plan, or {@literal null} if no plan matches
+	 */
+	protected Plan findServiceDefinitionPlan(ServiceDefinition serviceDefinition, String planId) {
+		if (serviceDefinition == null || serviceDefinition.getPlans() == null) {
+			return null;
+		}
+		for (Plan plan : serviceDefinition.getPlans()) {
+			if (plan.getId().equals(planId)) {
+				return plan;
+			}
+		}
+		return null;
 	}
 
 	protected Context parseOriginatingIdentity(String originatingIdentityString) {
@@ -138,9 +292,22 @@ public class BaseController {
 		}
 	}
 
+	/**
+	 * Read the platform from the originating identity header without decoding the identity properties.
+	 *
+	 * @param originatingIdentityString the encoded identity of the user that initiated the request
+	 * @return the platform, or {@literal null} if the header is not present
+	 */
+	protected String parseOriginatingPlatform(String originatingIdentityString) {
+		if (originatingIdentityString == null) {
+			return null;
+		}
+		int separator = originatingIdentityString.indexOf(' ');
+		return separator < 0 ? originatingIdentityString : originatingIdentityString.substring(0, separator);
+	}
+
 	private Map<String, Object> readJsonFromString(String value) throws IOException {
-		ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
-		return objectMapper.readValue(value, new TypeReference<Map<String,Object>>() {});
+		return OBJECT_MAPPER.readValue(value, MAP_TYPE_REFERENCE);
 	}
 
 	protected HttpStatus getAsyncResponseCode(AsyncServiceBrokerResponse response) {
@@ -16,19 +16,37 @@
 
 package org.springframework.cloud.servicebroker.controller;
 
+import java.util.Locale;
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Mono;
 
 import org.springframework.cloud.servicebroker.annotation.ServiceBrokerRestController;
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
 import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.service.CatalogContentEncoding;
 import org.springframework.cloud.servicebroker.service.CatalogService;
+import org.springframework.cloud.servicebroker.service.CatalogView;
+import org.springframework.cloud.servicebroker.service.CatalogViewKey;
+import org.springframework.cloud.servicebroker.service.CatalogViewService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 /**
  * Provide endpoints for the catalog API.
  *
+ * <p>
+ * The catalog is served from the pre-serialized {@link CatalogViewService view} resolved for the platform instance ID
+ * and originating platform of each request. When the platform accepts it, the catalog is sent with the gzip or
+ * deflate content coding, using the compressed variant cached with the view.
+ *
  * @see <a href="https://github.com/openservicebrokerapi/servicebroker/blob/master/spec.md#catalog-management">Open Service Broker API specification</a>
  *
  * @author sgreenberg@pivotal.io
@@ -39,14 +57,113 @@ public class CatalogController extends BaseController {
 
 	private static final Logger logger = LoggerFactory.getLogger(CatalogController.class);
 
+	private final CatalogViewService catalogViewService;
+
 	public CatalogController(CatalogService service) {
+		this(service, null);
+	}
+
+	/**
+	 * Construct a controller.
+	 *
+	 * @param service the catalog service
+	 * @param catalogViewService resolves the catalog served to each platform, or {@literal null} to serve the full
+	 * catalog to every platform
+	 */
+	public CatalogController(CatalogService service, CatalogViewService catalogViewService) {
 		super(service);
+		this.catalogViewService = catalogViewService != null ? catalogViewService : new CatalogViewService(service);
 	}
 
-	@RequestMapping(value = {"/v2/catalog", "{platformInstanceId}/v2/catalog"}, method = RequestMethod.GET)
+	/**
+	 * Get the full catalog, without applying the rules of the {@link CatalogViewService}.
+	 *
+	 * @return the catalog
+	 */
 	public Mono<Catalog> getCatalog() {
 		return catalogService.getCatalog()
 				.doOnRequest(v -> logger.debug("Retrieving catalog"));
 	}
 
+	/**
+	 * Serve the view of the catalog resolved for the platform making the request.
+	 *
+	 * @param pathVariables the path variables, holding the platform instance ID if present
+	 * @param originatingIdentityString the originating identity header, naming the platform
+	 * @param acceptEncoding the content codings accepted by the platform
+	 * @return the serialized catalog view
+	 */
+	@RequestMapping(value = {"/v2/catalog", "{platformInstanceId}/v2/catalog"}, method = RequestMethod.GET)
+	public Mono<ResponseEntity<byte[]>> getCatalogView(@PathVariable Map<String, String> pathVariables,
+			@RequestHeader(value = ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER, required = false) String originatingIdentityString,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		CatalogViewKey key = CatalogViewKey.of(pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE),
+				parseOriginatingPlatform(originatingIdentityString));
+		CatalogContentEncoding encoding = negotiateContentEncoding(acceptEncoding);
+		return catalogViewService.getCatalogView(key)
+				.map(view -> catalogResponse(view, encoding))
+				.doOnRequest(v -> logger.debug("Retrieving catalog"));
+	}
+
+	private ResponseEntity<byte[]> catalogResponse(CatalogView view, CatalogContentEncoding encoding) {
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (encoding != CatalogContentEncoding.IDENTITY) {
+			response.header(HttpHeaders.CONTENT_ENCODING, encoding.getValue());
+		}
+		return response.body(view.getSerializedCatalog(encoding));
+	}
+
+	/**
+	 * Choose the content coding preferred by an Accept-Encoding header, preferring gzip over deflate when the
+	 * platform accepts both equally.
+	 */
+	static CatalogContentEncoding negotiateContentEncoding(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return CatalogContentEncoding.IDENTITY;
+		}
+		float gzip = -1;
+		float deflate = -1;
+		float wildcard = -1;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parameters = coding.split(";");
+			String name = parameters[0].trim().toLowerCase(Locale.ROOT);
+			float quality = parseQuality(parameters);
+			if (CatalogContentEncoding.GZIP.getValue().equals(name) || "x-gzip".equals(name)) {
+				gzip = quality;
+			}
+			else if (CatalogContentEncoding.DEFLATE.getValue().equals(name)) {
+				deflate = quality;
+			}
+			else if ("*".equals(name)) {
+				wildcard = quality;
+			}
+		}
+		gzip = gzip < 0 ? wildcard : gzip;
+		deflate = deflate < 0 ? wildcard : deflate;
+		if (gzip > 0 && gzip >= deflate) {
+			return CatalogContentEncoding.GZIP;
+		}
+		if (deflate > 0) {
+			return CatalogContentEncoding.DEFLATE;
+		}
+		return CatalogContentEncoding.IDENTITY;
+	}
+
+	private static float parseQuality(String[] parameters) {
+		for (int i = 1; i < parameters.length; i++) {
+			String parameter = parameters[i].trim();
+			if (parameter.startsWith("q=")) {
+				try {
+					return Float.parseFloat(parameter.substring(2));
+				}
+				catch (NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+
 }
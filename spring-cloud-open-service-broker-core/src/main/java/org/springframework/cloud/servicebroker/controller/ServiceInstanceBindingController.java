@@ -40,6 +40,8 @@ import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
 import org.springframework.cloud.servicebroker.model.instance.OperationState;
 import org.springframework.cloud.servicebroker.service.CatalogService;
 import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadlines;
+import org.springframework.cloud.servicebroker.service.tracing.OperationTracer;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -68,7 +70,33 @@ public class ServiceInstanceBindingController extends BaseController {
 
 	public ServiceInstanceBindingController(CatalogService catalogService,
 			ServiceInstanceBindingService serviceInstanceBindingService) {
-		super(catalogService);
+		this(catalogService, serviceInstanceBindingService, null);
+	}
+
+	/**
+	 * Construct a controller that traces the operations it handles.
+	 *
+	 * @param catalogService the catalog service
+	 * @param serviceInstanceBindingService the service instance binding service
+	 * @param operationTracer the tracer, or {@literal null} to not trace operations
+	 */
+	public ServiceInstanceBindingController(CatalogService catalogService,
+			ServiceInstanceBindingService serviceInstanceBindingService, OperationTracer operationTracer) {
+		this(catalogService, serviceInstanceBindingService, operationTracer, null);
+	}
+
+	/**
+	 * Construct a controller that traces the operations it handles and applies deadlines to them.
+	 *
+	 * @param catalogService the catalog service
+	 * @param serviceInstanceBindingService the service instance binding service
+	 * @param operationTracer the tracer, or {@literal null} to not trace operations
+	 * @param operationDeadlines the deadlines, or {@literal null} to not apply deadlines to operations
+	 */
+	public ServiceInstanceBindingController(CatalogService catalogService,
+			ServiceInstanceBindingService serviceInstanceBindingService, OperationTracer operationTracer,
+			OperationDeadlines operationDeadlines) {
+		super(catalogService, operationTracer, operationDeadlines);
 		this.service = serviceInstanceBindingService;
 	}
 
@@ -85,28 +113,29 @@ public class ServiceInstanceBindingController extends BaseController {
 			@RequestHeader(value = ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER, required = false) String originatingIdentityString,
 			@Valid @RequestBody CreateServiceInstanceBindingRequest request) {
 		return getRequiredServiceDefinition(request.getServiceDefinitionId())
-				.flatMap(serviceDefinition -> getServiceDefinitionPlan(serviceDefinition, request.getPlanId())
-						.map(plan -> {
-							request.setPlan(plan);
-							return request;
-						})
-						.switchIfEmpty(Mono.just(request))
-						.map(req -> {
-							request.setServiceInstanceId(serviceInstanceId);
-							request.setBindingId(bindingId);
-							request.setServiceDefinition(serviceDefinition);
-							return request;
-						}))
-				.cast(AsyncServiceBrokerRequest.class)
-				.flatMap(req -> setCommonRequestFields(req, pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE),
-						apiInfoLocation, originatingIdentityString, acceptsIncomplete))
-				.cast(CreateServiceInstanceBindingRequest.class)
-				.flatMap(req -> service.createServiceInstanceBinding(req)
-						.doOnRequest(v -> logger.debug("Creating a service instance binding: request={}", req))
-						.doOnSuccess(response -> logger.debug("Creating a service instance binding succeeded: serviceInstanceId={}, bindingId={}, response={}",
-								serviceInstanceId, bindingId, response)))
+				.flatMap(serviceDefinition -> {
+					Plan plan = findServiceDefinitionPlan(serviceDefinition, request.getPlanId());
+					if (plan != null) {
+						request.setPlan(plan);
+					}
+					request.setServiceInstanceId(serviceInstanceId);
+					request.setBindingId(bindingId);
+					request.setServiceDefinition(serviceDefinition);
+					configureCommonRequestFields(request, pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE),
+							apiInfoLocation, originatingIdentityString, acceptsIncomplete);
+					logger.debug("Creating a service instance binding: request={}", request);
+					return service.createServiceInstanceBinding(request);
+				})
+				.doOnSuccess(response -> logger.debug("Creating a service instance binding succeeded: serviceInstanceId={}, bindingId={}, response={}",
+						serviceInstanceId, bindingId, response))
 				.map(response -> new ResponseEntity<>(response, getCreateResponseCode(response)))
-				.switchIfEmpty(Mono.just(new ResponseEntity<>(HttpStatus.CREATED)));
+				.defaultIfEmpty(new ResponseEntity<>(HttpStatus.CREATED))
+				.transform(applyDeadline("create_service_instance_binding"))
+				.transform(traceOperation(() -> operationAttributes("create_service_instance_binding", originatingIdentityString)
+						.serviceInstanceId(serviceInstanceId)
+						.bindingId(bindingId)
+						.serviceDefinitionId(request.getServiceDefinitionId())
+						.planId(request.getPlanId())));
 	}
 
 	private HttpStatus getCreateResponseCode(CreateServiceInstanceBindingResponse response) {
@@ -130,18 +159,18 @@ public class ServiceInstanceBindingController extends BaseController {
 			@PathVariable(ServiceBrokerRequest.BINDING_ID_PATH_VARIABLE) String bindingId,
 			@RequestHeader(value = ServiceBrokerRequest.API_INFO_LOCATION_HEADER, required = false) String apiInfoLocation,
 			@RequestHeader(value = ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER, required = false) String originatingIdentityString) {
-		return Mono.just(GetServiceInstanceBindingRequest.builder()
+		GetServiceInstanceBindingRequest request = GetServiceInstanceBindingRequest.builder()
 				.serviceInstanceId(serviceInstanceId)
 				.bindingId(bindingId)
 				.platformInstanceId(pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE))
 				.apiInfoLocation(apiInfoLocation)
 				.originatingIdentity(parseOriginatingIdentity(originatingIdentityString))
-				.build())
-				.flatMap(req -> service.getServiceInstanceBinding(req)
-						.doOnRequest(v -> logger.debug("Getting a service instance binding: request={}", req))
-						.doOnSuccess(response -> logger.debug("Getting a service instance binding succeeded: bindingId={}", bindingId)))
+				.build();
+		logger.debug("Getting a service instance binding: request={}", request);
+		return Mono.defer(() -> service.getServiceInstanceBinding(request))
+				.doOnSuccess(response -> logger.debug("Getting a service instance binding succeeded: bindingId={}", bindingId))
 				.map(response -> new ResponseEntity<>(response, HttpStatus.OK))
-				.switchIfEmpty(Mono.just(new ResponseEntity<>(HttpStatus.OK)))
+				.defaultIfEmpty(new ResponseEntity<>(HttpStatus.OK))
 				.onErrorResume(e -> {
 					if (e instanceof ServiceInstanceBindingDoesNotExistException) {
 						return Mono.just(new ResponseEntity<>(HttpStatus.NOT_FOUND));
@@ -149,7 +178,11 @@ public class ServiceInstanceBindingController extends BaseController {
 					else {
 						return Mono.error(e);
 					}
-				});
+				})
+				.transform(applyDeadline("get_service_instance_binding"))
+				.transform(traceOperation(() -> operationAttributes("get_service_instance_binding", originatingIdentityString)
+						.serviceInstanceId(serviceInstanceId)
+						.bindingId(bindingId)));
 	}
 
 	@GetMapping(value = {
@@ -165,7 +198,7 @@ public class ServiceInstanceBindingController extends BaseController {
 			@RequestParam(value = "operation", required = false) String operation,
 			@RequestHeader(value = ServiceBrokerRequest.API_INFO_LOCATION_HEADER, required = false) String apiInfoLocation,
 			@RequestHeader(value = ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER, required = false) String originatingIdentityString) {
-		return Mono.just(GetLastServiceBindingOperationRequest.builder()
+		GetLastServiceBindingOperationRequest request = GetLastServiceBindingOperationRequest.builder()
 				.serviceDefinitionId(serviceDefinitionId)
 				.serviceInstanceId(serviceInstanceId)
 				.bindingId(bindingId)
@@ -174,15 +207,22 @@ public class ServiceInstanceBindingController extends BaseController {
 				.platformInstanceId(pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE))
 				.apiInfoLocation(apiInfoLocation)
 				.originatingIdentity(parseOriginatingIdentity(originatingIdentityString))
-				.build())
-				.flatMap(request -> service.getLastOperation(request)
-						.doOnRequest(v -> logger.debug("Getting service instance binding last operation: request={}", request))
-						.doOnSuccess(aVoid -> logger.debug("Getting service instance binding last operation succeeded: serviceInstanceId={}, bindingId={}",
-								serviceInstanceId, bindingId))
-						.doOnError(e -> logger.debug(e.getMessage(), e)))
-				.flatMap(response -> Mono.just(response.getState().equals(OperationState.SUCCEEDED) && response.isDeleteOperation())
-						.flatMap(isSuccessfulDelete ->
-								Mono.just(new ResponseEntity<>(response, isSuccessfulDelete ? HttpStatus.GONE : HttpStatus.OK))));
+				.build();
+		logger.debug("Getting service instance binding last operation: request={}", request);
+		return Mono.defer(() -> service.getLastOperation(request))
+				.doOnSuccess(aVoid -> logger.debug("Getting service instance binding last operation succeeded: serviceInstanceId={}, bindingId={}",
+						serviceInstanceId, bindingId))
+				.doOnError(e -> logger.debug(e.getMessage(), e))
+				.map(response -> {
+					boolean isSuccessfulDelete = response.getState().equals(OperationState.SUCCEEDED) && response.isDeleteOperation();
+					return new ResponseEntity<>(response, isSuccessfulDelete ? HttpStatus.GONE : HttpStatus.OK);
+				})
+				.transform(applyDeadline("get_last_service_binding_operation"))
+				.transform(traceOperation(() -> operationAttributes("get_last_service_binding_operation", originatingIdentityString)
+						.serviceInstanceId(serviceInstanceId)
+						.bindingId(bindingId)
+						.serviceDefinitionId(serviceDefinitionId)
+						.planId(planId)));
 	}
 
 	@DeleteMapping(value = {
@@ -199,27 +239,27 @@ public class ServiceInstanceBindingController extends BaseController {
 			@RequestHeader(value = ServiceBrokerRequest.API_INFO_LOCATION_HEADER, required = false) String apiInfoLocation,
 			@RequestHeader(value = ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER, required = false) String originatingIdentityString) {
 		return getServiceDefinition(serviceDefinitionId)
-				.switchIfEmpty(Mono.just(ServiceDefinition.builder().build()))
-				.flatMap(serviceDefinition -> getServiceDefinitionPlan(serviceDefinition, planId)
-						.map(DeleteServiceInstanceBindingRequest.builder()::plan)
-						.switchIfEmpty(Mono.just(DeleteServiceInstanceBindingRequest.builder()))
-						.map(builder -> builder
-								.serviceInstanceId(serviceInstanceId)
-								.bindingId(bindingId)
-								.serviceDefinitionId(serviceDefinitionId)
-								.planId(planId)
-								.serviceDefinition(serviceDefinition)
-								.asyncAccepted(acceptsIncomplete)
-								.platformInstanceId(pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE))
-								.apiInfoLocation(apiInfoLocation)
-								.originatingIdentity(parseOriginatingIdentity(originatingIdentityString))
-								.build()))
-				.flatMap(req -> service.deleteServiceInstanceBinding(req)
-						.doOnRequest(v -> logger.debug("Deleting a service instance binding: request={}", req))
-						.doOnSuccess(aVoid -> logger.debug("Deleting a service instance binding succeeded: bindingId={}", bindingId))
-						.doOnError(e -> logger.debug(e.getMessage(), e)))
+				.defaultIfEmpty(ServiceDefinition.builder().build())
+				.flatMap(serviceDefinition -> {
+					DeleteServiceInstanceBindingRequest request = DeleteServiceInstanceBindingRequest.builder()
+							.serviceInstanceId(serviceInstanceId)
+							.bindingId(bindingId)
+							.serviceDefinitionId(serviceDefinitionId)
+							.planId(planId)
+							.serviceDefinition(serviceDefinition)
+							.plan(findServiceDefinitionPlan(serviceDefinition, planId))
+							.asyncAccepted(acceptsIncomplete)
+							.platformInstanceId(pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE))
+							.apiInfoLocation(apiInfoLocation)
+							.originatingIdentity(parseOriginatingIdentity(originatingIdentityString))
+							.build();
+					logger.debug("Deleting a service instance binding: request={}", request);
+					return service.deleteServiceInstanceBinding(request)
+							.doOnError(e -> logger.debug(e.getMessage(), e));
+				})
+				.doOnSuccess(aVoid -> logger.debug("Deleting a service instance binding succeeded: bindingId={}", bindingId))
 				.map(response -> new ResponseEntity<>(response, getAsyncResponseCode(response)))
-				.switchIfEmpty(Mono.just(new ResponseEntity<>(HttpStatus.OK)))
+				.defaultIfEmpty(new ResponseEntity<>(HttpStatus.OK))
 				.onErrorResume(e -> {
 					if (e instanceof ServiceInstanceBindingDoesNotExistException) {
 						return Mono.just(new ResponseEntity<>(HttpStatus.GONE));
@@ -227,7 +267,13 @@ public class ServiceInstanceBindingController extends BaseController {
 					else {
 						return Mono.error(e);
 					}
-				});
+				})
+				.transform(applyDeadline("delete_service_instance_binding"))
+				.transform(traceOperation(() -> operationAttributes("delete_service_instance_binding", originatingIdentityString)
+						.serviceInstanceId(serviceInstanceId)
+						.bindingId(bindingId)
+						.serviceDefinitionId(serviceDefinitionId)
+						.planId(planId)));
 	}
 
 }
@@ -28,7 +28,6 @@ import org.springframework.cloud.servicebroker.exception.ServiceInstanceDoesNotE
 import org.springframework.cloud.servicebroker.model.AsyncServiceBrokerRequest;
 import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
 import org.springframework.cloud.servicebroker.model.catalog.Plan;
-import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
 import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
 import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
 import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
@@ -42,6 +41,8 @@ import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInsta
 import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
 import org.springframework.cloud.servicebroker.service.CatalogService;
 import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadlines;
+import org.springframework.cloud.servicebroker.service.tracing.OperationTracer;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -70,7 +71,32 @@ public class ServiceInstanceController extends BaseController {
 	private final ServiceInstanceService service;
 
 	public ServiceInstanceController(CatalogService catalogService, ServiceInstanceService serviceInstanceService) {
-		super(catalogService);
+		this(catalogService, serviceInstanceService, null);
+	}
+
+	/**
+	 * Construct a controller that traces the operations it handles.
+	 *
+	 * @param catalogService the catalog service
+	 * @param serviceInstanceService the service instance service
+	 * @param operationTracer the tracer, or {@literal null} to not trace operations
+	 */
+	public ServiceInstanceController(CatalogService catalogService, ServiceInstanceService serviceInstanceService,
+			OperationTracer operationTracer) {
+		this(catalogService, serviceInstanceService, operationTracer, null);
+	}
+
+	/**
+	 * Construct a controller that traces the operations it handles and applies deadlines to them.
+	 *
+	 * @param catalogService the catalog service
+	 * @param serviceInstanceService the service instance service
+	 * @param operationTracer the tracer, or {@literal null} to not trace operations
+	 * @param operationDeadlines the deadlines, or {@literal null} to not apply deadlines to operations
+	 */
+	public ServiceInstanceController(CatalogService catalogService, ServiceInstanceService serviceInstanceService,
+			OperationTracer operationTracer, OperationDeadlines operationDeadlines) {
+		super(catalogService, operationTracer, operationDeadlines);
 		this.service = serviceInstanceService;
 	}
 
@@ -86,27 +112,28 @@ public class ServiceInstanceController extends BaseController {
 			@RequestHeader(value = ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER, required = false) String originatingIdentityString,
 			@Valid @RequestBody CreateServiceInstanceRequest request) {
 		return getRequiredServiceDefinition(request.getServiceDefinitionId())
-				.flatMap(serviceDefinition -> getServiceDefinitionPlan(serviceDefinition, request.getPlanId())
-						.map(plan -> {
-							request.setPlan(plan);
-							return request;
-						})
-						.switchIfEmpty(Mono.just(request))
-						.map(req -> {
-							req.setServiceInstanceId(serviceInstanceId);
-							req.setServiceDefinition(serviceDefinition);
-							return req;
-						}))
-				.flatMap(req -> setCommonRequestFields(req, pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE), apiInfoLocation,
-						originatingIdentityString, acceptsIncomplete))
-				.cast(CreateServiceInstanceRequest.class)
-				.flatMap(req -> service.createServiceInstance(req)
-						.doOnRequest(v -> logger.debug("Creating a service instance: request={}", req))
-						.doOnSuccess(response ->
-								logger.debug("Creating a service instance succeeded: serviceInstanceId={}, response={}",
-										serviceInstanceId, response)))
+				.flatMap(serviceDefinition -> {
+					Plan plan = findServiceDefinitionPlan(serviceDefinition, request.getPlanId());
+					if (plan != null) {
+						request.setPlan(plan);
+					}
+					request.setServiceInstanceId(serviceInstanceId);
+					request.setServiceDefinition(serviceDefinition);
+					configureCommonRequestFields(request, pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE),
+							apiInfoLocation, originatingIdentityString, acceptsIncomplete);
+					logger.debug("Creating a service instance: request={}", request);
+					return service.createServiceInstance(request);
+				})
+				.doOnSuccess(response ->
+						logger.debug("Creating a service instance succeeded: serviceInstanceId={}, response={}",
+								serviceInstanceId, response))
 				.map(response -> new ResponseEntity<>(response, getCreateResponseCode(response)))
-				.switchIfEmpty(Mono.just(new ResponseEntity<>(HttpStatus.CREATED)));
+				.defaultIfEmpty(new ResponseEntity<>(HttpStatus.CREATED))
+				.transform(applyDeadline("create_service_instance"))
+				.transform(traceOperation(() -> operationAttributes("create_service_instance", originatingIdentityString)
+						.serviceInstanceId(serviceInstanceId)
+						.serviceDefinitionId(request.getServiceDefinitionId())
+						.planId(request.getPlanId())));
 	}
 
 	private HttpStatus getCreateResponseCode(CreateServiceInstanceResponse response) {
@@ -129,18 +156,18 @@ public class ServiceInstanceController extends BaseController {
 			@PathVariable(ServiceBrokerRequest.INSTANCE_ID_PATH_VARIABLE) String serviceInstanceId,
 			@RequestHeader(value = ServiceBrokerRequest.API_INFO_LOCATION_HEADER, required = false) String apiInfoLocation,
 			@RequestHeader(value = ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER, required = false) String originatingIdentityString) {
-		return Mono.just(GetServiceInstanceRequest.builder()
+		GetServiceInstanceRequest request = GetServiceInstanceRequest.builder()
 				.serviceInstanceId(serviceInstanceId)
 				.platformInstanceId(pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE))
 				.apiInfoLocation(apiInfoLocation)
 				.originatingIdentity(parseOriginatingIdentity(originatingIdentityString))
-				.build())
-				.flatMap(request -> service.getServiceInstance(request)
-						.doOnRequest(v -> logger.debug("Getting service instance: request={}", request))
-						.doOnSuccess(response -> logger.debug("Getting service instance succeeded: serviceInstanceId={}, response={}",
-								serviceInstanceId, response)))
+				.build();
+		logger.debug("Getting service instance: request={}", request);
+		return Mono.defer(() -> service.getServiceInstance(request))
+				.doOnSuccess(response -> logger.debug("Getting service instance succeeded: serviceInstanceId={}, response={}",
+						serviceInstanceId, response))
 				.map(response -> new ResponseEntity<>(response, HttpStatus.OK))
-				.switchIfEmpty(Mono.just(new ResponseEntity<>(HttpStatus.OK)))
+				.defaultIfEmpty(new ResponseEntity<>(HttpStatus.OK))
 				.onErrorResume(e -> {
 					if (e instanceof ServiceInstanceDoesNotExistException) {
 						return Mono.just(new ResponseEntity<>(HttpStatus.NOT_FOUND));
@@ -148,7 +175,10 @@ public class ServiceInstanceController extends BaseController {
 					else {
 						return Mono.error(e);
 					}
-				});
+				})
+				.transform(applyDeadline("get_service_instance"))
+				.transform(traceOperation(() -> operationAttributes("get_service_instance", originatingIdentityString)
+						.serviceInstanceId(serviceInstanceId)));
 	}
 
 	@GetMapping(value = {
@@ -163,7 +193,7 @@ public class ServiceInstanceController extends BaseController {
 			@RequestParam(value = "operation", required = false) String operation,
 			@RequestHeader(value = ServiceBrokerRequest.API_INFO_LOCATION_HEADER, required = false) String apiInfoLocation,
 			@RequestHeader(value = ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER, required = false) String originatingIdentityString) {
-		return Mono.just(GetLastServiceOperationRequest.builder()
+		GetLastServiceOperationRequest request = GetLastServiceOperationRequest.builder()
 				.serviceDefinitionId(serviceDefinitionId)
 				.serviceInstanceId(serviceInstanceId)
 				.planId(planId)
@@ -171,16 +201,20 @@ public class ServiceInstanceController extends BaseController {
 				.platformInstanceId(pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE))
 				.apiInfoLocation(apiInfoLocation)
 				.originatingIdentity(parseOriginatingIdentity(originatingIdentityString))
-				.build())
-				.flatMap(request -> service.getLastOperation(request)
-						.doOnRequest(v -> logger.debug("Getting service instance last operation: request={}", request))
-						.doOnSuccess(response -> logger.debug("Getting service instance last operation succeeded: serviceInstanceId={}, response={}",
-								serviceInstanceId, response))
-				)
+				.build();
+		logger.debug("Getting service instance last operation: request={}", request);
+		return Mono.defer(() -> service.getLastOperation(request))
+				.doOnSuccess(response -> logger.debug("Getting service instance last operation succeeded: serviceInstanceId={}, response={}",
+						serviceInstanceId, response))
 				.map(response -> {
 					boolean isSuccessfulDelete = response.getState().equals(OperationState.SUCCEEDED) && response.isDeleteOperation();
 					return new ResponseEntity<>(response, isSuccessfulDelete ? HttpStatus.GONE : HttpStatus.OK);
-				});
+				})
+				.transform(applyDeadline("get_last_service_operation"))
+				.transform(traceOperation(() -> operationAttributes("get_last_service_operation", originatingIdentityString)
+						.serviceInstanceId(serviceInstanceId)
+						.serviceDefinitionId(serviceDefinitionId)
+						.planId(planId)));
 	}
 
 	@DeleteMapping(value = {
@@ -196,26 +230,26 @@ public class ServiceInstanceController extends BaseController {
 			@RequestHeader(value = ServiceBrokerRequest.API_INFO_LOCATION_HEADER, required = false) String apiInfoLocation,
 			@RequestHeader(value = ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER, required = false) String originatingIdentityString) {
 		return getRequiredServiceDefinition(serviceDefinitionId)
-				.flatMap(serviceDefinition -> getServiceDefinitionPlan(serviceDefinition, planId)
-						.map(DeleteServiceInstanceRequest.builder()::plan)
-						.switchIfEmpty(Mono.just(DeleteServiceInstanceRequest.builder()))
-						.map(builder -> builder
-								.serviceInstanceId(serviceInstanceId)
-								.serviceDefinitionId(serviceDefinitionId)
-								.planId(planId)
-								.serviceDefinition(serviceDefinition)
-								.asyncAccepted(acceptsIncomplete)
-								.platformInstanceId(pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE))
-								.apiInfoLocation(apiInfoLocation)
-								.originatingIdentity(parseOriginatingIdentity(originatingIdentityString))
-								.build()))
-				.flatMap(request -> service.deleteServiceInstance(request)
-						.doOnRequest(v -> logger.debug("Deleting a service instance: request={}", request))
-						.doOnSuccess(response -> logger.debug("Deleting a service instance succeeded: serviceInstanceId={}, response={}",
-								serviceInstanceId, response))
-						.doOnError(e -> logger.debug("Service instance does not exist: ", e)))
+				.flatMap(serviceDefinition -> {
+					DeleteServiceInstanceRequest request = DeleteServiceInstanceRequest.builder()
+							.serviceInstanceId(serviceInstanceId)
+							.serviceDefinitionId(serviceDefinitionId)
+							.planId(planId)
+							.serviceDefinition(serviceDefinition)
+							.plan(findServiceDefinitionPlan(serviceDefinition, planId))
+							.asyncAccepted(acceptsIncomplete)
+							.platformInstanceId(pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE))
+							.apiInfoLocation(apiInfoLocation)
+							.originatingIdentity(parseOriginatingIdentity(originatingIdentityString))
+							.build();
+					logger.debug("Deleting a service instance: request={}", request);
+					return service.deleteServiceInstance(request)
+							.doOnError(e -> logger.debug("Service instance does not exist: ", e));
+				})
+				.doOnSuccess(response -> logger.debug("Deleting a service instance succeeded: serviceInstanceId={}, response={}",
+						serviceInstanceId, response))
 				.map(response -> new ResponseEntity<>(response, getAsyncResponseCode(response)))
-				.switchIfEmpty(Mono.just(new ResponseEntity<>(HttpStatus.OK)))
+				.defaultIfEmpty(new ResponseEntity<>(HttpStatus.OK))
 				.onErrorResume(e -> {
 					if (e instanceof ServiceInstanceDoesNotExistException) {
 						return Mono.just(new ResponseEntity<>(HttpStatus.GONE));
@@ -223,7 +257,12 @@ public class ServiceInstanceController extends BaseController {
 					else {
 						return Mono.error(e);
 					}
-				});
+				})
+				.transform(applyDeadline("delete_service_instance"))
+				.transform(traceOperation(() -> operationAttributes("delete_service_instance", originatingIdentityString)
+						.serviceInstanceId(serviceInstanceId)
+						.serviceDefinitionId(serviceDefinitionId)
+						.planId(planId)));
 	}
 
 	@PatchMapping(value = {
@@ -238,26 +277,27 @@ public class ServiceInstanceController extends BaseController {
 			@RequestHeader(value = ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER, required = false) String originatingIdentityString,
 			@Valid @RequestBody UpdateServiceInstanceRequest request) {
 		return getRequiredServiceDefinition(request.getServiceDefinitionId())
-				.flatMap(serviceDefinition -> getServiceDefinitionPlan(serviceDefinition, request.getPlanId())
-						.map(plan -> {
-							request.setPlan(plan);
-							return request;
-						})
-						.switchIfEmpty(Mono.just(request))
-						.map(req -> {
-							req.setServiceInstanceId(serviceInstanceId);
-							req.setServiceDefinition(serviceDefinition);
-							return req;
-						}))
-				.flatMap(req -> setCommonRequestFields(req, pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE), apiInfoLocation,
-						originatingIdentityString, acceptsIncomplete))
-				.cast(UpdateServiceInstanceRequest.class)
-				.flatMap(req -> service.updateServiceInstance(req)
-						.doOnRequest(v -> logger.debug("Updating a service instance: request={}", request))
-						.doOnSuccess(response -> logger.debug("Updating a service instance succeeded: serviceInstanceId={}, response={}",
-								serviceInstanceId, response)))
+				.flatMap(serviceDefinition -> {
+					Plan plan = findServiceDefinitionPlan(serviceDefinition, request.getPlanId());
+					if (plan != null) {
+						request.setPlan(plan);
+					}
+					request.setServiceInstanceId(serviceInstanceId);
+					request.setServiceDefinition(serviceDefinition);
+					configureCommonRequestFields(request, pathVariables.get(ServiceBrokerRequest.PLATFORM_INSTANCE_ID_VARIABLE),
+							apiInfoLocation, originatingIdentityString, acceptsIncomplete);
+					logger.debug("Updating a service instance: request={}", request);
+					return service.updateServiceInstance(request);
+				})
+				.doOnSuccess(response -> logger.debug("Updating a service instance succeeded: serviceInstanceId={}, response={}",
+						serviceInstanceId, response))
 				.map(response -> new ResponseEntity<>(response, getAsyncResponseCode(response)))
-				.switchIfEmpty(Mono.just(new ResponseEntity<>(HttpStatus.OK)));
+				.defaultIfEmpty(new ResponseEntity<>(HttpStatus.OK))
+				.transform(applyDeadline("update_service_instance"))
+				.transform(traceOperation(() -> operationAttributes("update_service_instance", originatingIdentityString)
+						.serviceInstanceId(serviceInstanceId)
+						.serviceDefinitionId(request.getServiceDefinitionId())
+						.planId(request.getPlanId())));
 	}
 
 }
@@ -73,6 +73,10 @@ public class DeleteServiceInstanceBindingRequest extends AsyncServiceBrokerReque
 		this.plan = plan;
 	}
 
+	DeleteServiceInstanceBindingRequest() {
+		this(null, null, null, null, null, null, false, null, null, null);
+	}
+
 	@JsonProperty(ASYNC_REQUEST_PARAMETER) //in base class field is excluded, as other requests are passing this as query params
 	@Override
 	public boolean isAsyncAccepted() {
@@ -56,6 +56,10 @@ public class GetLastServiceBindingOperationRequest extends ServiceBrokerRequest
 		this.operation = operation;
 	}
 
+	GetLastServiceBindingOperationRequest() {
+		this(null, null, null, null, null, null, null, null);
+	}
+
 	/**
 	 * Get the ID of the service instance associated with the binding. This value is assigned by the platform.
 	 * It must be unique within the platform and can be used to correlate any resources associated with the
@@ -67,6 +67,10 @@ public class DeleteServiceInstanceRequest extends AsyncServiceBrokerRequest {
 		this.plan = plan;
 	}
 
+	DeleteServiceInstanceRequest() {
+		this(null, null, null, null, null, false, null, null, null);
+	}
+
 	/**
 	 * Get the ID of the service instance to delete. This value is assigned by the platform. It must be unique within
 	 * the platform and can be used to correlate any resources associated with the service instance.
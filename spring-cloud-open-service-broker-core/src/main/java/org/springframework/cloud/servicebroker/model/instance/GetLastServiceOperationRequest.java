@@ -52,6 +52,10 @@ public class GetLastServiceOperationRequest extends ServiceBrokerRequest {
 		this.operation = operation;
 	}
 
+	GetLastServiceOperationRequest() {
+		this(null, null, null, null, null, null, null);
+	}
+
 	/**
 	 * Get the ID of the service instance.
 	 *
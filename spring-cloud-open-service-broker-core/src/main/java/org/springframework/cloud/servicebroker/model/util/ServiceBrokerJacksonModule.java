@@ -0,0 +1,192 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.model.util;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.Serializers;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import org.springframework.cloud.servicebroker.model.AsyncServiceBrokerResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+
+/**
+ * A Jackson module with streaming serializers for the responses platforms request most often: provisioning,
+ * deprovisioning and the last operation polls that follow asynchronous operations.
+ *
+ * <p>
+ * The serializers write the same JSON as Jackson's annotation-driven serialization of these types, without
+ * introspecting them or going through reflective property accessors. They apply only to the exact response
+ * classes, so subclasses declared by a service broker are still serialized from their annotations.
+ *
+ * <p>
+ * The module is meant for the {@code ObjectMapper} that writes the responses of the service broker controllers, not
+ * for the application-wide one; {@link #isSerializedType(Class)} tells which types that mapper should be used for.
+ */
+public class ServiceBrokerJacksonModule extends SimpleModule {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final SerializableString STATE = new SerializedString("state");
+
+	private static final SerializableString DESCRIPTION = new SerializedString("description");
+
+	private static final SerializableString OPERATION = new SerializedString("operation");
+
+	private static final SerializableString DASHBOARD_URL = new SerializedString("dashboard_url");
+
+	public ServiceBrokerJacksonModule() {
+		super(ServiceBrokerJacksonModule.class.getSimpleName(), Version.unknownVersion());
+	}
+
+	@Override
+	public void setupModule(SetupContext context) {
+		super.setupModule(context);
+		context.addSerializers(new ExactTypeSerializers());
+	}
+
+	/**
+	 * Tell whether the module has a serializer for a type.
+	 *
+	 * @param type the type to serialize
+	 * @return whether values of exactly this type are written by the module
+	 */
+	public static boolean isSerializedType(Class<?> type) {
+		return ExactTypeSerializers.SERIALIZERS.containsKey(type);
+	}
+
+	private static final class ExactTypeSerializers extends Serializers.Base {
+
+		private static final Map<Class<?>, JsonSerializer<?>> SERIALIZERS = new HashMap<>();
+
+		static {
+			add(new LastOperationSerializer<>(GetLastServiceOperationResponse.class,
+					GetLastServiceOperationResponse::getState, GetLastServiceOperationResponse::getDescription));
+			add(new LastOperationSerializer<>(GetLastServiceBindingOperationResponse.class,
+					GetLastServiceBindingOperationResponse::getState,
+					GetLastServiceBindingOperationResponse::getDescription));
+			add(new AsyncResponseSerializer<>(CreateServiceInstanceResponse.class,
+					CreateServiceInstanceResponse::getDashboardUrl));
+			add(new AsyncResponseSerializer<>(UpdateServiceInstanceResponse.class,
+					UpdateServiceInstanceResponse::getDashboardUrl));
+			add(new AsyncResponseSerializer<>(DeleteServiceInstanceResponse.class, null));
+			add(new AsyncResponseSerializer<>(DeleteServiceInstanceBindingResponse.class, null));
+		}
+
+		private static void add(JsonSerializer<?> serializer) {
+			SERIALIZERS.put(serializer.handledType(), serializer);
+		}
+
+		@Override
+		public JsonSerializer<?> findSerializer(SerializationConfig config, JavaType type, BeanDescription beanDesc) {
+			return SERIALIZERS.get(type.getRawClass());
+		}
+
+	}
+
+	/**
+	 * Writes {@literal state} and {@literal description}, omitting {@literal null} values.
+	 */
+	private static final class LastOperationSerializer<T> extends StdSerializer<T> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient Function<T, OperationState> state;
+
+		private final transient Function<T, String> description;
+
+		private LastOperationSerializer(Class<T> type, Function<T, OperationState> state,
+				Function<T, String> description) {
+			super(type);
+			this.state = state;
+			this.description = description;
+		}
+
+		@Override
+		public void serialize(T value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			gen.writeStartObject();
+			OperationState operationState = this.state.apply(value);
+			if (operationState != null) {
+				gen.writeFieldName(STATE);
+				gen.writeString(operationState.getValue());
+			}
+			String operationDescription = this.description.apply(value);
+			if (operationDescription != null) {
+				gen.writeFieldName(DESCRIPTION);
+				gen.writeString(operationDescription);
+			}
+			gen.writeEndObject();
+		}
+
+	}
+
+	/**
+	 * Writes {@literal operation} and, for responses that have one, {@literal dashboard_url}, omitting
+	 * {@literal null} and empty values.
+	 */
+	private static final class AsyncResponseSerializer<T extends AsyncServiceBrokerResponse> extends StdSerializer<T> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient Function<T, String> dashboardUrl;
+
+		private AsyncResponseSerializer(Class<T> type, Function<T, String> dashboardUrl) {
+			super(type);
+			this.dashboardUrl = dashboardUrl;
+		}
+
+		@Override
+		public void serialize(T value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			gen.writeStartObject();
+			writeNonEmpty(gen, OPERATION, value.getOperation());
+			if (this.dashboardUrl != null) {
+				writeNonEmpty(gen, DASHBOARD_URL, this.dashboardUrl.apply(value));
+			}
+			gen.writeEndObject();
+		}
+
+		private static void writeNonEmpty(JsonGenerator gen, SerializableString name, String value)
+				throws IOException {
+			if (value != null && !value.isEmpty()) {
+				gen.writeFieldName(name);
+				gen.writeString(value);
+			}
+		}
+
+	}
+
+}
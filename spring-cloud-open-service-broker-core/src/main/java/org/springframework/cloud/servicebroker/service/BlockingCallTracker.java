@@ -0,0 +1,114 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadline;
+
+/**
+ * Tracks the blocking service calls made for an operation, so that a decorator can tell when the calls of a
+ * cancelled operation have returned. Cancelling a {@link Mono} does not stop a blocking call that is already running
+ * on a worker thread.
+ *
+ * <p>
+ * A decorator puts a tracker in the Reactor {@link reactor.util.context.Context} of the operation under
+ * {@link #CONTEXT_KEY}, and the blocking service adapters run their calls with {@link #fromCallable(Callable)}.
+ */
+public final class BlockingCallTracker {
+
+	/**
+	 * The key of the tracker in the Reactor {@link reactor.util.context.Context} of an operation.
+	 */
+	public static final String CONTEXT_KEY = BlockingCallTracker.class.getName();
+
+	private int runningCalls;
+
+	private boolean closed;
+
+	private Runnable onIdle;
+
+	/**
+	 * Run an action once no tracked call is running. Calls that have not started yet are not started afterwards.
+	 *
+	 * @param action the action
+	 */
+	public void whenIdle(Runnable action) {
+		synchronized (this) {
+			this.closed = true;
+			if (this.runningCalls > 0) {
+				this.onIdle = action;
+				return;
+			}
+		}
+		action.run();
+	}
+
+	private synchronized boolean enter() {
+		if (this.closed) {
+			return false;
+		}
+		this.runningCalls++;
+		return true;
+	}
+
+	private void exit() {
+		Runnable action;
+		synchronized (this) {
+			this.runningCalls--;
+			if (this.runningCalls > 0 || this.onIdle == null) {
+				return;
+			}
+			action = this.onIdle;
+			this.onIdle = null;
+		}
+		action.run();
+	}
+
+	/**
+	 * Create a {@link Mono} that calls a blocking service, tracked by the tracker found in the Reactor
+	 * {@link reactor.util.context.Context}, if any. The deadline of the operation is available to the call as with
+	 * {@link OperationDeadline#fromCallable(Callable)}.
+	 *
+	 * @param callable the blocking call
+	 * @param <T> the type of the result
+	 * @return a {@link Mono} that makes the call
+	 */
+	public static <T> Mono<T> fromCallable(Callable<T> callable) {
+		return Mono.subscriberContext().flatMap(context -> {
+			BlockingCallTracker tracker = context.getOrDefault(CONTEXT_KEY, null);
+			if (tracker == null) {
+				return OperationDeadline.fromCallable(callable);
+			}
+			return OperationDeadline.fromCallable(() -> {
+				if (!tracker.enter()) {
+					throw new CancellationException("The operation was cancelled before the service was called");
+				}
+				try {
+					return callable.call();
+				}
+				finally {
+					tracker.exit();
+				}
+			});
+		});
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadline;
+
+/**
+ * Internal implementation of {@link ServiceInstanceBindingService} that adapts a
+ * {@link BlockingServiceInstanceBindingService}, running each call on the scheduler provided for the request's
+ * service definition. The deadline of the operation, if any, is available to the blocking service from
+ * {@link OperationDeadline#getCurrent()}.
+ */
+public class BlockingServiceInstanceBindingServiceAdapter implements ServiceInstanceBindingService {
+
+	private final BlockingServiceInstanceBindingService service;
+
+	private final BlockingServiceSchedulers schedulers;
+
+	public BlockingServiceInstanceBindingServiceAdapter(BlockingServiceInstanceBindingService service,
+			BlockingServiceSchedulers schedulers) {
+		this.service = service;
+		this.schedulers = schedulers;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceBindingResponse> createServiceInstanceBinding(CreateServiceInstanceBindingRequest request) {
+		return OperationDeadline.fromCallable(() -> service.createServiceInstanceBinding(request))
+				.subscribeOn(schedulers.getScheduler(request.getServiceDefinitionId()));
+	}
+
+	@Override
+	public Mono<GetServiceInstanceBindingResponse> getServiceInstanceBinding(GetServiceInstanceBindingRequest request) {
+		return OperationDeadline.fromCallable(() -> service.getServiceInstanceBinding(request))
+				.subscribeOn(schedulers.getScheduler(null));
+	}
+
+	@Override
+	public Mono<GetLastServiceBindingOperationResponse> getLastOperation(GetLastServiceBindingOperationRequest request) {
+		return OperationDeadline.fromCallable(() -> service.getLastOperation(request))
+				.subscribeOn(schedulers.getScheduler(request.getServiceDefinitionId()));
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceBindingResponse> deleteServiceInstanceBinding(DeleteServiceInstanceBindingRequest request) {
+		return OperationDeadline.fromCallable(() -> service.deleteServiceInstanceBinding(request))
+				.subscribeOn(schedulers.getScheduler(request.getServiceDefinitionId()));
+	}
+
+}
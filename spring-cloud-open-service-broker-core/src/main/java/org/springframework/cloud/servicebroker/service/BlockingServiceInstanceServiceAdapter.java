@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadline;
+
+/**
+ * Internal implementation of {@link ServiceInstanceService} that adapts a {@link BlockingServiceInstanceService},
+ * running each call on the scheduler provided for the request's service definition. The deadline of the operation,
+ * if any, is available to the blocking service from {@link OperationDeadline#getCurrent()}, and the calls are
+ * tracked by the {@link BlockingCallTracker} of the operation, if any.
+ */
+public class BlockingServiceInstanceServiceAdapter implements ServiceInstanceService {
+
+	private final BlockingServiceInstanceService service;
+
+	private final BlockingServiceSchedulers schedulers;
+
+	public BlockingServiceInstanceServiceAdapter(BlockingServiceInstanceService service,
+			BlockingServiceSchedulers schedulers) {
+		this.service = service;
+		this.schedulers = schedulers;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+		return BlockingCallTracker.fromCallable(() -> service.createServiceInstance(request))
+				.subscribeOn(schedulers.getScheduler(request.getServiceDefinitionId()));
+	}
+
+	@Override
+	public Mono<GetServiceInstanceResponse> getServiceInstance(GetServiceInstanceRequest request) {
+		return BlockingCallTracker.fromCallable(() -> service.getServiceInstance(request))
+				.subscribeOn(schedulers.getScheduler(null));
+	}
+
+	@Override
+	public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+		return BlockingCallTracker.fromCallable(() -> service.getLastOperation(request))
+				.subscribeOn(schedulers.getScheduler(request.getServiceDefinitionId()));
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+		return BlockingCallTracker.fromCallable(() -> service.deleteServiceInstance(request))
+				.subscribeOn(schedulers.getScheduler(request.getServiceDefinitionId()));
+	}
+
+	@Override
+	public Mono<UpdateServiceInstanceResponse> updateServiceInstance(UpdateServiceInstanceRequest request) {
+		return BlockingCallTracker.fromCallable(() -> service.updateServiceInstance(request))
+				.subscribeOn(schedulers.getScheduler(request.getServiceDefinitionId()));
+	}
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Provides the {@link Scheduler schedulers} used to run calls to blocking service implementations.
+ *
+ * <p>
+ * When isolation is enabled, each service definition gets its own scheduler so that a slow or hung backend for one
+ * service cannot exhaust the threads used by other services. Only the service definitions accepted by the given
+ * filter, usually those of the catalog, are isolated. Requests that do not carry such a service definition ID, or that
+ * arrive after the maximum number of isolated schedulers has been reached, share a common scheduler.
+ *
+ * @see BlockingServiceInstanceServiceAdapter
+ * @see BlockingServiceInstanceBindingServiceAdapter
+ */
+public class BlockingServiceSchedulers implements Disposable {
+
+	/**
+	 * The key of the scheduler shared by requests that are not isolated by service definition.
+	 */
+	public static final String SHARED_SCHEDULER_KEY = "shared";
+
+	private static final int DEFAULT_MAX_ISOLATED_SCHEDULERS = 64;
+
+	private final Function<String, ExecutorService> executorFactory;
+
+	private final boolean isolatePerServiceDefinition;
+
+	private final int maxIsolatedSchedulers;
+
+	private final Predicate<String> isolatedServiceDefinitionIds;
+
+	private final Map<String, Scheduler> schedulers = new ConcurrentHashMap<>();
+
+	private final AtomicInteger isolatedSchedulerCount = new AtomicInteger();
+
+	private volatile Scheduler sharedScheduler;
+
+	/**
+	 * Construct schedulers that are isolated per service definition.
+	 *
+	 * @param executorFactory creates the executor backing the scheduler for a given key
+	 */
+	public BlockingServiceSchedulers(Function<String, ExecutorService> executorFactory) {
+		this(executorFactory, true, DEFAULT_MAX_ISOLATED_SCHEDULERS);
+	}
+
+	/**
+	 * Construct schedulers.
+	 *
+	 * @param executorFactory creates the executor backing the scheduler for a given key
+	 * @param isolatePerServiceDefinition whether each service definition gets a dedicated scheduler
+	 * @param maxIsolatedSchedulers the maximum number of dedicated schedulers to create
+	 */
+	public BlockingServiceSchedulers(Function<String, ExecutorService> executorFactory,
+			boolean isolatePerServiceDefinition, int maxIsolatedSchedulers) {
+		this(executorFactory, isolatePerServiceDefinition, maxIsolatedSchedulers, serviceDefinitionId -> true);
+	}
+
+	/**
+	 * Construct schedulers.
+	 *
+	 * @param executorFactory creates the executor backing the scheduler for a given key
+	 * @param isolatePerServiceDefinition whether each service definition gets a dedicated scheduler
+	 * @param maxIsolatedSchedulers the maximum number of dedicated schedulers to create
+	 * @param isolatedServiceDefinitionIds accepts the IDs of the service definitions that may get a dedicated
+	 * scheduler, such as a {@link CatalogServiceDefinitionIds}
+	 */
+	public BlockingServiceSchedulers(Function<String, ExecutorService> executorFactory,
+			boolean isolatePerServiceDefinition, int maxIsolatedSchedulers,
+			Predicate<String> isolatedServiceDefinitionIds) {
+		this.executorFactory = executorFactory;
+		this.isolatePerServiceDefinition = isolatePerServiceDefinition;
+		this.maxIsolatedSchedulers = maxIsolatedSchedulers;
+		this.isolatedServiceDefinitionIds = isolatedServiceDefinitionIds;
+	}
+
+	/**
+	 * Get the scheduler used to run blocking calls for a service definition.
+	 *
+	 * @param serviceDefinitionId the service definition ID, may be {@literal null}
+	 * @return the scheduler
+	 */
+	public Scheduler getScheduler(String serviceDefinitionId) {
+		if (!this.isolatePerServiceDefinition || serviceDefinitionId == null) {
+			return getSharedScheduler();
+		}
+		Scheduler scheduler = this.schedulers.get(serviceDefinitionId);
+		if (scheduler == null && this.isolatedServiceDefinitionIds.test(serviceDefinitionId)) {
+			// the limit is checked within the atomic update, so that concurrent requests cannot exceed it
+			scheduler = this.schedulers.compute(serviceDefinitionId, (id, existing) -> {
+				if (existing != null) {
+					return existing;
+				}
+				if (this.isolatedSchedulerCount.incrementAndGet() > this.maxIsolatedSchedulers) {
+					this.isolatedSchedulerCount.decrementAndGet();
+					return null;
+				}
+				return createScheduler(id);
+			});
+		}
+		return scheduler != null ? scheduler : getSharedScheduler();
+	}
+
+	@Override
+	public void dispose() {
+		this.schedulers.values().forEach(Scheduler::dispose);
+		this.schedulers.clear();
+		synchronized (this) {
+			if (this.sharedScheduler != null) {
+				this.sharedScheduler.dispose();
+				this.sharedScheduler = null;
+			}
+		}
+	}
+
+	private Scheduler getSharedScheduler() {
+		Scheduler scheduler = this.sharedScheduler;
+		if (scheduler == null) {
+			synchronized (this) {
+				scheduler = this.sharedScheduler;
+				if (scheduler == null) {
+					scheduler = createScheduler(SHARED_SCHEDULER_KEY);
+					this.sharedScheduler = scheduler;
+				}
+			}
+		}
+		return scheduler;
+	}
+
+	private Scheduler createScheduler(String key) {
+		return Schedulers.fromExecutorService(this.executorFactory.apply(key));
+	}
+
+	/**
+	 * Create a factory for bounded thread pools. Each pool has at most {@code maxThreads} threads and queues at most
+	 * {@code queueCapacity} tasks; further submissions are rejected and surface as errors to the caller.
+	 *
+	 * @param maxThreads the maximum number of threads per pool
+	 * @param queueCapacity the maximum number of queued tasks per pool
+	 * @param keepAlive how long idle threads are kept
+	 * @return the executor factory
+	 */
+	public static Function<String, ExecutorService> boundedExecutorFactory(int maxThreads, int queueCapacity,
+			Duration keepAlive) {
+		return key -> {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads,
+					keepAlive.toMillis(), TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity),
+					new NamedThreadFactory("osb-blocking-" + key));
+			executor.allowCoreThreadTimeOut(true);
+			return executor;
+		};
+	}
+
+	/**
+	 * Create a factory for virtual-thread-per-task executors. Virtual threads require Java 21 or later; the executor
+	 * is looked up reflectively so that this class remains compatible with earlier runtimes.
+	 *
+	 * @return the executor factory
+	 * @throws IllegalStateException if virtual threads are not supported by the running JVM
+	 */
+	public static Function<String, ExecutorService> virtualThreadExecutorFactory() {
+		Method factoryMethod = ReflectionUtils.findMethod(Executors.class, "newVirtualThreadPerTaskExecutor");
+		if (factoryMethod == null) {
+			throw new IllegalStateException("Virtual threads are not supported by this JVM; Java 21 or later is required");
+		}
+		return key -> (ExecutorService) ReflectionUtils.invokeMethod(factoryMethod, null);
+	}
+
+	/**
+	 * Determine whether the running JVM supports virtual threads.
+	 *
+	 * @return {@literal true} if virtual threads are supported
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return ReflectionUtils.findMethod(Executors.class, "newVirtualThreadPerTaskExecutor") != null;
+	}
+
+	private static final class NamedThreadFactory implements ThreadFactory {
+
+		private final String prefix;
+
+		private final AtomicInteger counter = new AtomicInteger();
+
+		private NamedThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, this.prefix + "-" + this.counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+/**
+ * The HTTP content codings a {@link CatalogView} can be served with.
+ */
+public enum CatalogContentEncoding {
+
+	/**
+	 * The serialized catalog, uncompressed.
+	 */
+	IDENTITY("identity"),
+
+	/**
+	 * The serialized catalog in gzip format.
+	 */
+	GZIP("gzip"),
+
+	/**
+	 * The serialized catalog in zlib format, as used by the HTTP deflate content coding.
+	 */
+	DEFLATE("deflate");
+
+	private final String value;
+
+	CatalogContentEncoding(String value) {
+		this.value = value;
+	}
+
+	/**
+	 * The name of the content coding in HTTP headers.
+	 *
+	 * @return the content coding
+	 */
+	public String getValue() {
+		return this.value;
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+
+/**
+ * Tests whether a service definition ID belongs to the catalog, without blocking the calling thread.
+ *
+ * <p>
+ * The IDs are read from the {@link CatalogService} in the background when this object is created, and read again
+ * when an unknown ID is tested, at most once per refresh interval. An ID is therefore unknown until the catalog
+ * holding it has been read. Components that keep state per service definition use this to bound that state by the
+ * size of the catalog, whatever service definition IDs requests carry.
+ */
+public class CatalogServiceDefinitionIds implements Predicate<String> {
+
+	/**
+	 * The minimum time between two reads of the catalog, unless another interval is given.
+	 */
+	public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofSeconds(10);
+
+	private static final Logger logger = LoggerFactory.getLogger(CatalogServiceDefinitionIds.class);
+
+	private final CatalogService catalogService;
+
+	private final long refreshIntervalNanos;
+
+	private final AtomicLong nextRefreshNanos;
+
+	private volatile Set<String> serviceDefinitionIds = Collections.emptySet();
+
+	/**
+	 * Construct a new {@link CatalogServiceDefinitionIds} that reads the catalog at most once per
+	 * {@link #DEFAULT_REFRESH_INTERVAL default interval}.
+	 *
+	 * @param catalogService the service providing the catalog
+	 */
+	public CatalogServiceDefinitionIds(CatalogService catalogService) {
+		this(catalogService, DEFAULT_REFRESH_INTERVAL);
+	}
+
+	/**
+	 * Construct a new {@link CatalogServiceDefinitionIds}.
+	 *
+	 * @param catalogService the service providing the catalog
+	 * @param refreshInterval the minimum time between two reads of the catalog
+	 */
+	public CatalogServiceDefinitionIds(CatalogService catalogService, Duration refreshInterval) {
+		this.catalogService = catalogService;
+		this.refreshIntervalNanos = refreshInterval.toNanos();
+		this.nextRefreshNanos = new AtomicLong(System.nanoTime() + this.refreshIntervalNanos);
+		refresh();
+	}
+
+	/**
+	 * Test whether a service definition ID belongs to the catalog.
+	 *
+	 * @param serviceDefinitionId the service definition ID
+	 * @return whether the ID was found in the last catalog read
+	 */
+	@Override
+	public boolean test(String serviceDefinitionId) {
+		if (serviceDefinitionId == null) {
+			return false;
+		}
+		if (this.serviceDefinitionIds.contains(serviceDefinitionId)) {
+			return true;
+		}
+		long now = System.nanoTime();
+		long nextRefresh = this.nextRefreshNanos.get();
+		if (now - nextRefresh >= 0 && this.nextRefreshNanos.compareAndSet(nextRefresh, now + this.refreshIntervalNanos)) {
+			refresh();
+		}
+		return false;
+	}
+
+	private void refresh() {
+		this.catalogService.getCatalog()
+				.subscribe(this::update, e -> logger.warn("Error reading the service definition IDs of the catalog", e));
+	}
+
+	private void update(Catalog catalog) {
+		Set<String> ids = new HashSet<>();
+		for (ServiceDefinition serviceDefinition : catalog.getServiceDefinitions()) {
+			ids.add(serviceDefinition.getId());
+		}
+		this.serviceDefinitionIds = Collections.unmodifiableSet(ids);
+	}
+
+}
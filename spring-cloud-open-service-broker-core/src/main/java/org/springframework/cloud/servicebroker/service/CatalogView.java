@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+
+/**
+ * A materialized view of the catalog as served to one or more platforms, together with its JSON serialization.
+ *
+ * <p>
+ * Compressed variants of the serialization are computed the first time they are requested and then kept for the
+ * lifetime of the view, so serving a compressed catalog costs no compression work per request.
+ *
+ * @see CatalogViewService
+ */
+public final class CatalogView {
+
+	private final Catalog catalog;
+
+	private final byte[] serializedCatalog;
+
+	private volatile byte[] gzipSerializedCatalog;
+
+	private volatile byte[] deflateSerializedCatalog;
+
+	CatalogView(Catalog catalog, byte[] serializedCatalog) {
+		this.catalog = catalog;
+		this.serializedCatalog = serializedCatalog;
+	}
+
+	/**
+	 * The catalog containing only the service definitions and plans visible in this view.
+	 *
+	 * @return the catalog
+	 */
+	public Catalog getCatalog() {
+		return this.catalog;
+	}
+
+	/**
+	 * The catalog serialized as JSON. The array is shared by every request served this view and must not be
+	 * modified.
+	 *
+	 * @return the serialized catalog
+	 */
+	public byte[] getSerializedCatalog() {
+		return this.serializedCatalog;
+	}
+
+	/**
+	 * The catalog serialized as JSON and encoded with a content coding. The array is shared by every request served
+	 * this view and must not be modified.
+	 *
+	 * @param encoding the content coding
+	 * @return the encoded serialized catalog
+	 */
+	public byte[] getSerializedCatalog(CatalogContentEncoding encoding) {
+		switch (encoding) {
+			case GZIP:
+				byte[] gzip = this.gzipSerializedCatalog;
+				if (gzip == null) {
+					gzip = compress(GZIPOutputStream::new);
+					this.gzipSerializedCatalog = gzip;
+				}
+				return gzip;
+			case DEFLATE:
+				byte[] deflate = this.deflateSerializedCatalog;
+				if (deflate == null) {
+					deflate = compress(DeflaterOutputStream::new);
+					this.deflateSerializedCatalog = deflate;
+				}
+				return deflate;
+			default:
+				return this.serializedCatalog;
+		}
+	}
+
+	private byte[] compress(CompressingStreamFactory factory) {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(this.serializedCatalog.length / 4 + 64);
+		try (OutputStream out = factory.create(compressed)) {
+			out.write(this.serializedCatalog);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Unable to compress catalog", e);
+		}
+		return compressed.toByteArray();
+	}
+
+	@FunctionalInterface
+	private interface CompressingStreamFactory {
+
+		OutputStream create(OutputStream out) throws IOException;
+
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.Objects;
+
+/**
+ * Identifies the platform a catalog request came from, for resolving the {@link CatalogView} served to it.
+ *
+ * @see CatalogViewService
+ */
+public final class CatalogViewKey {
+
+	private final String platformInstanceId;
+
+	private final String platform;
+
+	private CatalogViewKey(String platformInstanceId, String platform) {
+		this.platformInstanceId = platformInstanceId;
+		this.platform = platform;
+	}
+
+	/**
+	 * Create a key for a catalog request.
+	 *
+	 * @param platformInstanceId the platform instance ID in the request path, or {@literal null} if there is none
+	 * @param platform the platform from the originating identity header, or {@literal null} if there is none
+	 * @return the key
+	 */
+	public static CatalogViewKey of(String platformInstanceId, String platform) {
+		return new CatalogViewKey(platformInstanceId, platform);
+	}
+
+	/**
+	 * The platform instance ID in the request path.
+	 *
+	 * @return the platform instance ID, or {@literal null} if the request path has none
+	 */
+	public String getPlatformInstanceId() {
+		return this.platformInstanceId;
+	}
+
+	/**
+	 * The platform that originated the request, as named in the originating identity header, for example
+	 * {@literal cloudfoundry} or {@literal kubernetes}.
+	 *
+	 * @return the platform, or {@literal null} if the request has no originating identity
+	 */
+	public String getPlatform() {
+		return this.platform;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof CatalogViewKey)) {
+			return false;
+		}
+		CatalogViewKey that = (CatalogViewKey) o;
+		return Objects.equals(platformInstanceId, that.platformInstanceId) &&
+				Objects.equals(platform, that.platform);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(platformInstanceId, platform);
+	}
+
+	@Override
+	public String toString() {
+		return "CatalogViewKey{" +
+				"platformInstanceId='" + platformInstanceId + '\'' +
+				", platform='" + platform + '\'' +
+				'}';
+	}
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+
+/**
+ * A rule deciding which plans are visible in the catalog served to a platform. A plan is visible only if every
+ * configured rule allows it, and a service definition is omitted when none of its plans are visible.
+ *
+ * <p>
+ * Rules are evaluated when a view is materialized, not on every catalog request, so they should depend only on the
+ * {@link CatalogViewKey} and the catalog contents.
+ *
+ * @see CatalogViewService
+ */
+@FunctionalInterface
+public interface CatalogViewRule {
+
+	/**
+	 * Determine whether a plan is visible to a platform.
+	 *
+	 * @param key identifies the platform requesting the catalog
+	 * @param serviceDefinition the service definition containing the plan
+	 * @param plan the plan
+	 * @return {@literal true} if the plan is visible
+	 */
+	boolean isPlanVisible(CatalogViewKey key, ServiceDefinition serviceDefinition, Plan plan);
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Resolves the view of a {@link CatalogService catalog} served to each platform, applying {@link CatalogViewRule
+ * rules} over its service definitions and plans.
+ *
+ * <p>
+ * Each distinct view is materialized and serialized once, then shared by every platform that sees the same set of
+ * plans. Views are rebuilt when the {@link CatalogService} returns a {@link Catalog} whose content differs from the
+ * one they were built from, so a catalog service that builds a new but equal catalog on every call is still served
+ * from the cache. Call {@link #invalidate()} after modifying a catalog in place, since the views then cannot tell the
+ * content changed.
+ */
+public class CatalogViewService {
+
+	private static final int DEFAULT_MAX_CACHED_KEYS = 1000;
+
+	private final CatalogService catalogService;
+
+	private final List<CatalogViewRule> rules;
+
+	private final ObjectMapper objectMapper;
+
+	private final int maxCachedKeys;
+
+	private volatile Views views = new Views(null);
+
+	/**
+	 * Construct a service that serves the full catalog to every platform.
+	 *
+	 * @param catalogService the service providing the catalog
+	 */
+	public CatalogViewService(CatalogService catalogService) {
+		this(catalogService, Collections.emptyList(), Jackson2ObjectMapperBuilder.json().build(),
+				DEFAULT_MAX_CACHED_KEYS);
+	}
+
+	/**
+	 * Construct a service.
+	 *
+	 * @param catalogService the service providing the catalog
+	 * @param rules the rules deciding which plans each platform sees
+	 * @param objectMapper the mapper used to serialize views
+	 * @param maxCachedKeys the maximum number of {@link CatalogViewKey keys} whose view is remembered; views
+	 * for further keys are still shared, but resolving them evaluates the rules again
+	 */
+	public CatalogViewService(CatalogService catalogService, List<CatalogViewRule> rules,
+			ObjectMapper objectMapper, int maxCachedKeys) {
+		this.catalogService = catalogService;
+		this.rules = new ArrayList<>(rules);
+		this.objectMapper = objectMapper;
+		this.maxCachedKeys = maxCachedKeys;
+	}
+
+	/**
+	 * Resolve the view of the catalog served to a platform.
+	 *
+	 * @param key identifies the platform requesting the catalog
+	 * @return the view
+	 */
+	public Mono<CatalogView> getCatalogView(CatalogViewKey key) {
+		return this.catalogService.getCatalog()
+				.map(catalog -> viewsOf(catalog).get(key));
+	}
+
+	/**
+	 * Discard all materialized views, so that they are rebuilt from the catalog on the next request.
+	 */
+	public void invalidate() {
+		this.views = new Views(null);
+	}
+
+	private Views viewsOf(Catalog catalog) {
+		Views current = this.views;
+		if (catalog.equals(current.catalog)) {
+			return current;
+		}
+		Views replacement = new Views(catalog);
+		this.views = replacement;
+		return replacement;
+	}
+
+	private final class Views {
+
+		private final Catalog catalog;
+
+		private final Map<CatalogViewKey, CatalogView> viewsByKey = new ConcurrentHashMap<>();
+
+		private final Map<List<String>, CatalogView> viewsByVisiblePlans = new ConcurrentHashMap<>();
+
+		private volatile CatalogView fullView;
+
+		private Views(Catalog catalog) {
+			this.catalog = catalog;
+		}
+
+		private CatalogView get(CatalogViewKey key) {
+			if (rules.isEmpty()) {
+				CatalogView view = this.fullView;
+				if (view == null) {
+					view = new CatalogView(this.catalog, serialize(this.catalog));
+					this.fullView = view;
+				}
+				return view;
+			}
+			CatalogView view = this.viewsByKey.get(key);
+			if (view == null) {
+				view = this.viewsByVisiblePlans.computeIfAbsent(visiblePlanIds(key), planIds -> materialize(key));
+				if (this.viewsByKey.size() < maxCachedKeys) {
+					this.viewsByKey.putIfAbsent(key, view);
+				}
+			}
+			return view;
+		}
+
+		private List<String> visiblePlanIds(CatalogViewKey key) {
+			List<String> planIds = new ArrayList<>();
+			for (ServiceDefinition serviceDefinition : this.catalog.getServiceDefinitions()) {
+				for (Plan plan : serviceDefinition.getPlans()) {
+					if (isVisible(key, serviceDefinition, plan)) {
+						planIds.add(serviceDefinition.getId() + '/' + plan.getId());
+					}
+				}
+			}
+			return planIds;
+		}
+
+		private CatalogView materialize(CatalogViewKey key) {
+			List<ServiceDefinition> serviceDefinitions = new ArrayList<>();
+			for (ServiceDefinition serviceDefinition : this.catalog.getServiceDefinitions()) {
+				List<Plan> plans = new ArrayList<>();
+				for (Plan plan : serviceDefinition.getPlans()) {
+					if (isVisible(key, serviceDefinition, plan)) {
+						plans.add(plan);
+					}
+				}
+				if (plans.size() == serviceDefinition.getPlans().size()) {
+					serviceDefinitions.add(serviceDefinition);
+				}
+				else if (!plans.isEmpty()) {
+					serviceDefinitions.add(withPlans(serviceDefinition, plans));
+				}
+			}
+			Catalog view = Catalog.builder()
+					.serviceDefinitions(serviceDefinitions)
+					.build();
+			return new CatalogView(view, serialize(view));
+		}
+
+	}
+
+	private boolean isVisible(CatalogViewKey key, ServiceDefinition serviceDefinition, Plan plan) {
+		for (CatalogViewRule rule : this.rules) {
+			if (!rule.isPlanVisible(key, serviceDefinition, plan)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private byte[] serialize(Catalog catalog) {
+		try {
+			return this.objectMapper.writeValueAsBytes(catalog);
+		}
+		catch (JsonProcessingException e) {
+			throw new IllegalStateException("Unable to serialize catalog", e);
+		}
+	}
+
+	private static ServiceDefinition withPlans(ServiceDefinition serviceDefinition, List<Plan> plans) {
+		ServiceDefinition.ServiceDefinitionBuilder builder = ServiceDefinition.builder()
+				.id(serviceDefinition.getId())
+				.name(serviceDefinition.getName())
+				.description(serviceDefinition.getDescription())
+				.bindable(serviceDefinition.isBindable())
+				.planUpdateable(serviceDefinition.isPlanUpdateable())
+				.instancesRetrievable(serviceDefinition.isInstancesRetrievable())
+				.bindingsRetrievable(serviceDefinition.isBindingsRetrievable())
+				.plans(plans)
+				.dashboardClient(serviceDefinition.getDashboardClient());
+		if (serviceDefinition.getTags() != null) {
+			builder.tags(serviceDefinition.getTags());
+		}
+		if (serviceDefinition.getMetadata() != null) {
+			builder.metadata(serviceDefinition.getMetadata());
+		}
+		if (serviceDefinition.getRequires() != null) {
+			builder.requires(serviceDefinition.getRequires());
+		}
+		return builder.build();
+	}
+
+}
@@ -16,8 +16,13 @@
 
 package org.springframework.cloud.servicebroker.service;
 
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
 import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
 import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
 import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
@@ -27,6 +32,12 @@ import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindi
 import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingRequest;
 import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingResponse;
 import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.outbox.EventFlowOutbox;
+import org.springframework.cloud.servicebroker.service.events.outbox.OutboxEvent;
+import org.springframework.cloud.servicebroker.service.events.outbox.OutboxEventType;
+import org.springframework.cloud.servicebroker.service.tracing.OperationAttributes;
+import org.springframework.cloud.servicebroker.service.tracing.OperationTracer;
 
 /**
  * Internal implementation of {@link ServiceInstanceBindingService} that attaches event
@@ -40,19 +51,48 @@ public class ServiceInstanceBindingEventService implements ServiceInstanceBindin
 
 	private final EventFlowRegistries flows;
 
+	private final EventFlowOutbox outbox;
+
+	private final OperationTracer tracer;
+
 	public ServiceInstanceBindingEventService(ServiceInstanceBindingService service, EventFlowRegistries flows) {
+		this(service, flows, null);
+	}
+
+	/**
+	 * Construct a service that records completion and error events in an outbox instead of running the completion
+	 * and error flows inline. Initialization flows always run inline.
+	 *
+	 * @param service the service to delegate to
+	 * @param flows the event flow registries
+	 * @param outbox the outbox, or {@literal null} to run all flows inline
+	 */
+	public ServiceInstanceBindingEventService(ServiceInstanceBindingService service, EventFlowRegistries flows,
+			EventFlowOutbox outbox) {
+		this(service, flows, outbox, null);
+	}
+
+	/**
+	 * Construct a service that traces the phases of each operation, and optionally records completion and error
+	 * events in an outbox.
+	 *
+	 * @param service the service to delegate to
+	 * @param flows the event flow registries
+	 * @param outbox the outbox, or {@literal null} to run all flows inline
+	 * @param operationTracer the tracer, or {@literal null} to not trace operations
+	 */
+	public ServiceInstanceBindingEventService(ServiceInstanceBindingService service, EventFlowRegistries flows,
+			EventFlowOutbox outbox, OperationTracer operationTracer) {
 		this.service = service;
 		this.flows = flows;
+		this.outbox = outbox;
+		this.tracer = operationTracer;
 	}
 
 	@Override
 	public Mono<CreateServiceInstanceBindingResponse> createServiceInstanceBinding(CreateServiceInstanceBindingRequest request) {
-		return flows.getCreateInstanceBindingRegistry().getInitializationFlows(request)
-				.then(service.createServiceInstanceBinding(request))
-				.onErrorResume(e -> flows.getCreateInstanceBindingRegistry().getErrorFlows(request, e)
-						.then(Mono.error(e)))
-				.flatMap(response -> flows.getCreateInstanceBindingRegistry().getCompletionFlows(request, response)
-						.then(Mono.just(response)));
+		return attachFlows(flows.getCreateInstanceBindingRegistry(), OutboxEventType.CREATE_SERVICE_INSTANCE_BINDING, request,
+				() -> service.createServiceInstanceBinding(request));
 	}
 
 	@Override
@@ -62,21 +102,62 @@ public class ServiceInstanceBindingEventService implements ServiceInstanceBindin
 
 	@Override
 	public Mono<GetLastServiceBindingOperationResponse> getLastOperation(GetLastServiceBindingOperationRequest request) {
-		return flows.getAsyncOperationBindingRegistry().getInitializationFlows(request)
-				.then(service.getLastOperation(request))
-				.onErrorResume(e -> flows.getAsyncOperationBindingRegistry().getErrorFlows(request, e)
-						.then(Mono.error(e)))
-				.flatMap(response -> flows.getAsyncOperationBindingRegistry().getCompletionFlows(request, response)
-						.then(Mono.just(response)));
+		return attachFlows(flows.getAsyncOperationBindingRegistry(), OutboxEventType.GET_LAST_SERVICE_BINDING_OPERATION, request,
+				() -> service.getLastOperation(request));
 	}
 
 	@Override
 	public Mono<DeleteServiceInstanceBindingResponse> deleteServiceInstanceBinding(DeleteServiceInstanceBindingRequest request) {
-		return flows.getDeleteInstanceBindingRegistry().getInitializationFlows(request)
-				.then(service.deleteServiceInstanceBinding(request))
-				.onErrorResume(e -> flows.getDeleteInstanceBindingRegistry().getErrorFlows(request, e)
-						.then(Mono.error(e)))
-				.flatMap(response -> flows.getDeleteInstanceBindingRegistry().getCompletionFlows(request, response)
-						.then(Mono.just(response)));
+		return attachFlows(flows.getDeleteInstanceBindingRegistry(), OutboxEventType.DELETE_SERVICE_INSTANCE_BINDING, request,
+				() -> service.deleteServiceInstanceBinding(request));
+	}
+
+	/**
+	 * Run the service call between the flows registered for the operation, leaving out the phases that have no flows
+	 * so that operations without flows call the service directly. Each phase is traced when a tracer is configured.
+	 */
+	private <R extends ServiceBrokerRequest, S> Mono<S> attachFlows(EventFlowRegistry<?, ?, ?, R, S> registry,
+			OutboxEventType type, R request, Supplier<Mono<S>> serviceCall) {
+		OperationAttributes attributes = this.tracer == null ? null
+				: OperationAttributes.of(type.name().toLowerCase(Locale.ROOT), request);
+		Mono<S> response = trace(OperationTracer.SERVICE_SPAN, attributes, serviceCall);
+		if (registry.hasInitializationFlows()) {
+			response = trace(OperationTracer.INITIALIZATION_FLOWS_SPAN, attributes,
+					() -> registry.getInitializationFlows(request).then())
+					.then(response);
+		}
+		if (registry.hasErrorFlows()) {
+			response = response.onErrorResume(e -> error(type, request, e, attributes,
+					() -> registry.getErrorFlows(request, e)));
+		}
+		if (registry.hasCompletionFlows()) {
+			response = response.flatMap(r -> complete(type, request, r, attributes,
+					() -> registry.getCompletionFlows(request, r)));
+		}
+		return response;
+	}
+
+	private <T> Mono<T> complete(OutboxEventType type, Object request, T response, OperationAttributes attributes,
+			Supplier<Flux<Void>> completionFlows) {
+		return trace(OperationTracer.COMPLETION_FLOWS_SPAN, attributes, () -> this.outbox == null
+				? completionFlows.get().then()
+				: this.outbox.append(OutboxEvent.completion(type, request, response)))
+				.then(Mono.just(response));
+	}
+
+	private <T> Mono<T> error(OutboxEventType type, Object request, Throwable e, OperationAttributes attributes,
+			Supplier<Flux<Void>> errorFlows) {
+		return trace(OperationTracer.ERROR_FLOWS_SPAN, attributes, () -> this.outbox == null
+				? errorFlows.get().then()
+				: this.outbox.append(OutboxEvent.error(type, request, e)))
+				.then(Mono.error(e));
+	}
+
+	private <T> Mono<T> trace(String name, OperationAttributes attributes, Supplier<Mono<T>> phase) {
+		if (this.tracer == null) {
+			return phase.get();
+		}
+		return this.tracer.trace(name, attributes, phase);
 	}
+
 }
@@ -16,8 +16,13 @@
 
 package org.springframework.cloud.servicebroker.service;
 
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
 import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
 import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
 import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
@@ -29,6 +34,12 @@ import org.springframework.cloud.servicebroker.model.instance.GetServiceInstance
 import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
 import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
 import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.outbox.EventFlowOutbox;
+import org.springframework.cloud.servicebroker.service.events.outbox.OutboxEvent;
+import org.springframework.cloud.servicebroker.service.events.outbox.OutboxEventType;
+import org.springframework.cloud.servicebroker.service.tracing.OperationAttributes;
+import org.springframework.cloud.servicebroker.service.tracing.OperationTracer;
 
 /**
  * Internal implementation of {@link ServiceInstanceService} that attaches event hooks to
@@ -42,20 +53,50 @@ public class ServiceInstanceEventService implements ServiceInstanceService {
 
 	private final EventFlowRegistries flows;
 
+	private final EventFlowOutbox outbox;
+
+	private final OperationTracer tracer;
+
 	public ServiceInstanceEventService(ServiceInstanceService serviceInstanceService,
 									   EventFlowRegistries eventFlowRegistries) {
+		this(serviceInstanceService, eventFlowRegistries, null);
+	}
+
+	/**
+	 * Construct a service that records completion and error events in an outbox instead of running the completion
+	 * and error flows inline. Initialization flows always run inline.
+	 *
+	 * @param serviceInstanceService the service to delegate to
+	 * @param eventFlowRegistries the event flow registries
+	 * @param eventFlowOutbox the outbox, or {@literal null} to run all flows inline
+	 */
+	public ServiceInstanceEventService(ServiceInstanceService serviceInstanceService,
+									   EventFlowRegistries eventFlowRegistries, EventFlowOutbox eventFlowOutbox) {
+		this(serviceInstanceService, eventFlowRegistries, eventFlowOutbox, null);
+	}
+
+	/**
+	 * Construct a service that traces the phases of each operation, and optionally records completion and error
+	 * events in an outbox.
+	 *
+	 * @param serviceInstanceService the service to delegate to
+	 * @param eventFlowRegistries the event flow registries
+	 * @param eventFlowOutbox the outbox, or {@literal null} to run all flows inline
+	 * @param operationTracer the tracer, or {@literal null} to not trace operations
+	 */
+	public ServiceInstanceEventService(ServiceInstanceService serviceInstanceService,
+									   EventFlowRegistries eventFlowRegistries, EventFlowOutbox eventFlowOutbox,
+									   OperationTracer operationTracer) {
 		this.service = serviceInstanceService;
 		this.flows = eventFlowRegistries;
+		this.outbox = eventFlowOutbox;
+		this.tracer = operationTracer;
 	}
 
 	@Override
 	public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
-		return flows.getCreateInstanceRegistry().getInitializationFlows(request)
-				.then(service.createServiceInstance(request))
-				.onErrorResume(e -> flows.getCreateInstanceRegistry().getErrorFlows(request, e)
-						.then(Mono.error(e)))
-				.flatMap(response -> flows.getCreateInstanceRegistry().getCompletionFlows(request, response)
-						.then(Mono.just(response)));
+		return attachFlows(flows.getCreateInstanceRegistry(), OutboxEventType.CREATE_SERVICE_INSTANCE, request,
+				() -> service.createServiceInstance(request));
 	}
 
 	@Override
@@ -65,31 +106,68 @@ public class ServiceInstanceEventService implements ServiceInstanceService {
 
 	@Override
 	public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
-		return flows.getAsyncOperationRegistry().getInitializationFlows(request)
-				.then(service.getLastOperation(request))
-				.onErrorResume(e -> flows.getAsyncOperationRegistry().getErrorFlows(request, e)
-						.then(Mono.error(e)))
-				.flatMap(response -> flows.getAsyncOperationRegistry().getCompletionFlows(request, response)
-						.then(Mono.just(response)));
+		return attachFlows(flows.getAsyncOperationRegistry(), OutboxEventType.GET_LAST_SERVICE_OPERATION, request,
+				() -> service.getLastOperation(request));
 	}
 
 	@Override
 	public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
-		return flows.getDeleteInstanceRegistry().getInitializationFlows(request)
-				.then(service.deleteServiceInstance(request))
-				.onErrorResume(e -> flows.getDeleteInstanceRegistry().getErrorFlows(request, e)
-						.then(Mono.error(e)))
-				.flatMap(response -> flows.getDeleteInstanceRegistry().getCompletionFlows(request, response)
-						.then(Mono.just(response)));
+		return attachFlows(flows.getDeleteInstanceRegistry(), OutboxEventType.DELETE_SERVICE_INSTANCE, request,
+				() -> service.deleteServiceInstance(request));
 	}
 
 	@Override
 	public Mono<UpdateServiceInstanceResponse> updateServiceInstance(UpdateServiceInstanceRequest request) {
-		return flows.getUpdateInstanceRegistry().getInitializationFlows(request)
-				.then(service.updateServiceInstance(request))
-				.onErrorResume(e -> flows.getUpdateInstanceRegistry().getErrorFlows(request, e)
-						.then(Mono.error(e)))
-				.flatMap(response -> flows.getUpdateInstanceRegistry().getCompletionFlows(request, response)
-						.then(Mono.just(response)));
+		return attachFlows(flows.getUpdateInstanceRegistry(), OutboxEventType.UPDATE_SERVICE_INSTANCE, request,
+				() -> service.updateServiceInstance(request));
 	}
+
+	/**
+	 * Run the service call between the flows registered for the operation, leaving out the phases that have no flows
+	 * so that operations without flows call the service directly. Each phase is traced when a tracer is configured.
+	 */
+	private <R extends ServiceBrokerRequest, S> Mono<S> attachFlows(EventFlowRegistry<?, ?, ?, R, S> registry,
+			OutboxEventType type, R request, Supplier<Mono<S>> serviceCall) {
+		OperationAttributes attributes = this.tracer == null ? null
+				: OperationAttributes.of(type.name().toLowerCase(Locale.ROOT), request);
+		Mono<S> response = trace(OperationTracer.SERVICE_SPAN, attributes, serviceCall);
+		if (registry.hasInitializationFlows()) {
+			response = trace(OperationTracer.INITIALIZATION_FLOWS_SPAN, attributes,
+					() -> registry.getInitializationFlows(request).then())
+					.then(response);
+		}
+		if (registry.hasErrorFlows()) {
+			response = response.onErrorResume(e -> error(type, request, e, attributes,
+					() -> registry.getErrorFlows(request, e)));
+		}
+		if (registry.hasCompletionFlows()) {
+			response = response.flatMap(r -> complete(type, request, r, attributes,
+					() -> registry.getCompletionFlows(request, r)));
+		}
+		return response;
+	}
+
+	private <T> Mono<T> complete(OutboxEventType type, Object request, T response, OperationAttributes attributes,
+			Supplier<Flux<Void>> completionFlows) {
+		return trace(OperationTracer.COMPLETION_FLOWS_SPAN, attributes, () -> this.outbox == null
+				? completionFlows.get().then()
+				: this.outbox.append(OutboxEvent.completion(type, request, response)))
+				.then(Mono.just(response));
+	}
+
+	private <T> Mono<T> error(OutboxEventType type, Object request, Throwable e, OperationAttributes attributes,
+			Supplier<Flux<Void>> errorFlows) {
+		return trace(OperationTracer.ERROR_FLOWS_SPAN, attributes, () -> this.outbox == null
+				? errorFlows.get().then()
+				: this.outbox.append(OutboxEvent.error(type, request, e)))
+				.then(Mono.error(e));
+	}
+
+	private <T> Mono<T> trace(String name, OperationAttributes attributes, Supplier<Mono<T>> phase) {
+		if (this.tracer == null) {
+			return phase.get();
+		}
+		return this.tracer.trace(name, attributes, phase);
+	}
+
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.deadline;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * The time by which an operation handled by the service broker must complete.
+ *
+ * <p>
+ * While an operation with a deadline runs, the deadline is available to reactive services from the Reactor
+ * {@link reactor.util.context.Context} with {@link #current()}, and to blocking services on the calling thread with
+ * {@link #getCurrent()}. Services can use it to bound the calls they make to backends. When the deadline passes, the
+ * operation is cancelled.
+ */
+public final class OperationDeadline {
+
+	/**
+	 * The key of the deadline in the Reactor {@link reactor.util.context.Context} of an operation, also used as the
+	 * name of the request attribute holding the deadline requested by the platform.
+	 */
+	public static final String CONTEXT_KEY = OperationDeadline.class.getName();
+
+	private static final ThreadLocal<OperationDeadline> CURRENT = new ThreadLocal<>();
+
+	private final long expiresAtNanos;
+
+	private OperationDeadline(long expiresAtNanos) {
+		this.expiresAtNanos = expiresAtNanos;
+	}
+
+	/**
+	 * Create a deadline that passes after a timeout, starting now.
+	 *
+	 * @param timeout the timeout
+	 * @return the deadline
+	 */
+	public static OperationDeadline after(Duration timeout) {
+		return new OperationDeadline(System.nanoTime() + timeout.toNanos());
+	}
+
+	/**
+	 * Create a deadline from the value of a request header, holding the number of milliseconds the platform waits for
+	 * the response.
+	 *
+	 * @param timeoutMillis the header value
+	 * @return the deadline, or {@literal null} if the value is not a number of milliseconds
+	 */
+	public static OperationDeadline parse(String timeoutMillis) {
+		if (timeoutMillis == null) {
+			return null;
+		}
+		try {
+			long millis = Long.parseLong(timeoutMillis.trim());
+			return millis < 0 ? null : after(Duration.ofMillis(millis));
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param first a deadline, or {@literal null}
+	 * @param second a deadline, or {@literal null}
+	 * @return the deadline that passes first, or {@literal null} if both are {@literal null}
+	 */
+	public static OperationDeadline earliest(OperationDeadline first, OperationDeadline second) {
+		if (first == null) {
+			return second;
+		}
+		if (second == null) {
+			return first;
+		}
+		return first.expiresAtNanos - second.expiresAtNanos <= 0 ? first : second;
+	}
+
+	/**
+	 * @return the time left until the deadline passes, or {@link Duration#ZERO} if it has passed
+	 */
+	public Duration getRemaining() {
+		long remaining = this.expiresAtNanos - System.nanoTime();
+		return remaining > 0 ? Duration.ofNanos(remaining) : Duration.ZERO;
+	}
+
+	/**
+	 * @return whether the deadline has passed
+	 */
+	public boolean isExpired() {
+		return this.expiresAtNanos - System.nanoTime() <= 0;
+	}
+
+	/**
+	 * Get the deadline of the operation from the Reactor {@link reactor.util.context.Context}.
+	 *
+	 * @return the deadline, or an empty {@link Mono} if the operation has no deadline
+	 */
+	public static Mono<OperationDeadline> current() {
+		return Mono.subscriberContext()
+				.flatMap(context -> Mono.justOrEmpty(context.<OperationDeadline>getOrEmpty(CONTEXT_KEY)));
+	}
+
+	/**
+	 * Get the deadline of the operation a blocking service is called for.
+	 *
+	 * @return the deadline, or {@literal null} if the operation has no deadline or the current thread is not running
+	 * a blocking service call
+	 */
+	public static OperationDeadline getCurrent() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Create a {@link Mono} that calls a blocking service with the deadline of the operation, taken from the Reactor
+	 * {@link reactor.util.context.Context}, available from {@link #getCurrent()}.
+	 *
+	 * @param callable the blocking call
+	 * @param <T> the type of the result
+	 * @return a {@link Mono} that makes the call
+	 */
+	public static <T> Mono<T> fromCallable(Callable<T> callable) {
+		return Mono.subscriberContext().flatMap(context -> {
+			OperationDeadline deadline = context.getOrDefault(CONTEXT_KEY, null);
+			if (deadline == null) {
+				return Mono.fromCallable(callable);
+			}
+			return Mono.fromCallable(() -> {
+				OperationDeadline previous = CURRENT.get();
+				CURRENT.set(deadline);
+				try {
+					return callable.call();
+				}
+				finally {
+					CURRENT.set(previous);
+				}
+			});
+		});
+	}
+
+	@Override
+	public String toString() {
+		return "OperationDeadline{" +
+				"remaining=" + getRemaining() +
+				'}';
+	}
+
+}
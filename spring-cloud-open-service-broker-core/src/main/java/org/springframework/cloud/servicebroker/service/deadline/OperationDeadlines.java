@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.deadline;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerUnavailableException;
+
+/**
+ * Applies deadlines to the operations handled by the service broker.
+ *
+ * <p>
+ * The deadline of an operation is the earliest of the timeout configured for the operation, or the default timeout,
+ * and the deadline requested by the platform, if any. The operation is cancelled when its deadline passes, and fails
+ * with a {@link ServiceBrokerUnavailableException}.
+ */
+public class OperationDeadlines {
+
+	private final Duration defaultTimeout;
+
+	private final Map<String, Duration> operationTimeouts;
+
+	private final String headerName;
+
+	/**
+	 * Construct a new {@link OperationDeadlines}
+	 *
+	 * @param defaultTimeout the timeout of operations without a configured timeout, or {@literal null} for none
+	 * @param operationTimeouts the timeouts by operation name, such as {@literal create_service_instance}
+	 * @param headerName the name of the request header holding the number of milliseconds the platform waits for the
+	 * response, or {@literal null} to ignore deadlines requested by the platform
+	 */
+	public OperationDeadlines(Duration defaultTimeout, Map<String, Duration> operationTimeouts, String headerName) {
+		this.defaultTimeout = defaultTimeout;
+		this.operationTimeouts = operationTimeouts == null ? Collections.emptyMap()
+				: new HashMap<>(operationTimeouts);
+		this.headerName = headerName;
+	}
+
+	/**
+	 * @return the name of the request header holding the deadline requested by the platform, or {@literal null}
+	 */
+	public String getHeaderName() {
+		return this.headerName;
+	}
+
+	/**
+	 * @param operation the name of the operation
+	 * @return the timeout of the operation, or {@literal null} if it has none
+	 */
+	public Duration getTimeout(String operation) {
+		return this.operationTimeouts.getOrDefault(operation, this.defaultTimeout);
+	}
+
+	/**
+	 * Apply the deadline of an operation. The deadline is computed when the operation is subscribed to, taking into
+	 * account a deadline already present in the Reactor {@link reactor.util.context.Context}, and is made available to
+	 * the operation through the context.
+	 *
+	 * @param operation the name of the operation
+	 * @param requested the deadline requested by the platform, or {@literal null}
+	 * @param call the operation
+	 * @param <T> the type of the operation result
+	 * @return the operation, cancelled when its deadline passes
+	 */
+	public <T> Mono<T> apply(String operation, OperationDeadline requested, Mono<T> call) {
+		Duration timeout = getTimeout(operation);
+		if (requested == null && timeout == null) {
+			return call;
+		}
+		return Mono.subscriberContext().flatMap(context -> {
+			OperationDeadline deadline = OperationDeadline.earliest(
+					OperationDeadline.earliest(requested, context.getOrDefault(OperationDeadline.CONTEXT_KEY, null)),
+					timeout == null ? null : OperationDeadline.after(timeout));
+			if (deadline.isExpired()) {
+				return Mono.error(deadlineExceeded(operation));
+			}
+			return call
+					.timeout(deadline.getRemaining(), Mono.defer(() -> Mono.error(deadlineExceeded(operation))))
+					.subscriberContext(c -> c.put(OperationDeadline.CONTEXT_KEY, deadline));
+		});
+	}
+
+	private static ServiceBrokerUnavailableException deadlineExceeded(String operation) {
+		return new ServiceBrokerUnavailableException("Deadline exceeded for operation " + operation);
+	}
+
+}
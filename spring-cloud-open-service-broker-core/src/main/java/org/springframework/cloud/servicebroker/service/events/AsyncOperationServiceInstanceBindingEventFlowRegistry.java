@@ -45,7 +45,7 @@ public class AsyncOperationServiceInstanceBindingEventFlowRegistry
 
     @Override
     public Flux<Void> getInitializationFlows(GetLastServiceBindingOperationRequest request) {
-        return getInitializationFlowsInternal()
+        return getInitializationFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
                 .flatMap(flow -> flow.initialize(request));
     }
 
@@ -53,13 +53,14 @@ public class AsyncOperationServiceInstanceBindingEventFlowRegistry
     public Flux<Void> getCompletionFlows(
             GetLastServiceBindingOperationRequest request, GetLastServiceBindingOperationResponse response) {
 
-        return getCompletionFlowsInternal()
-                .flatMap(flow -> flow.complete(request, response));
+        return getCompletionFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
+                .flatMap(flow -> flow.complete(request, response))
+                .mergeWith(getBufferedCompletionFlowsInternal(request, response));
     }
 
     @Override
     public Flux<Void> getErrorFlows(GetLastServiceBindingOperationRequest request, Throwable t) {
-        return getErrorFlowsInternal()
+        return getErrorFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
                 .flatMap(flow -> flow.error(request, t));
     }
 }
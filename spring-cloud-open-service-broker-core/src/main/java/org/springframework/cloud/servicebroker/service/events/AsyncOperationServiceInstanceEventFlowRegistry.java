@@ -48,19 +48,20 @@ public class AsyncOperationServiceInstanceEventFlowRegistry extends EventFlowReg
 
 	@Override
 	public Flux<Void> getInitializationFlows(GetLastServiceOperationRequest request) {
-		return getInitializationFlowsInternal()
+		return getInitializationFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
 				.flatMap(flow -> flow.initialize(request));
 	}
 
 	@Override
 	public Flux<Void> getCompletionFlows(GetLastServiceOperationRequest request, GetLastServiceOperationResponse response) {
-		return getCompletionFlowsInternal()
-				.flatMap(flow -> flow.complete(request, response));
+		return getCompletionFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
+				.flatMap(flow -> flow.complete(request, response))
+				.mergeWith(getBufferedCompletionFlowsInternal(request, response));
 	}
 
 	@Override
 	public Flux<Void> getErrorFlows(GetLastServiceOperationRequest request, Throwable t) {
-		return getErrorFlowsInternal()
+		return getErrorFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
 				.flatMap(flow -> flow.error(request, t));
 	}
 }
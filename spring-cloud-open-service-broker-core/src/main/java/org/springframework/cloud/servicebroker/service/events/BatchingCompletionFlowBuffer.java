@@ -0,0 +1,298 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.service.events.flows.BatchedCompletionFlow;
+import org.springframework.cloud.servicebroker.service.events.flows.CompletionEvent;
+
+/**
+ * Collects completed operations and delivers them to a {@link BatchedCompletionFlow} in batches.
+ *
+ * <p>
+ * A batch is delivered as soon as {@code batchSize} operations are waiting, and otherwise at most {@code maxDelay}
+ * after the oldest waiting operation was submitted. Submitting an operation does not take a lock. Batches are
+ * delivered one at a time by a background thread, so the flow is never called concurrently. A batch the flow fails
+ * to accept is delivered again a few times, waiting longer after each failure, before it is given up.
+ *
+ * <p>
+ * When {@code capacity} operations are already waiting because the flow is falling behind, {@link #submit(Object,
+ * Object)} only completes once the submitted operation has been delivered, which slows callers down to the pace of
+ * the flow instead of letting the buffer grow without bound, and fails if the batch holding it is given up. Operations
+ * still waiting when the buffer is disposed are delivered before {@link #dispose()} returns.
+ *
+ * @param <R> the type of request
+ * @param <S> the type of response
+ */
+public class BatchingCompletionFlowBuffer<R, S> implements Disposable {
+
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+	private static final int MAX_DELIVERY_ATTEMPTS = 3;
+
+	private static final long FIRST_RETRY_DELAY_MILLIS = 100;
+
+	private static final Logger logger = LoggerFactory.getLogger(BatchingCompletionFlowBuffer.class);
+
+	private final BatchedCompletionFlow<R, S> flow;
+
+	private final int batchSize;
+
+	private final int capacity;
+
+	private final Queue<PendingEvent<R, S>> pendingEvents = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger pendingEventCount = new AtomicInteger();
+
+	private final AtomicInteger activeSubmissions = new AtomicInteger();
+
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+	private final Object flushMonitor = new Object();
+
+	private final Object submissionMonitor = new Object();
+
+	private final ScheduledExecutorService executor;
+
+	private volatile boolean disposed;
+
+	/**
+	 * Create a buffer delivering to the given flow.
+	 *
+	 * @param flow the flow to deliver batches to
+	 * @param batchSize the maximum number of operations in a batch
+	 * @param maxDelay the maximum time an operation waits for a batch to fill up
+	 * @param capacity the number of waiting operations above which submissions wait for delivery
+	 */
+	public BatchingCompletionFlowBuffer(BatchedCompletionFlow<R, S> flow, int batchSize, Duration maxDelay,
+			int capacity) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be greater than zero");
+		}
+		this.flow = flow;
+		this.batchSize = batchSize;
+		this.capacity = Math.max(capacity, batchSize);
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "osb-batched-completion-flow");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long delay = Math.max(1, maxDelay.toMillis());
+		this.executor.scheduleWithFixedDelay(this::flush, delay, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Add a completed operation to the next batch.
+	 *
+	 * @param request the request
+	 * @param response the response
+	 * @return an empty Mono that completes when the operation has been accepted, or when it has been delivered if
+	 * the buffer is full
+	 */
+	public Mono<Void> submit(R request, S response) {
+		return Mono.defer(() -> {
+			this.activeSubmissions.incrementAndGet();
+			try {
+				if (this.disposed) {
+					return Mono.error(new IllegalStateException("The batching completion flow buffer has been disposed"));
+				}
+				CompletableFuture<Void> delivered = this.pendingEventCount.get() >= this.capacity
+						? new CompletableFuture<>() : null;
+				this.pendingEvents.offer(new PendingEvent<>(new CompletionEvent<>(request, response), delivered));
+				if (this.pendingEventCount.incrementAndGet() >= this.batchSize) {
+					scheduleFlush();
+				}
+				return delivered == null ? Mono.empty() : Mono.fromFuture(delivered);
+			}
+			finally {
+				if (this.activeSubmissions.decrementAndGet() == 0 && this.disposed) {
+					synchronized (this.submissionMonitor) {
+						this.submissionMonitor.notifyAll();
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return the number of operations submitted but not yet delivered
+	 */
+	public int getPendingEventCount() {
+		return this.pendingEventCount.get();
+	}
+
+	/**
+	 * Stop accepting operations and deliver the waiting operations before returning.
+	 */
+	@Override
+	public void dispose() {
+		if (this.disposed) {
+			return;
+		}
+		this.disposed = true;
+		this.executor.shutdown();
+		try {
+			awaitActiveSubmissions();
+			if (!this.executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				logger.warn("Timed out waiting for batched completion flow delivery to stop");
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+	}
+
+	/**
+	 * Wait for the submissions that started before the buffer was disposed to queue their operations.
+	 */
+	private void awaitActiveSubmissions() throws InterruptedException {
+		synchronized (this.submissionMonitor) {
+			while (this.activeSubmissions.get() > 0) {
+				this.submissionMonitor.wait();
+			}
+		}
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return this.disposed;
+	}
+
+	/**
+	 * Deliver the waiting operations in batches until none remain.
+	 */
+	void flush() {
+		synchronized (this.flushMonitor) {
+			this.flushScheduled.set(false);
+			List<PendingEvent<R, S>> batch = nextBatch();
+			while (!batch.isEmpty()) {
+				deliver(batch);
+				batch = nextBatch();
+			}
+		}
+	}
+
+	private void scheduleFlush() {
+		if (this.flushScheduled.compareAndSet(false, true)) {
+			try {
+				this.executor.execute(this::flush);
+			}
+			catch (RejectedExecutionException e) {
+				// the buffer is being disposed and delivers the waiting operations itself
+				this.flushScheduled.set(false);
+			}
+		}
+	}
+
+	private List<PendingEvent<R, S>> nextBatch() {
+		List<PendingEvent<R, S>> batch = new ArrayList<>(this.batchSize);
+		PendingEvent<R, S> pending;
+		while (batch.size() < this.batchSize && (pending = this.pendingEvents.poll()) != null) {
+			batch.add(pending);
+		}
+		this.pendingEventCount.addAndGet(-batch.size());
+		return batch;
+	}
+
+	private void deliver(List<PendingEvent<R, S>> batch) {
+		List<CompletionEvent<R, S>> events = new ArrayList<>(batch.size());
+		for (PendingEvent<R, S> pending : batch) {
+			events.add(pending.event);
+		}
+		RuntimeException failure = deliverWithRetries(events);
+		for (PendingEvent<R, S> pending : batch) {
+			if (pending.delivered == null) {
+				continue;
+			}
+			if (failure == null) {
+				pending.delivered.complete(null);
+			}
+			else {
+				pending.delivered.completeExceptionally(failure);
+			}
+		}
+	}
+
+	/**
+	 * Deliver a batch to the flow, retrying with a growing delay when the flow fails.
+	 *
+	 * @return the last error of the flow if the batch was given up, or {@literal null} if it was delivered
+	 */
+	private RuntimeException deliverWithRetries(List<CompletionEvent<R, S>> events) {
+		long retryDelay = FIRST_RETRY_DELAY_MILLIS;
+		for (int attempt = 1; ; attempt++) {
+			try {
+				this.flow.complete(events).block();
+				return null;
+			}
+			catch (RuntimeException e) {
+				if (attempt >= MAX_DELIVERY_ATTEMPTS || !sleep(retryDelay)) {
+					logger.error("Error delivering a batch of " + events.size() + " completed operations to " +
+							this.flow + " after " + attempt + " attempts, the batch is dropped", e);
+					return e;
+				}
+				logger.warn("Error delivering a batch of " + events.size() + " completed operations to " + this.flow +
+						", retrying in " + retryDelay + "ms", e);
+				retryDelay *= 2;
+			}
+		}
+	}
+
+	private static boolean sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+			return true;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static final class PendingEvent<R, S> {
+
+		private final CompletionEvent<R, S> event;
+
+		private final CompletableFuture<Void> delivered;
+
+		private PendingEvent(CompletionEvent<R, S> event, CompletableFuture<Void> delivered) {
+			this.event = event;
+			this.delivered = delivered;
+		}
+
+	}
+
+}
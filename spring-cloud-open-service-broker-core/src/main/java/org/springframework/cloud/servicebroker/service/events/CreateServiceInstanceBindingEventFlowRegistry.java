@@ -48,19 +48,20 @@ public class CreateServiceInstanceBindingEventFlowRegistry extends EventFlowRegi
 
 	@Override
 	public Flux<Void> getInitializationFlows(CreateServiceInstanceBindingRequest request) {
-		return getInitializationFlowsInternal()
+		return getInitializationFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
 				.flatMap(flow -> flow.initialize(request));
 	}
 
 	@Override
 	public Flux<Void> getCompletionFlows(CreateServiceInstanceBindingRequest request, CreateServiceInstanceBindingResponse response) {
-		return getCompletionFlowsInternal()
-				.flatMap(flow -> flow.complete(request, response));
+		return getCompletionFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
+				.flatMap(flow -> flow.complete(request, response))
+				.mergeWith(getBufferedCompletionFlowsInternal(request, response));
 	}
 
 	@Override
 	public Flux<Void> getErrorFlows(CreateServiceInstanceBindingRequest request, Throwable t) {
-		return getErrorFlowsInternal()
+		return getErrorFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
 				.flatMap(flow -> flow.error(request, t));
 	}
 }
@@ -48,19 +48,20 @@ public class CreateServiceInstanceEventFlowRegistry extends EventFlowRegistry<Cr
 
 	@Override
 	public Flux<Void> getInitializationFlows(CreateServiceInstanceRequest request) {
-		return getInitializationFlowsInternal()
+		return getInitializationFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
 				.flatMap(flow -> flow.initialize(request));
 	}
 
 	@Override
 	public Flux<Void> getCompletionFlows(CreateServiceInstanceRequest request, CreateServiceInstanceResponse response) {
-		return getCompletionFlowsInternal()
-				.flatMap(flow -> flow.complete(request, response));
+		return getCompletionFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
+				.flatMap(flow -> flow.complete(request, response))
+				.mergeWith(getBufferedCompletionFlowsInternal(request, response));
 	}
 
 	@Override
 	public Flux<Void> getErrorFlows(CreateServiceInstanceRequest request, Throwable t) {
-		return getErrorFlowsInternal()
+		return getErrorFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
 				.flatMap(flow -> flow.error(request, t));
 	}
 }
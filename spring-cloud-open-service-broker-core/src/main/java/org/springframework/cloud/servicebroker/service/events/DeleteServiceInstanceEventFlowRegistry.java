@@ -48,19 +48,20 @@ public class DeleteServiceInstanceEventFlowRegistry extends EventFlowRegistry<De
 
 	@Override
 	public Flux<Void> getInitializationFlows(DeleteServiceInstanceRequest request) {
-		return getInitializationFlowsInternal()
+		return getInitializationFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
 				.flatMap(flow -> flow.initialize(request));
 	}
 
 	@Override
 	public Flux<Void> getCompletionFlows(DeleteServiceInstanceRequest request, DeleteServiceInstanceResponse response) {
-		return getCompletionFlowsInternal()
-				.flatMap(flow -> flow.complete(request, response));
+		return getCompletionFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
+				.flatMap(flow -> flow.complete(request, response))
+				.mergeWith(getBufferedCompletionFlowsInternal(request, response));
 	}
 
 	@Override
 	public Flux<Void> getErrorFlows(DeleteServiceInstanceRequest request, Throwable t) {
-		return getErrorFlowsInternal()
+		return getErrorFlowsInternal(request, request.getServiceDefinitionId(), request.getPlanId())
 				.flatMap(flow -> flow.error(request, t));
 	}
 }
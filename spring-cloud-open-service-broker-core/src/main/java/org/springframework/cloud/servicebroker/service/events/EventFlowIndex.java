@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.cloud.servicebroker.service.events.flows.TargetedEventFlow;
+
+/**
+ * Index of the flows of one kind held by an {@link EventFlowRegistry}, keyed by the service definition IDs declared
+ * by {@link TargetedEventFlow}s, so that selecting the flows for a request only touches the flows that can apply.
+ *
+ * @param <T> the type of flow
+ */
+class EventFlowIndex<T> {
+
+	private final List<Entry<T>> unrestricted = new CopyOnWriteArrayList<>();
+
+	private final List<Entry<T>> targeted = new CopyOnWriteArrayList<>();
+
+	private final Map<String, List<Entry<T>>> byServiceDefinitionId = new ConcurrentHashMap<>();
+
+	private volatile boolean empty = true;
+
+	void add(T flow) {
+		Entry<T> entry = new Entry<>(flow);
+		if (entry.serviceDefinitionIds.isEmpty()) {
+			this.unrestricted.add(entry);
+		}
+		else {
+			this.targeted.add(entry);
+			for (String serviceDefinitionId : entry.serviceDefinitionIds) {
+				this.byServiceDefinitionId
+						.computeIfAbsent(serviceDefinitionId, id -> new CopyOnWriteArrayList<>())
+						.add(entry);
+			}
+		}
+		this.empty = false;
+	}
+
+	boolean isEmpty() {
+		return this.empty;
+	}
+
+	/**
+	 * Select the flows that apply to a request, in registration order within the unrestricted and the
+	 * service-specific flows. Requests such as last operation queries may omit the service definition and plan IDs;
+	 * a missing ID cannot rule out a flow, so every flow targeted at service definitions or plans is then selected.
+	 *
+	 * @param serviceDefinitionId the service definition ID of the request, or {@literal null} if not known
+	 * @param planId the plan ID of the request, or {@literal null} if not known
+	 * @param platform the platform of the originating identity of the request
+	 * @return the flows
+	 */
+	List<T> select(String serviceDefinitionId, String planId, String platform) {
+		if (this.empty) {
+			return Collections.emptyList();
+		}
+		List<Entry<T>> specific = serviceDefinitionId == null
+				? this.targeted
+				: this.byServiceDefinitionId.getOrDefault(serviceDefinitionId, Collections.emptyList());
+		List<T> selected = new ArrayList<>(this.unrestricted.size() + specific.size());
+		addMatching(selected, this.unrestricted, planId, platform);
+		addMatching(selected, specific, planId, platform);
+		return selected;
+	}
+
+	private static <T> void addMatching(List<T> selected, List<Entry<T>> entries, String planId, String platform) {
+		for (Entry<T> entry : entries) {
+			if (entry.matches(planId, platform)) {
+				selected.add(entry.flow);
+			}
+		}
+	}
+
+	private static final class Entry<T> {
+
+		private final T flow;
+
+		private final Set<String> serviceDefinitionIds;
+
+		private final Set<String> planIds;
+
+		private final Set<String> platforms;
+
+		private Entry(T flow) {
+			this.flow = flow;
+			if (flow instanceof TargetedEventFlow) {
+				TargetedEventFlow targeted = (TargetedEventFlow) flow;
+				this.serviceDefinitionIds = copy(targeted.getServiceDefinitionIds());
+				this.planIds = copy(targeted.getPlanIds());
+				this.platforms = copy(targeted.getPlatforms());
+			}
+			else {
+				this.serviceDefinitionIds = Collections.emptySet();
+				this.planIds = Collections.emptySet();
+				this.platforms = Collections.emptySet();
+			}
+		}
+
+		private boolean matches(String planId, String platform) {
+			return (planId == null || this.planIds.isEmpty() || this.planIds.contains(planId))
+					&& (this.platforms.isEmpty() || this.platforms.contains(platform));
+		}
+
+		private static Set<String> copy(Set<String> values) {
+			return values == null || values.isEmpty() ? Collections.emptySet() : new HashSet<>(values);
+		}
+
+	}
+
+}
@@ -16,13 +16,17 @@
 
 package org.springframework.cloud.servicebroker.service.events;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.collections.CollectionUtils;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import org.springframework.cloud.servicebroker.model.Context;
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
+
 /**
  * Abstract class for defining an event flow registry
  *
@@ -33,13 +37,17 @@ import reactor.core.publisher.Mono;
  * @param <S> type of response
  * @author Roy Clarkson
  */
-public abstract class EventFlowRegistry<I, C, E, R, S> {
+public abstract class EventFlowRegistry<I, C, E, R, S> implements Disposable {
+
+	private final EventFlowIndex<I> initializationFlowIndex = new EventFlowIndex<>();
 
-	private final List<Mono<I>> initializationFlows = new ArrayList<>();
+	private final EventFlowIndex<C> completionFlowIndex = new EventFlowIndex<>();
 
-	private final List<Mono<C>> completionFlows = new ArrayList<>();
+	private final EventFlowIndex<E> errorFlowIndex = new EventFlowIndex<>();
 
-	private final List<Mono<E>> errorFlows = new ArrayList<>();
+	private final List<BatchingCompletionFlowBuffer<R, S>> completionFlowBuffers = new CopyOnWriteArrayList<>();
+
+	private volatile boolean disposed;
 
 	@Deprecated
 	public EventFlowRegistry() {
@@ -47,50 +55,145 @@ public abstract class EventFlowRegistry<I, C, E, R, S> {
 
 	protected EventFlowRegistry(List<I> initializationFlows, List<C> completionFlows, List<E> errorFlows) {
 		if (CollectionUtils.isNotEmpty(initializationFlows)) {
-			initializationFlows.forEach(flow -> this.initializationFlows.add(Mono.just(flow)));
+			initializationFlows.forEach(this::registerInitializationFlow);
 		}
 		if (CollectionUtils.isNotEmpty(completionFlows)) {
-			completionFlows.forEach(flow -> this.completionFlows.add(Mono.just(flow)));
+			completionFlows.forEach(this::registerCompletionFlow);
 		}
 		if (CollectionUtils.isNotEmpty(errorFlows)) {
-			errorFlows.forEach(flow -> this.errorFlows.add(Mono.just(flow)));
+			errorFlows.forEach(this::registerErrorFlow);
 		}
 	}
 
 	public Mono<Void> addInitializationFlow(I object) {
 		return Mono.justOrEmpty(object)
-				.map(flow -> this.initializationFlows.add(Mono.just(flow)))
+				.doOnNext(this::registerInitializationFlow)
 				.then();
 	}
 
 	public abstract Flux<Void> getInitializationFlows(R request);
 
-	Flux<I> getInitializationFlowsInternal() {
-		return Flux.merge(this.initializationFlows);
+	/**
+	 * Get the initialization flows that apply to a request. Flows that implement
+	 * {@link org.springframework.cloud.servicebroker.service.events.flows.TargetedEventFlow} are only included when
+	 * the request matches their restrictions.
+	 *
+	 * @param request the request
+	 * @param serviceDefinitionId the service definition ID of the request, or {@literal null} if not known
+	 * @param planId the plan ID of the request, or {@literal null} if not known
+	 * @return the flows
+	 */
+	Flux<I> getInitializationFlowsInternal(ServiceBrokerRequest request, String serviceDefinitionId, String planId) {
+		return Flux.fromIterable(this.initializationFlowIndex.select(serviceDefinitionId, planId, getPlatform(request)));
 	}
 
 	public Mono<Void> addCompletionFlow(C object) {
 		return Mono.justOrEmpty(object)
-				.map(flow -> this.completionFlows.add(Mono.just(flow)))
+				.doOnNext(this::registerCompletionFlow)
 				.then();
 	}
 
 	public abstract Flux<Void> getCompletionFlows(R request, S response);
 
-	Flux<C> getCompletionFlowsInternal() {
-		return Flux.merge(this.completionFlows);
+	Flux<C> getCompletionFlowsInternal(ServiceBrokerRequest request, String serviceDefinitionId, String planId) {
+		return Flux.fromIterable(this.completionFlowIndex.select(serviceDefinitionId, planId, getPlatform(request)));
+	}
+
+	/**
+	 * Register a buffer that collects completed operations for a
+	 * {@link org.springframework.cloud.servicebroker.service.events.flows.BatchedCompletionFlow}. The buffer is
+	 * disposed with the registry.
+	 *
+	 * @param buffer the buffer
+	 * @return an empty Mono
+	 */
+	public Mono<Void> addCompletionFlowBuffer(BatchingCompletionFlowBuffer<R, S> buffer) {
+		return Mono.justOrEmpty(buffer)
+				.map(this.completionFlowBuffers::add)
+				.then();
+	}
+
+	Flux<Void> getBufferedCompletionFlowsInternal(R request, S response) {
+		if (this.completionFlowBuffers.isEmpty()) {
+			return Flux.empty();
+		}
+		return Flux.fromIterable(this.completionFlowBuffers)
+				.flatMap(buffer -> buffer.submit(request, response));
 	}
 
 	public Mono<Void> addErrorFlow(E object) {
 		return Mono.justOrEmpty(object)
-				.map(flow -> this.errorFlows.add(Mono.just(flow)))
+				.doOnNext(this::registerErrorFlow)
 				.then();
 	}
 
 	public abstract Flux<Void> getErrorFlows(R request, Throwable t);
 
-	Flux<E> getErrorFlowsInternal() {
-		return Flux.merge(this.errorFlows);
+	Flux<E> getErrorFlowsInternal(ServiceBrokerRequest request, String serviceDefinitionId, String planId) {
+		return Flux.fromIterable(this.errorFlowIndex.select(serviceDefinitionId, planId, getPlatform(request)));
+	}
+
+	/**
+	 * @return whether any initialization flow has been registered
+	 */
+	public boolean hasInitializationFlows() {
+		return !this.initializationFlowIndex.isEmpty();
+	}
+
+	/**
+	 * @return whether any completion flow or completion flow buffer has been registered
+	 */
+	public boolean hasCompletionFlows() {
+		return !this.completionFlowIndex.isEmpty() || !this.completionFlowBuffers.isEmpty();
+	}
+
+	/**
+	 * @return whether any error flow has been registered
+	 */
+	public boolean hasErrorFlows() {
+		return !this.errorFlowIndex.isEmpty();
+	}
+
+	/**
+	 * @return the number of completed operations held by the registered completion flow buffers and not yet delivered
+	 */
+	public int getPendingBufferedCompletionCount() {
+		int count = 0;
+		for (BatchingCompletionFlowBuffer<R, S> buffer : this.completionFlowBuffers) {
+			count += buffer.getPendingEventCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Dispose the registered completion flow buffers, delivering the operations they hold.
+	 */
+	@Override
+	public void dispose() {
+		this.disposed = true;
+		this.completionFlowBuffers.forEach(BatchingCompletionFlowBuffer::dispose);
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return this.disposed;
+	}
+
+	private void registerInitializationFlow(I flow) {
+		this.initializationFlowIndex.add(flow);
+	}
+
+	private void registerCompletionFlow(C flow) {
+		this.completionFlowIndex.add(flow);
+	}
+
+	private void registerErrorFlow(E flow) {
+		this.errorFlowIndex.add(flow);
+	}
+
+	private static String getPlatform(ServiceBrokerRequest request) {
+		Context originatingIdentity = request.getOriginatingIdentity();
+		return originatingIdentity == null ? null : originatingIdentity.getPlatform();
 	}
 
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events.flows;
+
+import java.util.List;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Completion flow that receives completed operations in batches rather than one at a time, for sinks such as billing
+ * or audit stores where writing one record per request does not keep up with bursts of requests.
+ *
+ * <p>
+ * The type parameters select the operation the flow applies to, for example
+ * {@code BatchedCompletionFlow<CreateServiceInstanceBindingRequest, CreateServiceInstanceBindingResponse>} receives
+ * the completed create service instance binding operations.
+ *
+ * @param <R> the type of request
+ * @param <S> the type of response
+ * @see org.springframework.cloud.servicebroker.service.events.BatchingCompletionFlowBuffer
+ */
+@FunctionalInterface
+public interface BatchedCompletionFlow<R, S> {
+
+	/**
+	 * Process a batch of completed operations, in the order they completed.
+	 *
+	 * @param events the completed operations, never empty
+	 * @return an empty Mono that completes when the batch has been processed
+	 */
+	Mono<Void> complete(List<CompletionEvent<R, S>> events);
+
+}
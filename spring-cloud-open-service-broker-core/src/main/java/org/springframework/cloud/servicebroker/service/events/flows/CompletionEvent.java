@@ -0,0 +1,53 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events.flows;
+
+/**
+ * A completed operation delivered to a {@link BatchedCompletionFlow}.
+ *
+ * @param <R> the type of request
+ * @param <S> the type of response
+ */
+public final class CompletionEvent<R, S> {
+
+	private final R request;
+
+	private final S response;
+
+	public CompletionEvent(R request, S response) {
+		this.request = request;
+		this.response = response;
+	}
+
+	public R getRequest() {
+		return this.request;
+	}
+
+	public S getResponse() {
+		return this.response;
+	}
+
+	@Override
+	public String toString() {
+		return "CompletionEvent{" +
+				"request=" + this.request +
+				", response=" + this.response +
+				'}';
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events.flows;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Optional interface for event flows that apply only to some requests. A flow implementing this interface in
+ * addition to one of the flow interfaces is only invoked for requests that match all of its restrictions, and the
+ * event flow registries index it so that requests it does not apply to never reach it.
+ *
+ * <p>
+ * An empty set places no restriction on the corresponding request attribute. The sets are read once, when the flow
+ * is registered.
+ *
+ * <p>
+ * Some requests, such as last operation queries, may omit the service definition and plan IDs. A restriction on an
+ * ID the request does not carry cannot be checked, so the flow is invoked for such requests.
+ */
+public interface TargetedEventFlow {
+
+	/**
+	 * The IDs of the service definitions the flow applies to.
+	 *
+	 * @return the service definition IDs, or an empty set to apply to all service definitions
+	 */
+	default Set<String> getServiceDefinitionIds() {
+		return Collections.emptySet();
+	}
+
+	/**
+	 * The IDs of the plans the flow applies to.
+	 *
+	 * @return the plan IDs, or an empty set to apply to all plans
+	 */
+	default Set<String> getPlanIds() {
+		return Collections.emptySet();
+	}
+
+	/**
+	 * The platforms the flow applies to, as identified by the originating identity of the request.
+	 *
+	 * @return the platform names, or an empty set to apply to all platforms
+	 */
+	default Set<String> getPlatforms() {
+		return Collections.emptySet();
+	}
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events.outbox;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Records completion and error events so that the registered event flows run after the response has been returned
+ * to the platform, instead of inline with the request.
+ *
+ * @see org.springframework.cloud.servicebroker.service.ServiceInstanceEventService
+ * @see org.springframework.cloud.servicebroker.service.ServiceInstanceBindingEventService
+ */
+public interface EventFlowOutbox {
+
+	/**
+	 * Record an event. The returned {@link Mono} completes once the event is stored; the event flows run later.
+	 *
+	 * @param event the event
+	 * @return an empty {@link Mono}
+	 */
+	Mono<Void> append(OutboxEvent event);
+
+}
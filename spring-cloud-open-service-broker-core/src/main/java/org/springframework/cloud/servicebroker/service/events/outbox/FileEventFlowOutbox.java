@@ -0,0 +1,584 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events.outbox;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+
+/**
+ * {@link EventFlowOutbox} backed by an append-only journal file in a local directory.
+ *
+ * <p>
+ * Each event is written to the journal before {@link #append(OutboxEvent)} completes. The journal is written by a
+ * thread of its own, so appending never blocks the calling thread. Events appended while earlier ones are being
+ * written are written together, and are forced to the storage device with a single call. A background thread delivers
+ * pending events to the flows registered with the {@link EventFlowRegistries} in batches, in the order they were
+ * recorded, and records the sequence number of the last delivered event in an acknowledgement file. Events that were
+ * not acknowledged when the process stopped are delivered again when the outbox is next created on the same
+ * directory, so every event is delivered at least once. When delivery of an event fails, it is retried on the next
+ * drain together with the events that follow it. An event whose delivery fails the configured number of times in a
+ * row is moved to a dead letter file next to the journal, so that it does not hold back the events behind it. Failed
+ * deliveries are counted in memory, so the count starts again when the outbox is next created.
+ *
+ * <p>
+ * Once the journal grows past a threshold, it is compacted by rewriting it with only the events that are not yet
+ * acknowledged, so that its size follows the backlog of undelivered events rather than the total traffic.
+ *
+ * <p>
+ * The files hold the requests of the recorded operations, including their parameters. On file systems that support
+ * POSIX permissions they are readable and writable by their owner only.
+ */
+public class FileEventFlowOutbox implements EventFlowOutbox, Disposable {
+
+	static final String JOURNAL_FILE_NAME = "events.log";
+
+	static final String ACKNOWLEDGEMENT_FILE_NAME = "events.ack";
+
+	static final String DEAD_LETTER_FILE_NAME = "events.dead";
+
+	/**
+	 * The number of failed deliveries after which an event is moved to the dead letter file, unless another number
+	 * is given.
+	 */
+	public static final int DEFAULT_MAX_ATTEMPTS = 10;
+
+	static final long COMPACTION_THRESHOLD_BYTES = 1024 * 1024;
+
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+	private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+
+	private static final Logger logger = LoggerFactory.getLogger(FileEventFlowOutbox.class);
+
+	private final Path journalFile;
+
+	private final Path acknowledgementFile;
+
+	private final Path deadLetterFile;
+
+	private final EventFlowRegistries registries;
+
+	private final int batchSize;
+
+	private final boolean fsync;
+
+	private final int maxAttempts;
+
+	private final FileAttribute<?>[] fileAttributes;
+
+	private final OutboxEventCodec codec = new OutboxEventCodec();
+
+	private final Queue<PendingEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+
+	private final Queue<PendingAppend> pendingAppends = new ConcurrentLinkedQueue<>();
+
+	private final Object journalMonitor = new Object();
+
+	private final Object drainMonitor = new Object();
+
+	private FileChannel journal;
+
+	private long compactedSize;
+
+	private final ExecutorService writer;
+
+	private final ScheduledExecutorService executor;
+
+	private long nextSequence;
+
+	private volatile boolean disposed;
+
+	/**
+	 * Create an outbox, delivering any events left unacknowledged in the directory by a previous instance.
+	 *
+	 * @param directory the directory holding the journal and acknowledgement files
+	 * @param registries the registries holding the flows to deliver events to
+	 * @param batchSize the maximum number of events delivered between acknowledgements
+	 * @param drainInterval the delay between attempts to deliver pending events
+	 * @param fsync whether each append is forced to the storage device before it completes
+	 * @throws IOException if the journal cannot be read or opened for writing
+	 */
+	public FileEventFlowOutbox(Path directory, EventFlowRegistries registries, int batchSize,
+			Duration drainInterval, boolean fsync) throws IOException {
+		this(directory, registries, batchSize, drainInterval, fsync, DEFAULT_MAX_ATTEMPTS);
+	}
+
+	/**
+	 * Create an outbox, delivering any events left unacknowledged in the directory by a previous instance.
+	 *
+	 * @param directory the directory holding the journal, acknowledgement and dead letter files
+	 * @param registries the registries holding the flows to deliver events to
+	 * @param batchSize the maximum number of events delivered between acknowledgements
+	 * @param drainInterval the delay between attempts to deliver pending events
+	 * @param fsync whether each append is forced to the storage device before it completes
+	 * @param maxAttempts the number of failed deliveries in a row after which an event is moved to the dead letter
+	 * file
+	 * @throws IOException if the journal cannot be read or opened for writing
+	 */
+	public FileEventFlowOutbox(Path directory, EventFlowRegistries registries, int batchSize,
+			Duration drainInterval, boolean fsync, int maxAttempts) throws IOException {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("maxAttempts must be greater than zero");
+		}
+		this.journalFile = directory.resolve(JOURNAL_FILE_NAME);
+		this.acknowledgementFile = directory.resolve(ACKNOWLEDGEMENT_FILE_NAME);
+		this.deadLetterFile = directory.resolve(DEAD_LETTER_FILE_NAME);
+		this.registries = registries;
+		this.batchSize = batchSize;
+		this.fsync = fsync;
+		this.maxAttempts = maxAttempts;
+
+		Files.createDirectories(directory);
+		this.fileAttributes = ownerOnlyAttributes(directory);
+		restrictPermissions(this.journalFile);
+		restrictPermissions(this.acknowledgementFile);
+		restrictPermissions(this.deadLetterFile);
+		long acknowledgedSequence = readAcknowledgedSequence();
+		this.nextSequence = recover(acknowledgedSequence) + 1;
+		this.journal = openJournal();
+
+		this.writer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "osb-event-outbox-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "osb-event-outbox");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long interval = Math.max(1, drainInterval.toMillis());
+		this.executor.scheduleWithFixedDelay(this::drain, 0, interval, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public Mono<Void> append(OutboxEvent event) {
+		return Mono.create(sink -> {
+			PendingAppend append = new PendingAppend(event, sink);
+			this.pendingAppends.add(append);
+			try {
+				this.writer.execute(this::writeAppends);
+			}
+			catch (RejectedExecutionException e) {
+				if (this.pendingAppends.remove(append)) {
+					sink.error(new IllegalStateException("The event outbox has been disposed"));
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return the number of events recorded but not yet delivered
+	 */
+	public int getPendingEventCount() {
+		return this.pendingEvents.size();
+	}
+
+	/**
+	 * Stop the background delivery, writing the events being appended and delivering the pending events one last
+	 * time before closing the journal.
+	 */
+	@Override
+	public void dispose() {
+		if (this.disposed) {
+			return;
+		}
+		this.writer.shutdown();
+		this.executor.shutdown();
+		try {
+			if (!this.writer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				logger.warn("Timed out waiting for event outbox appends to be written");
+			}
+			if (!this.executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				logger.warn("Timed out waiting for event outbox delivery to stop");
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		drain();
+		this.disposed = true;
+		synchronized (this.journalMonitor) {
+			try {
+				this.journal.close();
+			}
+			catch (IOException e) {
+				logger.warn("Error closing event outbox journal " + this.journalFile, e);
+			}
+		}
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return this.disposed;
+	}
+
+	/**
+	 * Deliver pending events in batches until none remain or a delivery fails.
+	 */
+	void drain() {
+		synchronized (this.drainMonitor) {
+			List<PendingEvent> batch = nextBatch();
+			while (!batch.isEmpty()) {
+				long delivered = -1;
+				boolean failed = false;
+				for (PendingEvent pending : batch) {
+					if (!deliver(pending) && !deadLetter(pending)) {
+						failed = true;
+						break;
+					}
+					this.pendingEvents.poll();
+					delivered = pending.sequence;
+				}
+				if (delivered >= 0) {
+					acknowledge(delivered);
+				}
+				if (failed) {
+					return;
+				}
+				batch = nextBatch();
+			}
+		}
+	}
+
+	private List<PendingEvent> nextBatch() {
+		List<PendingEvent> batch = new ArrayList<>(this.batchSize);
+		Iterator<PendingEvent> iterator = this.pendingEvents.iterator();
+		while (iterator.hasNext() && batch.size() < this.batchSize) {
+			batch.add(iterator.next());
+		}
+		return batch;
+	}
+
+	private boolean deliver(PendingEvent pending) {
+		try {
+			OutboxEvent event = pending.event;
+			event.getType().runFlows(this.registries, event).then().block();
+			return true;
+		}
+		catch (RuntimeException e) {
+			pending.attempts++;
+			if (pending.attempts < this.maxAttempts) {
+				logger.warn("Error delivering event " + pending.sequence + " from the event outbox, delivery will be " +
+						"retried", e);
+			}
+			else {
+				logger.error("Error delivering event " + pending.sequence + " from the event outbox after " +
+						pending.attempts + " attempts, moving it to the dead letter file " + this.deadLetterFile, e);
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Move an event whose delivery failed too many times to the dead letter file.
+	 *
+	 * @return whether the event was moved and can be acknowledged
+	 */
+	private boolean deadLetter(PendingEvent pending) {
+		if (pending.attempts < this.maxAttempts) {
+			return false;
+		}
+		try {
+			String record = this.codec.encode(pending.sequence, pending.event) + "\n";
+			writeFile(this.deadLetterFile, record.getBytes(StandardCharsets.UTF_8),
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			return true;
+		}
+		catch (IOException | RuntimeException e) {
+			logger.warn("Error writing event " + pending.sequence + " to the dead letter file " + this.deadLetterFile +
+					", delivery will be retried", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Write the events appended so far to the journal, forcing them to the storage device together, and complete
+	 * their appends.
+	 */
+	private void writeAppends() {
+		List<PendingAppend> appends = new ArrayList<>();
+		PendingAppend next;
+		while ((next = this.pendingAppends.poll()) != null) {
+			appends.add(next);
+		}
+		if (appends.isEmpty()) {
+			return;
+		}
+		List<PendingAppend> written = new ArrayList<>(appends.size());
+		RuntimeException forceError = null;
+		synchronized (this.journalMonitor) {
+			for (PendingAppend append : appends) {
+				try {
+					write(append.event);
+					written.add(append);
+				}
+				catch (RuntimeException e) {
+					append.sink.error(e);
+				}
+			}
+			if (this.fsync && !written.isEmpty()) {
+				try {
+					this.journal.force(false);
+				}
+				catch (IOException e) {
+					forceError = new UncheckedIOException("Error forcing event outbox journal " + this.journalFile
+							+ " to the storage device", e);
+				}
+			}
+		}
+		for (PendingAppend append : written) {
+			if (forceError != null) {
+				append.sink.error(forceError);
+			}
+			else {
+				append.sink.success();
+			}
+		}
+	}
+
+	private void write(OutboxEvent event) {
+		if (this.disposed) {
+			throw new IllegalStateException("The event outbox has been disposed");
+		}
+		try {
+			long sequence = this.nextSequence;
+			String record = this.codec.encode(sequence, event) + "\n";
+			ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8));
+			while (buffer.hasRemaining()) {
+				this.journal.write(buffer);
+			}
+			this.nextSequence++;
+			this.pendingEvents.add(new PendingEvent(sequence, event));
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Error writing to event outbox journal " + this.journalFile, e);
+		}
+	}
+
+	private void acknowledge(long sequence) {
+		try {
+			Path temporaryFile = this.acknowledgementFile.resolveSibling(ACKNOWLEDGEMENT_FILE_NAME + ".tmp");
+			writeFile(temporaryFile, Long.toString(sequence).getBytes(StandardCharsets.UTF_8),
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			Files.move(temporaryFile, this.acknowledgementFile,
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			compact(sequence);
+		}
+		catch (IOException e) {
+			logger.warn("Error acknowledging events in the event outbox, they will be delivered again on restart", e);
+		}
+	}
+
+	/**
+	 * Rewrite the journal with only the events that are not yet acknowledged, once it has grown past the threshold
+	 * and to at least twice its size after the previous compaction. Appends wait while the journal is rewritten.
+	 */
+	private void compact(long acknowledgedSequence) throws IOException {
+		synchronized (this.journalMonitor) {
+			long size = this.journal.size();
+			if (this.disposed || size <= Math.max(COMPACTION_THRESHOLD_BYTES, 2 * this.compactedSize)) {
+				return;
+			}
+			Path temporaryFile = this.journalFile.resolveSibling(JOURNAL_FILE_NAME + ".tmp");
+			try (FileChannel rewritten = open(temporaryFile, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				for (PendingEvent pending : this.pendingEvents) {
+					if (pending.sequence > acknowledgedSequence) {
+						ByteBuffer buffer = ByteBuffer.wrap((this.codec.encode(pending.sequence, pending.event) + "\n")
+								.getBytes(StandardCharsets.UTF_8));
+						while (buffer.hasRemaining()) {
+							rewritten.write(buffer);
+						}
+					}
+				}
+				rewritten.force(false);
+			}
+			this.journal.close();
+			try {
+				Files.move(temporaryFile, this.journalFile,
+						StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			finally {
+				this.journal = openJournal();
+			}
+			this.compactedSize = this.journal.size();
+		}
+	}
+
+	private long readAcknowledgedSequence() throws IOException {
+		if (!Files.exists(this.acknowledgementFile)) {
+			return -1;
+		}
+		String value = new String(Files.readAllBytes(this.acknowledgementFile), StandardCharsets.UTF_8).trim();
+		try {
+			return Long.parseLong(value);
+		}
+		catch (NumberFormatException e) {
+			logger.warn("Ignoring invalid event outbox acknowledgement file " + this.acknowledgementFile);
+			return -1;
+		}
+	}
+
+	/**
+	 * Queue the events recorded after the acknowledged sequence.
+	 *
+	 * @return the highest sequence number found
+	 */
+	private long recover(long acknowledgedSequence) throws IOException {
+		long lastSequence = acknowledgedSequence;
+		if (!Files.exists(this.journalFile)) {
+			return lastSequence;
+		}
+		try (BufferedReader reader = Files.newBufferedReader(this.journalFile, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				long sequence;
+				try {
+					sequence = this.codec.decodeSequence(line);
+				}
+				catch (IOException e) {
+					logger.warn("Skipping incomplete record in event outbox journal " + this.journalFile);
+					continue;
+				}
+				lastSequence = Math.max(lastSequence, sequence);
+				if (sequence > acknowledgedSequence) {
+					try {
+						this.pendingEvents.add(new PendingEvent(sequence, this.codec.decode(line)));
+					}
+					catch (IOException | RuntimeException e) {
+						logger.warn("Skipping event " + sequence + " in event outbox journal " + this.journalFile
+								+ " that cannot be read", e);
+					}
+				}
+			}
+		}
+		return lastSequence;
+	}
+
+	private FileChannel openJournal() throws IOException {
+		FileChannel channel = open(this.journalFile,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		long size = channel.size();
+		if (size > 0) {
+			ByteBuffer last = ByteBuffer.allocate(1);
+			try (FileChannel reader = FileChannel.open(this.journalFile, StandardOpenOption.READ)) {
+				reader.read(last, size - 1);
+			}
+			if (last.get(0) != '\n') {
+				// terminate a record left incomplete by a crash so that it does not corrupt the next one
+				channel.write(ByteBuffer.wrap(new byte[] {'\n'}));
+			}
+		}
+		return channel;
+	}
+
+	private FileChannel open(Path file, StandardOpenOption... options) throws IOException {
+		return FileChannel.open(file, new HashSet<>(Arrays.asList(options)), this.fileAttributes);
+	}
+
+	private void writeFile(Path file, byte[] content, StandardOpenOption... options) throws IOException {
+		try (FileChannel channel = open(file, options)) {
+			ByteBuffer buffer = ByteBuffer.wrap(content);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Make a file left by an earlier version readable and writable by its owner only.
+	 */
+	private void restrictPermissions(Path file) throws IOException {
+		if (this.fileAttributes.length > 0 && Files.exists(file)) {
+			Files.setPosixFilePermissions(file, OWNER_ONLY);
+		}
+	}
+
+	private static FileAttribute<?>[] ownerOnlyAttributes(Path directory) {
+		if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+			return new FileAttribute<?>[0];
+		}
+		return new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(OWNER_ONLY)};
+	}
+
+	private static final class PendingAppend {
+
+		private final OutboxEvent event;
+
+		private final MonoSink<Void> sink;
+
+		private PendingAppend(OutboxEvent event, MonoSink<Void> sink) {
+			this.event = event;
+			this.sink = sink;
+		}
+
+	}
+
+	private static final class PendingEvent {
+
+		private final long sequence;
+
+		private final OutboxEvent event;
+
+		private int attempts;
+
+		private PendingEvent(long sequence, OutboxEvent event) {
+			this.sequence = sequence;
+			this.event = event;
+		}
+
+	}
+
+}
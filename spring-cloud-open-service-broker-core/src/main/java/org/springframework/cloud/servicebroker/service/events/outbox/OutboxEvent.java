@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events.outbox;
+
+/**
+ * A completion or error event recorded in an {@link EventFlowOutbox}, carrying the arguments that are passed to the
+ * registered flows when the event is delivered.
+ */
+public final class OutboxEvent {
+
+	private final OutboxEventType type;
+
+	private final Object request;
+
+	private final Object response;
+
+	private final Throwable error;
+
+	private OutboxEvent(OutboxEventType type, Object request, Object response, Throwable error) {
+		this.type = type;
+		this.request = request;
+		this.response = response;
+		this.error = error;
+	}
+
+	/**
+	 * Create an event that triggers the completion flows of an operation.
+	 *
+	 * @param type the operation type
+	 * @param request the request
+	 * @param response the response returned by the service
+	 * @return the event
+	 */
+	public static OutboxEvent completion(OutboxEventType type, Object request, Object response) {
+		return new OutboxEvent(type, request, response, null);
+	}
+
+	/**
+	 * Create an event that triggers the error flows of an operation.
+	 *
+	 * @param type the operation type
+	 * @param request the request
+	 * @param error the error returned by the service
+	 * @return the event
+	 */
+	public static OutboxEvent error(OutboxEventType type, Object request, Throwable error) {
+		return new OutboxEvent(type, request, null, error);
+	}
+
+	public OutboxEventType getType() {
+		return this.type;
+	}
+
+	public Object getRequest() {
+		return this.request;
+	}
+
+	public Object getResponse() {
+		return this.response;
+	}
+
+	public Throwable getError() {
+		return this.error;
+	}
+
+	/**
+	 * @return whether the event triggers error flows rather than completion flows
+	 */
+	public boolean isError() {
+		return this.error != null;
+	}
+
+	@Override
+	public String toString() {
+		return "OutboxEvent{" +
+				"type=" + type +
+				", request=" + request +
+				", response=" + response +
+				", error=" + error +
+				'}';
+	}
+
+}
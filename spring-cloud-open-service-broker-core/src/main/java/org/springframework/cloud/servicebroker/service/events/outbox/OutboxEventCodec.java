@@ -0,0 +1,462 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.events.outbox;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerAsyncRequiredException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerBindingRequiresAppException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerConcurrencyException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerInvalidOriginatingIdentityException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerInvalidParametersException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerUnavailableException;
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceUpdateNotSupportedException;
+import org.springframework.cloud.servicebroker.model.AsyncServiceBrokerRequest;
+import org.springframework.cloud.servicebroker.model.AsyncServiceBrokerResponse;
+import org.springframework.cloud.servicebroker.model.Context;
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceRouteBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+
+/**
+ * Converts {@link OutboxEvent}s to and from single-line JSON records.
+ *
+ * <p>
+ * The {@link OutboxEventType} of a record decides the request and response classes it is read back as; no class
+ * names are written to or read from the journal. Request bodies are written in their Open Service Broker API
+ * representation, and the values a request takes from the path, query parameters and headers, and the responses, are
+ * written as named properties and read back through the model builders and setters. Errors are recorded by the name
+ * of a known service broker exception type and their message, and other errors are read back as a
+ * {@link ServiceBrokerException}.
+ *
+ * <p>
+ * The credentials, syslog drain URL and volume mounts of app binding responses are not written, so that the journal
+ * holds no secrets. Flows that receive an event read back from the journal get an app binding response without them.
+ */
+class OutboxEventCodec {
+
+	private static final String SEQUENCE = "sequence";
+
+	private static final String TYPE = "type";
+
+	private static final String REQUEST = "request";
+
+	private static final String RESPONSE = "response";
+
+	private static final String ERROR_TYPE = "errorType";
+
+	private static final String ERROR_MESSAGE = "errorMessage";
+
+	private static final String BODY = "body";
+
+	private static final String SERVICE_INSTANCE_ID = "service_instance_id";
+
+	private static final String BINDING_ID = "binding_id";
+
+	private static final String SERVICE_DEFINITION_ID = "service_definition_id";
+
+	private static final String PLAN_ID = "plan_id";
+
+	private static final String SERVICE_DEFINITION = "service_definition";
+
+	private static final String PLAN = "plan";
+
+	private static final String OPERATION = "operation";
+
+	private static final String ASYNC_ACCEPTED = "async_accepted";
+
+	private static final String PLATFORM_INSTANCE_ID = "platform_instance_id";
+
+	private static final String API_INFO_LOCATION = "api_info_location";
+
+	private static final String ORIGINATING_IDENTITY = "originating_identity";
+
+	private static final String ASYNC = "async";
+
+	private static final String DASHBOARD_URL = "dashboard_url";
+
+	private static final String EXISTED = "existed";
+
+	private static final String STATE = "state";
+
+	private static final String DESCRIPTION = "description";
+
+	private static final String DELETE_OPERATION = "delete_operation";
+
+	private static final String BINDING_KIND = "kind";
+
+	private static final String APP_BINDING = "app";
+
+	private static final String ROUTE_BINDING = "route";
+
+	private static final String ROUTE_SERVICE_URL = "route_service_url";
+
+	private static final Map<String, Function<String, Throwable>> ERROR_TYPES = createErrorTypes();
+
+	private final ObjectMapper mapper = new ObjectMapper()
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+	String encode(long sequence, OutboxEvent event) throws IOException {
+		ObjectNode record = this.mapper.createObjectNode();
+		record.put(SEQUENCE, sequence);
+		record.put(TYPE, event.getType().name());
+		record.set(REQUEST, encodeRequest(event.getType(), event.getRequest()));
+		if (event.isError()) {
+			String errorType = event.getError().getClass().getSimpleName();
+			if (ERROR_TYPES.containsKey(errorType)) {
+				record.put(ERROR_TYPE, errorType);
+			}
+			record.put(ERROR_MESSAGE, event.getError().getMessage());
+		}
+		else {
+			record.set(RESPONSE, encodeResponse(event.getType(), event.getResponse()));
+		}
+		return this.mapper.writeValueAsString(record);
+	}
+
+	long decodeSequence(String line) throws IOException {
+		return this.mapper.readTree(line).path(SEQUENCE).asLong();
+	}
+
+	OutboxEvent decode(String line) throws IOException {
+		JsonNode record = this.mapper.readTree(line);
+		OutboxEventType type = OutboxEventType.valueOf(record.path(TYPE).asText());
+		Object request = decodeRequest(type, record.path(REQUEST));
+		if (!record.has(RESPONSE)) {
+			return OutboxEvent.error(type, request,
+					createError(record.path(ERROR_TYPE).asText(null), record.path(ERROR_MESSAGE).asText(null)));
+		}
+		return OutboxEvent.completion(type, request, decodeResponse(type, record.path(RESPONSE)));
+	}
+
+	private ObjectNode encodeRequest(OutboxEventType type, Object request) {
+		ObjectNode node = this.mapper.createObjectNode();
+		switch (type) {
+			case CREATE_SERVICE_INSTANCE:
+				CreateServiceInstanceRequest create = (CreateServiceInstanceRequest) request;
+				node.set(BODY, this.mapper.valueToTree(create));
+				node.put(SERVICE_INSTANCE_ID, create.getServiceInstanceId());
+				putCatalogEntries(node, create.getServiceDefinition(), create.getPlan());
+				break;
+			case UPDATE_SERVICE_INSTANCE:
+				UpdateServiceInstanceRequest update = (UpdateServiceInstanceRequest) request;
+				node.set(BODY, this.mapper.valueToTree(update));
+				node.put(SERVICE_INSTANCE_ID, update.getServiceInstanceId());
+				putCatalogEntries(node, update.getServiceDefinition(), update.getPlan());
+				break;
+			case DELETE_SERVICE_INSTANCE:
+				DeleteServiceInstanceRequest delete = (DeleteServiceInstanceRequest) request;
+				node.put(SERVICE_INSTANCE_ID, delete.getServiceInstanceId());
+				node.put(SERVICE_DEFINITION_ID, delete.getServiceDefinitionId());
+				node.put(PLAN_ID, delete.getPlanId());
+				putCatalogEntries(node, delete.getServiceDefinition(), delete.getPlan());
+				break;
+			case GET_LAST_SERVICE_OPERATION:
+				GetLastServiceOperationRequest lastOperation = (GetLastServiceOperationRequest) request;
+				node.put(SERVICE_INSTANCE_ID, lastOperation.getServiceInstanceId());
+				node.put(SERVICE_DEFINITION_ID, lastOperation.getServiceDefinitionId());
+				node.put(PLAN_ID, lastOperation.getPlanId());
+				node.put(OPERATION, lastOperation.getOperation());
+				break;
+			case CREATE_SERVICE_INSTANCE_BINDING:
+				CreateServiceInstanceBindingRequest bind = (CreateServiceInstanceBindingRequest) request;
+				node.set(BODY, this.mapper.valueToTree(bind));
+				node.put(SERVICE_INSTANCE_ID, bind.getServiceInstanceId());
+				node.put(BINDING_ID, bind.getBindingId());
+				putCatalogEntries(node, bind.getServiceDefinition(), bind.getPlan());
+				break;
+			case DELETE_SERVICE_INSTANCE_BINDING:
+				DeleteServiceInstanceBindingRequest unbind = (DeleteServiceInstanceBindingRequest) request;
+				node.put(SERVICE_INSTANCE_ID, unbind.getServiceInstanceId());
+				node.put(BINDING_ID, unbind.getBindingId());
+				node.put(SERVICE_DEFINITION_ID, unbind.getServiceDefinitionId());
+				node.put(PLAN_ID, unbind.getPlanId());
+				putCatalogEntries(node, unbind.getServiceDefinition(), unbind.getPlan());
+				break;
+			case GET_LAST_SERVICE_BINDING_OPERATION:
+				GetLastServiceBindingOperationRequest lastBindingOperation =
+						(GetLastServiceBindingOperationRequest) request;
+				node.put(SERVICE_INSTANCE_ID, lastBindingOperation.getServiceInstanceId());
+				node.put(BINDING_ID, lastBindingOperation.getBindingId());
+				node.put(SERVICE_DEFINITION_ID, lastBindingOperation.getServiceDefinitionId());
+				node.put(PLAN_ID, lastBindingOperation.getPlanId());
+				node.put(OPERATION, lastBindingOperation.getOperation());
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported event type " + type);
+		}
+		ServiceBrokerRequest serviceBrokerRequest = (ServiceBrokerRequest) request;
+		if (request instanceof AsyncServiceBrokerRequest) {
+			node.put(ASYNC_ACCEPTED, ((AsyncServiceBrokerRequest) request).isAsyncAccepted());
+		}
+		node.put(PLATFORM_INSTANCE_ID, serviceBrokerRequest.getPlatformInstanceId());
+		node.put(API_INFO_LOCATION, serviceBrokerRequest.getApiInfoLocation());
+		node.set(ORIGINATING_IDENTITY, this.mapper.valueToTree(serviceBrokerRequest.getOriginatingIdentity()));
+		return node;
+	}
+
+	private ServiceBrokerRequest decodeRequest(OutboxEventType type, JsonNode node) throws IOException {
+		ServiceBrokerRequest request;
+		switch (type) {
+			case CREATE_SERVICE_INSTANCE:
+				CreateServiceInstanceRequest create =
+						this.mapper.treeToValue(node.path(BODY), CreateServiceInstanceRequest.class);
+				create.setServiceInstanceId(text(node, SERVICE_INSTANCE_ID));
+				create.setServiceDefinition(value(node, SERVICE_DEFINITION, ServiceDefinition.class));
+				create.setPlan(value(node, PLAN, Plan.class));
+				request = create;
+				break;
+			case UPDATE_SERVICE_INSTANCE:
+				UpdateServiceInstanceRequest update =
+						this.mapper.treeToValue(node.path(BODY), UpdateServiceInstanceRequest.class);
+				update.setServiceInstanceId(text(node, SERVICE_INSTANCE_ID));
+				update.setServiceDefinition(value(node, SERVICE_DEFINITION, ServiceDefinition.class));
+				update.setPlan(value(node, PLAN, Plan.class));
+				request = update;
+				break;
+			case DELETE_SERVICE_INSTANCE:
+				request = DeleteServiceInstanceRequest.builder()
+						.serviceInstanceId(text(node, SERVICE_INSTANCE_ID))
+						.serviceDefinitionId(text(node, SERVICE_DEFINITION_ID))
+						.planId(text(node, PLAN_ID))
+						.serviceDefinition(value(node, SERVICE_DEFINITION, ServiceDefinition.class))
+						.plan(value(node, PLAN, Plan.class))
+						.build();
+				break;
+			case GET_LAST_SERVICE_OPERATION:
+				request = GetLastServiceOperationRequest.builder()
+						.serviceInstanceId(text(node, SERVICE_INSTANCE_ID))
+						.serviceDefinitionId(text(node, SERVICE_DEFINITION_ID))
+						.planId(text(node, PLAN_ID))
+						.operation(text(node, OPERATION))
+						.build();
+				break;
+			case CREATE_SERVICE_INSTANCE_BINDING:
+				CreateServiceInstanceBindingRequest bind =
+						this.mapper.treeToValue(node.path(BODY), CreateServiceInstanceBindingRequest.class);
+				bind.setServiceInstanceId(text(node, SERVICE_INSTANCE_ID));
+				bind.setBindingId(text(node, BINDING_ID));
+				bind.setServiceDefinition(value(node, SERVICE_DEFINITION, ServiceDefinition.class));
+				bind.setPlan(value(node, PLAN, Plan.class));
+				request = bind;
+				break;
+			case DELETE_SERVICE_INSTANCE_BINDING:
+				request = DeleteServiceInstanceBindingRequest.builder()
+						.serviceInstanceId(text(node, SERVICE_INSTANCE_ID))
+						.bindingId(text(node, BINDING_ID))
+						.serviceDefinitionId(text(node, SERVICE_DEFINITION_ID))
+						.planId(text(node, PLAN_ID))
+						.serviceDefinition(value(node, SERVICE_DEFINITION, ServiceDefinition.class))
+						.plan(value(node, PLAN, Plan.class))
+						.build();
+				break;
+			case GET_LAST_SERVICE_BINDING_OPERATION:
+				request = GetLastServiceBindingOperationRequest.builder()
+						.serviceInstanceId(text(node, SERVICE_INSTANCE_ID))
+						.bindingId(text(node, BINDING_ID))
+						.serviceDefinitionId(text(node, SERVICE_DEFINITION_ID))
+						.planId(text(node, PLAN_ID))
+						.operation(text(node, OPERATION))
+						.build();
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported event type " + type);
+		}
+		if (request instanceof AsyncServiceBrokerRequest) {
+			((AsyncServiceBrokerRequest) request).setAsyncAccepted(node.path(ASYNC_ACCEPTED).asBoolean());
+		}
+		request.setPlatformInstanceId(text(node, PLATFORM_INSTANCE_ID));
+		request.setApiInfoLocation(text(node, API_INFO_LOCATION));
+		request.setOriginatingIdentity(value(node, ORIGINATING_IDENTITY, Context.class));
+		return request;
+	}
+
+	private ObjectNode encodeResponse(OutboxEventType type, Object response) {
+		ObjectNode node = this.mapper.createObjectNode();
+		if (response == null) {
+			return node;
+		}
+		if (response instanceof AsyncServiceBrokerResponse) {
+			node.put(ASYNC, ((AsyncServiceBrokerResponse) response).isAsync());
+			node.put(OPERATION, ((AsyncServiceBrokerResponse) response).getOperation());
+		}
+		switch (type) {
+			case CREATE_SERVICE_INSTANCE:
+				CreateServiceInstanceResponse create = (CreateServiceInstanceResponse) response;
+				node.put(DASHBOARD_URL, create.getDashboardUrl());
+				node.put(EXISTED, create.isInstanceExisted());
+				break;
+			case UPDATE_SERVICE_INSTANCE:
+				node.put(DASHBOARD_URL, ((UpdateServiceInstanceResponse) response).getDashboardUrl());
+				break;
+			case GET_LAST_SERVICE_OPERATION:
+				GetLastServiceOperationResponse lastOperation = (GetLastServiceOperationResponse) response;
+				node.set(STATE, this.mapper.valueToTree(lastOperation.getState()));
+				node.put(DESCRIPTION, lastOperation.getDescription());
+				node.put(DELETE_OPERATION, lastOperation.isDeleteOperation());
+				break;
+			case CREATE_SERVICE_INSTANCE_BINDING:
+				node.put(EXISTED, ((CreateServiceInstanceBindingResponse) response).isBindingExisted());
+				if (response instanceof CreateServiceInstanceRouteBindingResponse) {
+					node.put(BINDING_KIND, ROUTE_BINDING);
+					node.put(ROUTE_SERVICE_URL,
+							((CreateServiceInstanceRouteBindingResponse) response).getRouteServiceUrl());
+				}
+				else if (response instanceof CreateServiceInstanceAppBindingResponse) {
+					// credentials, syslog drain URL and volume mounts are secrets and are not written
+					node.put(BINDING_KIND, APP_BINDING);
+				}
+				break;
+			case GET_LAST_SERVICE_BINDING_OPERATION:
+				GetLastServiceBindingOperationResponse lastBindingOperation =
+						(GetLastServiceBindingOperationResponse) response;
+				node.set(STATE, this.mapper.valueToTree(lastBindingOperation.getState()));
+				node.put(DESCRIPTION, lastBindingOperation.getDescription());
+				node.put(DELETE_OPERATION, lastBindingOperation.isDeleteOperation());
+				break;
+			default:
+				break;
+		}
+		return node;
+	}
+
+	private Object decodeResponse(OutboxEventType type, JsonNode node) throws IOException {
+		if (node.size() == 0) {
+			return null;
+		}
+		boolean async = node.path(ASYNC).asBoolean();
+		String operation = text(node, OPERATION);
+		switch (type) {
+			case CREATE_SERVICE_INSTANCE:
+				return CreateServiceInstanceResponse.builder()
+						.async(async)
+						.operation(operation)
+						.dashboardUrl(text(node, DASHBOARD_URL))
+						.instanceExisted(node.path(EXISTED).asBoolean())
+						.build();
+			case UPDATE_SERVICE_INSTANCE:
+				return UpdateServiceInstanceResponse.builder()
+						.async(async)
+						.operation(operation)
+						.dashboardUrl(text(node, DASHBOARD_URL))
+						.build();
+			case DELETE_SERVICE_INSTANCE:
+				return DeleteServiceInstanceResponse.builder()
+						.async(async)
+						.operation(operation)
+						.build();
+			case GET_LAST_SERVICE_OPERATION:
+				return GetLastServiceOperationResponse.builder()
+						.operationState(value(node, STATE, OperationState.class))
+						.description(text(node, DESCRIPTION))
+						.deleteOperation(node.path(DELETE_OPERATION).asBoolean())
+						.build();
+			case CREATE_SERVICE_INSTANCE_BINDING:
+				if (ROUTE_BINDING.equals(text(node, BINDING_KIND))) {
+					return CreateServiceInstanceRouteBindingResponse.builder()
+							.async(async)
+							.operation(operation)
+							.bindingExisted(node.path(EXISTED).asBoolean())
+							.routeServiceUrl(text(node, ROUTE_SERVICE_URL))
+							.build();
+				}
+				return CreateServiceInstanceAppBindingResponse.builder()
+						.async(async)
+						.operation(operation)
+						.bindingExisted(node.path(EXISTED).asBoolean())
+						.build();
+			case DELETE_SERVICE_INSTANCE_BINDING:
+				return DeleteServiceInstanceBindingResponse.builder()
+						.async(async)
+						.operation(operation)
+						.build();
+			case GET_LAST_SERVICE_BINDING_OPERATION:
+				return GetLastServiceBindingOperationResponse.builder()
+						.operationState(value(node, STATE, OperationState.class))
+						.description(text(node, DESCRIPTION))
+						.deleteOperation(node.path(DELETE_OPERATION).asBoolean())
+						.build();
+			default:
+				throw new IllegalArgumentException("Unsupported event type " + type);
+		}
+	}
+
+	private void putCatalogEntries(ObjectNode node, ServiceDefinition serviceDefinition, Plan plan) {
+		node.set(SERVICE_DEFINITION, this.mapper.valueToTree(serviceDefinition));
+		node.set(PLAN, this.mapper.valueToTree(plan));
+	}
+
+	private <T> T value(JsonNode node, String name, Class<T> type) throws IOException {
+		JsonNode value = node.get(name);
+		return value == null || value.isNull() ? null : this.mapper.treeToValue(value, type);
+	}
+
+	private static String text(JsonNode node, String name) {
+		JsonNode value = node.get(name);
+		return value == null || value.isNull() ? null : value.asText();
+	}
+
+	private static Throwable createError(String type, String message) {
+		Function<String, Throwable> factory = type == null ? null : ERROR_TYPES.get(type);
+		return factory != null ? factory.apply(message) : new ServiceBrokerException(message);
+	}
+
+	private static Map<String, Function<String, Throwable>> createErrorTypes() {
+		Map<String, Function<String, Throwable>> types = new HashMap<>();
+		types.put(ServiceBrokerException.class.getSimpleName(), ServiceBrokerException::new);
+		types.put(ServiceBrokerAsyncRequiredException.class.getSimpleName(), ServiceBrokerAsyncRequiredException::new);
+		types.put(ServiceBrokerBindingRequiresAppException.class.getSimpleName(),
+				ServiceBrokerBindingRequiresAppException::new);
+		types.put(ServiceBrokerConcurrencyException.class.getSimpleName(), ServiceBrokerConcurrencyException::new);
+		types.put(ServiceBrokerInvalidOriginatingIdentityException.class.getSimpleName(),
+				ServiceBrokerInvalidOriginatingIdentityException::new);
+		types.put(ServiceBrokerInvalidParametersException.class.getSimpleName(),
+				ServiceBrokerInvalidParametersException::new);
+		types.put(ServiceBrokerUnavailableException.class.getSimpleName(), ServiceBrokerUnavailableException::new);
+		types.put(ServiceInstanceUpdateNotSupportedException.class.getSimpleName(),
+				ServiceInstanceUpdateNotSupportedException::new);
+		return Collections.unmodifiableMap(types);
+	}
+
+}
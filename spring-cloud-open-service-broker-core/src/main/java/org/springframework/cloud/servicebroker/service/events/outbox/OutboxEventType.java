@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events.outbox;
+
+import reactor.core.publisher.Flux;
+
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistry;
+
+/**
+ * The operations whose completion and error flows can be deferred to an {@link EventFlowOutbox}, each identifying
+ * the {@link EventFlowRegistry} the flows are registered with.
+ */
+public enum OutboxEventType {
+
+	CREATE_SERVICE_INSTANCE {
+		@Override
+		EventFlowRegistry<?, ?, ?, ?, ?> getRegistry(EventFlowRegistries registries) {
+			return registries.getCreateInstanceRegistry();
+		}
+	},
+
+	UPDATE_SERVICE_INSTANCE {
+		@Override
+		EventFlowRegistry<?, ?, ?, ?, ?> getRegistry(EventFlowRegistries registries) {
+			return registries.getUpdateInstanceRegistry();
+		}
+	},
+
+	DELETE_SERVICE_INSTANCE {
+		@Override
+		EventFlowRegistry<?, ?, ?, ?, ?> getRegistry(EventFlowRegistries registries) {
+			return registries.getDeleteInstanceRegistry();
+		}
+	},
+
+	GET_LAST_SERVICE_OPERATION {
+		@Override
+		EventFlowRegistry<?, ?, ?, ?, ?> getRegistry(EventFlowRegistries registries) {
+			return registries.getAsyncOperationRegistry();
+		}
+	},
+
+	CREATE_SERVICE_INSTANCE_BINDING {
+		@Override
+		EventFlowRegistry<?, ?, ?, ?, ?> getRegistry(EventFlowRegistries registries) {
+			return registries.getCreateInstanceBindingRegistry();
+		}
+	},
+
+	DELETE_SERVICE_INSTANCE_BINDING {
+		@Override
+		EventFlowRegistry<?, ?, ?, ?, ?> getRegistry(EventFlowRegistries registries) {
+			return registries.getDeleteInstanceBindingRegistry();
+		}
+	},
+
+	GET_LAST_SERVICE_BINDING_OPERATION {
+		@Override
+		EventFlowRegistry<?, ?, ?, ?, ?> getRegistry(EventFlowRegistries registries) {
+			return registries.getAsyncOperationBindingRegistry();
+		}
+	};
+
+	abstract EventFlowRegistry<?, ?, ?, ?, ?> getRegistry(EventFlowRegistries registries);
+
+	/**
+	 * Run the flows registered for an event of this type.
+	 *
+	 * @param registries the registries to get the flows from
+	 * @param event the event
+	 * @return the completion of the flows, or an empty {@link Flux} if no registry exists for this type
+	 */
+	@SuppressWarnings("unchecked")
+	Flux<Void> runFlows(EventFlowRegistries registries, OutboxEvent event) {
+		EventFlowRegistry<?, ?, ?, Object, Object> registry =
+				(EventFlowRegistry<?, ?, ?, Object, Object>) getRegistry(registries);
+		if (registry == null) {
+			return Flux.empty();
+		}
+		if (event.isError()) {
+			return registry.getErrorFlows(event.getRequest(), event.getError());
+		}
+		return registry.getCompletionFlows(event.getRequest(), event.getResponse());
+	}
+
+}
@@ -0,0 +1,515 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * An {@link OperationLeaseManager} that keeps leases in a database table, so that the service broker nodes sharing
+ * the database grant each service instance to one operation at a time.
+ *
+ * <p>
+ * The table has one row per leased service instance, holding the operation, a token identifying the grant, and the
+ * time at which the lease expires. A lease is granted by inserting its row, so the primary key of the table decides
+ * between nodes acquiring the same lease. Rows of expired leases are deleted before inserting. See {@code
+ * schema.sql} in this package for the table definition.
+ *
+ * <p>
+ * Requests are queued and executed by a background thread in batches: all the acquisitions waiting when a batch
+ * starts are granted with one delete, one query and one insert statement, so parallel operations do not each cost a
+ * database round trip. Releases and lookups are batched the same way. All held leases are renewed together a few
+ * times per lease duration by a second thread, so that a long backlog of requests cannot delay renewals until the
+ * leases expire. Leases still held when the manager is disposed are released.
+ *
+ * <p>
+ * Acquired leases are emitted on the background thread, so callers should not block or do lengthy work on the
+ * thread that receives a lease. Expiry times are taken from the clock of the node that acquires or renews the lease,
+ * so the clocks of the nodes must agree to well within the lease duration.
+ */
+public class JdbcOperationLeaseManager implements OperationLeaseManager, Disposable {
+
+	/**
+	 * The name of the lease table unless another name is given.
+	 */
+	public static final String DEFAULT_TABLE_NAME = "osb_operation_lease";
+
+	private static final int RENEWALS_PER_LEASE_DURATION = 3;
+
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+	private static final Logger logger = LoggerFactory.getLogger(JdbcOperationLeaseManager.class);
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final long leaseMillis;
+
+	private final int batchSize;
+
+	private final String tableName;
+
+	private final String deleteExpiredSql;
+
+	private final String insertSql;
+
+	private final String renewSql;
+
+	private final String releaseSql;
+
+	private final Queue<PendingAcquisition> pendingAcquisitions = new ConcurrentLinkedQueue<>();
+
+	private final Queue<PendingLookup> pendingLookups = new ConcurrentLinkedQueue<>();
+
+	private final Queue<OperationLease> pendingReleases = new ConcurrentLinkedQueue<>();
+
+	private final Set<OperationLease> heldLeases = ConcurrentHashMap.newKeySet();
+
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+	private final ScheduledExecutorService executor;
+
+	private final ScheduledExecutorService renewalExecutor;
+
+	private volatile boolean disposed;
+
+	/**
+	 * Create a manager using the {@link #DEFAULT_TABLE_NAME default table}.
+	 *
+	 * @param dataSource the data source holding the lease table
+	 * @param leaseDuration the time after which a lease that is not renewed expires
+	 * @param batchSize the maximum number of requests executed together
+	 */
+	public JdbcOperationLeaseManager(DataSource dataSource, Duration leaseDuration, int batchSize) {
+		this(dataSource, DEFAULT_TABLE_NAME, leaseDuration, batchSize);
+	}
+
+	/**
+	 * Create a manager.
+	 *
+	 * @param dataSource the data source holding the lease table
+	 * @param tableName the name of the lease table
+	 * @param leaseDuration the time after which a lease that is not renewed expires
+	 * @param batchSize the maximum number of requests executed together
+	 */
+	public JdbcOperationLeaseManager(DataSource dataSource, String tableName, Duration leaseDuration,
+			int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be greater than zero");
+		}
+		if (leaseDuration.toMillis() < RENEWALS_PER_LEASE_DURATION) {
+			throw new IllegalArgumentException("leaseDuration must be at least " + RENEWALS_PER_LEASE_DURATION + "ms");
+		}
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		this.leaseMillis = leaseDuration.toMillis();
+		this.batchSize = batchSize;
+		this.tableName = tableName;
+		this.deleteExpiredSql = "DELETE FROM " + tableName + " WHERE service_instance_id = ? AND expires_at <= ?";
+		this.insertSql = "INSERT INTO " + tableName +
+				" (service_instance_id, operation, owner, expires_at) VALUES (?, ?, ?, ?)";
+		this.renewSql = "UPDATE " + tableName + " SET expires_at = ? WHERE service_instance_id = ? AND owner = ?";
+		this.releaseSql = "DELETE FROM " + tableName + " WHERE service_instance_id = ? AND owner = ?";
+		this.executor = newExecutor("osb-operation-lease");
+		this.renewalExecutor = newExecutor("osb-operation-lease-renewal");
+		long renewalInterval = this.leaseMillis / RENEWALS_PER_LEASE_DURATION;
+		this.renewalExecutor.scheduleWithFixedDelay(this::renewLeases, renewalInterval, renewalInterval,
+				TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public Mono<OperationLease> acquire(String serviceInstanceId, String operation) {
+		return Mono.<OperationLease>create(sink -> {
+			if (this.disposed) {
+				sink.error(disposedException());
+				return;
+			}
+			PendingAcquisition acquisition = new PendingAcquisition(serviceInstanceId, operation, sink);
+			sink.onCancel(acquisition::cancel);
+			this.pendingAcquisitions.offer(acquisition);
+			scheduleDrain();
+		});
+	}
+
+	@Override
+	public Mono<Void> release(OperationLease lease) {
+		return Mono.fromRunnable(() -> releaseLater(lease));
+	}
+
+	@Override
+	public Mono<String> getLeasedOperation(String serviceInstanceId) {
+		return Mono.<String>create(sink -> {
+			if (this.disposed) {
+				sink.error(disposedException());
+				return;
+			}
+			this.pendingLookups.offer(new PendingLookup(serviceInstanceId, sink));
+			scheduleDrain();
+		}).publishOn(Schedulers.parallel());
+	}
+
+	/**
+	 * @return the leases granted by this manager and not yet released
+	 */
+	public Collection<OperationLease> getHeldLeases() {
+		return Collections.unmodifiableSet(this.heldLeases);
+	}
+
+	/**
+	 * Stop granting leases and release the leases still held.
+	 */
+	@Override
+	public void dispose() {
+		if (this.disposed) {
+			return;
+		}
+		this.disposed = true;
+		this.renewalExecutor.shutdown();
+		this.executor.shutdown();
+		try {
+			if (!this.executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				logger.warn("Timed out waiting for operation lease requests to complete");
+			}
+			if (!this.renewalExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				logger.warn("Timed out waiting for operation lease renewal to complete");
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		rejectPendingRequests();
+		this.pendingReleases.addAll(this.heldLeases);
+		this.heldLeases.clear();
+		releaseLeases(nextBatch(this.pendingReleases, Integer.MAX_VALUE));
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return this.disposed;
+	}
+
+	/**
+	 * Execute the waiting requests in batches until none remain. Releases are executed first, so that a lease
+	 * released by this node can be acquired again by a request that waits in the same batch.
+	 */
+	void drain() {
+		this.drainScheduled.set(false);
+		while (!this.pendingReleases.isEmpty() || !this.pendingLookups.isEmpty()
+				|| !this.pendingAcquisitions.isEmpty()) {
+			releaseLeases(nextBatch(this.pendingReleases, this.batchSize));
+			lookUpLeases(nextBatch(this.pendingLookups, this.batchSize));
+			acquireLeases(nextBatch(this.pendingAcquisitions, this.batchSize));
+		}
+	}
+
+	/**
+	 * Extend the expiry of all held leases. Leases whose row was deleted or taken over by another node, because they
+	 * expired before they could be renewed, are no longer held.
+	 */
+	void renewLeases() {
+		List<OperationLease> leases = new ArrayList<>(this.heldLeases);
+		if (leases.isEmpty()) {
+			return;
+		}
+		long expiresAt = System.currentTimeMillis() + this.leaseMillis;
+		List<Object[]> args = new ArrayList<>(leases.size());
+		for (OperationLease lease : leases) {
+			args.add(new Object[] {expiresAt, lease.getServiceInstanceId(), lease.getOwner()});
+		}
+		try {
+			int[] counts = this.jdbcTemplate.batchUpdate(this.renewSql, args);
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] == 0 && this.heldLeases.remove(leases.get(i))) {
+					logger.warn("Lost " + leases.get(i) + " because it expired before it was renewed");
+				}
+			}
+		}
+		catch (DataAccessException e) {
+			logger.warn("Error renewing " + leases.size() + " operation leases", e);
+		}
+	}
+
+	private static ScheduledExecutorService newExecutor(String threadName) {
+		return Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, threadName);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private void scheduleDrain() {
+		if (this.drainScheduled.compareAndSet(false, true)) {
+			try {
+				this.executor.execute(this::drain);
+			}
+			catch (RejectedExecutionException e) {
+				this.drainScheduled.set(false);
+				rejectPendingRequests();
+			}
+		}
+	}
+
+	private void releaseLater(OperationLease lease) {
+		if (this.heldLeases.remove(lease)) {
+			this.pendingReleases.offer(lease);
+			scheduleDrain();
+		}
+	}
+
+	private void releaseLeases(List<OperationLease> leases) {
+		if (leases.isEmpty()) {
+			return;
+		}
+		List<Object[]> args = new ArrayList<>(leases.size());
+		for (OperationLease lease : leases) {
+			args.add(new Object[] {lease.getServiceInstanceId(), lease.getOwner()});
+		}
+		try {
+			this.jdbcTemplate.batchUpdate(this.releaseSql, args);
+		}
+		catch (DataAccessException e) {
+			logger.warn("Error releasing " + leases.size() + " operation leases, they are released when they expire",
+					e);
+		}
+	}
+
+	private void lookUpLeases(List<PendingLookup> lookups) {
+		if (lookups.isEmpty()) {
+			return;
+		}
+		Set<String> serviceInstanceIds = new LinkedHashSet<>();
+		for (PendingLookup lookup : lookups) {
+			serviceInstanceIds.add(lookup.serviceInstanceId);
+		}
+		Map<String, String> leasedOperations;
+		try {
+			leasedOperations = findLeasedOperations(serviceInstanceIds, System.currentTimeMillis());
+		}
+		catch (DataAccessException e) {
+			lookups.forEach(lookup -> lookup.sink.error(e));
+			return;
+		}
+		lookups.forEach(lookup -> lookup.sink.success(leasedOperations.get(lookup.serviceInstanceId)));
+	}
+
+	private void acquireLeases(List<PendingAcquisition> acquisitions) {
+		if (acquisitions.isEmpty()) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		Map<String, PendingAcquisition> candidates = new LinkedHashMap<>();
+		for (PendingAcquisition acquisition : acquisitions) {
+			PendingAcquisition first = candidates.putIfAbsent(acquisition.serviceInstanceId, acquisition);
+			if (first != null) {
+				acquisition.reject(first.operation);
+			}
+		}
+		try {
+			Map<String, String> leasedOperations = this.transactionTemplate.execute(status ->
+					insertLeases(candidates.values(), now));
+			candidates.values().forEach(acquisition -> complete(acquisition, leasedOperations));
+		}
+		catch (DuplicateKeyException e) {
+			// another node acquired one of the leases after it was found free
+			candidates.values().forEach(acquisition -> acquireLease(acquisition, now));
+		}
+		catch (DataAccessException e) {
+			candidates.values().forEach(acquisition -> acquisition.sink.error(e));
+		}
+	}
+
+	private void acquireLease(PendingAcquisition acquisition, long now) {
+		try {
+			Map<String, String> leasedOperations = this.transactionTemplate.execute(status ->
+					insertLeases(Collections.singletonList(acquisition), now));
+			complete(acquisition, leasedOperations);
+		}
+		catch (DuplicateKeyException e) {
+			acquisition.reject(null);
+		}
+		catch (DataAccessException e) {
+			acquisition.sink.error(e);
+		}
+	}
+
+	/**
+	 * Insert the rows of the leases that are free.
+	 *
+	 * @return the operations holding the leases that are not free, by service instance ID
+	 */
+	private Map<String, String> insertLeases(Collection<PendingAcquisition> acquisitions, long now) {
+		List<Object[]> deleteArgs = new ArrayList<>(acquisitions.size());
+		Set<String> serviceInstanceIds = new LinkedHashSet<>();
+		for (PendingAcquisition acquisition : acquisitions) {
+			deleteArgs.add(new Object[] {acquisition.serviceInstanceId, now});
+			serviceInstanceIds.add(acquisition.serviceInstanceId);
+		}
+		this.jdbcTemplate.batchUpdate(this.deleteExpiredSql, deleteArgs);
+		Map<String, String> leasedOperations = findLeasedOperations(serviceInstanceIds, now);
+		List<Object[]> insertArgs = new ArrayList<>(acquisitions.size());
+		for (PendingAcquisition acquisition : acquisitions) {
+			if (!leasedOperations.containsKey(acquisition.serviceInstanceId)) {
+				insertArgs.add(new Object[] {acquisition.serviceInstanceId, acquisition.operation, acquisition.owner,
+						now + this.leaseMillis});
+			}
+		}
+		if (!insertArgs.isEmpty()) {
+			this.jdbcTemplate.batchUpdate(this.insertSql, insertArgs);
+		}
+		return leasedOperations;
+	}
+
+	private Map<String, String> findLeasedOperations(Collection<String> serviceInstanceIds, long now) {
+		StringBuilder sql = new StringBuilder("SELECT service_instance_id, operation FROM ")
+				.append(this.tableName)
+				.append(" WHERE expires_at > ? AND service_instance_id IN (");
+		List<Object> args = new ArrayList<>(serviceInstanceIds.size() + 1);
+		args.add(now);
+		for (String serviceInstanceId : serviceInstanceIds) {
+			sql.append(args.size() == 1 ? "?" : ", ?");
+			args.add(serviceInstanceId);
+		}
+		sql.append(')');
+		Map<String, String> leasedOperations = new HashMap<>();
+		this.jdbcTemplate.query(sql.toString(), args.toArray(), resultSet -> {
+			leasedOperations.put(resultSet.getString(1), resultSet.getString(2));
+		});
+		return leasedOperations;
+	}
+
+	private void complete(PendingAcquisition acquisition, Map<String, String> leasedOperations) {
+		if (leasedOperations.containsKey(acquisition.serviceInstanceId)) {
+			acquisition.reject(leasedOperations.get(acquisition.serviceInstanceId));
+		}
+		else {
+			OperationLease lease = new OperationLease(acquisition.serviceInstanceId, acquisition.operation,
+					acquisition.owner);
+			this.heldLeases.add(lease);
+			acquisition.grant(lease);
+		}
+	}
+
+	private void rejectPendingRequests() {
+		nextBatch(this.pendingAcquisitions, Integer.MAX_VALUE)
+				.forEach(acquisition -> acquisition.sink.error(disposedException()));
+		nextBatch(this.pendingLookups, Integer.MAX_VALUE)
+				.forEach(lookup -> lookup.sink.error(disposedException()));
+	}
+
+	private static <T> List<T> nextBatch(Queue<T> queue, int batchSize) {
+		List<T> batch = new ArrayList<>();
+		T request;
+		while (batch.size() < batchSize && (request = queue.poll()) != null) {
+			batch.add(request);
+		}
+		return batch;
+	}
+
+	private static IllegalStateException disposedException() {
+		return new IllegalStateException("The operation lease manager has been disposed");
+	}
+
+	private final class PendingAcquisition {
+
+		private final String serviceInstanceId;
+
+		private final String operation;
+
+		private final String owner = UUID.randomUUID().toString();
+
+		private final MonoSink<OperationLease> sink;
+
+		private volatile OperationLease lease;
+
+		private volatile boolean cancelled;
+
+		private PendingAcquisition(String serviceInstanceId, String operation, MonoSink<OperationLease> sink) {
+			this.serviceInstanceId = serviceInstanceId;
+			this.operation = operation;
+			this.sink = sink;
+		}
+
+		private void grant(OperationLease lease) {
+			this.lease = lease;
+			this.sink.success(lease);
+			if (this.cancelled) {
+				releaseLater(lease);
+			}
+		}
+
+		private void reject(String leasedOperation) {
+			this.sink.error(new OperationLeaseUnavailableException(this.serviceInstanceId, leasedOperation));
+		}
+
+		private void cancel() {
+			this.cancelled = true;
+			OperationLease granted = this.lease;
+			if (granted != null) {
+				releaseLater(granted);
+			}
+		}
+
+	}
+
+	private static final class PendingLookup {
+
+		private final String serviceInstanceId;
+
+		private final MonoSink<String> sink;
+
+		private PendingLookup(String serviceInstanceId, MonoSink<String> sink) {
+			this.serviceInstanceId = serviceInstanceId;
+			this.sink = sink;
+		}
+
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerConcurrencyException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOperationInProgressException;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.BlockingCallTracker;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+
+/**
+ * A {@link ServiceInstanceService} that holds the lease of the service instance, granted by an
+ * {@link OperationLeaseManager}, while it calls another service to create, update or delete the service instance.
+ *
+ * <p>
+ * When another operation holds the lease, the operation fails with a {@link ServiceBrokerConcurrencyException}.
+ * Retrieving a service instance whose creation holds the lease fails with a
+ * {@link ServiceBrokerOperationInProgressException}, and with a {@link ServiceBrokerConcurrencyException} while
+ * another operation holds it. Retrieving the last operation is never restricted.
+ *
+ * <p>
+ * The lease covers the call to the service. An asynchronous operation releases it when the service returns, so
+ * services still need to reject operations on instances with an asynchronous operation in progress. Cancelling the
+ * operation, for example when its deadline passes, cancels the call to the service. A call to a
+ * {@link org.springframework.cloud.servicebroker.service.BlockingServiceInstanceService} that is already running
+ * cannot be stopped, so the lease is held until it returns.
+ */
+public class LeasedServiceInstanceService implements ServiceInstanceService {
+
+	static final String CREATE_SERVICE_INSTANCE = "create_service_instance";
+
+	static final String UPDATE_SERVICE_INSTANCE = "update_service_instance";
+
+	static final String DELETE_SERVICE_INSTANCE = "delete_service_instance";
+
+	private final ServiceInstanceService service;
+
+	private final OperationLeaseManager leaseManager;
+
+	/**
+	 * Construct a new {@link LeasedServiceInstanceService}
+	 *
+	 * @param service the service to delegate to
+	 * @param leaseManager the manager granting the leases
+	 */
+	public LeasedServiceInstanceService(ServiceInstanceService service, OperationLeaseManager leaseManager) {
+		this.service = service;
+		this.leaseManager = leaseManager;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+		return withLease(request.getServiceInstanceId(), CREATE_SERVICE_INSTANCE,
+				() -> this.service.createServiceInstance(request));
+	}
+
+	@Override
+	public Mono<GetServiceInstanceResponse> getServiceInstance(GetServiceInstanceRequest request) {
+		return this.leaseManager.getLeasedOperation(request.getServiceInstanceId())
+				.flatMap(operation -> Mono.<GetServiceInstanceResponse>error(CREATE_SERVICE_INSTANCE.equals(operation)
+						? new ServiceBrokerOperationInProgressException(operation)
+						: new ServiceBrokerConcurrencyException("Operation '" + operation +
+								"' is in progress for service instance " + request.getServiceInstanceId())))
+				.switchIfEmpty(Mono.defer(() -> this.service.getServiceInstance(request)));
+	}
+
+	@Override
+	public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+		return this.service.getLastOperation(request);
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+		return withLease(request.getServiceInstanceId(), DELETE_SERVICE_INSTANCE,
+				() -> this.service.deleteServiceInstance(request));
+	}
+
+	@Override
+	public Mono<UpdateServiceInstanceResponse> updateServiceInstance(UpdateServiceInstanceRequest request) {
+		return withLease(request.getServiceInstanceId(), UPDATE_SERVICE_INSTANCE,
+				() -> this.service.updateServiceInstance(request));
+	}
+
+	/**
+	 * Call the service while holding the lease. The call is moved off the thread that granted the lease, and the
+	 * lease is released when the call ends. Cancelling the operation cancels the call, but a blocking call that is
+	 * already running keeps the lease until it returns.
+	 */
+	private <T> Mono<T> withLease(String serviceInstanceId, String operation, Supplier<Mono<T>> serviceCall) {
+		return this.leaseManager.acquire(serviceInstanceId, operation)
+				.onErrorMap(OperationLeaseUnavailableException.class,
+						e -> new ServiceBrokerConcurrencyException(e.getMessage(), e))
+				.flatMap(lease -> {
+					BlockingCallTracker calls = new BlockingCallTracker();
+					return Mono.defer(serviceCall)
+							.subscribeOn(Schedulers.parallel())
+							.subscriberContext(context -> context.put(BlockingCallTracker.CONTEXT_KEY, calls))
+							.doFinally(signal -> calls.whenIdle(() -> this.leaseManager.release(lease).subscribe()));
+				});
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+/**
+ * The ownership of a service instance granted to an operation by an {@link OperationLeaseManager}.
+ */
+public final class OperationLease {
+
+	private final String serviceInstanceId;
+
+	private final String operation;
+
+	private final String owner;
+
+	/**
+	 * Construct a new {@link OperationLease}
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param operation the name of the operation holding the lease
+	 * @param owner a token identifying this grant of the lease
+	 */
+	public OperationLease(String serviceInstanceId, String operation, String owner) {
+		this.serviceInstanceId = serviceInstanceId;
+		this.operation = operation;
+		this.owner = owner;
+	}
+
+	/**
+	 * @return the service instance ID
+	 */
+	public String getServiceInstanceId() {
+		return this.serviceInstanceId;
+	}
+
+	/**
+	 * @return the name of the operation holding the lease
+	 */
+	public String getOperation() {
+		return this.operation;
+	}
+
+	/**
+	 * @return the token identifying this grant of the lease
+	 */
+	public String getOwner() {
+		return this.owner;
+	}
+
+	@Override
+	public String toString() {
+		return "OperationLease{" +
+				"serviceInstanceId='" + this.serviceInstanceId + '\'' +
+				", operation='" + this.operation + '\'' +
+				", owner='" + this.owner + '\'' +
+				'}';
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Grants leases that give one operation at a time the ownership of a service instance, across all the service broker
+ * nodes that share the lease store.
+ *
+ * <p>
+ * A lease is held until it is released, and is renewed by the manager while it is held. A lease that is not renewed,
+ * for example because the node holding it stopped, expires and can then be granted to another operation.
+ *
+ * @see JdbcOperationLeaseManager
+ * @see LeasedServiceInstanceService
+ */
+public interface OperationLeaseManager {
+
+	/**
+	 * Acquire the lease of a service instance.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param operation the name of the operation acquiring the lease
+	 * @return the lease, or an {@link OperationLeaseUnavailableException} if another operation holds it
+	 */
+	Mono<OperationLease> acquire(String serviceInstanceId, String operation);
+
+	/**
+	 * Release a lease so that another operation can acquire it.
+	 *
+	 * @param lease the lease
+	 * @return an empty Mono
+	 */
+	Mono<Void> release(OperationLease lease);
+
+	/**
+	 * Get the operation that holds the lease of a service instance.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @return the name of the operation, or an empty Mono if no operation holds the lease
+	 */
+	Mono<String> getLeasedOperation(String serviceInstanceId);
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+/**
+ * Thrown by an {@link OperationLeaseManager} when the lease of a service instance is held by another operation.
+ */
+public class OperationLeaseUnavailableException extends RuntimeException {
+
+	private static final long serialVersionUID = 4675386139829604321L;
+
+	private final String serviceInstanceId;
+
+	private final String leasedOperation;
+
+	/**
+	 * Construct a new {@link OperationLeaseUnavailableException}
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param leasedOperation the name of the operation holding the lease, or {@literal null} if it is not known
+	 */
+	public OperationLeaseUnavailableException(String serviceInstanceId, String leasedOperation) {
+		super("Operation " + (leasedOperation == null ? "" : "'" + leasedOperation + "' ") +
+				"is in progress for service instance " + serviceInstanceId);
+		this.serviceInstanceId = serviceInstanceId;
+		this.leasedOperation = leasedOperation;
+	}
+
+	/**
+	 * @return the service instance ID
+	 */
+	public String getServiceInstanceId() {
+		return this.serviceInstanceId;
+	}
+
+	/**
+	 * @return the name of the operation holding the lease, or {@literal null} if it is not known
+	 */
+	public String getLeasedOperation() {
+		return this.leasedOperation;
+	}
+
+}
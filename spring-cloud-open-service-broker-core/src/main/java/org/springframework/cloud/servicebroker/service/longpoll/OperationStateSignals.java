@@ -0,0 +1,233 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.longpoll;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadline;
+
+/**
+ * Holds last operation requests until the state of the operation changes, so that a platform polling an operation in
+ * progress gets an answer when there is something new to report rather than every few seconds.
+ *
+ * <p>
+ * A service signals a change with {@link #signal(String)} or {@link #signal(String, String)}. All the requests
+ * waiting for the service instance or binding share one signal, and each waiting request only holds a subscription to
+ * it, so many requests can wait without holding threads. A request waits at most for the configured time, shortened
+ * to end before the deadline of the operation if one applies, after which the current state is returned.
+ *
+ * <p>
+ * Operations often finish without a signal, for example when the backend completes them on its own. Waiting requests
+ * therefore query the state again at the configured recheck interval, and return as soon as it changed.
+ */
+public class OperationStateSignals {
+
+	/**
+	 * The interval at which waiting requests query the state of the operation again, unless another interval is
+	 * given.
+	 */
+	public static final Duration DEFAULT_RECHECK_INTERVAL = Duration.ofSeconds(5);
+
+	private static final Duration DEADLINE_MARGIN = Duration.ofSeconds(1);
+
+	private final ConcurrentMap<Key, Signal> signals = new ConcurrentHashMap<>();
+
+	private final Duration maxWait;
+
+	private final Duration recheckInterval;
+
+	/**
+	 * Construct a new {@link OperationStateSignals} that queries the state again at the
+	 * {@link #DEFAULT_RECHECK_INTERVAL default interval}.
+	 *
+	 * @param maxWait the maximum time a request waits for the state of an operation to change
+	 */
+	public OperationStateSignals(Duration maxWait) {
+		this(maxWait, DEFAULT_RECHECK_INTERVAL);
+	}
+
+	/**
+	 * Construct a new {@link OperationStateSignals}
+	 *
+	 * @param maxWait the maximum time a request waits for the state of an operation to change
+	 * @param recheckInterval the interval at which a waiting request queries the state of the operation again
+	 */
+	public OperationStateSignals(Duration maxWait, Duration recheckInterval) {
+		if (recheckInterval.isNegative() || recheckInterval.isZero()) {
+			throw new IllegalArgumentException("recheckInterval must be positive");
+		}
+		this.maxWait = maxWait;
+		this.recheckInterval = recheckInterval;
+	}
+
+	/**
+	 * Get the state of an operation, waiting for it to change if it is unchanged.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on the service instance
+	 * @param query gets the state of the operation
+	 * @param unchanged whether a state is one to wait for a change from
+	 * @param <T> the type of the state
+	 * @return the state, after it changed or the wait ended
+	 */
+	public <T> Mono<T> poll(String serviceInstanceId, String bindingId, Supplier<Mono<T>> query,
+			Predicate<T> unchanged) {
+		return Mono.defer(() -> {
+			Key key = new Key(serviceInstanceId, bindingId);
+			Signal signal = register(key);
+			return Mono.defer(query)
+					.flatMap(state -> unchanged.test(state) ? awaitChange(signal, query, unchanged) : Mono.just(state))
+					.doFinally(type -> unregister(key, signal));
+		});
+	}
+
+	/**
+	 * Signal that the state of an operation on a service instance changed.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 */
+	public void signal(String serviceInstanceId) {
+		signal(serviceInstanceId, null);
+	}
+
+	/**
+	 * Signal that the state of an operation on a service instance binding changed.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on the service instance
+	 */
+	public void signal(String serviceInstanceId, String bindingId) {
+		Signal signal = this.signals.remove(new Key(serviceInstanceId, bindingId));
+		if (signal != null) {
+			signal.processor.onComplete();
+		}
+	}
+
+	/**
+	 * @return the maximum time a request waits for the state of an operation to change
+	 */
+	public Duration getMaxWait() {
+		return this.maxWait;
+	}
+
+	/**
+	 * @return the interval at which a waiting request queries the state of the operation again
+	 */
+	public Duration getRecheckInterval() {
+		return this.recheckInterval;
+	}
+
+	/**
+	 * @return the number of service instances and bindings that requests are waiting for
+	 */
+	public int getWaitingOperations() {
+		return this.signals.size();
+	}
+
+	private <T> Mono<T> awaitChange(Signal signal, Supplier<Mono<T>> query, Predicate<T> unchanged) {
+		return OperationDeadline.current()
+				.map(deadline -> {
+					Duration beforeDeadline = deadline.getRemaining().minus(DEADLINE_MARGIN);
+					return beforeDeadline.compareTo(this.maxWait) < 0 ? beforeDeadline : this.maxWait;
+				})
+				.defaultIfEmpty(this.maxWait)
+				.flatMap(wait -> wait.isNegative() || wait.isZero() ? Mono.defer(query)
+						: recheck(signal, query, unchanged, System.nanoTime() + wait.toNanos()));
+	}
+
+	/**
+	 * Wait for a signal or the recheck interval, whichever comes first, and query the state. Keep waiting while the
+	 * state is unchanged, no signal came and the wait has not ended.
+	 */
+	private <T> Mono<T> recheck(Signal signal, Supplier<Mono<T>> query, Predicate<T> unchanged, long waitEndNanos) {
+		long remainingNanos = Math.max(0, waitEndNanos - System.nanoTime());
+		Duration wait = Duration.ofNanos(Math.min(remainingNanos, this.recheckInterval.toNanos()));
+		return signal.processor.timeout(wait, Mono.<Void>empty())
+				.then(Mono.defer(query))
+				.flatMap(state -> unchanged.test(state) && !signal.processor.isTerminated()
+						&& waitEndNanos - System.nanoTime() > 0
+						? recheck(signal, query, unchanged, waitEndNanos)
+						: Mono.just(state));
+	}
+
+	private Signal register(Key key) {
+		return this.signals.compute(key, (k, signal) -> {
+			Signal registered = signal == null ? new Signal() : signal;
+			registered.waiting++;
+			return registered;
+		});
+	}
+
+	private void unregister(Key key, Signal signal) {
+		this.signals.computeIfPresent(key, (k, current) -> {
+			if (current != signal) {
+				return current;
+			}
+			return --current.waiting == 0 ? null : current;
+		});
+	}
+
+	private static final class Signal {
+
+		private final MonoProcessor<Void> processor = MonoProcessor.create();
+
+		// only accessed within the atomic map operations
+		private int waiting;
+
+	}
+
+	private static final class Key {
+
+		private final String serviceInstanceId;
+
+		private final String bindingId;
+
+		private Key(String serviceInstanceId, String bindingId) {
+			this.serviceInstanceId = serviceInstanceId;
+			this.bindingId = bindingId;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key that = (Key) o;
+			return Objects.equals(this.serviceInstanceId, that.serviceInstanceId)
+					&& Objects.equals(this.bindingId, that.bindingId);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.serviceInstanceId, this.bindingId);
+		}
+
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.priority;
+
+/**
+ * The classes of service broker operations scheduled by an {@link OperationScheduler}, with the weight each class
+ * gets by default. Deletions free backend capacity, so they are favored over creations.
+ */
+public enum OperationClass {
+
+	CREATE(1),
+
+	UPDATE(2),
+
+	DELETE(8),
+
+	BIND(2),
+
+	UNBIND(8),
+
+	FETCH(4),
+
+	LAST_OPERATION(4);
+
+	private final int defaultWeight;
+
+	OperationClass(int defaultWeight) {
+		this.defaultWeight = defaultWeight;
+	}
+
+	/**
+	 * @return the share of admissions this class gets relative to the other classes, unless configured otherwise
+	 */
+	public int getDefaultWeight() {
+		return this.defaultWeight;
+	}
+
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.priority;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerUnavailableException;
+
+/**
+ * Admits service broker operations by {@link OperationClass}, so that deletions and unbindings are not stuck behind
+ * a flood of creations when the broker is under load.
+ *
+ * <p>
+ * At most a configured number of operations run at a time. Further operations wait in a queue for their class, and
+ * each time an operation completes the next one is taken with a smooth weighted round-robin over the classes that
+ * have waiting operations, so each class gets a share of admissions proportional to its weight. An operation that has
+ * waited longer than the starvation threshold is admitted before any other, which keeps low-weight classes moving
+ * during a sustained burst of high-weight operations. When the queues are full, operations are rejected with a
+ * {@link ServiceBrokerUnavailableException}.
+ */
+public class OperationScheduler {
+
+	private final int maxConcurrentOperations;
+
+	private final int maxQueuedOperations;
+
+	private final long starvationThresholdNanos;
+
+	private final LongSupplier nanoClock;
+
+	private final Map<OperationClass, Integer> weights = new EnumMap<>(OperationClass.class);
+
+	private final Map<OperationClass, Deque<Waiter>> queues = new EnumMap<>(OperationClass.class);
+
+	private final int[] credits = new int[OperationClass.values().length];
+
+	private final Object monitor = new Object();
+
+	private final Queue<Waiter> admittedWaiters = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger admitting = new AtomicInteger();
+
+	private int inFlight;
+
+	private int queued;
+
+	/**
+	 * Construct a new {@link OperationScheduler}
+	 *
+	 * @param maxConcurrentOperations the maximum number of operations running at a time
+	 * @param maxQueuedOperations the maximum number of operations waiting to run
+	 * @param weights the weight of each operation class; classes not included get their default weight
+	 * @param starvationThreshold the time after which a waiting operation is admitted before any other
+	 */
+	public OperationScheduler(int maxConcurrentOperations, int maxQueuedOperations,
+			Map<OperationClass, Integer> weights, Duration starvationThreshold) {
+		this(maxConcurrentOperations, maxQueuedOperations, weights, starvationThreshold, System::nanoTime);
+	}
+
+	OperationScheduler(int maxConcurrentOperations, int maxQueuedOperations, Map<OperationClass, Integer> weights,
+			Duration starvationThreshold, LongSupplier nanoClock) {
+		this.maxConcurrentOperations = maxConcurrentOperations;
+		this.maxQueuedOperations = maxQueuedOperations;
+		this.starvationThresholdNanos = starvationThreshold.toNanos();
+		this.nanoClock = nanoClock;
+		for (OperationClass operationClass : OperationClass.values()) {
+			Integer weight = weights == null ? null : weights.get(operationClass);
+			this.weights.put(operationClass, weight == null ? operationClass.getDefaultWeight() : Math.max(1, weight));
+			this.queues.put(operationClass, new ArrayDeque<>());
+		}
+	}
+
+	/**
+	 * Run an operation once it is admitted.
+	 *
+	 * @param operationClass the class of the operation
+	 * @param call the operation
+	 * @param <T> the type of the operation result
+	 * @return the scheduled operation
+	 */
+	public <T> Mono<T> schedule(OperationClass operationClass, Supplier<Mono<T>> call) {
+		return Mono.defer(() -> {
+			Waiter waiter = new Waiter(operationClass);
+			return Mono.<Void>create(sink -> enqueue(waiter, sink))
+					.then(Mono.defer(call))
+					.doFinally(signal -> finish(waiter));
+		});
+	}
+
+	/**
+	 * @return the weight of each operation class
+	 */
+	public Map<OperationClass, Integer> getWeights() {
+		return Collections.unmodifiableMap(this.weights);
+	}
+
+	/**
+	 * @return the number of operations running
+	 */
+	public int getInFlightOperations() {
+		synchronized (this.monitor) {
+			return this.inFlight;
+		}
+	}
+
+	/**
+	 * @param operationClass the operation class
+	 * @return the number of operations of the class waiting to run
+	 */
+	public int getQueuedOperations(OperationClass operationClass) {
+		synchronized (this.monitor) {
+			return this.queues.get(operationClass).size();
+		}
+	}
+
+	private void enqueue(Waiter waiter, MonoSink<Void> sink) {
+		boolean admitted = false;
+		boolean rejected = false;
+		synchronized (this.monitor) {
+			waiter.sink = sink;
+			waiter.enqueuedAtNanos = this.nanoClock.getAsLong();
+			if (this.inFlight < this.maxConcurrentOperations && this.queued == 0) {
+				waiter.state = WaiterState.ADMITTED;
+				this.inFlight++;
+				admitted = true;
+			}
+			else if (this.queued >= this.maxQueuedOperations) {
+				waiter.state = WaiterState.DONE;
+				rejected = true;
+			}
+			else {
+				waiter.state = WaiterState.WAITING;
+				this.queues.get(waiter.operationClass).addLast(waiter);
+				this.queued++;
+			}
+		}
+		if (admitted) {
+			sink.success();
+		}
+		else if (rejected) {
+			sink.error(new ServiceBrokerUnavailableException("Too many operations are waiting to run"));
+		}
+	}
+
+	private void finish(Waiter waiter) {
+		List<Waiter> admitted;
+		synchronized (this.monitor) {
+			if (waiter.state == WaiterState.WAITING) {
+				this.queues.get(waiter.operationClass).remove(waiter);
+				this.queued--;
+				waiter.state = WaiterState.DONE;
+				return;
+			}
+			if (waiter.state != WaiterState.ADMITTED) {
+				return;
+			}
+			waiter.state = WaiterState.DONE;
+			this.inFlight--;
+			admitted = admitWaiting();
+		}
+		this.admittedWaiters.addAll(admitted);
+		drainAdmitted();
+	}
+
+	/**
+	 * Start the admitted operations. Operations that complete synchronously admit the next ones from within this
+	 * method, so only the outermost call drains the admitted operations, keeping the stack flat during a burst.
+	 */
+	private void drainAdmitted() {
+		if (this.admitting.getAndIncrement() != 0) {
+			return;
+		}
+		int missed = 1;
+		do {
+			Waiter next;
+			while ((next = this.admittedWaiters.poll()) != null) {
+				next.sink.success();
+			}
+			missed = this.admitting.addAndGet(-missed);
+		}
+		while (missed != 0);
+	}
+
+	private List<Waiter> admitWaiting() {
+		List<Waiter> admitted = new ArrayList<>();
+		while (this.inFlight < this.maxConcurrentOperations && this.queued > 0) {
+			Waiter next = this.queues.get(selectNextClass()).pollFirst();
+			this.queued--;
+			next.state = WaiterState.ADMITTED;
+			this.inFlight++;
+			admitted.add(next);
+		}
+		return admitted;
+	}
+
+	private OperationClass selectNextClass() {
+		Waiter oldest = null;
+		for (Deque<Waiter> queue : this.queues.values()) {
+			Waiter head = queue.peekFirst();
+			if (head != null && (oldest == null || head.enqueuedAtNanos - oldest.enqueuedAtNanos < 0)) {
+				oldest = head;
+			}
+		}
+		if (oldest != null && this.nanoClock.getAsLong() - oldest.enqueuedAtNanos >= this.starvationThresholdNanos) {
+			return oldest.operationClass;
+		}
+		OperationClass selected = null;
+		int totalWeight = 0;
+		for (OperationClass operationClass : OperationClass.values()) {
+			if (this.queues.get(operationClass).isEmpty()) {
+				this.credits[operationClass.ordinal()] = 0;
+				continue;
+			}
+			int weight = this.weights.get(operationClass);
+			this.credits[operationClass.ordinal()] += weight;
+			totalWeight += weight;
+			if (selected == null || this.credits[operationClass.ordinal()] > this.credits[selected.ordinal()]) {
+				selected = operationClass;
+			}
+		}
+		this.credits[selected.ordinal()] -= totalWeight;
+		return selected;
+	}
+
+	private enum WaiterState {
+
+		NEW,
+
+		WAITING,
+
+		ADMITTED,
+
+		DONE
+
+	}
+
+	private static final class Waiter {
+
+		private final OperationClass operationClass;
+
+		private MonoSink<Void> sink;
+
+		private long enqueuedAtNanos;
+
+		private WaiterState state = WaiterState.NEW;
+
+		private Waiter(OperationClass operationClass) {
+			this.operationClass = operationClass;
+		}
+
+	}
+
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.reconcile;
+
+/**
+ * Lists the service instances and bindings that exist behind the service broker's services, such as the resources
+ * provisioned in a backend. Items must carry the service definition and plan IDs, which are passed to the delete
+ * requests of orphaned items.
+ */
+public interface BackendInventorySource extends InventorySource {
+
+}
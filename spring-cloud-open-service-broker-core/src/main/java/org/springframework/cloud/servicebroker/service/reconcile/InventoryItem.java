@@ -0,0 +1,204 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.reconcile;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * A service instance or service instance binding listed by an {@link InventorySource}.
+ *
+ * <p>
+ * Items are ordered by service instance ID, then by binding ID, with the service instance itself ahead of its
+ * bindings. Inventory sources must emit items in this order.
+ *
+ * <p>
+ * Backend inventory sources must give each item the time it was created. A {@link ReconciliationEngine} only deletes
+ * items created before the run started, less a grace period, so that service instances and bindings being
+ * provisioned while the platform inventory is read are not taken for orphans. Items without a creation time are
+ * never deleted.
+ */
+public final class InventoryItem implements Comparable<InventoryItem> {
+
+	private static final Comparator<InventoryItem> ORDER = Comparator
+			.comparing(InventoryItem::getServiceInstanceId)
+			.thenComparing(InventoryItem::getBindingId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+	private final String serviceInstanceId;
+
+	private final String bindingId;
+
+	private final String serviceDefinitionId;
+
+	private final String planId;
+
+	private final Instant createdAt;
+
+	private InventoryItem(String serviceInstanceId, String bindingId, String serviceDefinitionId, String planId,
+			Instant createdAt) {
+		this.serviceInstanceId = Objects.requireNonNull(serviceInstanceId, "serviceInstanceId must not be null");
+		this.bindingId = bindingId;
+		this.serviceDefinitionId = serviceDefinitionId;
+		this.planId = planId;
+		this.createdAt = createdAt;
+	}
+
+	/**
+	 * Create an item for a service instance.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param serviceDefinitionId the ID of the service definition, or {@literal null} if not known
+	 * @param planId the ID of the plan, or {@literal null} if not known
+	 * @return the item
+	 */
+	public static InventoryItem serviceInstance(String serviceInstanceId, String serviceDefinitionId,
+			String planId) {
+		return serviceInstance(serviceInstanceId, serviceDefinitionId, planId, null);
+	}
+
+	/**
+	 * Create an item for a service instance with the time it was created.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param serviceDefinitionId the ID of the service definition, or {@literal null} if not known
+	 * @param planId the ID of the plan, or {@literal null} if not known
+	 * @param createdAt the time the service instance was created, or {@literal null} if not known
+	 * @return the item
+	 */
+	public static InventoryItem serviceInstance(String serviceInstanceId, String serviceDefinitionId,
+			String planId, Instant createdAt) {
+		return new InventoryItem(serviceInstanceId, null, serviceDefinitionId, planId, createdAt);
+	}
+
+	/**
+	 * Create an item for a service instance binding.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID
+	 * @param serviceDefinitionId the ID of the service definition, or {@literal null} if not known
+	 * @param planId the ID of the plan, or {@literal null} if not known
+	 * @return the item
+	 */
+	public static InventoryItem binding(String serviceInstanceId, String bindingId, String serviceDefinitionId,
+			String planId) {
+		return binding(serviceInstanceId, bindingId, serviceDefinitionId, planId, null);
+	}
+
+	/**
+	 * Create an item for a service instance binding with the time it was created.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID
+	 * @param serviceDefinitionId the ID of the service definition, or {@literal null} if not known
+	 * @param planId the ID of the plan, or {@literal null} if not known
+	 * @param createdAt the time the binding was created, or {@literal null} if not known
+	 * @return the item
+	 */
+	public static InventoryItem binding(String serviceInstanceId, String bindingId, String serviceDefinitionId,
+			String planId, Instant createdAt) {
+		return new InventoryItem(serviceInstanceId, Objects.requireNonNull(bindingId, "bindingId must not be null"),
+				serviceDefinitionId, planId, createdAt);
+	}
+
+	/**
+	 * @return the service instance ID
+	 */
+	public String getServiceInstanceId() {
+		return this.serviceInstanceId;
+	}
+
+	/**
+	 * @return the binding ID, or {@literal null} if the item is a service instance
+	 */
+	public String getBindingId() {
+		return this.bindingId;
+	}
+
+	/**
+	 * @return the ID of the service definition, or {@literal null} if not known
+	 */
+	public String getServiceDefinitionId() {
+		return this.serviceDefinitionId;
+	}
+
+	/**
+	 * @return the ID of the plan, or {@literal null} if not known
+	 */
+	public String getPlanId() {
+		return this.planId;
+	}
+
+	/**
+	 * @return the time the item was created, or {@literal null} if not known
+	 */
+	public Instant getCreatedAt() {
+		return this.createdAt;
+	}
+
+	/**
+	 * Check whether the item is known to have been created before a time.
+	 *
+	 * @param time the time
+	 * @return {@literal true} if the item has a creation time before {@code time}
+	 */
+	public boolean isOlderThan(Instant time) {
+		return this.createdAt != null && this.createdAt.isBefore(time);
+	}
+
+	/**
+	 * @return whether the item is a service instance binding
+	 */
+	public boolean isBinding() {
+		return this.bindingId != null;
+	}
+
+	@Override
+	public int compareTo(InventoryItem other) {
+		return ORDER.compare(this, other);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof InventoryItem)) {
+			return false;
+		}
+		InventoryItem that = (InventoryItem) o;
+		return Objects.equals(this.serviceInstanceId, that.serviceInstanceId)
+				&& Objects.equals(this.bindingId, that.bindingId);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.serviceInstanceId, this.bindingId);
+	}
+
+	@Override
+	public String toString() {
+		return "InventoryItem{" +
+				"serviceInstanceId='" + this.serviceInstanceId + '\'' +
+				", bindingId='" + this.bindingId + '\'' +
+				", serviceDefinitionId='" + this.serviceDefinitionId + '\'' +
+				", planId='" + this.planId + '\'' +
+				", createdAt=" + this.createdAt +
+				'}';
+	}
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.reconcile;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Lists the service instances and bindings known to one side of a {@link ReconciliationEngine}.
+ *
+ * <p>
+ * Implementations must emit items in {@link InventoryItem} order and stream them from their store as they are
+ * requested, for example with a sorted, paged query, so that the reconciliation of any number of items runs in
+ * constant memory.
+ */
+public interface InventorySource {
+
+	/**
+	 * Get every service instance and binding, in {@link InventoryItem} order.
+	 *
+	 * @return the items
+	 */
+	Flux<InventoryItem> inventory();
+
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.reconcile;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceBindingDoesNotExistException;
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceDoesNotExistException;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.service.CatalogService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+
+/**
+ * Finds service instances and bindings that exist in the backend but are no longer known to the platform, such as
+ * those left behind by failed deletes or purged by the platform, and deletes them.
+ *
+ * <p>
+ * The two inventories are compared with a sorted merge: both sources emit items in {@link InventoryItem} order and
+ * are read one item at a time, so a run holds a bounded number of items in memory however large the inventories
+ * are. The orphaned bindings of each service instance are deleted before the service instance itself, through the
+ * same services that handle delete requests from the platform. Up to the configured number of service instances are
+ * cleaned up concurrently, and deletes are spaced to stay within the configured rate.
+ *
+ * <p>
+ * Only backend items created before the run started, less the configured grace period, are deleted, so that a
+ * service instance or binding provisioned after the platform inventory was read is not mistaken for an orphan. If any
+ * orphaned item of a service instance is newer than that, or has no creation time, none of the orphans of that
+ * service instance are deleted in the run.
+ *
+ * <p>
+ * Items listed by the platform but missing from the backend are counted but not acted on. A run stops with an error
+ * if an inventory is out of order.
+ *
+ * <p>
+ * Each run reads both inventories twice. The first pass only counts the orphans, and the run stops before deleting
+ * anything if there are more than the configured maximum number of deletes, or if they make up more than the
+ * configured share of the backend items. This guards against an empty or truncated platform inventory causing every
+ * backend item to look orphaned. The second pass deletes the orphans, and still stops at the maximum number of
+ * deletes in case the inventories changed in between.
+ */
+public class ReconciliationEngine {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReconciliationEngine.class);
+
+	private static final int INVENTORY_PREFETCH = 256;
+
+	private final PlatformInventorySource platformInventory;
+
+	private final BackendInventorySource backendInventory;
+
+	private final CatalogService catalogService;
+
+	private final int concurrency;
+
+	private final long deleteIntervalNanos;
+
+	private final long maxDeletes;
+
+	private final double maxOrphanRatio;
+
+	private final Duration gracePeriod;
+
+	/**
+	 * Construct a new {@link ReconciliationEngine}
+	 *
+	 * @param platformInventory the service instances and bindings known to the platform
+	 * @param backendInventory the service instances and bindings that exist in the backend
+	 * @param catalogService the catalog service, used to fill in the service definition and plan of delete requests
+	 * @param concurrency the maximum number of service instances cleaned up concurrently
+	 * @param deletesPerSecond the maximum number of deletes per second, or zero for no limit
+	 * @param maxDeletes the maximum number of deletes in one run
+	 * @param maxOrphanRatio the maximum share of the backend items, between zero and one, that may be orphaned for
+	 * a run to delete them
+	 * @param gracePeriod the minimum age, at the start of a run, of the backend items that the run deletes
+	 */
+	public ReconciliationEngine(PlatformInventorySource platformInventory, BackendInventorySource backendInventory,
+			CatalogService catalogService, int concurrency, int deletesPerSecond, long maxDeletes,
+			double maxOrphanRatio, Duration gracePeriod) {
+		this.platformInventory = platformInventory;
+		this.backendInventory = backendInventory;
+		this.catalogService = catalogService;
+		this.concurrency = concurrency;
+		this.deleteIntervalNanos = deletesPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / deletesPerSecond : 0;
+		this.maxDeletes = maxDeletes;
+		this.maxOrphanRatio = maxOrphanRatio;
+		this.gracePeriod = gracePeriod;
+	}
+
+	/**
+	 * Compare the inventories and delete the orphaned service instances and bindings.
+	 *
+	 * @param serviceInstanceService the service that deletes orphaned service instances
+	 * @param serviceInstanceBindingService the service that deletes orphaned bindings
+	 * @return the result of the run
+	 */
+	public Mono<ReconciliationResult> reconcile(ServiceInstanceService serviceInstanceService,
+			ServiceInstanceBindingService serviceInstanceBindingService) {
+		return Mono.defer(() -> {
+			Instant createdBefore = Instant.now().minus(this.gracePeriod);
+			Run survey = new Run(createdBefore);
+			return orphans(survey)
+					.reduce(0L, (count, orphans) -> count + orphans.size())
+					.flatMap(orphanCount -> checkOrphanCount(survey, orphanCount))
+					.then(Mono.defer(() -> deleteOrphans(new Run(createdBefore), serviceInstanceService,
+							serviceInstanceBindingService)))
+					.doOnNext(result -> logger.info("Reconciliation completed: {}", result));
+		});
+	}
+
+	private Mono<Void> checkOrphanCount(Run survey, long orphanCount) {
+		if (orphanCount > this.maxDeletes) {
+			return Mono.error(new IllegalStateException("Reconciliation found " + orphanCount +
+					" orphans, more than the maximum of " + this.maxDeletes +
+					" deletes; check that the platform inventory is complete"));
+		}
+		long backendItems = survey.matched.get() + survey.skipped.get() + orphanCount;
+		if (orphanCount > 0 && orphanCount > backendItems * this.maxOrphanRatio) {
+			return Mono.error(new IllegalStateException("Reconciliation found " + orphanCount + " orphans among " +
+					backendItems + " backend items, more than the maximum ratio of " + this.maxOrphanRatio +
+					"; check that the platform inventory is complete"));
+		}
+		return Mono.empty();
+	}
+
+	private Mono<ReconciliationResult> deleteOrphans(Run run, ServiceInstanceService serviceInstanceService,
+			ServiceInstanceBindingService serviceInstanceBindingService) {
+		return orphans(run)
+				.flatMap(orphans -> Flux.fromIterable(orphans)
+						.concatMap(item -> acquireDelete(run)
+								.then(item.isBinding() ? deleteBinding(item, serviceInstanceBindingService)
+										: deleteServiceInstance(item, serviceInstanceService))
+								.doOnNext(deleted -> run.recordDelete(item, deleted)))
+						.then(), this.concurrency)
+				.then(Mono.fromCallable(run::result));
+	}
+
+	private Flux<List<InventoryItem>> orphans(Run run) {
+		return Flux.<List<InventoryItem>, InventoryMerge>generate(
+				() -> new InventoryMerge(this.platformInventory.inventory().toStream(INVENTORY_PREFETCH),
+						this.backendInventory.inventory().toStream(INVENTORY_PREFETCH), run),
+				(merge, sink) -> {
+					List<InventoryItem> orphans = merge.nextOrphans();
+					if (orphans.isEmpty()) {
+						sink.complete();
+					}
+					else {
+						sink.next(orphans);
+					}
+					return merge;
+				},
+				InventoryMerge::close)
+				.subscribeOn(Schedulers.elastic());
+	}
+
+	private Mono<Void> acquireDelete(Run run) {
+		if (run.deletes.incrementAndGet() > this.maxDeletes) {
+			return Mono.error(new IllegalStateException("Reconciliation stopped after reaching the maximum of " +
+					this.maxDeletes + " deletes; check that the platform inventory is complete"));
+		}
+		if (this.deleteIntervalNanos == 0) {
+			return Mono.empty();
+		}
+		long now = System.nanoTime();
+		long previous = run.nextDeleteNanos.getAndAccumulate(now,
+				(next, current) -> Math.max(next, current) + this.deleteIntervalNanos);
+		long wait = Math.max(previous, now) - now;
+		return wait > 0 ? Mono.delay(Duration.ofNanos(wait)).then() : Mono.empty();
+	}
+
+	private Mono<Boolean> deleteServiceInstance(InventoryItem item, ServiceInstanceService service) {
+		return serviceDefinition(item)
+				.flatMap(serviceDefinition -> service.deleteServiceInstance(DeleteServiceInstanceRequest.builder()
+						.serviceInstanceId(item.getServiceInstanceId())
+						.serviceDefinitionId(item.getServiceDefinitionId())
+						.planId(item.getPlanId())
+						.serviceDefinition(serviceDefinition.orElse(null))
+						.plan(findPlan(serviceDefinition.orElse(null), item.getPlanId()))
+						.asyncAccepted(true)
+						.build()))
+				.thenReturn(true)
+				.onErrorResume(ServiceInstanceDoesNotExistException.class, e -> Mono.just(true))
+				.onErrorResume(e -> deleteFailed(item, e));
+	}
+
+	private Mono<Boolean> deleteBinding(InventoryItem item, ServiceInstanceBindingService service) {
+		return serviceDefinition(item)
+				.flatMap(serviceDefinition -> service.deleteServiceInstanceBinding(
+						DeleteServiceInstanceBindingRequest.builder()
+								.serviceInstanceId(item.getServiceInstanceId())
+								.bindingId(item.getBindingId())
+								.serviceDefinitionId(item.getServiceDefinitionId())
+								.planId(item.getPlanId())
+								.serviceDefinition(serviceDefinition.orElse(null))
+								.plan(findPlan(serviceDefinition.orElse(null), item.getPlanId()))
+								.asyncAccepted(true)
+								.build()))
+				.thenReturn(true)
+				.onErrorResume(ServiceInstanceBindingDoesNotExistException.class, e -> Mono.just(true))
+				.onErrorResume(e -> deleteFailed(item, e));
+	}
+
+	private Mono<Boolean> deleteFailed(InventoryItem item, Throwable e) {
+		logger.warn("Deleting an orphaned item failed: item={}", item, e);
+		return Mono.just(false);
+	}
+
+	private Mono<Optional<ServiceDefinition>> serviceDefinition(InventoryItem item) {
+		if (item.getServiceDefinitionId() == null) {
+			return Mono.just(Optional.empty());
+		}
+		return this.catalogService.getServiceDefinition(item.getServiceDefinitionId())
+				.map(Optional::of)
+				.defaultIfEmpty(Optional.empty());
+	}
+
+	private static Plan findPlan(ServiceDefinition serviceDefinition, String planId) {
+		if (serviceDefinition == null || serviceDefinition.getPlans() == null) {
+			return null;
+		}
+		for (Plan plan : serviceDefinition.getPlans()) {
+			if (plan.getId().equals(planId)) {
+				return plan;
+			}
+		}
+		return null;
+	}
+
+	private static final class Run {
+
+		private final Instant createdBefore;
+
+		private final AtomicLong matched = new AtomicLong();
+
+		private final AtomicLong skipped = new AtomicLong();
+
+		private final AtomicLong missing = new AtomicLong();
+
+		private final AtomicLong deletes = new AtomicLong();
+
+		private final AtomicLong deletedServiceInstances = new AtomicLong();
+
+		private final AtomicLong deletedBindings = new AtomicLong();
+
+		private final AtomicLong failedDeletes = new AtomicLong();
+
+		private final AtomicLong nextDeleteNanos = new AtomicLong(System.nanoTime());
+
+		private Run(Instant createdBefore) {
+			this.createdBefore = createdBefore;
+		}
+
+		private void recordDelete(InventoryItem item, boolean deleted) {
+			if (!deleted) {
+				this.failedDeletes.incrementAndGet();
+			}
+			else if (item.isBinding()) {
+				this.deletedBindings.incrementAndGet();
+			}
+			else {
+				this.deletedServiceInstances.incrementAndGet();
+			}
+		}
+
+		private ReconciliationResult result() {
+			return new ReconciliationResult(this.matched.get(), this.missing.get(), this.skipped.get(),
+					this.deletedServiceInstances.get(), this.deletedBindings.get(), this.failedDeletes.get());
+		}
+
+	}
+
+	/**
+	 * Walks both inventories in order, one item at a time, reading ahead by at most one orphan.
+	 */
+	private static final class InventoryMerge {
+
+		private final Stream<InventoryItem> platformStream;
+
+		private final Stream<InventoryItem> backendStream;
+
+		private final Iterator<InventoryItem> platform;
+
+		private final Iterator<InventoryItem> backend;
+
+		private final Run run;
+
+		private InventoryItem platformHead;
+
+		private InventoryItem backendHead;
+
+		private InventoryItem pendingOrphan;
+
+		private InventoryMerge(Stream<InventoryItem> platformStream, Stream<InventoryItem> backendStream, Run run) {
+			this.platformStream = platformStream;
+			this.backendStream = backendStream;
+			this.platform = platformStream.iterator();
+			this.backend = backendStream.iterator();
+			this.run = run;
+			this.platformHead = next(this.platform, null, "platform");
+			this.backendHead = next(this.backend, null, "backend");
+		}
+
+		/**
+		 * Get the orphans of the next service instance that has any and whose orphans are all old enough to delete,
+		 * with its bindings ahead of the service instance.
+		 */
+		private List<InventoryItem> nextOrphans() {
+			List<InventoryItem> orphans = nextOrphanGroup();
+			while (!orphans.isEmpty() && !isOldEnough(orphans)) {
+				this.run.skipped.addAndGet(orphans.size());
+				orphans = nextOrphanGroup();
+			}
+			return orphans;
+		}
+
+		private boolean isOldEnough(List<InventoryItem> orphans) {
+			for (InventoryItem orphan : orphans) {
+				if (!orphan.isOlderThan(this.run.createdBefore)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private List<InventoryItem> nextOrphanGroup() {
+			List<InventoryItem> orphans = new ArrayList<>();
+			InventoryItem orphanedServiceInstance = null;
+			String serviceInstanceId = null;
+			InventoryItem orphan = this.pendingOrphan != null ? this.pendingOrphan : nextOrphan();
+			this.pendingOrphan = null;
+			while (orphan != null) {
+				if (serviceInstanceId == null) {
+					serviceInstanceId = orphan.getServiceInstanceId();
+				}
+				else if (!serviceInstanceId.equals(orphan.getServiceInstanceId())) {
+					this.pendingOrphan = orphan;
+					break;
+				}
+				if (orphan.isBinding()) {
+					orphans.add(orphan);
+				}
+				else {
+					orphanedServiceInstance = orphan;
+				}
+				orphan = nextOrphan();
+			}
+			if (orphanedServiceInstance != null) {
+				orphans.add(orphanedServiceInstance);
+			}
+			return orphans;
+		}
+
+		private InventoryItem nextOrphan() {
+			while (this.backendHead != null) {
+				int comparison = this.platformHead == null ? -1 : this.backendHead.compareTo(this.platformHead);
+				if (comparison < 0) {
+					InventoryItem orphan = this.backendHead;
+					this.backendHead = next(this.backend, orphan, "backend");
+					return orphan;
+				}
+				if (comparison == 0) {
+					this.run.matched.incrementAndGet();
+					this.backendHead = next(this.backend, this.backendHead, "backend");
+				}
+				else {
+					this.run.missing.incrementAndGet();
+				}
+				this.platformHead = next(this.platform, this.platformHead, "platform");
+			}
+			while (this.platformHead != null) {
+				this.run.missing.incrementAndGet();
+				this.platformHead = next(this.platform, this.platformHead, "platform");
+			}
+			return null;
+		}
+
+		private static InventoryItem next(Iterator<InventoryItem> items, InventoryItem previous, String inventory) {
+			if (!items.hasNext()) {
+				return null;
+			}
+			InventoryItem item = items.next();
+			if (previous != null && item.compareTo(previous) <= 0) {
+				throw new IllegalStateException("The " + inventory + " inventory is not in order: " + item +
+						" follows " + previous);
+			}
+			return item;
+		}
+
+		private void close() {
+			this.platformStream.close();
+			this.backendStream.close();
+		}
+
+	}
+
+}
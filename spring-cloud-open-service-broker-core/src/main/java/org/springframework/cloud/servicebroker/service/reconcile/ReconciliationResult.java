@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.reconcile;
+
+/**
+ * The outcome of a run of a {@link ReconciliationEngine}.
+ */
+public class ReconciliationResult {
+
+	private final long matchedItems;
+
+	private final long missingItems;
+
+	private final long skippedItems;
+
+	private final long deletedServiceInstances;
+
+	private final long deletedBindings;
+
+	private final long failedDeletes;
+
+	ReconciliationResult(long matchedItems, long missingItems, long skippedItems, long deletedServiceInstances,
+			long deletedBindings, long failedDeletes) {
+		this.matchedItems = matchedItems;
+		this.missingItems = missingItems;
+		this.skippedItems = skippedItems;
+		this.deletedServiceInstances = deletedServiceInstances;
+		this.deletedBindings = deletedBindings;
+		this.failedDeletes = failedDeletes;
+	}
+
+	/**
+	 * @return the number of items listed by both inventory sources
+	 */
+	public long getMatchedItems() {
+		return this.matchedItems;
+	}
+
+	/**
+	 * @return the number of items listed by the platform inventory but not by the backend inventory, which are
+	 * reported but not acted on
+	 */
+	public long getMissingItems() {
+		return this.missingItems;
+	}
+
+	/**
+	 * @return the number of orphaned items not deleted because they, or another orphan of the same service instance,
+	 * were created too recently or have no creation time
+	 */
+	public long getSkippedItems() {
+		return this.skippedItems;
+	}
+
+	/**
+	 * @return the number of orphaned service instances deleted, including those that were already gone
+	 */
+	public long getDeletedServiceInstances() {
+		return this.deletedServiceInstances;
+	}
+
+	/**
+	 * @return the number of orphaned bindings deleted, including those that were already gone
+	 */
+	public long getDeletedBindings() {
+		return this.deletedBindings;
+	}
+
+	/**
+	 * @return the number of orphaned items whose deletion failed
+	 */
+	public long getFailedDeletes() {
+		return this.failedDeletes;
+	}
+
+	@Override
+	public String toString() {
+		return "ReconciliationResult{" +
+				"matchedItems=" + this.matchedItems +
+				", missingItems=" + this.missingItems +
+				", skippedItems=" + this.skippedItems +
+				", deletedServiceInstances=" + this.deletedServiceInstances +
+				", deletedBindings=" + this.deletedBindings +
+				", failedDeletes=" + this.failedDeletes +
+				'}';
+	}
+
+}
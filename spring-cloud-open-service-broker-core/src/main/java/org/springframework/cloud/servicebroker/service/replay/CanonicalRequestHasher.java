@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.replay;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.springframework.cloud.servicebroker.model.Context;
+
+/**
+ * Hashes the fields of a request body in a canonical form, in which map entries are ordered by key, so that requests
+ * with the same fields in a different order have the same hash.
+ */
+final class CanonicalRequestHasher {
+
+	private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper()
+			.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+	private CanonicalRequestHasher() {
+	}
+
+	/**
+	 * @param body the fields of the request body, by field name
+	 * @return the hash, or {@literal null} if a field value cannot be serialized
+	 */
+	static String hash(Map<String, Object> body) {
+		try {
+			byte[] canonical = CANONICAL_MAPPER.writeValueAsBytes(body);
+			return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(canonical));
+		}
+		catch (JsonProcessingException e) {
+			return null;
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param context a request context
+	 * @return the fields of the context as they appear in the request body
+	 */
+	static Map<String, Object> fields(Context context) {
+		if (context == null) {
+			return null;
+		}
+		Map<String, Object> fields = new HashMap<>(context.getProperties());
+		fields.put("platform", context.getPlatform());
+		return fields;
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.replay;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the responses of completed create operations, so that a retry of the same request can be answered without
+ * calling the service again.
+ *
+ * <p>
+ * Responses are stored by the ID of the created resource together with a hash of the request body, and are only
+ * returned for a request with the same hash. The cache holds at most {@code maxSize} responses, evicting the oldest
+ * first, and a response is no longer returned once it is older than {@code timeToLive}.
+ *
+ * <p>
+ * The cache is local to the process, so {@link #invalidate(String)} only removes a response from the node it is
+ * called on. It is only suitable for a service broker running as a single node.
+ *
+ * @param <T> the type of response
+ */
+public class ReplayCache<T> {
+
+	private final int maxSize;
+
+	private final long timeToLiveNanos;
+
+	private final LongSupplier nanoClock;
+
+	private final Map<String, Entry<T>> entries;
+
+	/**
+	 * Create a cache.
+	 *
+	 * @param maxSize the maximum number of responses held
+	 * @param timeToLive the time after which a response is no longer returned
+	 */
+	public ReplayCache(int maxSize, Duration timeToLive) {
+		this(maxSize, timeToLive, System::nanoTime);
+	}
+
+	ReplayCache(int maxSize, Duration timeToLive, LongSupplier nanoClock) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("maxSize must be greater than zero");
+		}
+		this.maxSize = maxSize;
+		this.timeToLiveNanos = timeToLive.toNanos();
+		this.nanoClock = nanoClock;
+		this.entries = new LinkedHashMap<String, Entry<T>>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry<T>> eldest) {
+				return size() > ReplayCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Get the response stored for a resource.
+	 *
+	 * @param id the resource ID
+	 * @param requestHash the hash of the request body
+	 * @return the response, or {@literal null} if none is stored for the resource and request, or it has expired
+	 */
+	public synchronized T get(String id, String requestHash) {
+		Entry<T> entry = this.entries.get(id);
+		if (entry == null) {
+			return null;
+		}
+		if (this.nanoClock.getAsLong() - entry.storedAtNanos > this.timeToLiveNanos) {
+			this.entries.remove(id);
+			return null;
+		}
+		return entry.requestHash.equals(requestHash) ? entry.response : null;
+	}
+
+	/**
+	 * Store the response of a completed create operation, replacing any response stored for the resource.
+	 *
+	 * @param id the resource ID
+	 * @param requestHash the hash of the request body
+	 * @param response the response
+	 */
+	public synchronized void put(String id, String requestHash, T response) {
+		this.entries.remove(id);
+		this.entries.put(id, new Entry<>(requestHash, response, this.nanoClock.getAsLong()));
+	}
+
+	/**
+	 * Remove the response stored for a resource.
+	 *
+	 * @param id the resource ID
+	 */
+	public synchronized void invalidate(String id) {
+		this.entries.remove(id);
+	}
+
+	/**
+	 * @return the number of responses held, including expired responses not yet removed
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	private static final class Entry<T> {
+
+		private final String requestHash;
+
+		private final T response;
+
+		private final long storedAtNanos;
+
+		private Entry(String requestHash, T response, long storedAtNanos) {
+			this.requestHash = requestHash;
+			this.response = response;
+			this.storedAtNanos = storedAtNanos;
+		}
+
+	}
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.replay;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.binding.BindResource;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse.CreateServiceInstanceAppBindingResponseBuilder;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceRouteBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+
+/**
+ * A {@link ServiceInstanceBindingService} that answers a retry of a completed service instance binding creation from
+ * a {@link ReplayCache}, without calling the service again.
+ *
+ * <p>
+ * The response of a synchronous binding creation is stored by binding ID and a hash of the request body. A later
+ * request for the same binding with the same body is answered with the stored response, marked as an existing
+ * binding so that the platform receives {@literal 200 OK}. Only {@link CreateServiceInstanceAppBindingResponse} and
+ * {@link CreateServiceInstanceRouteBindingResponse} responses of synchronous creations are stored. Deleting the
+ * binding removes its response.
+ */
+public class ReplayingServiceInstanceBindingService implements ServiceInstanceBindingService {
+
+	private final ServiceInstanceBindingService service;
+
+	private final ReplayCache<CreateServiceInstanceBindingResponse> cache;
+
+	/**
+	 * Construct a new {@link ReplayingServiceInstanceBindingService}
+	 *
+	 * @param service the service to delegate to
+	 * @param cache the cache holding the responses
+	 */
+	public ReplayingServiceInstanceBindingService(ServiceInstanceBindingService service,
+			ReplayCache<CreateServiceInstanceBindingResponse> cache) {
+		this.service = service;
+		this.cache = cache;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceBindingResponse> createServiceInstanceBinding(
+			CreateServiceInstanceBindingRequest request) {
+		return Mono.defer(() -> {
+			String bindingId = request.getBindingId();
+			String requestHash = hash(request);
+			CreateServiceInstanceBindingResponse replayed = requestHash == null ? null
+					: this.cache.get(bindingId, requestHash);
+			if (replayed != null) {
+				return Mono.just(replayed);
+			}
+			return this.service.createServiceInstanceBinding(request)
+					.doOnNext(response -> {
+						CreateServiceInstanceBindingResponse existing = response.isAsync() ? null : existing(response);
+						if (requestHash != null && existing != null) {
+							this.cache.put(bindingId, requestHash, existing);
+						}
+					});
+		});
+	}
+
+	@Override
+	public Mono<GetServiceInstanceBindingResponse> getServiceInstanceBinding(GetServiceInstanceBindingRequest request) {
+		return this.service.getServiceInstanceBinding(request);
+	}
+
+	@Override
+	public Mono<GetLastServiceBindingOperationResponse> getLastOperation(
+			GetLastServiceBindingOperationRequest request) {
+		return this.service.getLastOperation(request);
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceBindingResponse> deleteServiceInstanceBinding(
+			DeleteServiceInstanceBindingRequest request) {
+		return Mono.defer(() -> {
+			this.cache.invalidate(request.getBindingId());
+			return this.service.deleteServiceInstanceBinding(request)
+					.doOnSuccess(response -> this.cache.invalidate(request.getBindingId()));
+		});
+	}
+
+	private static String hash(CreateServiceInstanceBindingRequest request) {
+		Map<String, Object> body = new HashMap<>();
+		body.put("service_instance_id", request.getServiceInstanceId());
+		body.put("service_id", request.getServiceDefinitionId());
+		body.put("plan_id", request.getPlanId());
+		body.put("app_guid", request.getAppGuid());
+		body.put("bind_resource", fields(request.getBindResource()));
+		body.put("parameters", request.getParameters());
+		body.put("context", CanonicalRequestHasher.fields(request.getContext()));
+		return CanonicalRequestHasher.hash(body);
+	}
+
+	private static Map<String, Object> fields(BindResource bindResource) {
+		if (bindResource == null) {
+			return null;
+		}
+		Map<String, Object> fields = new HashMap<>(bindResource.getProperties());
+		fields.put("app_guid", bindResource.getAppGuid());
+		fields.put("route", bindResource.getRoute());
+		return fields;
+	}
+
+	private static CreateServiceInstanceBindingResponse existing(CreateServiceInstanceBindingResponse response) {
+		if (response.isBindingExisted()) {
+			return response;
+		}
+		if (response instanceof CreateServiceInstanceAppBindingResponse) {
+			CreateServiceInstanceAppBindingResponse appBinding = (CreateServiceInstanceAppBindingResponse) response;
+			CreateServiceInstanceAppBindingResponseBuilder builder = CreateServiceInstanceAppBindingResponse.builder()
+					.syslogDrainUrl(appBinding.getSyslogDrainUrl())
+					.operation(appBinding.getOperation())
+					.bindingExisted(true);
+			if (appBinding.getCredentials() != null) {
+				builder.credentials(appBinding.getCredentials());
+			}
+			if (appBinding.getVolumeMounts() != null) {
+				builder.volumeMounts(appBinding.getVolumeMounts());
+			}
+			return builder.build();
+		}
+		if (response instanceof CreateServiceInstanceRouteBindingResponse) {
+			CreateServiceInstanceRouteBindingResponse routeBinding = (CreateServiceInstanceRouteBindingResponse) response;
+			return CreateServiceInstanceRouteBindingResponse.builder()
+					.routeServiceUrl(routeBinding.getRouteServiceUrl())
+					.operation(routeBinding.getOperation())
+					.bindingExisted(true)
+					.build();
+		}
+		return null;
+	}
+
+}
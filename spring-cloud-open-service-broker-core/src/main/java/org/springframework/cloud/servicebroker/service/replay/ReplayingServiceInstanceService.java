@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.replay;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+
+/**
+ * A {@link ServiceInstanceService} that answers a retry of a completed service instance creation from a
+ * {@link ReplayCache}, without calling the service again.
+ *
+ * <p>
+ * The response of a synchronous creation is stored by service instance ID and a hash of the request body. A later
+ * request for the same service instance with the same body is answered with the stored response, marked as an
+ * existing instance so that the platform receives {@literal 200 OK}. Asynchronous creations are not stored, since
+ * their outcome is not known when the response is returned. Deleting the service instance removes its response.
+ */
+public class ReplayingServiceInstanceService implements ServiceInstanceService {
+
+	private final ServiceInstanceService service;
+
+	private final ReplayCache<CreateServiceInstanceResponse> cache;
+
+	/**
+	 * Construct a new {@link ReplayingServiceInstanceService}
+	 *
+	 * @param service the service to delegate to
+	 * @param cache the cache holding the responses
+	 */
+	public ReplayingServiceInstanceService(ServiceInstanceService service,
+			ReplayCache<CreateServiceInstanceResponse> cache) {
+		this.service = service;
+		this.cache = cache;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+		return Mono.defer(() -> {
+			String serviceInstanceId = request.getServiceInstanceId();
+			String requestHash = hash(request);
+			CreateServiceInstanceResponse replayed = requestHash == null ? null
+					: this.cache.get(serviceInstanceId, requestHash);
+			if (replayed != null) {
+				return Mono.just(replayed);
+			}
+			return this.service.createServiceInstance(request)
+					.doOnNext(response -> {
+						if (requestHash != null && !response.isAsync()) {
+							this.cache.put(serviceInstanceId, requestHash, existing(response));
+						}
+					});
+		});
+	}
+
+	@Override
+	public Mono<GetServiceInstanceResponse> getServiceInstance(GetServiceInstanceRequest request) {
+		return this.service.getServiceInstance(request);
+	}
+
+	@Override
+	public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+		return this.service.getLastOperation(request);
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+		return Mono.defer(() -> {
+			this.cache.invalidate(request.getServiceInstanceId());
+			return this.service.deleteServiceInstance(request)
+					.doOnSuccess(response -> this.cache.invalidate(request.getServiceInstanceId()));
+		});
+	}
+
+	@Override
+	public Mono<UpdateServiceInstanceResponse> updateServiceInstance(UpdateServiceInstanceRequest request) {
+		return Mono.defer(() -> {
+			this.cache.invalidate(request.getServiceInstanceId());
+			return this.service.updateServiceInstance(request);
+		});
+	}
+
+	private static String hash(CreateServiceInstanceRequest request) {
+		Map<String, Object> body = new HashMap<>();
+		body.put("service_id", request.getServiceDefinitionId());
+		body.put("plan_id", request.getPlanId());
+		body.put("organization_guid", request.getOrganizationGuid());
+		body.put("space_guid", request.getSpaceGuid());
+		body.put("parameters", request.getParameters());
+		body.put("context", CanonicalRequestHasher.fields(request.getContext()));
+		return CanonicalRequestHasher.hash(body);
+	}
+
+	private static CreateServiceInstanceResponse existing(CreateServiceInstanceResponse response) {
+		if (response.isInstanceExisted()) {
+			return response;
+		}
+		return CreateServiceInstanceResponse.builder()
+				.dashboardUrl(response.getDashboardUrl())
+				.operation(response.getOperation())
+				.instanceExisted(true)
+				.build();
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bulkhead that limits the number of concurrent calls to a service, rejecting calls beyond the limit rather than
+ * queueing them.
+ */
+public class Bulkhead {
+
+	private final int maxConcurrentCalls;
+
+	private final AtomicInteger concurrentCalls = new AtomicInteger();
+
+	private final AtomicLong rejectedCalls = new AtomicLong();
+
+	/**
+	 * Construct a new {@link Bulkhead}
+	 *
+	 * @param maxConcurrentCalls the maximum number of concurrent calls
+	 */
+	public Bulkhead(int maxConcurrentCalls) {
+		this.maxConcurrentCalls = maxConcurrentCalls;
+	}
+
+	/**
+	 * Ask for permission to make a call. A permitted call must be followed by {@link #release()}.
+	 *
+	 * @return whether the call is permitted
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			int current = this.concurrentCalls.get();
+			if (current >= this.maxConcurrentCalls) {
+				this.rejectedCalls.incrementAndGet();
+				return false;
+			}
+			if (this.concurrentCalls.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Record the end of a permitted call.
+	 */
+	public void release() {
+		this.concurrentCalls.decrementAndGet();
+	}
+
+	/**
+	 * @return the maximum number of concurrent calls
+	 */
+	public int getMaxConcurrentCalls() {
+		return this.maxConcurrentCalls;
+	}
+
+	/**
+	 * @return the number of calls in progress
+	 */
+	public int getConcurrentCalls() {
+		return this.concurrentCalls.get();
+	}
+
+	/**
+	 * @return the number of calls that were not permitted since the bulkhead was created
+	 */
+	public long getRejectedCalls() {
+		return this.rejectedCalls.get();
+	}
+
+}
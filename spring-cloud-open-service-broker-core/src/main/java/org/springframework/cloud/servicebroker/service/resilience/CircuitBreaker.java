@@ -0,0 +1,242 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * A circuit breaker that stops calls to a failing service.
+ *
+ * <p>
+ * While {@link State#CLOSED closed}, the breaker counts calls and failures over a sliding window, and opens when the
+ * percentage of failed calls reaches the threshold, provided enough calls were made. While {@link State#OPEN open},
+ * calls are not permitted. After the open duration, the breaker becomes {@link State#HALF_OPEN half-open} and permits
+ * a single trial call, which closes the breaker if it succeeds and opens it again if it fails.
+ *
+ * <p>
+ * Each {@link Permission} remembers the state the breaker was in when it was granted. The outcome of a call permitted
+ * before the breaker last changed state is ignored, so that a slow call from a previous state can neither count
+ * towards the current window nor be taken for the trial call.
+ */
+public class CircuitBreaker {
+
+	/**
+	 * The states of a circuit breaker.
+	 */
+	public enum State {
+
+		CLOSED,
+
+		OPEN,
+
+		HALF_OPEN
+
+	}
+
+	private static final int WINDOW_BUCKETS = 10;
+
+	private final float failureRateThreshold;
+
+	private final int minimumNumberOfCalls;
+
+	private final long openDurationNanos;
+
+	private final LongSupplier nanoClock;
+
+	private final SlidingWindowCounter window;
+
+	private final AtomicReference<Phase> phase = new AtomicReference<>(new Phase(State.CLOSED, 0, 0));
+
+	private final AtomicLong rejectedCalls = new AtomicLong();
+
+	/**
+	 * Construct a new {@link CircuitBreaker}
+	 *
+	 * @param failureRateThreshold the percentage of failed calls at which the breaker opens
+	 * @param minimumNumberOfCalls the number of calls in the window below which the breaker does not open
+	 * @param slidingWindow the duration over which calls are counted
+	 * @param openDuration the time the breaker stays open before permitting a trial call
+	 */
+	public CircuitBreaker(float failureRateThreshold, int minimumNumberOfCalls, Duration slidingWindow,
+			Duration openDuration) {
+		this(failureRateThreshold, minimumNumberOfCalls, slidingWindow, openDuration, System::nanoTime);
+	}
+
+	CircuitBreaker(float failureRateThreshold, int minimumNumberOfCalls, Duration slidingWindow,
+			Duration openDuration, LongSupplier nanoClock) {
+		this.failureRateThreshold = failureRateThreshold;
+		this.minimumNumberOfCalls = minimumNumberOfCalls;
+		this.openDurationNanos = openDuration.toNanos();
+		this.nanoClock = nanoClock;
+		this.window = new SlidingWindowCounter(slidingWindow, WINDOW_BUCKETS, nanoClock);
+	}
+
+	/**
+	 * Ask for permission to make a call. A granted permission must be followed by {@link #onSuccess(Permission)},
+	 * {@link #onFailure(Permission)}, or {@link #releasePermission(Permission)}.
+	 *
+	 * @return the permission, or {@literal null} if the call is not permitted
+	 */
+	public Permission tryAcquirePermission() {
+		Phase current = this.phase.get();
+		while (current.state == State.OPEN
+				&& this.nanoClock.getAsLong() - current.openedAtNanos >= this.openDurationNanos) {
+			Phase halfOpen = new Phase(State.HALF_OPEN, current.epoch + 1, current.openedAtNanos);
+			if (this.phase.compareAndSet(current, halfOpen)) {
+				current = halfOpen;
+				break;
+			}
+			current = this.phase.get();
+		}
+		if (current.state == State.CLOSED
+				|| (current.state == State.HALF_OPEN && current.trialCallInProgress.compareAndSet(false, true))) {
+			return new Permission(current);
+		}
+		this.rejectedCalls.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Give back a permission for a call that was not made.
+	 *
+	 * @param permission the permission
+	 */
+	public void releasePermission(Permission permission) {
+		if (permission.phase.state == State.HALF_OPEN) {
+			permission.phase.trialCallInProgress.set(false);
+		}
+	}
+
+	/**
+	 * Record a successful call.
+	 *
+	 * @param permission the permission the call was made with
+	 */
+	public void onSuccess(Permission permission) {
+		Phase granted = permission.phase;
+		if (this.phase.get() != granted) {
+			return;
+		}
+		if (granted.state == State.HALF_OPEN) {
+			if (this.phase.compareAndSet(granted, new Phase(State.CLOSED, granted.epoch + 1, 0))) {
+				this.window.reset();
+			}
+			return;
+		}
+		this.window.record(false);
+	}
+
+	/**
+	 * Record a failed call.
+	 *
+	 * @param permission the permission the call was made with
+	 */
+	public void onFailure(Permission permission) {
+		Phase granted = permission.phase;
+		if (this.phase.get() != granted) {
+			return;
+		}
+		if (granted.state == State.HALF_OPEN) {
+			open(granted);
+			return;
+		}
+		this.window.record(true);
+		SlidingWindowCounter.Totals totals = this.window.getTotals();
+		if (totals.getCalls() >= this.minimumNumberOfCalls
+				&& totals.getFailureRate() >= this.failureRateThreshold) {
+			open(granted);
+		}
+	}
+
+	private void open(Phase from) {
+		this.phase.compareAndSet(from, new Phase(State.OPEN, from.epoch + 1, this.nanoClock.getAsLong()));
+	}
+
+	/**
+	 * @return the state of the breaker
+	 */
+	public State getState() {
+		return this.phase.get().state;
+	}
+
+	/**
+	 * @return the percentage of failed calls in the sliding window
+	 */
+	public float getFailureRate() {
+		return this.window.getTotals().getFailureRate();
+	}
+
+	/**
+	 * @return the number of calls in the sliding window
+	 */
+	public long getNumberOfCalls() {
+		return this.window.getTotals().getCalls();
+	}
+
+	/**
+	 * @return the number of calls that were not permitted since the breaker was created
+	 */
+	public long getRejectedCalls() {
+		return this.rejectedCalls.get();
+	}
+
+	/**
+	 * A permission to make a call, tied to the state of the breaker it was granted in.
+	 */
+	public static final class Permission {
+
+		private final Phase phase;
+
+		private Permission(Phase phase) {
+			this.phase = phase;
+		}
+
+		/**
+		 * @return the state of the breaker when the permission was granted
+		 */
+		public State getState() {
+			return this.phase.state;
+		}
+
+	}
+
+	/**
+	 * A state of the breaker, numbered so that each change of state gives a distinct phase.
+	 */
+	private static final class Phase {
+
+		private final State state;
+
+		private final long epoch;
+
+		private final long openedAtNanos;
+
+		private final AtomicBoolean trialCallInProgress = new AtomicBoolean();
+
+		private Phase(State state, long epoch, long openedAtNanos) {
+			this.state = state;
+			this.epoch = epoch;
+			this.openedAtNanos = openedAtNanos;
+		}
+
+	}
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerAsyncRequiredException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerBindingRequiresAppException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerConcurrencyException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerInvalidParametersException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOperationInProgressException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerUnavailableException;
+import org.springframework.cloud.servicebroker.exception.ServiceDefinitionDoesNotExistException;
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceBindingDoesNotExistException;
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceBindingExistsException;
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceDoesNotExistException;
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceExistsException;
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceUpdateNotSupportedException;
+import org.springframework.cloud.servicebroker.service.CatalogServiceDefinitionIds;
+
+/**
+ * Guards the calls to services with a {@link Bulkhead} and a {@link CircuitBreaker} for each service definition, so
+ * that a failing backend does not take the resources of the others.
+ *
+ * <p>
+ * A call is rejected with a {@link ServiceBrokerUnavailableException} when the circuit breaker of its service
+ * definition is open or its bulkhead is full. Errors that report a problem with the request, such as a
+ * {@link ServiceInstanceExistsException}, do not count as failures. A call that is cancelled before it completes,
+ * for example because its deadline passed, counts as a failure.
+ *
+ * <p>
+ * Only the service definitions accepted by the given filter, usually those of the catalog, get a guard, so that the
+ * number of guards does not grow with the service definition IDs that requests carry. Calls for other service
+ * definitions are made unguarded.
+ */
+public class ResilienceRegistry {
+
+	private static final List<Class<? extends Throwable>> REQUEST_ERRORS = Arrays.asList(
+			ServiceBrokerAsyncRequiredException.class,
+			ServiceBrokerBindingRequiresAppException.class,
+			ServiceBrokerConcurrencyException.class,
+			ServiceBrokerInvalidParametersException.class,
+			ServiceBrokerOperationInProgressException.class,
+			ServiceDefinitionDoesNotExistException.class,
+			ServiceInstanceBindingDoesNotExistException.class,
+			ServiceInstanceBindingExistsException.class,
+			ServiceInstanceDoesNotExistException.class,
+			ServiceInstanceExistsException.class,
+			ServiceInstanceUpdateNotSupportedException.class);
+
+	private final int maxConcurrentCalls;
+
+	private final float failureRateThreshold;
+
+	private final int minimumNumberOfCalls;
+
+	private final Duration slidingWindow;
+
+	private final Duration openDuration;
+
+	private final Predicate<String> guardedServiceDefinitionIds;
+
+	private final ConcurrentMap<String, Guard> guards = new ConcurrentHashMap<>();
+
+	/**
+	 * Construct a new {@link ResilienceRegistry} that guards every service definition.
+	 *
+	 * @param maxConcurrentCalls the maximum number of concurrent calls for each service definition
+	 * @param failureRateThreshold the percentage of failed calls at which a circuit breaker opens
+	 * @param minimumNumberOfCalls the number of calls in the window below which a circuit breaker does not open
+	 * @param slidingWindow the duration over which calls are counted
+	 * @param openDuration the time a circuit breaker stays open before permitting a trial call
+	 */
+	public ResilienceRegistry(int maxConcurrentCalls, float failureRateThreshold, int minimumNumberOfCalls,
+			Duration slidingWindow, Duration openDuration) {
+		this(maxConcurrentCalls, failureRateThreshold, minimumNumberOfCalls, slidingWindow, openDuration,
+				serviceDefinitionId -> true);
+	}
+
+	/**
+	 * Construct a new {@link ResilienceRegistry}
+	 *
+	 * @param maxConcurrentCalls the maximum number of concurrent calls for each service definition
+	 * @param failureRateThreshold the percentage of failed calls at which a circuit breaker opens
+	 * @param minimumNumberOfCalls the number of calls in the window below which a circuit breaker does not open
+	 * @param slidingWindow the duration over which calls are counted
+	 * @param openDuration the time a circuit breaker stays open before permitting a trial call
+	 * @param guardedServiceDefinitionIds accepts the IDs of the service definitions to guard, such as a
+	 * {@link CatalogServiceDefinitionIds}
+	 */
+	public ResilienceRegistry(int maxConcurrentCalls, float failureRateThreshold, int minimumNumberOfCalls,
+			Duration slidingWindow, Duration openDuration, Predicate<String> guardedServiceDefinitionIds) {
+		this.maxConcurrentCalls = maxConcurrentCalls;
+		this.failureRateThreshold = failureRateThreshold;
+		this.minimumNumberOfCalls = minimumNumberOfCalls;
+		this.slidingWindow = slidingWindow;
+		this.openDuration = openDuration;
+		this.guardedServiceDefinitionIds = guardedServiceDefinitionIds;
+	}
+
+	/**
+	 * Make a call guarded by the bulkhead and circuit breaker of a service definition.
+	 *
+	 * @param serviceDefinitionId the service definition ID, or {@literal null} to make the call unguarded
+	 * @param call the call
+	 * @param <T> the type of the call result
+	 * @return the guarded call
+	 */
+	public <T> Mono<T> execute(String serviceDefinitionId, Supplier<Mono<T>> call) {
+		if (serviceDefinitionId == null) {
+			return Mono.defer(call);
+		}
+		return Mono.defer(() -> {
+			Guard guard = getGuard(serviceDefinitionId);
+			if (guard == null) {
+				return Mono.defer(call);
+			}
+			CircuitBreaker circuitBreaker = guard.getCircuitBreaker();
+			Bulkhead bulkhead = guard.getBulkhead();
+			CircuitBreaker.Permission permission = circuitBreaker.tryAcquirePermission();
+			if (permission == null) {
+				return Mono.error(new ServiceBrokerUnavailableException(
+						"Calls for service definition " + serviceDefinitionId + " are suspended after repeated failures"));
+			}
+			if (!bulkhead.tryAcquire()) {
+				circuitBreaker.releasePermission(permission);
+				return Mono.error(new ServiceBrokerUnavailableException(
+						"Too many concurrent calls for service definition " + serviceDefinitionId));
+			}
+			AtomicBoolean recorded = new AtomicBoolean();
+			return Mono.defer(call)
+					.doOnSuccess(result -> {
+						if (recorded.compareAndSet(false, true)) {
+							circuitBreaker.onSuccess(permission);
+						}
+					})
+					.doOnError(e -> {
+						if (recorded.compareAndSet(false, true)) {
+							if (isRequestError(e)) {
+								circuitBreaker.onSuccess(permission);
+							}
+							else {
+								circuitBreaker.onFailure(permission);
+							}
+						}
+					})
+					.doOnCancel(() -> {
+						if (recorded.compareAndSet(false, true)) {
+							circuitBreaker.onFailure(permission);
+						}
+					})
+					.doFinally(signal -> bulkhead.release());
+		});
+	}
+
+	/**
+	 * Get the guard of a service definition, creating it on first use.
+	 *
+	 * @param serviceDefinitionId the service definition ID
+	 * @return the guard, or {@literal null} if the service definition is not guarded
+	 */
+	public Guard getGuard(String serviceDefinitionId) {
+		Guard guard = this.guards.get(serviceDefinitionId);
+		if (guard != null || !this.guardedServiceDefinitionIds.test(serviceDefinitionId)) {
+			return guard;
+		}
+		return this.guards.computeIfAbsent(serviceDefinitionId, id -> new Guard(
+				new CircuitBreaker(this.failureRateThreshold, this.minimumNumberOfCalls, this.slidingWindow,
+						this.openDuration),
+				new Bulkhead(this.maxConcurrentCalls)));
+	}
+
+	/**
+	 * @return the guards of the service definitions called so far, by service definition ID
+	 */
+	public Map<String, Guard> getGuards() {
+		return Collections.unmodifiableMap(new TreeMap<>(this.guards));
+	}
+
+	private static boolean isRequestError(Throwable e) {
+		for (Class<? extends Throwable> requestError : REQUEST_ERRORS) {
+			if (requestError.isInstance(e)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The bulkhead and circuit breaker of a service definition.
+	 */
+	public static final class Guard {
+
+		private final CircuitBreaker circuitBreaker;
+
+		private final Bulkhead bulkhead;
+
+		private Guard(CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+			this.circuitBreaker = circuitBreaker;
+			this.bulkhead = bulkhead;
+		}
+
+		public CircuitBreaker getCircuitBreaker() {
+			return this.circuitBreaker;
+		}
+
+		public Bulkhead getBulkhead() {
+			return this.bulkhead;
+		}
+
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts calls and failures over a sliding time window, divided into buckets that are replaced as the window moves.
+ * Each bucket is immutable and updated with a compare-and-set, so recording a call never blocks.
+ */
+final class SlidingWindowCounter {
+
+	private final AtomicReferenceArray<Bucket> buckets;
+
+	private final long bucketNanos;
+
+	private final LongSupplier nanoClock;
+
+	SlidingWindowCounter(Duration window, int bucketCount, LongSupplier nanoClock) {
+		this.buckets = new AtomicReferenceArray<>(bucketCount);
+		this.bucketNanos = Math.max(1, window.toNanos() / bucketCount);
+		this.nanoClock = nanoClock;
+	}
+
+	/**
+	 * Record a completed call.
+	 *
+	 * @param failure whether the call failed
+	 */
+	void record(boolean failure) {
+		long epoch = this.nanoClock.getAsLong() / this.bucketNanos;
+		int index = (int) Math.floorMod(epoch, (long) this.buckets.length());
+		while (true) {
+			Bucket bucket = this.buckets.get(index);
+			Bucket updated = bucket == null || bucket.epoch != epoch
+					? new Bucket(epoch, 1, failure ? 1 : 0)
+					: new Bucket(epoch, bucket.calls + 1, bucket.failures + (failure ? 1 : 0));
+			if (this.buckets.compareAndSet(index, bucket, updated)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return the calls and failures recorded within the window
+	 */
+	Totals getTotals() {
+		long epoch = this.nanoClock.getAsLong() / this.bucketNanos;
+		long oldestEpoch = epoch - this.buckets.length() + 1;
+		long calls = 0;
+		long failures = 0;
+		for (int i = 0; i < this.buckets.length(); i++) {
+			Bucket bucket = this.buckets.get(i);
+			if (bucket != null && bucket.epoch >= oldestEpoch && bucket.epoch <= epoch) {
+				calls += bucket.calls;
+				failures += bucket.failures;
+			}
+		}
+		return new Totals(calls, failures);
+	}
+
+	/**
+	 * Forget all recorded calls.
+	 */
+	void reset() {
+		for (int i = 0; i < this.buckets.length(); i++) {
+			this.buckets.set(i, null);
+		}
+	}
+
+	private static final class Bucket {
+
+		private final long epoch;
+
+		private final long calls;
+
+		private final long failures;
+
+		private Bucket(long epoch, long calls, long failures) {
+			this.epoch = epoch;
+			this.calls = calls;
+			this.failures = failures;
+		}
+
+	}
+
+	/**
+	 * The calls and failures recorded within the window.
+	 */
+	static final class Totals {
+
+		private final long calls;
+
+		private final long failures;
+
+		private Totals(long calls, long failures) {
+			this.calls = calls;
+			this.failures = failures;
+		}
+
+		long getCalls() {
+			return this.calls;
+		}
+
+		long getFailures() {
+			return this.failures;
+		}
+
+		/**
+		 * @return the percentage of calls that failed, or {@literal 0} if no call was recorded
+		 */
+		float getFailureRate() {
+			return this.calls == 0 ? 0.0f : this.failures * 100.0f / this.calls;
+		}
+
+	}
+
+}
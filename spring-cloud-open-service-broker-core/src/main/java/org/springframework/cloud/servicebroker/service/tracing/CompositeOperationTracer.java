@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.tracing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * An {@link OperationTracer} that traces each phase with several tracers. The first tracer observes the phase as
+ * traced by the tracers that follow it.
+ */
+public class CompositeOperationTracer implements OperationTracer {
+
+	private final List<OperationTracer> tracers;
+
+	/**
+	 * Construct a new {@link CompositeOperationTracer}
+	 *
+	 * @param tracers the tracers, outermost first
+	 */
+	public CompositeOperationTracer(List<OperationTracer> tracers) {
+		this.tracers = Collections.unmodifiableList(new ArrayList<>(tracers));
+	}
+
+	/**
+	 * Combine tracers into one.
+	 *
+	 * @param tracers the tracers, outermost first
+	 * @return {@literal null} if there is no tracer, the tracer if there is only one, or a
+	 * 		{@link CompositeOperationTracer} otherwise
+	 */
+	public static OperationTracer of(List<OperationTracer> tracers) {
+		if (tracers.isEmpty()) {
+			return null;
+		}
+		if (tracers.size() == 1) {
+			return tracers.get(0);
+		}
+		return new CompositeOperationTracer(tracers);
+	}
+
+	@Override
+	public <T> Mono<T> trace(String name, OperationAttributes attributes, Supplier<Mono<T>> phase) {
+		Supplier<Mono<T>> traced = phase;
+		for (int i = this.tracers.size() - 1; i >= 0; i--) {
+			OperationTracer tracer = this.tracers.get(i);
+			Supplier<Mono<T>> inner = traced;
+			traced = () -> tracer.trace(name, attributes, inner);
+		}
+		return traced.get();
+	}
+
+	/**
+	 * @return the tracers, outermost first
+	 */
+	public List<OperationTracer> getTracers() {
+		return this.tracers;
+	}
+
+}
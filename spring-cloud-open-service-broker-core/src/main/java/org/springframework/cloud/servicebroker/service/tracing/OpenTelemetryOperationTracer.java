@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.tracing;
+
+import java.util.function.Supplier;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import reactor.core.publisher.Mono;
+
+/**
+ * An {@link OperationTracer} that records each phase as an OpenTelemetry span.
+ *
+ * <p>
+ * The parent of each span is the span of the enclosing phase, read from the Reactor subscriber context, or the current
+ * OpenTelemetry context when the phase is not nested in another. The span is also made current while the publisher of
+ * the phase is assembled, so that services which start their own spans synchronously nest them under it. Attributes are
+ * only set on spans that are sampled.
+ */
+public class OpenTelemetryOperationTracer implements OperationTracer {
+
+	/**
+	 * Attribute holding the operation name.
+	 */
+	public static final AttributeKey<String> OPERATION = AttributeKey.stringKey("osb.operation");
+
+	/**
+	 * Attribute holding the service instance ID.
+	 */
+	public static final AttributeKey<String> SERVICE_INSTANCE_ID = AttributeKey.stringKey("osb.service_instance_id");
+
+	/**
+	 * Attribute holding the service instance binding ID.
+	 */
+	public static final AttributeKey<String> BINDING_ID = AttributeKey.stringKey("osb.binding_id");
+
+	/**
+	 * Attribute holding the service definition ID.
+	 */
+	public static final AttributeKey<String> SERVICE_ID = AttributeKey.stringKey("osb.service_id");
+
+	/**
+	 * Attribute holding the plan ID.
+	 */
+	public static final AttributeKey<String> PLAN_ID = AttributeKey.stringKey("osb.plan_id");
+
+	/**
+	 * Attribute holding the platform that sent the request.
+	 */
+	public static final AttributeKey<String> PLATFORM = AttributeKey.stringKey("osb.platform");
+
+	private static final String CONTEXT_KEY = OpenTelemetryOperationTracer.class.getName() + ".CONTEXT";
+
+	private final Tracer tracer;
+
+	public OpenTelemetryOperationTracer(Tracer tracer) {
+		this.tracer = tracer;
+	}
+
+	@Override
+	public <T> Mono<T> trace(String name, OperationAttributes attributes, Supplier<Mono<T>> phase) {
+		return Mono.subscriberContext().flatMap(subscriberContext -> {
+			Context parent = subscriberContext.getOrDefault(CONTEXT_KEY, Context.current());
+			Span span = this.tracer.spanBuilder(name)
+					.setParent(parent)
+					.startSpan();
+			if (span.isRecording()) {
+				setAttributes(span, attributes);
+			}
+			Context context = parent.with(span);
+			Mono<T> publisher;
+			Scope scope = context.makeCurrent();
+			try {
+				publisher = phase.get();
+			}
+			catch (RuntimeException e) {
+				recordError(span, e);
+				span.end();
+				return Mono.<T>error(e);
+			}
+			finally {
+				scope.close();
+			}
+			return publisher
+					.doOnError(e -> recordError(span, e))
+					.doFinally(signal -> span.end())
+					.subscriberContext(c -> c.put(CONTEXT_KEY, context));
+		});
+	}
+
+	private static void setAttributes(Span span, OperationAttributes attributes) {
+		setAttribute(span, OPERATION, attributes.getOperation());
+		setAttribute(span, SERVICE_INSTANCE_ID, attributes.getServiceInstanceId());
+		setAttribute(span, BINDING_ID, attributes.getBindingId());
+		setAttribute(span, SERVICE_ID, attributes.getServiceDefinitionId());
+		setAttribute(span, PLAN_ID, attributes.getPlanId());
+		setAttribute(span, PLATFORM, attributes.getPlatform());
+	}
+
+	private static void setAttribute(Span span, AttributeKey<String> key, String value) {
+		if (value != null) {
+			span.setAttribute(key, value);
+		}
+	}
+
+	private static void recordError(Span span, Throwable e) {
+		span.recordException(e);
+		span.setStatus(StatusCode.ERROR);
+	}
+
+}
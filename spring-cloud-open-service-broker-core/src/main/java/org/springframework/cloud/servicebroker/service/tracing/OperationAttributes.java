@@ -0,0 +1,317 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.tracing;
+
+import org.springframework.cloud.servicebroker.model.Context;
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.instance.AsyncParameterizedServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+
+/**
+ * Describes the service broker operation a traced phase belongs to.
+ */
+public final class OperationAttributes {
+
+	private final String operation;
+
+	private final String serviceInstanceId;
+
+	private final String bindingId;
+
+	private final String serviceDefinitionId;
+
+	private final String planId;
+
+	private final String platform;
+
+	private OperationAttributes(String operation, String serviceInstanceId, String bindingId,
+			String serviceDefinitionId, String planId, String platform) {
+		this.operation = operation;
+		this.serviceInstanceId = serviceInstanceId;
+		this.bindingId = bindingId;
+		this.serviceDefinitionId = serviceDefinitionId;
+		this.planId = planId;
+		this.platform = platform;
+	}
+
+	/**
+	 * The name of the operation, for example {@literal create_service_instance}.
+	 *
+	 * @return the operation name
+	 */
+	public String getOperation() {
+		return this.operation;
+	}
+
+	/**
+	 * The ID of the service instance.
+	 *
+	 * @return the service instance ID, or {@literal null} if not known
+	 */
+	public String getServiceInstanceId() {
+		return this.serviceInstanceId;
+	}
+
+	/**
+	 * The ID of the service instance binding.
+	 *
+	 * @return the binding ID, or {@literal null} if the operation does not apply to a binding
+	 */
+	public String getBindingId() {
+		return this.bindingId;
+	}
+
+	/**
+	 * The ID of the service definition.
+	 *
+	 * @return the service definition ID, or {@literal null} if not known
+	 */
+	public String getServiceDefinitionId() {
+		return this.serviceDefinitionId;
+	}
+
+	/**
+	 * The ID of the plan.
+	 *
+	 * @return the plan ID, or {@literal null} if not known
+	 */
+	public String getPlanId() {
+		return this.planId;
+	}
+
+	/**
+	 * The platform that sent the request, taken from the originating identity or the request context.
+	 *
+	 * @return the platform, or {@literal null} if not known
+	 */
+	public String getPlatform() {
+		return this.platform;
+	}
+
+	/**
+	 * Describe an operation from its request.
+	 *
+	 * @param operation the name of the operation
+	 * @param request the request
+	 * @return the attributes
+	 */
+	public static OperationAttributes of(String operation, ServiceBrokerRequest request) {
+		OperationAttributesBuilder builder = builder()
+				.operation(operation)
+				.platform(platformOf(request));
+		if (request instanceof CreateServiceInstanceRequest) {
+			CreateServiceInstanceRequest r = (CreateServiceInstanceRequest) request;
+			builder.serviceInstanceId(r.getServiceInstanceId())
+					.serviceDefinitionId(r.getServiceDefinitionId())
+					.planId(r.getPlanId());
+		}
+		else if (request instanceof UpdateServiceInstanceRequest) {
+			UpdateServiceInstanceRequest r = (UpdateServiceInstanceRequest) request;
+			builder.serviceInstanceId(r.getServiceInstanceId())
+					.serviceDefinitionId(r.getServiceDefinitionId())
+					.planId(r.getPlanId());
+		}
+		else if (request instanceof DeleteServiceInstanceRequest) {
+			DeleteServiceInstanceRequest r = (DeleteServiceInstanceRequest) request;
+			builder.serviceInstanceId(r.getServiceInstanceId())
+					.serviceDefinitionId(r.getServiceDefinitionId())
+					.planId(r.getPlanId());
+		}
+		else if (request instanceof GetLastServiceOperationRequest) {
+			GetLastServiceOperationRequest r = (GetLastServiceOperationRequest) request;
+			builder.serviceInstanceId(r.getServiceInstanceId())
+					.serviceDefinitionId(r.getServiceDefinitionId())
+					.planId(r.getPlanId());
+		}
+		else if (request instanceof GetServiceInstanceRequest) {
+			builder.serviceInstanceId(((GetServiceInstanceRequest) request).getServiceInstanceId());
+		}
+		else if (request instanceof CreateServiceInstanceBindingRequest) {
+			CreateServiceInstanceBindingRequest r = (CreateServiceInstanceBindingRequest) request;
+			builder.serviceInstanceId(r.getServiceInstanceId())
+					.bindingId(r.getBindingId())
+					.serviceDefinitionId(r.getServiceDefinitionId())
+					.planId(r.getPlanId());
+		}
+		else if (request instanceof DeleteServiceInstanceBindingRequest) {
+			DeleteServiceInstanceBindingRequest r = (DeleteServiceInstanceBindingRequest) request;
+			builder.serviceInstanceId(r.getServiceInstanceId())
+					.bindingId(r.getBindingId())
+					.serviceDefinitionId(r.getServiceDefinitionId())
+					.planId(r.getPlanId());
+		}
+		else if (request instanceof GetLastServiceBindingOperationRequest) {
+			GetLastServiceBindingOperationRequest r = (GetLastServiceBindingOperationRequest) request;
+			builder.serviceInstanceId(r.getServiceInstanceId())
+					.bindingId(r.getBindingId())
+					.serviceDefinitionId(r.getServiceDefinitionId())
+					.planId(r.getPlanId());
+		}
+		else if (request instanceof GetServiceInstanceBindingRequest) {
+			GetServiceInstanceBindingRequest r = (GetServiceInstanceBindingRequest) request;
+			builder.serviceInstanceId(r.getServiceInstanceId())
+					.bindingId(r.getBindingId());
+		}
+		return builder.build();
+	}
+
+	private static String platformOf(ServiceBrokerRequest request) {
+		Context context = request.getOriginatingIdentity();
+		if (context == null && request instanceof AsyncParameterizedServiceInstanceRequest) {
+			context = ((AsyncParameterizedServiceInstanceRequest) request).getContext();
+		}
+		if (context == null && request instanceof CreateServiceInstanceBindingRequest) {
+			context = ((CreateServiceInstanceBindingRequest) request).getContext();
+		}
+		return context == null ? null : context.getPlatform();
+	}
+
+	/**
+	 * Create a builder that provides a fluent API for constructing an {@literal OperationAttributes}.
+	 *
+	 * @return the builder
+	 */
+	public static OperationAttributesBuilder builder() {
+		return new OperationAttributesBuilder();
+	}
+
+	@Override
+	public String toString() {
+		return "OperationAttributes{" +
+				"operation='" + operation + '\'' +
+				", serviceInstanceId='" + serviceInstanceId + '\'' +
+				", bindingId='" + bindingId + '\'' +
+				", serviceDefinitionId='" + serviceDefinitionId + '\'' +
+				", planId='" + planId + '\'' +
+				", platform='" + platform + '\'' +
+				'}';
+	}
+
+	/**
+	 * Provides a fluent API for constructing an {@link OperationAttributes}.
+	 */
+	public static final class OperationAttributesBuilder {
+
+		private String operation;
+
+		private String serviceInstanceId;
+
+		private String bindingId;
+
+		private String serviceDefinitionId;
+
+		private String planId;
+
+		private String platform;
+
+		private OperationAttributesBuilder() {
+		}
+
+		/**
+		 * Set the name of the operation.
+		 *
+		 * @param operation the operation name
+		 * @return the builder
+		 * @see #getOperation()
+		 */
+		public OperationAttributesBuilder operation(String operation) {
+			this.operation = operation;
+			return this;
+		}
+
+		/**
+		 * Set the ID of the service instance.
+		 *
+		 * @param serviceInstanceId the service instance ID
+		 * @return the builder
+		 * @see #getServiceInstanceId()
+		 */
+		public OperationAttributesBuilder serviceInstanceId(String serviceInstanceId) {
+			this.serviceInstanceId = serviceInstanceId;
+			return this;
+		}
+
+		/**
+		 * Set the ID of the service instance binding.
+		 *
+		 * @param bindingId the binding ID
+		 * @return the builder
+		 * @see #getBindingId()
+		 */
+		public OperationAttributesBuilder bindingId(String bindingId) {
+			this.bindingId = bindingId;
+			return this;
+		}
+
+		/**
+		 * Set the ID of the service definition.
+		 *
+		 * @param serviceDefinitionId the service definition ID
+		 * @return the builder
+		 * @see #getServiceDefinitionId()
+		 */
+		public OperationAttributesBuilder serviceDefinitionId(String serviceDefinitionId) {
+			this.serviceDefinitionId = serviceDefinitionId;
+			return this;
+		}
+
+		/**
+		 * Set the ID of the plan.
+		 *
+		 * @param planId the plan ID
+		 * @return the builder
+		 * @see #getPlanId()
+		 */
+		public OperationAttributesBuilder planId(String planId) {
+			this.planId = planId;
+			return this;
+		}
+
+		/**
+		 * Set the platform that sent the request.
+		 *
+		 * @param platform the platform
+		 * @return the builder
+		 * @see #getPlatform()
+		 */
+		public OperationAttributesBuilder platform(String platform) {
+			this.platform = platform;
+			return this;
+		}
+
+		/**
+		 * Construct an {@link OperationAttributes} from the provided values.
+		 *
+		 * @return the newly constructed {@literal OperationAttributes}
+		 */
+		public OperationAttributes build() {
+			return new OperationAttributes(operation, serviceInstanceId, bindingId, serviceDefinitionId, planId,
+					platform);
+		}
+
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.tracing;
+
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Traces the phases of service broker operations, such as the catalog lookup, the event flows and the call to the
+ * service instance or service instance binding service.
+ *
+ * <p>
+ * Implementations propagate the trace context through the Reactor subscriber context, so that a phase started by a
+ * controller is the parent of the phases started further down the same pipeline.
+ *
+ * @see OpenTelemetryOperationTracer
+ */
+public interface OperationTracer {
+
+	/**
+	 * Name of the span that covers a whole operation, prefixing the operation name.
+	 */
+	String OPERATION_SPAN_PREFIX = "osb.";
+
+	/**
+	 * Name of the span that covers the lookup of the service definition in the catalog.
+	 */
+	String CATALOG_LOOKUP_SPAN = "osb.catalog_lookup";
+
+	/**
+	 * Name of the span that covers the initialization flows of an operation.
+	 */
+	String INITIALIZATION_FLOWS_SPAN = "osb.initialization_flows";
+
+	/**
+	 * Name of the span that covers the call to the service.
+	 */
+	String SERVICE_SPAN = "osb.service";
+
+	/**
+	 * Name of the span that covers the completion flows of an operation.
+	 */
+	String COMPLETION_FLOWS_SPAN = "osb.completion_flows";
+
+	/**
+	 * Name of the span that covers the error flows of an operation.
+	 */
+	String ERROR_FLOWS_SPAN = "osb.error_flows";
+
+	/**
+	 * Trace a phase of an operation. The phase starts when the returned {@link Mono} is subscribed to and ends when
+	 * it terminates or is cancelled.
+	 *
+	 * @param name the name of the phase
+	 * @param attributes the attributes of the operation
+	 * @param phase supplies the publisher of the phase, called when the returned {@link Mono} is subscribed to
+	 * @param <T> the type of the phase result
+	 * @return the traced phase
+	 */
+	<T> Mono<T> trace(String name, OperationAttributes attributes, Supplier<Mono<T>> phase);
+
+}
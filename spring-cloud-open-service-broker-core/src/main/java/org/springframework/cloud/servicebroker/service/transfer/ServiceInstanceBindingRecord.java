@@ -0,0 +1,235 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.transfer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.VolumeMount;
+
+/**
+ * The state of a service instance binding known to the service broker, as exported and imported with the service
+ * instance it belongs to. The fields follow those of a {@link GetServiceInstanceAppBindingResponse}.
+ */
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ServiceInstanceBindingRecord {
+
+	private final String bindingId;
+
+	private final Map<String, Object> parameters;
+
+	private final Map<String, Object> credentials;
+
+	private final String syslogDrainUrl;
+
+	private final List<VolumeMount> volumeMounts;
+
+	ServiceInstanceBindingRecord(String bindingId, Map<String, Object> parameters, Map<String, Object> credentials,
+			String syslogDrainUrl, List<VolumeMount> volumeMounts) {
+		this.bindingId = bindingId;
+		this.parameters = parameters;
+		this.credentials = credentials;
+		this.syslogDrainUrl = syslogDrainUrl;
+		this.volumeMounts = volumeMounts;
+	}
+
+	ServiceInstanceBindingRecord() {
+		this(null, new HashMap<>(), new HashMap<>(), null, new ArrayList<>());
+	}
+
+	/**
+	 * Get the ID of the service instance binding.
+	 *
+	 * @return the binding ID
+	 */
+	public String getBindingId() {
+		return this.bindingId;
+	}
+
+	/**
+	 * Get the parameters provided to the service broker when the binding was created.
+	 *
+	 * @return the parameters
+	 */
+	public Map<String, Object> getParameters() {
+		return this.parameters;
+	}
+
+	/**
+	 * Get the credentials that the bound application can use to access the service instance.
+	 *
+	 * @return the credentials
+	 */
+	public Map<String, Object> getCredentials() {
+		return this.credentials;
+	}
+
+	/**
+	 * Get the URL to which the platform should drain logs for the bound application.
+	 *
+	 * @return the syslog drain URL, or {@literal null} if not provided
+	 */
+	public String getSyslogDrainUrl() {
+		return this.syslogDrainUrl;
+	}
+
+	/**
+	 * Get the volume mounts that can be used in an application container file system.
+	 *
+	 * @return the volume mounts
+	 */
+	public List<VolumeMount> getVolumeMounts() {
+		return this.volumeMounts;
+	}
+
+	/**
+	 * Create a builder that provides a fluent API for constructing a {@literal ServiceInstanceBindingRecord}.
+	 *
+	 * @return the builder
+	 */
+	public static ServiceInstanceBindingRecordBuilder builder() {
+		return new ServiceInstanceBindingRecordBuilder();
+	}
+
+	@Override
+	public final boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof ServiceInstanceBindingRecord)) {
+			return false;
+		}
+		ServiceInstanceBindingRecord that = (ServiceInstanceBindingRecord) o;
+		return Objects.equals(this.bindingId, that.bindingId) &&
+				Objects.equals(this.parameters, that.parameters) &&
+				Objects.equals(this.credentials, that.credentials) &&
+				Objects.equals(this.syslogDrainUrl, that.syslogDrainUrl) &&
+				Objects.equals(this.volumeMounts, that.volumeMounts);
+	}
+
+	@Override
+	public final int hashCode() {
+		return Objects.hash(this.bindingId, this.parameters, this.credentials, this.syslogDrainUrl,
+				this.volumeMounts);
+	}
+
+	@Override
+	public String toString() {
+		return "ServiceInstanceBindingRecord{" +
+				"bindingId='" + this.bindingId + '\'' +
+				", parameters=" + this.parameters +
+				", syslogDrainUrl='" + this.syslogDrainUrl + '\'' +
+				", volumeMounts=" + this.volumeMounts +
+				'}';
+	}
+
+	/**
+	 * Provides a fluent API for constructing a {@link ServiceInstanceBindingRecord}.
+	 */
+	public static class ServiceInstanceBindingRecordBuilder {
+
+		private String bindingId;
+
+		private final Map<String, Object> parameters = new HashMap<>();
+
+		private final Map<String, Object> credentials = new HashMap<>();
+
+		private String syslogDrainUrl;
+
+		private final List<VolumeMount> volumeMounts = new ArrayList<>();
+
+		ServiceInstanceBindingRecordBuilder() {
+		}
+
+		/**
+		 * Set the ID of the service instance binding.
+		 *
+		 * @param bindingId the binding ID
+		 * @return the builder
+		 */
+		public ServiceInstanceBindingRecordBuilder bindingId(String bindingId) {
+			this.bindingId = bindingId;
+			return this;
+		}
+
+		/**
+		 * Add a set of parameters provided to the service broker when the binding was created.
+		 *
+		 * @param parameters the parameters to add
+		 * @return the builder
+		 */
+		public ServiceInstanceBindingRecordBuilder parameters(Map<String, Object> parameters) {
+			this.parameters.putAll(parameters);
+			return this;
+		}
+
+		/**
+		 * Add a set of credentials that the bound application can use to access the service instance.
+		 *
+		 * @param credentials the credentials to add
+		 * @return the builder
+		 */
+		public ServiceInstanceBindingRecordBuilder credentials(Map<String, Object> credentials) {
+			this.credentials.putAll(credentials);
+			return this;
+		}
+
+		/**
+		 * Set the URL to which the platform should drain logs for the bound application.
+		 *
+		 * @param syslogDrainUrl the syslog drain URL
+		 * @return the builder
+		 */
+		public ServiceInstanceBindingRecordBuilder syslogDrainUrl(String syslogDrainUrl) {
+			this.syslogDrainUrl = syslogDrainUrl;
+			return this;
+		}
+
+		/**
+		 * Add a set of volume mounts that can be used in an application container file system.
+		 *
+		 * @param volumeMounts the volume mounts to add
+		 * @return the builder
+		 */
+		public ServiceInstanceBindingRecordBuilder volumeMounts(List<VolumeMount> volumeMounts) {
+			this.volumeMounts.addAll(volumeMounts);
+			return this;
+		}
+
+		/**
+		 * Construct a {@link ServiceInstanceBindingRecord} from the provided values.
+		 *
+		 * @return the newly constructed {@literal ServiceInstanceBindingRecord}
+		 */
+		public ServiceInstanceBindingRecord build() {
+			return new ServiceInstanceBindingRecord(this.bindingId, this.parameters, this.credentials,
+					this.syslogDrainUrl, this.volumeMounts);
+		}
+
+	}
+
+}
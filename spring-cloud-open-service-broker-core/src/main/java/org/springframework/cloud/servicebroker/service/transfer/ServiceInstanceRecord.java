@@ -0,0 +1,306 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.transfer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import org.springframework.cloud.servicebroker.model.Context;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceResponse;
+
+/**
+ * The state of a service instance known to the service broker, with its bindings, as exported and imported by
+ * {@link ServiceInstanceStateTransfer}. The fields follow those of a {@link GetServiceInstanceResponse}, adding the
+ * service instance ID and the platform context the service instance was provisioned under.
+ */
+@JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ServiceInstanceRecord {
+
+	private final String serviceInstanceId;
+
+	@JsonProperty("service_id")
+	private final String serviceDefinitionId;
+
+	private final String planId;
+
+	private final String dashboardUrl;
+
+	private final Map<String, Object> parameters;
+
+	private final Context context;
+
+	private final List<ServiceInstanceBindingRecord> bindings;
+
+	ServiceInstanceRecord(String serviceInstanceId, String serviceDefinitionId, String planId, String dashboardUrl,
+			Map<String, Object> parameters, Context context, List<ServiceInstanceBindingRecord> bindings) {
+		this.serviceInstanceId = serviceInstanceId;
+		this.serviceDefinitionId = serviceDefinitionId;
+		this.planId = planId;
+		this.dashboardUrl = dashboardUrl;
+		this.parameters = parameters;
+		this.context = context;
+		this.bindings = bindings;
+	}
+
+	ServiceInstanceRecord() {
+		this(null, null, null, null, new HashMap<>(), null, new ArrayList<>());
+	}
+
+	/**
+	 * Get the ID of the service instance.
+	 *
+	 * @return the service instance ID
+	 */
+	public String getServiceInstanceId() {
+		return this.serviceInstanceId;
+	}
+
+	/**
+	 * Get the ID of the service definition of the service instance.
+	 *
+	 * @return the service definition ID
+	 */
+	public String getServiceDefinitionId() {
+		return this.serviceDefinitionId;
+	}
+
+	/**
+	 * Get the ID of the plan of the service instance.
+	 *
+	 * @return the plan ID
+	 */
+	public String getPlanId() {
+		return this.planId;
+	}
+
+	/**
+	 * Get the URL of a web-based management user interface for the service instance.
+	 *
+	 * @return the dashboard URL, or {@literal null} if not provided
+	 */
+	public String getDashboardUrl() {
+		return this.dashboardUrl;
+	}
+
+	/**
+	 * Get the parameters provided to the service broker when the service instance was created or last updated.
+	 *
+	 * @return the parameters
+	 */
+	public Map<String, Object> getParameters() {
+		return this.parameters;
+	}
+
+	/**
+	 * Get the platform specific contextual information the service instance was provisioned under.
+	 *
+	 * @return the context, or {@literal null} if not known
+	 */
+	public Context getContext() {
+		return this.context;
+	}
+
+	/**
+	 * Get the bindings of the service instance.
+	 *
+	 * @return the bindings
+	 */
+	public List<ServiceInstanceBindingRecord> getBindings() {
+		return this.bindings;
+	}
+
+	/**
+	 * Create a builder that provides a fluent API for constructing a {@literal ServiceInstanceRecord}.
+	 *
+	 * @return the builder
+	 */
+	public static ServiceInstanceRecordBuilder builder() {
+		return new ServiceInstanceRecordBuilder();
+	}
+
+	@Override
+	public final boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof ServiceInstanceRecord)) {
+			return false;
+		}
+		ServiceInstanceRecord that = (ServiceInstanceRecord) o;
+		return Objects.equals(this.serviceInstanceId, that.serviceInstanceId) &&
+				Objects.equals(this.serviceDefinitionId, that.serviceDefinitionId) &&
+				Objects.equals(this.planId, that.planId) &&
+				Objects.equals(this.dashboardUrl, that.dashboardUrl) &&
+				Objects.equals(this.parameters, that.parameters) &&
+				Objects.equals(this.context, that.context) &&
+				Objects.equals(this.bindings, that.bindings);
+	}
+
+	@Override
+	public final int hashCode() {
+		return Objects.hash(this.serviceInstanceId, this.serviceDefinitionId, this.planId, this.dashboardUrl,
+				this.parameters, this.context, this.bindings);
+	}
+
+	@Override
+	public String toString() {
+		return "ServiceInstanceRecord{" +
+				"serviceInstanceId='" + this.serviceInstanceId + '\'' +
+				", serviceDefinitionId='" + this.serviceDefinitionId + '\'' +
+				", planId='" + this.planId + '\'' +
+				", dashboardUrl='" + this.dashboardUrl + '\'' +
+				", parameters=" + this.parameters +
+				", context=" + this.context +
+				", bindings=" + this.bindings +
+				'}';
+	}
+
+	/**
+	 * Provides a fluent API for constructing a {@link ServiceInstanceRecord}.
+	 */
+	public static class ServiceInstanceRecordBuilder {
+
+		private String serviceInstanceId;
+
+		private String serviceDefinitionId;
+
+		private String planId;
+
+		private String dashboardUrl;
+
+		private final Map<String, Object> parameters = new HashMap<>();
+
+		private Context context;
+
+		private final List<ServiceInstanceBindingRecord> bindings = new ArrayList<>();
+
+		ServiceInstanceRecordBuilder() {
+		}
+
+		/**
+		 * Set the ID of the service instance.
+		 *
+		 * @param serviceInstanceId the service instance ID
+		 * @return the builder
+		 */
+		public ServiceInstanceRecordBuilder serviceInstanceId(String serviceInstanceId) {
+			this.serviceInstanceId = serviceInstanceId;
+			return this;
+		}
+
+		/**
+		 * Set the ID of the service definition of the service instance.
+		 *
+		 * @param serviceDefinitionId the service definition ID
+		 * @return the builder
+		 */
+		public ServiceInstanceRecordBuilder serviceDefinitionId(String serviceDefinitionId) {
+			this.serviceDefinitionId = serviceDefinitionId;
+			return this;
+		}
+
+		/**
+		 * Set the ID of the plan of the service instance.
+		 *
+		 * @param planId the plan ID
+		 * @return the builder
+		 */
+		public ServiceInstanceRecordBuilder planId(String planId) {
+			this.planId = planId;
+			return this;
+		}
+
+		/**
+		 * Set the URL of a web-based management user interface for the service instance.
+		 *
+		 * @param dashboardUrl the dashboard URL
+		 * @return the builder
+		 */
+		public ServiceInstanceRecordBuilder dashboardUrl(String dashboardUrl) {
+			this.dashboardUrl = dashboardUrl;
+			return this;
+		}
+
+		/**
+		 * Add a set of parameters provided to the service broker when the service instance was created or last
+		 * updated.
+		 *
+		 * @param parameters the parameters to add
+		 * @return the builder
+		 */
+		public ServiceInstanceRecordBuilder parameters(Map<String, Object> parameters) {
+			this.parameters.putAll(parameters);
+			return this;
+		}
+
+		/**
+		 * Set the platform specific contextual information the service instance was provisioned under.
+		 *
+		 * @param context the context
+		 * @return the builder
+		 */
+		public ServiceInstanceRecordBuilder context(Context context) {
+			this.context = context;
+			return this;
+		}
+
+		/**
+		 * Add bindings of the service instance.
+		 *
+		 * @param bindings the bindings to add
+		 * @return the builder
+		 */
+		public ServiceInstanceRecordBuilder bindings(ServiceInstanceBindingRecord... bindings) {
+			Collections.addAll(this.bindings, bindings);
+			return this;
+		}
+
+		/**
+		 * Add bindings of the service instance.
+		 *
+		 * @param bindings the bindings to add
+		 * @return the builder
+		 */
+		public ServiceInstanceRecordBuilder bindings(List<ServiceInstanceBindingRecord> bindings) {
+			this.bindings.addAll(bindings);
+			return this;
+		}
+
+		/**
+		 * Construct a {@link ServiceInstanceRecord} from the provided values.
+		 *
+		 * @return the newly constructed {@literal ServiceInstanceRecord}
+		 */
+		public ServiceInstanceRecord build() {
+			return new ServiceInstanceRecord(this.serviceInstanceId, this.serviceDefinitionId, this.planId,
+					this.dashboardUrl, this.parameters, this.context, this.bindings);
+		}
+
+	}
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.transfer;
+
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Provides access to the service instances and bindings a service broker keeps, so that
+ * {@link ServiceInstanceStateTransfer} can export them to and import them from another service broker node.
+ *
+ * <p>
+ * Implementations must stream the service instances from the backing store as they are requested, rather than
+ * loading them into memory, so that exports of any size run in constant memory.
+ */
+public interface ServiceInstanceStateRepository {
+
+	/**
+	 * Get every service instance with its bindings.
+	 *
+	 * @return the service instances, emitted as they are requested
+	 */
+	Flux<ServiceInstanceRecord> findAll();
+
+	/**
+	 * Save a batch of service instances with their bindings, replacing any existing state with the same service
+	 * instance IDs. Batches may be saved concurrently.
+	 *
+	 * @param records the service instances
+	 * @return completes when the batch is saved
+	 */
+	Mono<Void> saveAll(List<ServiceInstanceRecord> records);
+
+}
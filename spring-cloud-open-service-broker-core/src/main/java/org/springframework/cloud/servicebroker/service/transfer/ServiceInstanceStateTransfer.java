@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.StringUtils;
+
+/**
+ * Exports and imports the service instances and bindings kept by a {@link ServiceInstanceStateRepository} as
+ * newline-delimited JSON, with one {@link ServiceInstanceRecord} per line.
+ *
+ * <p>
+ * Both directions stream: an export writes each service instance to its own {@link DataBuffer} as the repository
+ * emits it, and an import decodes lines as buffers arrive and saves them in batches, with a bounded number of batches
+ * saved at a time. Memory use depends on the batch size and concurrency, not on the number of service instances.
+ */
+public class ServiceInstanceStateTransfer {
+
+	/**
+	 * The media type of newline-delimited JSON.
+	 */
+	public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+	private static final int STREAM_BUFFER_SIZE = 8192;
+
+	private static final ResolvableType STRING_TYPE = ResolvableType.forClass(String.class);
+
+	private final StringDecoder lineDecoder = StringDecoder.allMimeTypes();
+
+	private final DataBufferFactory streamBufferFactory = new DefaultDataBufferFactory();
+
+	private final ServiceInstanceStateRepository repository;
+
+	private final ObjectWriter writer;
+
+	private final ObjectReader reader;
+
+	private final int batchSize;
+
+	private final int concurrency;
+
+	/**
+	 * Construct a new {@link ServiceInstanceStateTransfer}
+	 *
+	 * @param repository the repository to export service instances from and import them to
+	 * @param objectMapper the mapper used to read and write service instances
+	 * @param batchSize the number of service instances saved to the repository at a time
+	 * @param concurrency the number of batches saved to the repository concurrently
+	 */
+	public ServiceInstanceStateTransfer(ServiceInstanceStateRepository repository, ObjectMapper objectMapper,
+			int batchSize, int concurrency) {
+		this.repository = repository;
+		this.writer = objectMapper.writerFor(ServiceInstanceRecord.class)
+				.without(SerializationFeature.INDENT_OUTPUT);
+		this.reader = objectMapper.readerFor(ServiceInstanceRecord.class);
+		this.batchSize = batchSize;
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Export the service instances in the repository as newline-delimited JSON.
+	 *
+	 * @param bufferFactory the factory of the buffers to write to
+	 * @return one buffer per service instance, which the subscriber must release
+	 */
+	public Flux<DataBuffer> exportRecords(DataBufferFactory bufferFactory) {
+		return this.repository.findAll()
+				.map(record -> encode(record, bufferFactory));
+	}
+
+	/**
+	 * Export the service instances in the repository as newline-delimited JSON to a stream, for use outside of a web
+	 * request. The stream is not closed.
+	 *
+	 * @param outputStream the stream to write to
+	 * @return completes when every service instance is written
+	 */
+	public Mono<Void> exportTo(OutputStream outputStream) {
+		return DataBufferUtils.write(exportRecords(this.streamBufferFactory), outputStream)
+				.doOnNext(DataBufferUtils::release)
+				.then();
+	}
+
+	/**
+	 * Import service instances from newline-delimited JSON into the repository. Blank lines are ignored.
+	 *
+	 * @param content the newline-delimited JSON, in buffers that need not end on a line boundary
+	 * @return the number of service instances imported
+	 */
+	public Mono<Long> importRecords(Flux<DataBuffer> content) {
+		return this.lineDecoder.decode(content, STRING_TYPE, null, Collections.emptyMap())
+				.index()
+				.filter(line -> StringUtils.hasText(line.getT2()))
+				.map(this::decode)
+				.buffer(this.batchSize)
+				.flatMap(batch -> this.repository.saveAll(batch).thenReturn(batch.size()), this.concurrency)
+				.reduce(0L, (count, saved) -> count + saved);
+	}
+
+	/**
+	 * Import service instances from newline-delimited JSON read from a stream, for use outside of a web request. The
+	 * stream is closed when it has been read.
+	 *
+	 * @param inputStream the stream to read from
+	 * @return the number of service instances imported
+	 */
+	public Mono<Long> importFrom(InputStream inputStream) {
+		return importRecords(DataBufferUtils.readInputStream(() -> inputStream, this.streamBufferFactory,
+				STREAM_BUFFER_SIZE));
+	}
+
+	private DataBuffer encode(ServiceInstanceRecord record, DataBufferFactory bufferFactory) {
+		DataBuffer buffer = bufferFactory.allocateBuffer();
+		boolean release = true;
+		try {
+			this.writer.writeValue(buffer.asOutputStream(), record);
+			buffer.write((byte) '\n');
+			release = false;
+			return buffer;
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Unable to write service instance " + record.getServiceInstanceId(), e);
+		}
+		finally {
+			if (release) {
+				DataBufferUtils.release(buffer);
+			}
+		}
+	}
+
+	private ServiceInstanceRecord decode(Tuple2<Long, String> line) {
+		try {
+			return this.reader.readValue(line.getT2());
+		}
+		catch (IOException e) {
+			throw new IllegalArgumentException("Invalid service instance on line " + (line.getT1() + 1), e);
+		}
+	}
+
+}
@@ -0,0 +1,6 @@
+CREATE TABLE osb_operation_lease (
+	service_instance_id VARCHAR(255) NOT NULL PRIMARY KEY,
+	operation VARCHAR(64) NOT NULL,
+	owner VARCHAR(36) NOT NULL,
+	expires_at BIGINT NOT NULL
+);
@@ -16,6 +16,14 @@
 
 package org.springframework.cloud.servicebroker.controller;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -24,7 +32,16 @@ import org.mockito.junit.MockitoJUnitRunner;
 import reactor.core.publisher.Mono;
 
 import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.cloud.servicebroker.service.CatalogContentEncoding;
 import org.springframework.cloud.servicebroker.service.CatalogService;
+import org.springframework.cloud.servicebroker.service.CatalogViewService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.StreamUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
@@ -54,4 +71,86 @@ public class CatalogControllerTest {
 		assertThat(actualCatalog).isEqualTo(expectedCatalog);
 	}
 
+	@Test
+	public void catalogViewIsReturned() {
+		when(catalogService.getCatalog()).thenReturn(Mono.just(Catalog.builder().build()));
+
+		CatalogController controller = new CatalogController(catalogService);
+
+		ResponseEntity<byte[]> response = controller.getCatalogView(Collections.emptyMap(), null, null).block();
+
+		assertThat(response).isNotNull();
+		assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+		assertThat(new String(response.getBody())).isEqualTo("{\"services\":[]}");
+	}
+
+	@Test
+	public void catalogIsCompressedWhenAccepted() throws IOException {
+		when(catalogService.getCatalog()).thenReturn(Mono.just(Catalog.builder().build()));
+
+		CatalogController controller = new CatalogController(catalogService);
+
+		ResponseEntity<byte[]> gzip = controller.getCatalogView(Collections.emptyMap(), null, "deflate, gzip").block();
+		ResponseEntity<byte[]> deflate = controller.getCatalogView(Collections.emptyMap(), null, "deflate").block();
+
+		assertThat(gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(gzip.getHeaders().getFirst(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+		assertThat(decompress(new GZIPInputStream(new ByteArrayInputStream(gzip.getBody()))))
+				.isEqualTo("{\"services\":[]}");
+		assertThat(deflate.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("deflate");
+		assertThat(decompress(new InflaterInputStream(new ByteArrayInputStream(deflate.getBody()))))
+				.isEqualTo("{\"services\":[]}");
+		assertThat(controller.getCatalogView(Collections.emptyMap(), null, "gzip").block().getBody())
+				.isSameAs(gzip.getBody());
+	}
+
+	@Test
+	public void contentEncodingIsNegotiated() {
+		assertThat(CatalogController.negotiateContentEncoding(null)).isEqualTo(CatalogContentEncoding.IDENTITY);
+		assertThat(CatalogController.negotiateContentEncoding("identity")).isEqualTo(CatalogContentEncoding.IDENTITY);
+		assertThat(CatalogController.negotiateContentEncoding("br")).isEqualTo(CatalogContentEncoding.IDENTITY);
+		assertThat(CatalogController.negotiateContentEncoding("gzip;q=0, deflate;q=0.5"))
+				.isEqualTo(CatalogContentEncoding.DEFLATE);
+		assertThat(CatalogController.negotiateContentEncoding("gzip;q=0.2, deflate;q=0.5"))
+				.isEqualTo(CatalogContentEncoding.DEFLATE);
+		assertThat(CatalogController.negotiateContentEncoding("*")).isEqualTo(CatalogContentEncoding.GZIP);
+		assertThat(CatalogController.negotiateContentEncoding("gzip;q=0, *")).isEqualTo(CatalogContentEncoding.DEFLATE);
+		assertThat(CatalogController.negotiateContentEncoding("*;q=0")).isEqualTo(CatalogContentEncoding.IDENTITY);
+		assertThat(CatalogController.negotiateContentEncoding("GZIP;q=invalid")).isEqualTo(CatalogContentEncoding.IDENTITY);
+	}
+
+	@Test
+	public void catalogViewIsResolvedForPlatformInstanceAndOriginatingPlatform() {
+		Catalog catalog = Catalog.builder()
+				.serviceDefinitions(ServiceDefinition.builder()
+						.id("service-one-id")
+						.plans(Plan.builder().id("plan-one-id").build())
+						.build())
+				.build();
+
+		when(catalogService.getCatalog()).thenReturn(Mono.just(catalog));
+
+		CatalogViewService catalogViewService = new CatalogViewService(catalogService,
+				Collections.singletonList((key, serviceDefinition, plan) ->
+						"tenant".equals(key.getPlatformInstanceId()) && "cloudfoundry".equals(key.getPlatform())),
+				Jackson2ObjectMapperBuilder.json().build(), 10);
+
+		CatalogController controller = new CatalogController(catalogService, catalogViewService);
+
+		ResponseEntity<byte[]> visible = controller.getCatalogView(Collections.singletonMap("platformInstanceId", "tenant"),
+				"cloudfoundry eyJ1c2VyX2lkIjoiMTIzIn0=", null).block();
+		ResponseEntity<byte[]> hidden = controller.getCatalogView(Collections.singletonMap("platformInstanceId", "tenant"),
+				null, null).block();
+
+		assertThat(new String(visible.getBody())).contains("plan-one-id");
+		assertThat(new String(hidden.getBody())).isEqualTo("{\"services\":[]}");
+	}
+
+	private static String decompress(InputStream in) throws IOException {
+		try (InputStream stream = in) {
+			return StreamUtils.copyToString(stream, StandardCharsets.UTF_8);
+		}
+	}
+
 }
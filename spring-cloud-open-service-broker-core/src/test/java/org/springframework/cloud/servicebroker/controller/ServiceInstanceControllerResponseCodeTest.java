@@ -49,10 +49,13 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -268,6 +271,18 @@ public class ServiceInstanceControllerResponseCodeTest {
 		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
 	}
 
+	@Test
+	public void getServiceInstanceWithServiceThrowingMissingInstanceGivesExpectedStatus() {
+		doThrow(new ServiceInstanceDoesNotExistException("instance does not exist"))
+				.when(serviceInstanceService).getServiceInstance(any(GetServiceInstanceRequest.class));
+
+		ResponseEntity<GetServiceInstanceResponse> responseEntity = controller
+				.getServiceInstance(pathVariables, null, "service-definition-id", null)
+				.block();
+
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+	}
+
 	@Theory
 	public void deleteServiceInstanceWithResponseGivesExpectedStatus(DeleteResponseAndExpectedStatus data) {
 		Mono<DeleteServiceInstanceResponse> responseMono;
@@ -340,6 +355,20 @@ public class ServiceInstanceControllerResponseCodeTest {
 		assertThat(responseEntity.getBody()).isEqualTo(data.response);
 	}
 
+	@Test
+	public void getLastOperationWithServiceThrowingIsCalledOnSubscription() {
+		doThrow(new ServiceInstanceDoesNotExistException("instance does not exist"))
+				.when(serviceInstanceService).getLastOperation(any(GetLastServiceOperationRequest.class));
+
+		Mono<ResponseEntity<GetLastServiceOperationResponse>> responseMono = controller
+				.getServiceInstanceLastOperation(pathVariables, null, null, null, null,
+						null, null);
+
+		verify(serviceInstanceService, never()).getLastOperation(any(GetLastServiceOperationRequest.class));
+		assertThatThrownBy(responseMono::block)
+				.isInstanceOf(ServiceInstanceDoesNotExistException.class);
+	}
+
 	public static class AsyncResponseAndExpectedStatus<T extends AsyncServiceBrokerResponse> {
 		public final T response;
 		public final HttpStatus expectedStatus;
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.model.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ServiceBrokerJacksonModuleTest {
+
+	private final ObjectMapper reflectiveMapper = new ObjectMapper();
+
+	private final ObjectMapper moduleMapper = new ObjectMapper().registerModule(new ServiceBrokerJacksonModule());
+
+	@Test
+	public void lastOperationResponsesAreSerializedIdentically() throws Exception {
+		for (OperationState state : OperationState.values()) {
+			assertSerializedIdentically(GetLastServiceOperationResponse.builder()
+					.operationState(state)
+					.description("description")
+					.deleteOperation(true)
+					.build(), "{\"state\":\"" + state.getValue() + "\",\"description\":\"description\"}");
+			assertSerializedIdentically(GetLastServiceBindingOperationResponse.builder()
+					.operationState(state)
+					.description("description \"quoted\"")
+					.build(), "{\"state\":\"" + state.getValue() + "\",\"description\":\"description \\\"quoted\\\"\"}");
+		}
+		assertSerializedIdentically(GetLastServiceOperationResponse.builder().build(), "{}");
+		assertSerializedIdentically(GetLastServiceBindingOperationResponse.builder().build(), "{}");
+	}
+
+	@Test
+	public void onlyExactResponseTypesAreSerialized() {
+		assertThat(ServiceBrokerJacksonModule.isSerializedType(GetLastServiceOperationResponse.class)).isTrue();
+		assertThat(ServiceBrokerJacksonModule.isSerializedType(DeleteServiceInstanceBindingResponse.class)).isTrue();
+		assertThat(ServiceBrokerJacksonModule.isSerializedType(CreateServiceInstanceAppBindingResponse.class))
+				.isFalse();
+		assertThat(ServiceBrokerJacksonModule.isSerializedType(Object.class)).isFalse();
+	}
+
+	@Test
+	public void asyncResponsesAreSerializedIdentically() throws Exception {
+		assertSerializedIdentically(CreateServiceInstanceResponse.builder()
+				.async(true)
+				.operation("task_10")
+				.dashboardUrl("https://dashboard.local")
+				.instanceExisted(true)
+				.build(), "{\"operation\":\"task_10\",\"dashboard_url\":\"https://dashboard.local\"}");
+		assertSerializedIdentically(CreateServiceInstanceResponse.builder()
+				.operation("")
+				.dashboardUrl("")
+				.build(), "{}");
+		assertSerializedIdentically(UpdateServiceInstanceResponse.builder()
+				.async(true)
+				.operation("task_10")
+				.dashboardUrl("https://dashboard.local")
+				.build(), "{\"operation\":\"task_10\",\"dashboard_url\":\"https://dashboard.local\"}");
+		assertSerializedIdentically(UpdateServiceInstanceResponse.builder().build(), "{}");
+		assertSerializedIdentically(DeleteServiceInstanceResponse.builder()
+				.async(true)
+				.operation("task_10")
+				.build(), "{\"operation\":\"task_10\"}");
+		assertSerializedIdentically(DeleteServiceInstanceBindingResponse.builder()
+				.operation("task_10")
+				.build(), "{\"operation\":\"task_10\"}");
+		assertSerializedIdentically(DeleteServiceInstanceBindingResponse.builder().build(), "{}");
+	}
+
+	@Test
+	public void otherResponsesAreSerializedFromTheirAnnotations() throws Exception {
+		CreateServiceInstanceAppBindingResponse response = CreateServiceInstanceAppBindingResponse.builder()
+				.credentials("username", "user")
+				.syslogDrainUrl("https://drain.local")
+				.build();
+
+		assertThat(this.moduleMapper.writeValueAsString(response))
+				.isEqualTo(this.reflectiveMapper.writeValueAsString(response))
+				.contains("\"syslog_drain_url\":\"https://drain.local\"");
+	}
+
+	private void assertSerializedIdentically(Object response, String expectedJson) throws JsonProcessingException {
+		String reflective = this.reflectiveMapper.writeValueAsString(response);
+		String streaming = this.moduleMapper.writeValueAsString(response);
+
+		assertThat(reflective).isEqualTo(expectedJson);
+		assertThat(streaming).isEqualTo(reflective);
+	}
+
+}
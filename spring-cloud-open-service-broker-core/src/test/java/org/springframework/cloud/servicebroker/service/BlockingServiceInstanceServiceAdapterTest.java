@@ -0,0 +1,154 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceDoesNotExistException;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BlockingServiceInstanceServiceAdapterTest {
+
+	private final AtomicReference<String> threadName = new AtomicReference<>();
+
+	private BlockingServiceSchedulers schedulers;
+
+	private BlockingServiceInstanceServiceAdapter adapter;
+
+	@Before
+	public void setUp() {
+		this.schedulers = new BlockingServiceSchedulers(
+				BlockingServiceSchedulers.boundedExecutorFactory(2, 10, Duration.ofSeconds(10)));
+		this.adapter = new BlockingServiceInstanceServiceAdapter(new TestBlockingServiceInstanceService(),
+				this.schedulers);
+	}
+
+	@After
+	public void tearDown() {
+		this.schedulers.dispose();
+	}
+
+	@Test
+	public void createServiceInstanceRunsOnServiceDefinitionScheduler() {
+		StepVerifier.create(this.adapter.createServiceInstance(CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("foo")
+				.serviceDefinitionId("service-one")
+				.build()))
+				.expectNext(CreateServiceInstanceResponse.builder().build())
+				.verifyComplete();
+
+		assertThat(this.threadName.get()).startsWith("osb-blocking-service-one");
+	}
+
+	@Test
+	public void nullResponseCompletesEmpty() {
+		StepVerifier.create(this.adapter.deleteServiceInstance(DeleteServiceInstanceRequest.builder()
+				.serviceInstanceId("foo")
+				.serviceDefinitionId("service-two")
+				.build()))
+				.verifyComplete();
+
+		assertThat(this.threadName.get()).startsWith("osb-blocking-service-two");
+	}
+
+	@Test
+	public void exceptionIsPropagatedAsError() {
+		StepVerifier.create(this.adapter.getServiceInstance(GetServiceInstanceRequest.builder()
+				.serviceInstanceId("foo")
+				.build()))
+				.expectError(ServiceInstanceDoesNotExistException.class)
+				.verify();
+
+		assertThat(this.threadName.get()).startsWith("osb-blocking-" + BlockingServiceSchedulers.SHARED_SCHEDULER_KEY);
+	}
+
+	@Test
+	public void schedulersAreSharedWhenNotIsolated() {
+		BlockingServiceSchedulers shared = new BlockingServiceSchedulers(
+				BlockingServiceSchedulers.boundedExecutorFactory(1, 1, Duration.ofSeconds(1)), false, 10);
+		try {
+			assertThat(shared.getScheduler("service-one")).isSameAs(shared.getScheduler("service-two"));
+		}
+		finally {
+			shared.dispose();
+		}
+	}
+
+	@Test
+	public void isolatedSchedulersAreBounded() {
+		BlockingServiceSchedulers isolated = new BlockingServiceSchedulers(
+				BlockingServiceSchedulers.boundedExecutorFactory(1, 1, Duration.ofSeconds(1)), true, 1);
+		try {
+			assertThat(isolated.getScheduler("service-one")).isSameAs(isolated.getScheduler("service-one"));
+			assertThat(isolated.getScheduler("service-two")).isSameAs(isolated.getScheduler(null));
+		}
+		finally {
+			isolated.dispose();
+		}
+	}
+
+	@Test
+	public void onlyAcceptedServiceDefinitionsAreIsolated() {
+		BlockingServiceSchedulers isolated = new BlockingServiceSchedulers(
+				BlockingServiceSchedulers.boundedExecutorFactory(1, 1, Duration.ofSeconds(1)), true, 10,
+				"service-one"::equals);
+		try {
+			assertThat(isolated.getScheduler("service-one")).isNotSameAs(isolated.getScheduler(null));
+			assertThat(isolated.getScheduler("service-two")).isSameAs(isolated.getScheduler(null));
+		}
+		finally {
+			isolated.dispose();
+		}
+	}
+
+	private class TestBlockingServiceInstanceService implements BlockingServiceInstanceService {
+
+		@Override
+		public CreateServiceInstanceResponse createServiceInstance(CreateServiceInstanceRequest request) {
+			threadName.set(Thread.currentThread().getName());
+			return CreateServiceInstanceResponse.builder().build();
+		}
+
+		@Override
+		public GetServiceInstanceResponse getServiceInstance(GetServiceInstanceRequest request) {
+			threadName.set(Thread.currentThread().getName());
+			throw new ServiceInstanceDoesNotExistException(request.getServiceInstanceId());
+		}
+
+		@Override
+		public DeleteServiceInstanceResponse deleteServiceInstance(DeleteServiceInstanceRequest request) {
+			threadName.set(Thread.currentThread().getName());
+			return null;
+		}
+
+	}
+
+}
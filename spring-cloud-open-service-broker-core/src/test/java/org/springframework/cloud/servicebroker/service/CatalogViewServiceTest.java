@@ -0,0 +1,188 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CatalogViewServiceTest {
+
+	private final AtomicReference<Catalog> catalog = new AtomicReference<>();
+
+	private final AtomicInteger ruleEvaluations = new AtomicInteger();
+
+	private CatalogService catalogService;
+
+	@Before
+	public void setUp() {
+		this.catalog.set(catalog("service-one-id", "free-plan-id", "paid-plan-id"));
+		this.catalogService = new CatalogService() {
+			@Override
+			public Mono<Catalog> getCatalog() {
+				return Mono.fromSupplier(catalog::get);
+			}
+
+			@Override
+			public Mono<ServiceDefinition> getServiceDefinition(String serviceId) {
+				return Mono.empty();
+			}
+		};
+	}
+
+	@Test
+	public void fullCatalogIsServedWithoutRules() {
+		CatalogViewService service = new CatalogViewService(this.catalogService);
+
+		CatalogView view = service.getCatalogView(CatalogViewKey.of("tenant", null)).block();
+
+		assertThat(view.getCatalog()).isSameAs(this.catalog.get());
+		assertThat(new String(view.getSerializedCatalog())).contains("free-plan-id", "paid-plan-id");
+		assertThat(service.getCatalogView(CatalogViewKey.of(null, "cloudfoundry")).block()).isSameAs(view);
+	}
+
+	@Test
+	public void plansAreFilteredByRules() {
+		CatalogViewService service = service(freePlansOnlyFor("trial"));
+
+		CatalogView trial = service.getCatalogView(CatalogViewKey.of("trial", null)).block();
+		CatalogView full = service.getCatalogView(CatalogViewKey.of("production", null)).block();
+
+		assertThat(trial.getCatalog().getServiceDefinitions().get(0).getPlans())
+				.extracting(Plan::getId).containsExactly("free-plan-id");
+		assertThat(new String(trial.getSerializedCatalog())).contains("free-plan-id").doesNotContain("paid-plan-id");
+		assertThat(full.getCatalog().getServiceDefinitions().get(0)).isSameAs(
+				this.catalog.get().getServiceDefinitions().get(0));
+	}
+
+	@Test
+	public void serviceDefinitionsWithoutVisiblePlansAreOmitted() {
+		CatalogViewService service = service((key, serviceDefinition, plan) -> "cloudfoundry".equals(key.getPlatform()));
+
+		assertThat(service.getCatalogView(CatalogViewKey.of(null, "kubernetes")).block()
+				.getCatalog().getServiceDefinitions()).isEmpty();
+		assertThat(service.getCatalogView(CatalogViewKey.of(null, "cloudfoundry")).block()
+				.getCatalog().getServiceDefinitions()).hasSize(1);
+	}
+
+	@Test
+	public void viewsAreMaterializedOncePerKey() {
+		CatalogViewService service = service(freePlansOnlyFor("trial"));
+
+		CatalogView first = service.getCatalogView(CatalogViewKey.of("trial", null)).block();
+		int evaluations = this.ruleEvaluations.get();
+		CatalogView second = service.getCatalogView(CatalogViewKey.of("trial", null)).block();
+
+		assertThat(second).isSameAs(first);
+		assertThat(this.ruleEvaluations.get()).isEqualTo(evaluations);
+	}
+
+	@Test
+	public void keysWithTheSameVisiblePlansShareAView() {
+		CatalogViewService service = service(freePlansOnlyFor("trial"));
+
+		CatalogView production = service.getCatalogView(CatalogViewKey.of("production", null)).block();
+		CatalogView staging = service.getCatalogView(CatalogViewKey.of("staging", "cloudfoundry")).block();
+
+		assertThat(staging).isSameAs(production);
+	}
+
+	@Test
+	public void viewsAreSharedBeyondTheKeyCacheSize() {
+		CatalogViewService service = new CatalogViewService(this.catalogService,
+				Collections.singletonList(freePlansOnlyFor("trial")), Jackson2ObjectMapperBuilder.json().build(), 1);
+
+		CatalogView first = service.getCatalogView(CatalogViewKey.of("production", null)).block();
+		CatalogView second = service.getCatalogView(CatalogViewKey.of("staging", null)).block();
+		CatalogView third = service.getCatalogView(CatalogViewKey.of("staging", null)).block();
+
+		assertThat(second).isSameAs(first);
+		assertThat(third).isSameAs(first);
+	}
+
+	@Test
+	public void viewsAreRebuiltWhenTheCatalogChanges() {
+		CatalogViewService service = service(freePlansOnlyFor("trial"));
+
+		CatalogView before = service.getCatalogView(CatalogViewKey.of("production", null)).block();
+		this.catalog.set(catalog("service-two-id", "free-plan-id"));
+		CatalogView after = service.getCatalogView(CatalogViewKey.of("production", null)).block();
+
+		assertThat(after).isNotSameAs(before);
+		assertThat(new String(after.getSerializedCatalog())).contains("service-two-id").doesNotContain("service-one-id");
+	}
+
+	@Test
+	public void viewsAreKeptForAnEqualCatalog() {
+		CatalogViewService service = service(freePlansOnlyFor("trial"));
+
+		CatalogView before = service.getCatalogView(CatalogViewKey.of("production", null)).block();
+		this.catalog.set(catalog("service-one-id", "free-plan-id", "paid-plan-id"));
+		CatalogView after = service.getCatalogView(CatalogViewKey.of("production", null)).block();
+
+		assertThat(after).isSameAs(before);
+	}
+
+	@Test
+	public void viewsAreRebuiltWhenInvalidated() {
+		CatalogViewService service = service(freePlansOnlyFor("trial"));
+
+		CatalogView before = service.getCatalogView(CatalogViewKey.of("production", null)).block();
+		service.invalidate();
+		CatalogView after = service.getCatalogView(CatalogViewKey.of("production", null)).block();
+
+		assertThat(after).isNotSameAs(before);
+	}
+
+	private CatalogViewService service(CatalogViewRule rule) {
+		return new CatalogViewService(this.catalogService, Collections.singletonList(rule),
+				Jackson2ObjectMapperBuilder.json().build(), 100);
+	}
+
+	private CatalogViewRule freePlansOnlyFor(String platformInstanceId) {
+		return (key, serviceDefinition, plan) -> {
+			this.ruleEvaluations.incrementAndGet();
+			return !platformInstanceId.equals(key.getPlatformInstanceId()) || plan.getId().startsWith("free");
+		};
+	}
+
+	private static Catalog catalog(String serviceId, String... planIds) {
+		return Catalog.builder()
+				.serviceDefinitions(ServiceDefinition.builder()
+						.id(serviceId)
+						.name(serviceId)
+						.plans(Arrays.stream(planIds)
+								.map(planId -> Plan.builder().id(planId).name(planId).build())
+								.toArray(Plan[]::new))
+						.build())
+				.build();
+	}
+
+}
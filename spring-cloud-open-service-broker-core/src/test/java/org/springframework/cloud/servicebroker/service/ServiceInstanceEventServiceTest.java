@@ -46,6 +46,8 @@ import org.springframework.cloud.servicebroker.service.events.flows.UpdateServic
 import org.springframework.cloud.servicebroker.service.events.flows.UpdateServiceInstanceInitializationFlow;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @SuppressWarnings("deprecation")
 public class ServiceInstanceEventServiceTest {
@@ -85,6 +87,48 @@ public class ServiceInstanceEventServiceTest {
 		assertThat(this.results.getErrorCreate()).isNullOrEmpty();
 	}
 
+	@Test
+	public void createServiceInstanceWithoutFlowsCallsServiceDirectly() {
+		ServiceInstanceService service = mock(ServiceInstanceService.class);
+		CreateServiceInstanceRequest request = CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("foo")
+				.serviceDefinitionId("bar")
+				.build();
+		Mono<CreateServiceInstanceResponse> response = Mono.just(CreateServiceInstanceResponse.builder().build());
+		when(service.createServiceInstance(request)).thenReturn(response);
+
+		assertThat(new ServiceInstanceEventService(service, eventFlowRegistries).createServiceInstance(request))
+				.isSameAs(response);
+	}
+
+	@Test
+	public void createServiceInstanceRunsFlowsAddedAfterPreviousRequests() {
+		CreateServiceInstanceRequest request = CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("foo")
+				.serviceDefinitionId("bar")
+				.build();
+		StepVerifier.create(serviceInstanceEventService.createServiceInstance(request))
+				.expectNext(CreateServiceInstanceResponse.builder().build())
+				.verifyComplete();
+
+		this.eventFlowRegistries.getCreateInstanceRegistry()
+				.addCompletionFlow(new CreateServiceInstanceCompletionFlow() {
+					@Override
+					public Mono<Void> complete(CreateServiceInstanceRequest request,
+											   CreateServiceInstanceResponse response) {
+						return results.setAfterCreate("after " + request.getServiceInstanceId());
+					}
+				})
+				.subscribe();
+
+		StepVerifier.create(serviceInstanceEventService.createServiceInstance(request))
+				.expectNext(CreateServiceInstanceResponse.builder().build())
+				.verifyComplete();
+
+		assertThat(this.results.getBeforeCreate()).isNullOrEmpty();
+		assertThat(this.results.getAfterCreate()).isEqualTo("after foo");
+	}
+
 	private void prepareCreateEventFlows() {
 		this.eventFlowRegistries.getCreateInstanceRegistry()
 				.addInitializationFlow(new CreateServiceInstanceInitializationFlow() {
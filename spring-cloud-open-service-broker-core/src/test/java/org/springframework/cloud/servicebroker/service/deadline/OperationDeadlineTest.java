@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.deadline;
+
+import java.time.Duration;
+
+import org.junit.Test;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OperationDeadlineTest {
+
+	@Test
+	public void headerValueIsParsedAsMilliseconds() {
+		OperationDeadline deadline = OperationDeadline.parse("60000");
+
+		assertThat(deadline).isNotNull();
+		assertThat(deadline.getRemaining())
+				.isGreaterThan(Duration.ofSeconds(50))
+				.isLessThanOrEqualTo(Duration.ofMinutes(1));
+	}
+
+	@Test
+	public void invalidHeaderValueIsIgnored() {
+		assertThat(OperationDeadline.parse(null)).isNull();
+		assertThat(OperationDeadline.parse("soon")).isNull();
+		assertThat(OperationDeadline.parse("-1")).isNull();
+	}
+
+	@Test
+	public void earliestDeadlineIsSelected() {
+		OperationDeadline early = OperationDeadline.after(Duration.ofSeconds(1));
+		OperationDeadline late = OperationDeadline.after(Duration.ofMinutes(1));
+
+		assertThat(OperationDeadline.earliest(early, late)).isSameAs(early);
+		assertThat(OperationDeadline.earliest(late, early)).isSameAs(early);
+		assertThat(OperationDeadline.earliest(null, late)).isSameAs(late);
+		assertThat(OperationDeadline.earliest(early, null)).isSameAs(early);
+	}
+
+	@Test
+	public void passedDeadlineIsExpired() {
+		OperationDeadline deadline = OperationDeadline.after(Duration.ZERO);
+
+		assertThat(deadline.isExpired()).isTrue();
+		assertThat(deadline.getRemaining()).isEqualTo(Duration.ZERO);
+	}
+
+	@Test
+	public void blockingCallSeesDeadlineFromContext() {
+		OperationDeadline deadline = OperationDeadline.after(Duration.ofMinutes(1));
+
+		StepVerifier.create(OperationDeadline.fromCallable(OperationDeadline::getCurrent)
+				.subscriberContext(context -> context.put(OperationDeadline.CONTEXT_KEY, deadline)))
+				.expectNext(deadline)
+				.verifyComplete();
+
+		assertThat(OperationDeadline.getCurrent()).isNull();
+	}
+
+	@Test
+	public void blockingCallWithoutDeadline() {
+		StepVerifier.create(OperationDeadline.fromCallable(() -> OperationDeadline.getCurrent() == null))
+				.expectNext(true)
+				.verifyComplete();
+	}
+
+	@Test
+	public void currentIsEmptyWithoutDeadline() {
+		StepVerifier.create(OperationDeadline.current().map(Object::toString).defaultIfEmpty("none"))
+				.expectNext("none")
+				.verifyComplete();
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.deadline;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerUnavailableException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OperationDeadlinesTest {
+
+	@Test
+	public void operationWithoutDeadlineIsNotChanged() {
+		OperationDeadlines deadlines = new OperationDeadlines(null, null, null);
+		Mono<String> call = Mono.just("result");
+
+		assertThat(deadlines.apply("create_service_instance", null, call)).isSameAs(call);
+	}
+
+	@Test
+	public void operationIsCancelledWhenTimeoutPasses() {
+		OperationDeadlines deadlines = new OperationDeadlines(null,
+				Collections.singletonMap("create_service_instance", Duration.ofMillis(50)), null);
+		AtomicBoolean cancelled = new AtomicBoolean();
+
+		StepVerifier.create(deadlines.apply("create_service_instance", null,
+				Mono.never().doOnCancel(() -> cancelled.set(true))))
+				.expectError(ServiceBrokerUnavailableException.class)
+				.verify(Duration.ofSeconds(5));
+
+		assertThat(cancelled).isTrue();
+	}
+
+	@Test
+	public void operationTimeoutOverridesDefaultTimeout() {
+		OperationDeadlines deadlines = new OperationDeadlines(Duration.ofMillis(50),
+				Collections.singletonMap("get_last_service_operation", Duration.ofMinutes(1)), null);
+
+		assertThat(deadlines.getTimeout("get_last_service_operation")).isEqualTo(Duration.ofMinutes(1));
+		assertThat(deadlines.getTimeout("create_service_instance")).isEqualTo(Duration.ofMillis(50));
+	}
+
+	@Test
+	public void requestedDeadlineIsUsedWhenEarlier() {
+		OperationDeadlines deadlines = new OperationDeadlines(Duration.ofMinutes(1), null, null);
+
+		StepVerifier.create(deadlines.apply("create_service_instance",
+				OperationDeadline.after(Duration.ofMillis(50)), Mono.never()))
+				.expectError(ServiceBrokerUnavailableException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void deadlineFromContextIsUsedWhenEarlier() {
+		OperationDeadlines deadlines = new OperationDeadlines(Duration.ofMinutes(1), null, null);
+
+		StepVerifier.create(deadlines.apply("create_service_instance", null, Mono.never())
+				.subscriberContext(context -> context.put(OperationDeadline.CONTEXT_KEY,
+						OperationDeadline.after(Duration.ofMillis(50)))))
+				.expectError(ServiceBrokerUnavailableException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void expiredDeadlineFailsWithoutCallingOperation() {
+		OperationDeadlines deadlines = new OperationDeadlines(Duration.ZERO, null, null);
+		AtomicBoolean subscribed = new AtomicBoolean();
+
+		StepVerifier.create(deadlines.apply("create_service_instance", null,
+				Mono.just("result").doOnSubscribe(subscription -> subscribed.set(true))))
+				.expectError(ServiceBrokerUnavailableException.class)
+				.verify();
+
+		assertThat(subscribed).isFalse();
+	}
+
+	@Test
+	public void deadlineIsAvailableToOperation() {
+		OperationDeadlines deadlines = new OperationDeadlines(Duration.ofMinutes(1), null, null);
+
+		StepVerifier.create(deadlines.apply("create_service_instance", null, OperationDeadline.current()))
+				.assertNext(deadline -> assertThat(deadline.getRemaining())
+						.isGreaterThan(Duration.ZERO)
+						.isLessThanOrEqualTo(Duration.ofMinutes(1)))
+				.verifyComplete();
+	}
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.service.events.flows.BatchedCompletionFlow;
+import org.springframework.cloud.servicebroker.service.events.flows.CompletionEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BatchingCompletionFlowBufferTest {
+
+	private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+	private final BatchedCompletionFlow<String, String> recordingFlow = events -> Mono.fromRunnable(() -> {
+		List<String> batch = new ArrayList<>();
+		for (CompletionEvent<String, String> event : events) {
+			batch.add(event.getRequest() + ":" + event.getResponse());
+		}
+		this.batches.add(batch);
+	});
+
+	private BatchingCompletionFlowBuffer<String, String> buffer;
+
+	@After
+	public void tearDown() {
+		if (this.buffer != null) {
+			this.buffer.dispose();
+		}
+	}
+
+	@Test
+	public void fullBatchIsDeliveredWithoutWaitingForMaxDelay() throws InterruptedException {
+		this.buffer = new BatchingCompletionFlowBuffer<>(this.recordingFlow, 3, Duration.ofMinutes(1), 100);
+
+		for (int i = 0; i < 3; i++) {
+			StepVerifier.create(this.buffer.submit("request" + i, "response" + i))
+					.verifyComplete();
+		}
+
+		awaitBatches(1);
+		assertThat(this.batches.get(0)).containsExactly("request0:response0", "request1:response1",
+				"request2:response2");
+		assertThat(this.buffer.getPendingEventCount()).isZero();
+	}
+
+	@Test
+	public void partialBatchIsDeliveredAfterMaxDelay() throws InterruptedException {
+		this.buffer = new BatchingCompletionFlowBuffer<>(this.recordingFlow, 100, Duration.ofMillis(50), 1000);
+
+		StepVerifier.create(this.buffer.submit("request", "response"))
+				.verifyComplete();
+
+		awaitBatches(1);
+		assertThat(this.batches.get(0)).containsExactly("request:response");
+	}
+
+	@Test
+	public void batchesAreLimitedToBatchSize() {
+		this.buffer = new BatchingCompletionFlowBuffer<>(this.recordingFlow, 2, Duration.ofMinutes(1), 100);
+
+		this.buffer.submit("request0", "response0").block();
+		this.buffer.submit("request1", "response1").block();
+		this.buffer.submit("request2", "response2").block();
+		this.buffer.dispose();
+
+		assertThat(this.batches).allSatisfy(batch -> assertThat(batch.size()).isLessThanOrEqualTo(2));
+		assertThat(this.batches).flatExtracting(batch -> batch).hasSize(3);
+	}
+
+	@Test
+	public void disposeDeliversPendingEvents() {
+		this.buffer = new BatchingCompletionFlowBuffer<>(this.recordingFlow, 100, Duration.ofMinutes(1), 1000);
+
+		this.buffer.submit("request", "response").block();
+		assertThat(this.batches).isEmpty();
+
+		this.buffer.dispose();
+
+		assertThat(this.batches).hasSize(1);
+		assertThat(this.batches.get(0)).containsExactly("request:response");
+	}
+
+	@Test
+	public void submitAfterDisposeFails() {
+		this.buffer = new BatchingCompletionFlowBuffer<>(this.recordingFlow, 100, Duration.ofMinutes(1), 1000);
+		this.buffer.dispose();
+
+		StepVerifier.create(this.buffer.submit("request", "response"))
+				.expectError(IllegalStateException.class)
+				.verify();
+	}
+
+	@Test
+	public void submitWaitsForDeliveryWhenCapacityIsReached() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		BatchedCompletionFlow<String, String> slowFlow = events -> Mono.fromRunnable(() -> {
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		this.buffer = new BatchingCompletionFlowBuffer<>(slowFlow, 1, Duration.ofMinutes(1), 1);
+
+		// the first event is taken by the flow, which blocks until released
+		this.buffer.submit("request0", "response0").block();
+		waitUntil(() -> this.buffer.getPendingEventCount() == 0);
+		// the second event fills the buffer
+		this.buffer.submit("request1", "response1").block();
+
+		StepVerifier.create(this.buffer.submit("request2", "response2"))
+				.expectSubscription()
+				.expectNoEvent(Duration.ofMillis(100))
+				.then(release::countDown)
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void failedBatchIsRetried() throws InterruptedException {
+		List<String> requests = new CopyOnWriteArrayList<>();
+		BatchedCompletionFlow<String, String> failingFlow = events -> {
+			requests.add(events.get(0).getRequest());
+			return requests.size() == 1 ? Mono.error(new IllegalStateException("sink unavailable")) : Mono.empty();
+		};
+		this.buffer = new BatchingCompletionFlowBuffer<>(failingFlow, 1, Duration.ofMinutes(1), 100);
+
+		this.buffer.submit("request0", "response0").block();
+		this.buffer.submit("request1", "response1").block();
+
+		waitUntil(() -> requests.size() == 3);
+		assertThat(requests).containsExactly("request0", "request0", "request1");
+		assertThat(this.buffer.getPendingEventCount()).isZero();
+	}
+
+	@Test
+	public void submitWaitingForDeliveryFailsWhenBatchIsDropped() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		BatchedCompletionFlow<String, String> failingFlow = events -> Mono.fromRunnable(() -> {
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			throw new IllegalStateException("sink unavailable");
+		});
+		this.buffer = new BatchingCompletionFlowBuffer<>(failingFlow, 1, Duration.ofMinutes(1), 1);
+
+		this.buffer.submit("request0", "response0").block();
+		waitUntil(() -> this.buffer.getPendingEventCount() == 0);
+		this.buffer.submit("request1", "response1").block();
+
+		StepVerifier.create(this.buffer.submit("request2", "response2"))
+				.expectSubscription()
+				.then(release::countDown)
+				.expectErrorMessage("sink unavailable")
+				.verify(Duration.ofSeconds(5));
+	}
+
+	private void awaitBatches(int count) throws InterruptedException {
+		waitUntil(() -> this.batches.size() >= count);
+	}
+
+	private static void waitUntil(Condition condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.isMet()) {
+			assertThat(System.nanoTime()).as("timed out waiting for condition").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private interface Condition {
+
+		boolean isMet();
+
+	}
+
+}
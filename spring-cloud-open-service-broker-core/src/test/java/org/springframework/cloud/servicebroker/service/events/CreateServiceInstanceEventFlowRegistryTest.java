@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.model.CloudFoundryContext;
+import org.springframework.cloud.servicebroker.model.Context;
+import org.springframework.cloud.servicebroker.model.KubernetesContext;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceCompletionFlow;
+import org.springframework.cloud.servicebroker.service.events.flows.TargetedEventFlow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CreateServiceInstanceEventFlowRegistryTest {
+
+	private List<String> invoked;
+
+	private CreateServiceInstanceEventFlowRegistry registry;
+
+	@Before
+	public void setUp() {
+		this.invoked = new CopyOnWriteArrayList<>();
+		this.registry = new CreateServiceInstanceEventFlowRegistry(null, Arrays.asList(
+				new RecordingFlow("any", Collections.emptySet(), Collections.emptySet(), Collections.emptySet()),
+				new RecordingFlow("service-a", set("service-a"), Collections.emptySet(), Collections.emptySet()),
+				new RecordingFlow("service-a-plan-1", set("service-a"), set("plan-1"), Collections.emptySet()),
+				new RecordingFlow("service-b", set("service-b"), Collections.emptySet(), Collections.emptySet()),
+				new RecordingFlow("kubernetes", Collections.emptySet(), Collections.emptySet(), set("kubernetes"))),
+				null);
+	}
+
+	@Test
+	public void untargetedFlowsAreInvokedForAllRequests() {
+		CreateServiceInstanceEventFlowRegistry untargeted = new CreateServiceInstanceEventFlowRegistry(null,
+				Collections.singletonList(new CreateServiceInstanceCompletionFlow() {
+					@Override
+					public Mono<Void> complete(CreateServiceInstanceRequest request,
+							CreateServiceInstanceResponse response) {
+						invoked.add("untargeted");
+						return Mono.empty();
+					}
+				}), null);
+
+		complete(untargeted, request("service-c", "plan-9", null));
+
+		assertThat(this.invoked).containsExactly("untargeted");
+	}
+
+	@Test
+	public void flowsForMatchingServiceAreInvoked() {
+		complete(this.registry, request("service-a", "plan-2", null));
+
+		assertThat(this.invoked).containsExactlyInAnyOrder("any", "service-a");
+	}
+
+	@Test
+	public void flowsForMatchingServiceAndPlanAreInvoked() {
+		complete(this.registry, request("service-a", "plan-1", null));
+
+		assertThat(this.invoked).containsExactlyInAnyOrder("any", "service-a", "service-a-plan-1");
+	}
+
+	@Test
+	public void flowsForOtherServicesAreNotInvoked() {
+		complete(this.registry, request("service-c", "plan-1", null));
+
+		assertThat(this.invoked).containsExactly("any");
+	}
+
+	@Test
+	public void flowsForMatchingPlatformAreInvoked() {
+		complete(this.registry, request("service-b", "plan-1", KubernetesContext.builder().build()));
+
+		assertThat(this.invoked).containsExactlyInAnyOrder("any", "service-b", "kubernetes");
+	}
+
+	@Test
+	public void flowsForOtherPlatformsAreNotInvoked() {
+		complete(this.registry, request("service-b", "plan-1", CloudFoundryContext.builder().build()));
+
+		assertThat(this.invoked).containsExactlyInAnyOrder("any", "service-b");
+	}
+
+	@Test
+	public void allServiceFlowsAreInvokedWhenServiceIsNotKnown() {
+		complete(this.registry, request(null, "plan-2", null));
+
+		assertThat(this.invoked).containsExactly("any", "service-a", "service-b");
+	}
+
+	@Test
+	public void allServiceAndPlanFlowsAreInvokedWhenServiceAndPlanAreNotKnown() {
+		complete(this.registry, request(null, null, null));
+
+		assertThat(this.invoked).containsExactly("any", "service-a", "service-a-plan-1", "service-b");
+	}
+
+	@Test
+	public void flowsForSeveralServicesAreInvokedOnceWhenServiceIsNotKnown() {
+		StepVerifier.create(this.registry.addCompletionFlow(new RecordingFlow("service-c-or-d",
+				new HashSet<>(Arrays.asList("service-c", "service-d")), Collections.emptySet(),
+				Collections.emptySet())))
+				.verifyComplete();
+
+		complete(this.registry, request(null, "plan-1", null));
+
+		assertThat(this.invoked)
+				.containsExactly("any", "service-a", "service-a-plan-1", "service-b", "service-c-or-d");
+	}
+
+	@Test
+	public void addedFlowsAreIndexed() {
+		StepVerifier.create(this.registry.addCompletionFlow(
+				new RecordingFlow("service-c", set("service-c"), Collections.emptySet(), Collections.emptySet())))
+				.verifyComplete();
+
+		complete(this.registry, request("service-c", "plan-1", null));
+
+		assertThat(this.invoked).containsExactlyInAnyOrder("any", "service-c");
+	}
+
+	private void complete(CreateServiceInstanceEventFlowRegistry registry, CreateServiceInstanceRequest request) {
+		StepVerifier.create(registry.getCompletionFlows(request, CreateServiceInstanceResponse.builder().build()))
+				.verifyComplete();
+	}
+
+	private static CreateServiceInstanceRequest request(String serviceDefinitionId, String planId,
+			Context originatingIdentity) {
+		return CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("instance-id")
+				.serviceDefinitionId(serviceDefinitionId)
+				.planId(planId)
+				.originatingIdentity(originatingIdentity)
+				.build();
+	}
+
+	private static Set<String> set(String value) {
+		return Collections.singleton(value);
+	}
+
+	private final class RecordingFlow implements CreateServiceInstanceCompletionFlow, TargetedEventFlow {
+
+		private final String name;
+
+		private final Set<String> serviceDefinitionIds;
+
+		private final Set<String> planIds;
+
+		private final Set<String> platforms;
+
+		private RecordingFlow(String name, Set<String> serviceDefinitionIds, Set<String> planIds,
+				Set<String> platforms) {
+			this.name = name;
+			this.serviceDefinitionIds = serviceDefinitionIds;
+			this.planIds = planIds;
+			this.platforms = platforms;
+		}
+
+		@Override
+		public Mono<Void> complete(CreateServiceInstanceRequest request, CreateServiceInstanceResponse response) {
+			invoked.add(this.name);
+			return Mono.empty();
+		}
+
+		@Override
+		public Set<String> getServiceDefinitionIds() {
+			return this.serviceDefinitionIds;
+		}
+
+		@Override
+		public Set<String> getPlanIds() {
+			return this.planIds;
+		}
+
+		@Override
+		public Set<String> getPlatforms() {
+			return this.platforms;
+		}
+
+	}
+
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events.outbox;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerInvalidParametersException;
+import org.springframework.cloud.servicebroker.model.CloudFoundryContext;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.events.CreateServiceInstanceEventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceCompletionFlow;
+import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceErrorFlow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class FileEventFlowOutboxTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Path directory;
+
+	private List<String> completed;
+
+	private List<Throwable> errors;
+
+	private List<CreateServiceInstanceRequest> errorRequests;
+
+	@Before
+	public void setUp() throws IOException {
+		this.directory = this.temporaryFolder.newFolder("outbox").toPath();
+		this.completed = new CopyOnWriteArrayList<>();
+		this.errors = new CopyOnWriteArrayList<>();
+		this.errorRequests = new CopyOnWriteArrayList<>();
+	}
+
+	@Test
+	public void completionEventsAreDelivered() throws IOException {
+		FileEventFlowOutbox outbox = createOutbox(recordingCompletionFlow());
+
+		outbox.append(completion("instance-1")).block();
+		outbox.drain();
+
+		assertThat(this.completed).containsExactly("instance-1 platform-id dashboard");
+		assertThat(outbox.getPendingEventCount()).isZero();
+		assertThat(acknowledgedSequence()).isEqualTo("0");
+		outbox.dispose();
+	}
+
+	@Test
+	public void errorEventsAreDelivered() throws IOException {
+		FileEventFlowOutbox outbox = createOutbox(recordingCompletionFlow());
+
+		outbox.append(OutboxEvent.error(OutboxEventType.CREATE_SERVICE_INSTANCE, request("instance-1"),
+				new ServiceBrokerInvalidParametersException("invalid"))).block();
+		outbox.drain();
+
+		assertThat(this.completed).isEmpty();
+		assertThat(this.errors).hasSize(1);
+		assertThat(this.errors.get(0)).isInstanceOf(ServiceBrokerInvalidParametersException.class);
+		outbox.dispose();
+	}
+
+	@Test
+	public void journalHoldsNoClassNames() throws IOException {
+		FileEventFlowOutbox outbox = createOutbox(recordingCompletionFlow());
+
+		outbox.append(completion("instance-1")).block();
+		outbox.append(OutboxEvent.error(OutboxEventType.CREATE_SERVICE_INSTANCE, request("instance-2"),
+				new ServiceBrokerInvalidParametersException("invalid"))).block();
+		outbox.dispose();
+
+		String journal = new String(Files.readAllBytes(this.directory.resolve(FileEventFlowOutbox.JOURNAL_FILE_NAME)),
+				StandardCharsets.UTF_8);
+		assertThat(journal).doesNotContain("org.springframework").doesNotContain("@class");
+	}
+
+	@Test
+	public void typeNamesInJournalAreNotResolved() throws IOException {
+		Files.write(this.directory.resolve(FileEventFlowOutbox.JOURNAL_FILE_NAME), ("{\"sequence\":0," +
+				"\"type\":\"CREATE_SERVICE_INSTANCE\",\"request\":{\"body\":{\"service_id\":\"service-definition-id\"," +
+				"\"parameters\":{\"key\":[\"java.net.URL\",\"http://example.com\"]}}," +
+				"\"service_instance_id\":\"instance-1\"}," +
+				"\"errorType\":\"java.lang.IllegalStateException\",\"errorMessage\":\"failed\"}\n")
+				.getBytes(StandardCharsets.UTF_8));
+
+		FileEventFlowOutbox outbox = createOutbox(recordingCompletionFlow());
+		outbox.drain();
+
+		assertThat(this.errors).hasSize(1);
+		assertThat(this.errors.get(0)).isExactlyInstanceOf(ServiceBrokerException.class).hasMessage("failed");
+		assertThat(this.errorRequests.get(0).getServiceInstanceId()).isEqualTo("instance-1");
+		assertThat(this.errorRequests.get(0).getParameters().get("key")).isInstanceOf(List.class);
+		outbox.dispose();
+	}
+
+	@Test
+	public void undeliveredEventsAreDeliveredAfterRestart() throws IOException {
+		FileEventFlowOutbox failing = createOutbox(new CreateServiceInstanceCompletionFlow() {
+			@Override
+			public Mono<Void> complete(CreateServiceInstanceRequest request, CreateServiceInstanceResponse response) {
+				return Mono.error(new IllegalStateException("unavailable"));
+			}
+		});
+		failing.append(completion("instance-1")).block();
+		failing.append(completion("instance-2")).block();
+		failing.drain();
+		assertThat(failing.getPendingEventCount()).isEqualTo(2);
+		failing.dispose();
+
+		FileEventFlowOutbox restarted = createOutbox(recordingCompletionFlow());
+		restarted.drain();
+
+		assertThat(this.completed).containsExactly(
+				"instance-1 platform-id dashboard", "instance-2 platform-id dashboard");
+		restarted.dispose();
+	}
+
+	@Test
+	public void acknowledgedEventsAreNotDeliveredAfterRestart() throws IOException {
+		FileEventFlowOutbox outbox = createOutbox(recordingCompletionFlow());
+		outbox.append(completion("instance-1")).block();
+		outbox.dispose();
+		assertThat(this.completed).containsExactly("instance-1 platform-id dashboard");
+
+		FileEventFlowOutbox restarted = createOutbox(recordingCompletionFlow());
+		restarted.append(completion("instance-2")).block();
+		restarted.drain();
+
+		assertThat(this.completed).containsExactly(
+				"instance-1 platform-id dashboard", "instance-2 platform-id dashboard");
+		restarted.dispose();
+	}
+
+	@Test
+	public void eventFailingRepeatedlyIsMovedToDeadLetterFile() throws IOException {
+		FileEventFlowOutbox outbox = createOutbox(new CreateServiceInstanceCompletionFlow() {
+			@Override
+			public Mono<Void> complete(CreateServiceInstanceRequest request, CreateServiceInstanceResponse response) {
+				if (request.getServiceInstanceId().equals("instance-1")) {
+					return Mono.error(new IllegalStateException("rejected"));
+				}
+				completed.add(request.getServiceInstanceId());
+				return Mono.empty();
+			}
+		}, 3);
+		outbox.append(completion("instance-1")).block();
+		outbox.append(completion("instance-2")).block();
+
+		outbox.drain();
+		outbox.drain();
+		assertThat(this.completed).isEmpty();
+		assertThat(outbox.getPendingEventCount()).isEqualTo(2);
+
+		outbox.drain();
+		assertThat(this.completed).containsExactly("instance-2");
+		assertThat(outbox.getPendingEventCount()).isZero();
+		assertThat(acknowledgedSequence()).isEqualTo("1");
+		String deadLetters = new String(Files.readAllBytes(
+				this.directory.resolve(FileEventFlowOutbox.DEAD_LETTER_FILE_NAME)), StandardCharsets.UTF_8);
+		assertThat(deadLetters).contains("instance-1").doesNotContain("instance-2");
+		outbox.dispose();
+	}
+
+	@Test
+	public void journalIsCompactedToPendingEvents() throws IOException {
+		OutboxEventCodec codec = new OutboxEventCodec();
+		Path journalFile = this.directory.resolve(FileEventFlowOutbox.JOURNAL_FILE_NAME);
+		StringBuilder delivered = new StringBuilder();
+		long sequence = 0;
+		while (delivered.length() <= FileEventFlowOutbox.COMPACTION_THRESHOLD_BYTES) {
+			delivered.append(codec.encode(sequence++, completion("delivered"))).append('\n');
+		}
+		Files.write(journalFile, delivered.toString().getBytes(StandardCharsets.UTF_8));
+		Files.write(this.directory.resolve(FileEventFlowOutbox.ACKNOWLEDGEMENT_FILE_NAME),
+				Long.toString(sequence - 1).getBytes(StandardCharsets.UTF_8));
+
+		FileEventFlowOutbox failing = createOutbox(new CreateServiceInstanceCompletionFlow() {
+			@Override
+			public Mono<Void> complete(CreateServiceInstanceRequest request, CreateServiceInstanceResponse response) {
+				if (request.getServiceInstanceId().equals("instance-2")) {
+					return Mono.error(new IllegalStateException("unavailable"));
+				}
+				completed.add(request.getServiceInstanceId());
+				return Mono.empty();
+			}
+		});
+		failing.append(completion("instance-1")).block();
+		failing.append(completion("instance-2")).block();
+		failing.append(completion("instance-3")).block();
+		failing.drain();
+		failing.dispose();
+
+		String journal = new String(Files.readAllBytes(journalFile), StandardCharsets.UTF_8);
+		assertThat(journal).doesNotContain("delivered").doesNotContain("instance-1")
+				.contains("instance-2").contains("instance-3");
+
+		FileEventFlowOutbox restarted = createOutbox(recordingCompletionFlow());
+		restarted.append(completion("instance-4")).block();
+		restarted.drain();
+
+		assertThat(this.completed).containsExactly("instance-1",
+				"instance-2 platform-id dashboard", "instance-3 platform-id dashboard",
+				"instance-4 platform-id dashboard");
+		restarted.dispose();
+	}
+
+	@Test
+	public void incompleteRecordIsSkipped() throws IOException {
+		Files.write(this.directory.resolve(FileEventFlowOutbox.JOURNAL_FILE_NAME),
+				"{\"sequence\":0,\"type\":\"CREATE_SER".getBytes(StandardCharsets.UTF_8));
+
+		FileEventFlowOutbox outbox = createOutbox(recordingCompletionFlow());
+		outbox.append(completion("instance-1")).block();
+		outbox.drain();
+
+		assertThat(this.completed).containsExactly("instance-1 platform-id dashboard");
+		outbox.dispose();
+	}
+
+	@Test
+	public void concurrentAppendsAreAllWritten() throws IOException {
+		FileEventFlowOutbox outbox = createOutbox(recordingCompletionFlow());
+
+		Flux.range(0, 50)
+				.flatMap(i -> outbox.append(completion("instance-" + i)).subscribeOn(Schedulers.parallel()))
+				.blockLast();
+		outbox.drain();
+
+		assertThat(this.completed).hasSize(50);
+		assertThat(Files.readAllLines(this.directory.resolve(FileEventFlowOutbox.JOURNAL_FILE_NAME))).hasSize(50);
+		outbox.dispose();
+	}
+
+	@Test
+	public void appendAfterDisposeFails() throws IOException {
+		FileEventFlowOutbox outbox = createOutbox(recordingCompletionFlow());
+		outbox.dispose();
+
+		StepVerifier.create(outbox.append(completion("instance-1")))
+				.expectError(IllegalStateException.class)
+				.verify();
+	}
+
+	@Test
+	public void appBindingSecretsAreNotWritten() throws IOException {
+		OutboxEventCodec codec = new OutboxEventCodec();
+		OutboxEvent event = OutboxEvent.completion(OutboxEventType.CREATE_SERVICE_INSTANCE_BINDING,
+				CreateServiceInstanceBindingRequest.builder()
+						.serviceInstanceId("instance-1")
+						.bindingId("binding-1")
+						.serviceDefinitionId("service-definition-id")
+						.planId("plan-id")
+						.build(),
+				CreateServiceInstanceAppBindingResponse.builder()
+						.credentials("password", "secret")
+						.syslogDrainUrl("syslog://drain.example.com")
+						.bindingExisted(true)
+						.build());
+
+		String record = codec.encode(0, event);
+		CreateServiceInstanceAppBindingResponse response =
+				(CreateServiceInstanceAppBindingResponse) codec.decode(record).getResponse();
+
+		assertThat(record).doesNotContain("secret").doesNotContain("drain.example.com");
+		assertThat(response.isBindingExisted()).isTrue();
+		assertThat(response.getCredentials()).isEmpty();
+	}
+
+	@Test
+	public void filesAreReadableByOwnerOnly() throws IOException {
+		assumeTrue(this.directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+		FileEventFlowOutbox outbox = createOutbox(recordingCompletionFlow());
+
+		outbox.append(completion("instance-1")).block();
+		outbox.drain();
+		outbox.dispose();
+
+		Set<PosixFilePermission> ownerOnly = PosixFilePermissions.fromString("rw-------");
+		assertThat(Files.getPosixFilePermissions(this.directory.resolve(FileEventFlowOutbox.JOURNAL_FILE_NAME)))
+				.isEqualTo(ownerOnly);
+		assertThat(Files.getPosixFilePermissions(
+				this.directory.resolve(FileEventFlowOutbox.ACKNOWLEDGEMENT_FILE_NAME))).isEqualTo(ownerOnly);
+	}
+
+	private FileEventFlowOutbox createOutbox(CreateServiceInstanceCompletionFlow completionFlow) throws IOException {
+		return createOutbox(completionFlow, FileEventFlowOutbox.DEFAULT_MAX_ATTEMPTS);
+	}
+
+	private FileEventFlowOutbox createOutbox(CreateServiceInstanceCompletionFlow completionFlow, int maxAttempts)
+			throws IOException {
+		CreateServiceInstanceErrorFlow errorFlow = new CreateServiceInstanceErrorFlow() {
+			@Override
+			public Mono<Void> error(CreateServiceInstanceRequest request, Throwable t) {
+				errors.add(t);
+				errorRequests.add(request);
+				return Mono.empty();
+			}
+		};
+		EventFlowRegistries registries = new EventFlowRegistries(
+				new CreateServiceInstanceEventFlowRegistry(null,
+						Collections.singletonList(completionFlow), Collections.singletonList(errorFlow)),
+				null, null, null, null, null, null);
+		return new FileEventFlowOutbox(this.directory, registries, 10, Duration.ofHours(1), true, maxAttempts);
+	}
+
+	private CreateServiceInstanceCompletionFlow recordingCompletionFlow() {
+		return new CreateServiceInstanceCompletionFlow() {
+			@Override
+			public Mono<Void> complete(CreateServiceInstanceRequest request, CreateServiceInstanceResponse response) {
+				completed.add(request.getServiceInstanceId() + " " + request.getPlatformInstanceId() + " "
+						+ response.getDashboardUrl());
+				return Mono.empty();
+			}
+		};
+	}
+
+	private String acknowledgedSequence() throws IOException {
+		return new String(Files.readAllBytes(this.directory.resolve(FileEventFlowOutbox.ACKNOWLEDGEMENT_FILE_NAME)),
+				StandardCharsets.UTF_8);
+	}
+
+	private static OutboxEvent completion(String serviceInstanceId) {
+		return OutboxEvent.completion(OutboxEventType.CREATE_SERVICE_INSTANCE, request(serviceInstanceId),
+				CreateServiceInstanceResponse.builder()
+						.dashboardUrl("dashboard")
+						.async(true)
+						.build());
+	}
+
+	private static CreateServiceInstanceRequest request(String serviceInstanceId) {
+		return CreateServiceInstanceRequest.builder()
+				.serviceInstanceId(serviceInstanceId)
+				.serviceDefinitionId("service-definition-id")
+				.planId("plan-id")
+				.parameters("key", "value")
+				.platformInstanceId("platform-id")
+				.originatingIdentity(CloudFoundryContext.builder()
+						.property("user_id", "user")
+						.build())
+				.build();
+	}
+
+}
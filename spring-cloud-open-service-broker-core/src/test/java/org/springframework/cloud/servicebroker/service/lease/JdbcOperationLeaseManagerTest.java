@@ -0,0 +1,214 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JdbcOperationLeaseManagerTest {
+
+	private static final Duration LEASE_DURATION = Duration.ofSeconds(30);
+
+	private EmbeddedDatabase database;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private JdbcOperationLeaseManager leaseManager;
+
+	@Before
+	public void setUp() {
+		this.database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.addScript("classpath:org/springframework/cloud/servicebroker/service/lease/schema.sql")
+				.build();
+		this.jdbcTemplate = new JdbcTemplate(this.database);
+		this.leaseManager = new JdbcOperationLeaseManager(this.database, LEASE_DURATION, 100);
+	}
+
+	@After
+	public void tearDown() {
+		this.leaseManager.dispose();
+		this.database.shutdown();
+	}
+
+	@Test
+	public void leaseIsGrantedWhenFree() {
+		StepVerifier.create(this.leaseManager.acquire("instance-id", "create_service_instance"))
+				.assertNext(lease -> {
+					assertThat(lease.getServiceInstanceId()).isEqualTo("instance-id");
+					assertThat(lease.getOperation()).isEqualTo("create_service_instance");
+					assertThat(lease.getOwner()).isNotEmpty();
+				})
+				.verifyComplete();
+
+		assertThat(leaseRows()).isEqualTo(1);
+		assertThat(this.leaseManager.getHeldLeases()).hasSize(1);
+	}
+
+	@Test
+	public void leaseIsNotGrantedWhileHeld() {
+		this.leaseManager.acquire("instance-id", "create_service_instance").block();
+
+		StepVerifier.create(this.leaseManager.acquire("instance-id", "delete_service_instance"))
+				.expectErrorSatisfies(e -> {
+					assertThat(e).isInstanceOf(OperationLeaseUnavailableException.class);
+					assertThat(((OperationLeaseUnavailableException) e).getLeasedOperation())
+							.isEqualTo("create_service_instance");
+				})
+				.verify();
+	}
+
+	@Test
+	public void leaseIsNotGrantedWhileHeldByAnotherNode() {
+		JdbcOperationLeaseManager otherNode = new JdbcOperationLeaseManager(this.database, LEASE_DURATION, 100);
+		try {
+			otherNode.acquire("instance-id", "update_service_instance").block();
+
+			StepVerifier.create(this.leaseManager.acquire("instance-id", "delete_service_instance"))
+					.expectError(OperationLeaseUnavailableException.class)
+					.verify();
+		}
+		finally {
+			otherNode.dispose();
+		}
+	}
+
+	@Test
+	public void leaseIsGrantedAgainAfterRelease() {
+		OperationLease lease = this.leaseManager.acquire("instance-id", "create_service_instance").block();
+
+		StepVerifier.create(this.leaseManager.release(lease)
+				.then(this.leaseManager.acquire("instance-id", "delete_service_instance")))
+				.assertNext(next -> assertThat(next.getOperation()).isEqualTo("delete_service_instance"))
+				.verifyComplete();
+
+		assertThat(leaseRows()).isEqualTo(1);
+	}
+
+	@Test
+	public void expiredLeaseIsGranted() {
+		this.jdbcTemplate.update("INSERT INTO osb_operation_lease VALUES (?, ?, ?, ?)",
+				"instance-id", "create_service_instance", "other-owner", System.currentTimeMillis() - 1);
+
+		StepVerifier.create(this.leaseManager.acquire("instance-id", "delete_service_instance"))
+				.expectNextCount(1)
+				.verifyComplete();
+
+		assertThat(this.jdbcTemplate.queryForObject("SELECT owner FROM osb_operation_lease", String.class))
+				.isNotEqualTo("other-owner");
+	}
+
+	@Test
+	public void concurrentAcquisitionsOfDifferentInstancesAreAllGranted() {
+		List<Mono<OperationLease>> acquisitions = IntStream.range(0, 200)
+				.mapToObj(i -> this.leaseManager.acquire("instance-" + i, "create_service_instance"))
+				.collect(Collectors.toList());
+
+		StepVerifier.create(Flux.merge(acquisitions))
+				.expectNextCount(200)
+				.verifyComplete();
+
+		assertThat(leaseRows()).isEqualTo(200);
+	}
+
+	@Test
+	public void concurrentAcquisitionsOfTheSameInstanceGrantOneLease() {
+		List<Mono<Boolean>> acquisitions = IntStream.range(0, 20)
+				.mapToObj(i -> this.leaseManager.acquire("instance-id", "update_service_instance")
+						.map(lease -> true)
+						.onErrorReturn(OperationLeaseUnavailableException.class, false))
+				.collect(Collectors.toList());
+
+		List<Boolean> granted = Flux.merge(acquisitions).collectList().block();
+
+		assertThat(granted).hasSize(20);
+		assertThat(granted).containsOnlyOnce(true);
+	}
+
+	@Test
+	public void leasedOperationIsFound() {
+		this.leaseManager.acquire("instance-id", "create_service_instance").block();
+
+		StepVerifier.create(this.leaseManager.getLeasedOperation("instance-id"))
+				.expectNext("create_service_instance")
+				.verifyComplete();
+
+		StepVerifier.create(this.leaseManager.getLeasedOperation("other-instance-id"))
+				.verifyComplete();
+	}
+
+	@Test
+	public void heldLeasesAreRenewed() {
+		this.leaseManager.acquire("instance-id", "create_service_instance").block();
+		long expiresAt = expiresAt();
+
+		this.jdbcTemplate.update("UPDATE osb_operation_lease SET expires_at = ?", expiresAt - 1000);
+		this.leaseManager.renewLeases();
+
+		assertThat(expiresAt()).isGreaterThanOrEqualTo(expiresAt);
+		assertThat(this.leaseManager.getHeldLeases()).hasSize(1);
+	}
+
+	@Test
+	public void leaseTakenOverByAnotherNodeIsLost() {
+		this.leaseManager.acquire("instance-id", "create_service_instance").block();
+
+		this.jdbcTemplate.update("UPDATE osb_operation_lease SET owner = ?", "other-owner");
+		this.leaseManager.renewLeases();
+
+		assertThat(this.leaseManager.getHeldLeases()).isEmpty();
+	}
+
+	@Test
+	public void heldLeasesAreReleasedOnDispose() {
+		this.leaseManager.acquire("instance-id", "create_service_instance").block();
+
+		this.leaseManager.dispose();
+
+		assertThat(leaseRows()).isZero();
+		StepVerifier.create(this.leaseManager.acquire("instance-id", "create_service_instance"))
+				.expectError(IllegalStateException.class)
+				.verify();
+	}
+
+	private int leaseRows() {
+		return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM osb_operation_lease", Integer.class);
+	}
+
+	private long expiresAt() {
+		return this.jdbcTemplate.queryForObject("SELECT expires_at FROM osb_operation_lease", Long.class);
+	}
+
+}
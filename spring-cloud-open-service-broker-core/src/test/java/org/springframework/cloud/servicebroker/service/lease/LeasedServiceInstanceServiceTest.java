@@ -0,0 +1,259 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerConcurrencyException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOperationInProgressException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerUnavailableException;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.BlockingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.BlockingServiceInstanceServiceAdapter;
+import org.springframework.cloud.servicebroker.service.BlockingServiceSchedulers;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadline;
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadlines;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class LeasedServiceInstanceServiceTest {
+
+	private final OperationLease lease = new OperationLease("instance-id", "create_service_instance", "owner");
+
+	private ServiceInstanceService delegate;
+
+	private OperationLeaseManager leaseManager;
+
+	private LeasedServiceInstanceService service;
+
+	@Before
+	public void setUp() {
+		this.delegate = mock(ServiceInstanceService.class);
+		this.leaseManager = mock(OperationLeaseManager.class);
+		given(this.leaseManager.release(any())).willReturn(Mono.empty());
+		this.service = new LeasedServiceInstanceService(this.delegate, this.leaseManager);
+	}
+
+	@Test
+	public void createServiceInstanceHoldsLease() {
+		CreateServiceInstanceRequest request = createRequest();
+		given(this.leaseManager.acquire("instance-id", "create_service_instance")).willReturn(Mono.just(this.lease));
+		given(this.delegate.createServiceInstance(request))
+				.willReturn(Mono.just(CreateServiceInstanceResponse.builder().build()));
+
+		StepVerifier.create(this.service.createServiceInstance(request))
+				.expectNext(CreateServiceInstanceResponse.builder().build())
+				.verifyComplete();
+
+		verify(this.leaseManager, timeout(1000)).release(this.lease);
+	}
+
+	@Test
+	public void leaseIsReleasedWhenServiceFails() {
+		CreateServiceInstanceRequest request = createRequest();
+		given(this.leaseManager.acquire("instance-id", "create_service_instance")).willReturn(Mono.just(this.lease));
+		given(this.delegate.createServiceInstance(request)).willReturn(Mono.error(new IllegalStateException()));
+
+		StepVerifier.create(this.service.createServiceInstance(request))
+				.expectError(IllegalStateException.class)
+				.verify();
+
+		verify(this.leaseManager, timeout(1000)).release(this.lease);
+	}
+
+	@Test
+	public void deadlineReachesServiceAndCancelsIt() {
+		CreateServiceInstanceRequest request = createRequest();
+		AtomicReference<OperationDeadline> deadline = new AtomicReference<>();
+		AtomicBoolean cancelled = new AtomicBoolean();
+		given(this.leaseManager.acquire("instance-id", "create_service_instance")).willReturn(Mono.just(this.lease));
+		given(this.delegate.createServiceInstance(request)).willReturn(OperationDeadline.current()
+				.doOnNext(deadline::set)
+				.then(Mono.<CreateServiceInstanceResponse>never())
+				.doOnCancel(() -> cancelled.set(true)));
+		OperationDeadlines deadlines = new OperationDeadlines(Duration.ofMillis(100), Collections.emptyMap(), null);
+
+		StepVerifier.create(deadlines.apply("create_service_instance", null,
+				this.service.createServiceInstance(request)))
+				.expectError(ServiceBrokerUnavailableException.class)
+				.verify();
+
+		assertThat(deadline.get()).isNotNull();
+		assertThat(cancelled.get()).isTrue();
+		verify(this.leaseManager, timeout(1000)).release(this.lease);
+	}
+
+	@Test
+	public void leaseIsHeldUntilBlockingServiceReturnsWhenOperationIsCancelled() throws InterruptedException {
+		CreateServiceInstanceRequest request = createRequest();
+		CountDownLatch called = new CountDownLatch(1);
+		CountDownLatch returned = new CountDownLatch(1);
+		BlockingServiceSchedulers schedulers = new BlockingServiceSchedulers(
+				BlockingServiceSchedulers.boundedExecutorFactory(1, 10, Duration.ofSeconds(10)));
+		try {
+			LeasedServiceInstanceService service = new LeasedServiceInstanceService(
+					new BlockingServiceInstanceServiceAdapter(new BlockingServiceInstanceService() {
+						@Override
+						public CreateServiceInstanceResponse createServiceInstance(
+								CreateServiceInstanceRequest serviceRequest) {
+							called.countDown();
+							awaitUninterruptibly(returned);
+							return CreateServiceInstanceResponse.builder().build();
+						}
+
+						@Override
+						public DeleteServiceInstanceResponse deleteServiceInstance(
+								DeleteServiceInstanceRequest serviceRequest) {
+							return DeleteServiceInstanceResponse.builder().build();
+						}
+					}, schedulers), this.leaseManager);
+			given(this.leaseManager.acquire("instance-id", "create_service_instance"))
+					.willReturn(Mono.just(this.lease));
+
+			Disposable operation = service.createServiceInstance(request).subscribe();
+			assertThat(called.await(1, TimeUnit.SECONDS)).isTrue();
+			operation.dispose();
+
+			verify(this.leaseManager, after(200).never()).release(any());
+			returned.countDown();
+			verify(this.leaseManager, timeout(1000)).release(this.lease);
+		}
+		finally {
+			returned.countDown();
+			schedulers.dispose();
+		}
+	}
+
+	@Test
+	public void contendedLeaseFailsWithConcurrencyError() {
+		given(this.leaseManager.acquire("instance-id", "create_service_instance"))
+				.willReturn(Mono.error(new OperationLeaseUnavailableException("instance-id", "delete_service_instance")));
+
+		StepVerifier.create(this.service.createServiceInstance(createRequest()))
+				.expectError(ServiceBrokerConcurrencyException.class)
+				.verify();
+
+		verifyZeroInteractions(this.delegate);
+	}
+
+	@Test
+	public void getServiceInstanceDuringCreationFailsWithOperationInProgress() {
+		given(this.leaseManager.getLeasedOperation("instance-id")).willReturn(Mono.just("create_service_instance"));
+
+		StepVerifier.create(this.service.getServiceInstance(getRequest()))
+				.expectError(ServiceBrokerOperationInProgressException.class)
+				.verify();
+
+		verify(this.delegate, never()).getServiceInstance(any());
+	}
+
+	@Test
+	public void getServiceInstanceDuringUpdateFailsWithConcurrencyError() {
+		given(this.leaseManager.getLeasedOperation("instance-id")).willReturn(Mono.just("update_service_instance"));
+
+		StepVerifier.create(this.service.getServiceInstance(getRequest()))
+				.expectError(ServiceBrokerConcurrencyException.class)
+				.verify();
+	}
+
+	@Test
+	public void getServiceInstanceWithoutLeaseCallsService() {
+		GetServiceInstanceRequest request = getRequest();
+		given(this.leaseManager.getLeasedOperation("instance-id")).willReturn(Mono.empty());
+		given(this.delegate.getServiceInstance(request))
+				.willReturn(Mono.just(GetServiceInstanceResponse.builder().build()));
+
+		StepVerifier.create(this.service.getServiceInstance(request))
+				.expectNext(GetServiceInstanceResponse.builder().build())
+				.verifyComplete();
+	}
+
+	@Test
+	public void getLastOperationDoesNotCheckLease() {
+		GetLastServiceOperationRequest request = GetLastServiceOperationRequest.builder()
+				.serviceInstanceId("instance-id")
+				.build();
+		given(this.delegate.getLastOperation(request))
+				.willReturn(Mono.just(GetLastServiceOperationResponse.builder().build()));
+
+		StepVerifier.create(this.service.getLastOperation(request))
+				.expectNextCount(1)
+				.verifyComplete();
+
+		verify(this.leaseManager, never()).getLeasedOperation(anyString());
+	}
+
+	private static void awaitUninterruptibly(CountDownLatch latch) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				latch.await();
+				break;
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static CreateServiceInstanceRequest createRequest() {
+		return CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("instance-id")
+				.serviceDefinitionId("service-id")
+				.planId("plan-id")
+				.build();
+	}
+
+	private static GetServiceInstanceRequest getRequest() {
+		return GetServiceInstanceRequest.builder()
+				.serviceInstanceId("instance-id")
+				.build();
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.longpoll;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.service.deadline.OperationDeadline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OperationStateSignalsTest {
+
+	private static final String IN_PROGRESS = "in progress";
+
+	private final AtomicReference<String> state = new AtomicReference<>(IN_PROGRESS);
+
+	private final AtomicInteger queries = new AtomicInteger();
+
+	@Test
+	public void changedStateIsReturnedWithoutWaiting() {
+		OperationStateSignals signals = new OperationStateSignals(Duration.ofMinutes(1));
+		this.state.set("succeeded");
+
+		Duration elapsed = StepVerifier.create(poll(signals, null))
+				.expectNext("succeeded")
+				.verifyComplete();
+
+		assertThat(elapsed).isLessThan(Duration.ofSeconds(5));
+		assertThat(this.queries).hasValue(1);
+		assertThat(signals.getWaitingOperations()).isEqualTo(0);
+	}
+
+	@Test
+	public void signalWakesWaitingRequests() {
+		OperationStateSignals signals = new OperationStateSignals(Duration.ofMinutes(1));
+
+		StepVerifier.create(Mono.zip(poll(signals, null), poll(signals, null)))
+				.then(() -> assertThat(signals.getWaitingOperations()).isEqualTo(1))
+				.then(() -> {
+					this.state.set("succeeded");
+					signals.signal("instance-id");
+				})
+				.assertNext(states -> {
+					assertThat(states.getT1()).isEqualTo("succeeded");
+					assertThat(states.getT2()).isEqualTo("succeeded");
+				})
+				.verifyComplete();
+
+		assertThat(this.queries).hasValue(4);
+		assertThat(signals.getWaitingOperations()).isEqualTo(0);
+	}
+
+	@Test
+	public void signalForAnotherBindingIsIgnored() {
+		OperationStateSignals signals = new OperationStateSignals(Duration.ofMillis(200));
+
+		StepVerifier.create(poll(signals, "binding-id"))
+				.then(() -> {
+					this.state.set("succeeded");
+					signals.signal("instance-id", "other-binding-id");
+					signals.signal("instance-id");
+				})
+				.expectNoEvent(Duration.ofMillis(100))
+				.expectNext("succeeded")
+				.verifyComplete();
+
+		assertThat(signals.getWaitingOperations()).isEqualTo(0);
+	}
+
+	@Test
+	public void unchangedStateIsReturnedAfterMaxWait() {
+		OperationStateSignals signals = new OperationStateSignals(Duration.ofMillis(100));
+
+		StepVerifier.create(poll(signals, null))
+				.expectNext(IN_PROGRESS)
+				.verifyComplete();
+
+		assertThat(this.queries).hasValue(2);
+		assertThat(signals.getWaitingOperations()).isEqualTo(0);
+	}
+
+	@Test
+	public void stateChangedWithoutSignalIsReturnedAtRecheck() {
+		OperationStateSignals signals = new OperationStateSignals(Duration.ofMinutes(1), Duration.ofMillis(100));
+
+		Duration elapsed = StepVerifier.create(poll(signals, null))
+				.then(() -> this.state.set("succeeded"))
+				.expectNext("succeeded")
+				.verifyComplete();
+
+		assertThat(elapsed).isLessThan(Duration.ofSeconds(5));
+		assertThat(signals.getWaitingOperations()).isEqualTo(0);
+	}
+
+	@Test
+	public void waitEndsBeforeDeadline() {
+		OperationStateSignals signals = new OperationStateSignals(Duration.ofMinutes(1));
+		OperationDeadline deadline = OperationDeadline.after(Duration.ofMillis(1500));
+
+		Duration elapsed = StepVerifier.create(poll(signals, null)
+				.subscriberContext(context -> context.put(OperationDeadline.CONTEXT_KEY, deadline)))
+				.expectNext(IN_PROGRESS)
+				.verifyComplete();
+
+		assertThat(elapsed).isLessThan(Duration.ofSeconds(5));
+		assertThat(deadline.isExpired()).isFalse();
+	}
+
+	@Test
+	public void nearDeadlineSkipsWaiting() {
+		OperationStateSignals signals = new OperationStateSignals(Duration.ofMinutes(1));
+		OperationDeadline deadline = OperationDeadline.after(Duration.ofMillis(500));
+
+		StepVerifier.create(poll(signals, null)
+				.subscriberContext(context -> context.put(OperationDeadline.CONTEXT_KEY, deadline)))
+				.expectNext(IN_PROGRESS)
+				.verifyComplete();
+
+		assertThat(this.queries).hasValue(2);
+	}
+
+	@Test
+	public void cancelledRequestStopsWaiting() {
+		OperationStateSignals signals = new OperationStateSignals(Duration.ofMinutes(1));
+
+		StepVerifier.create(poll(signals, null))
+				.then(() -> assertThat(signals.getWaitingOperations()).isEqualTo(1))
+				.thenCancel()
+				.verify();
+
+		assertThat(signals.getWaitingOperations()).isEqualTo(0);
+	}
+
+	private Mono<String> poll(OperationStateSignals signals, String bindingId) {
+		return signals.poll("instance-id", bindingId,
+				() -> Mono.fromSupplier(() -> {
+					this.queries.incrementAndGet();
+					return this.state.get();
+				}),
+				IN_PROGRESS::equals);
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.priority;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerUnavailableException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OperationSchedulerTest {
+
+	private final AtomicLong nanos = new AtomicLong();
+
+	private final List<String> started = new ArrayList<>();
+
+	@Test
+	public void operationsBeyondConcurrencyLimitWait() {
+		OperationScheduler scheduler = scheduler(2, 10);
+
+		Disposable first = submit(scheduler, OperationClass.CREATE, "create-1");
+		submit(scheduler, OperationClass.CREATE, "create-2");
+		submit(scheduler, OperationClass.CREATE, "create-3");
+
+		assertThat(this.started).containsExactly("create-1", "create-2");
+		assertThat(scheduler.getInFlightOperations()).isEqualTo(2);
+		assertThat(scheduler.getQueuedOperations(OperationClass.CREATE)).isEqualTo(1);
+
+		first.dispose();
+
+		assertThat(this.started).containsExactly("create-1", "create-2", "create-3");
+		assertThat(scheduler.getQueuedOperations(OperationClass.CREATE)).isEqualTo(0);
+	}
+
+	@Test
+	public void completedOperationsAdmitWaitingOperations() {
+		OperationScheduler scheduler = scheduler(1, 10);
+		Disposable running = submit(scheduler, OperationClass.CREATE, "create-1");
+
+		StepVerifier.create(scheduler.schedule(OperationClass.DELETE, () -> Mono.just("deleted")))
+				.then(() -> assertThat(scheduler.getQueuedOperations(OperationClass.DELETE)).isEqualTo(1))
+				.then(running::dispose)
+				.expectNext("deleted")
+				.verifyComplete();
+
+		assertThat(scheduler.getInFlightOperations()).isEqualTo(0);
+	}
+
+	@Test
+	public void deleteLatencyStaysFlatDuringProvisioningStorm() {
+		assertThat(completionsBeforeDeleteStarts(10)).isEqualTo(1);
+		assertThat(completionsBeforeDeleteStarts(100)).isEqualTo(1);
+		assertThat(completionsBeforeDeleteStarts(1000)).isEqualTo(1);
+	}
+
+	@Test
+	public void weightedFairnessKeepsCreatesMoving() {
+		OperationScheduler scheduler = scheduler(1, 100);
+		Map<String, Disposable> operations = new HashMap<>();
+		operations.put("running", submit(scheduler, OperationClass.CREATE, "running"));
+		for (int i = 0; i < 20; i++) {
+			operations.put("create-" + i, submit(scheduler, OperationClass.CREATE, "create-" + i));
+			operations.put("delete-" + i, submit(scheduler, OperationClass.DELETE, "delete-" + i));
+		}
+
+		for (int i = 0; i < 18; i++) {
+			operations.get(this.started.get(this.started.size() - 1)).dispose();
+		}
+
+		List<String> admitted = this.started.subList(1, 19);
+		assertThat(admitted).filteredOn(name -> name.startsWith("create")).hasSize(2);
+		assertThat(admitted).filteredOn(name -> name.startsWith("delete")).hasSize(16);
+	}
+
+	@Test
+	public void starvingOperationIsAdmittedFirst() {
+		OperationScheduler scheduler = scheduler(1, 100);
+		Disposable running = submit(scheduler, OperationClass.DELETE, "running");
+		submit(scheduler, OperationClass.CREATE, "create");
+		this.nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+		submit(scheduler, OperationClass.DELETE, "delete");
+
+		running.dispose();
+
+		assertThat(this.started).containsExactly("running", "create");
+	}
+
+	@Test
+	public void operationsBeyondQueueCapacityAreRejected() {
+		OperationScheduler scheduler = scheduler(1, 1);
+		submit(scheduler, OperationClass.CREATE, "create-1");
+		submit(scheduler, OperationClass.CREATE, "create-2");
+
+		StepVerifier.create(scheduler.schedule(OperationClass.DELETE, () -> Mono.just("deleted")))
+				.expectError(ServiceBrokerUnavailableException.class)
+				.verify();
+	}
+
+	@Test
+	public void cancelledWaitingOperationLeavesQueue() {
+		OperationScheduler scheduler = scheduler(1, 10);
+		Disposable running = submit(scheduler, OperationClass.CREATE, "create-1");
+		Disposable waiting = submit(scheduler, OperationClass.CREATE, "create-2");
+
+		waiting.dispose();
+		running.dispose();
+
+		assertThat(this.started).containsExactly("create-1");
+		assertThat(scheduler.getInFlightOperations()).isEqualTo(0);
+		assertThat(scheduler.getQueuedOperations(OperationClass.CREATE)).isEqualTo(0);
+	}
+
+	@Test
+	public void configuredWeightsOverrideDefaults() {
+		OperationScheduler scheduler = new OperationScheduler(1, 1,
+				Collections.singletonMap(OperationClass.CREATE, 5), Duration.ofSeconds(10));
+
+		assertThat(scheduler.getWeights())
+				.containsEntry(OperationClass.CREATE, 5)
+				.containsEntry(OperationClass.DELETE, OperationClass.DELETE.getDefaultWeight());
+	}
+
+	private int completionsBeforeDeleteStarts(int stormSize) {
+		this.started.clear();
+		OperationScheduler scheduler = scheduler(4, stormSize + 1);
+		List<Disposable> creates = new ArrayList<>();
+		for (int i = 0; i < stormSize; i++) {
+			creates.add(submit(scheduler, OperationClass.CREATE, "create"));
+		}
+		submit(scheduler, OperationClass.DELETE, "delete");
+
+		int completions = 0;
+		while (!this.started.contains("delete")) {
+			creates.get(completions++).dispose();
+		}
+		return completions;
+	}
+
+	private OperationScheduler scheduler(int maxConcurrentOperations, int maxQueuedOperations) {
+		return new OperationScheduler(maxConcurrentOperations, maxQueuedOperations, null, Duration.ofSeconds(10),
+				this.nanos::get);
+	}
+
+	private Disposable submit(OperationScheduler scheduler, OperationClass operationClass, String name) {
+		return scheduler.schedule(operationClass, () -> {
+			this.started.add(name);
+			return Mono.never();
+		}).subscribe();
+	}
+
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.reconcile;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceDoesNotExistException;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.BeanCatalogService;
+import org.springframework.cloud.servicebroker.service.CatalogService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReconciliationEngineTest {
+
+	private static final Instant CREATED_AT = Instant.parse("2019-01-01T00:00:00Z");
+
+	private final CatalogService catalogService = new BeanCatalogService(Catalog.builder()
+			.serviceDefinitions(ServiceDefinition.builder()
+					.id("service-id")
+					.plans(Plan.builder().id("plan-id").build())
+					.build())
+			.build());
+
+	private final List<String> deleted = new CopyOnWriteArrayList<>();
+
+	private final List<DeleteServiceInstanceRequest> instanceRequests = new CopyOnWriteArrayList<>();
+
+	@Test
+	public void orphansAreDeletedWithBindingsFirst() {
+		PlatformInventorySource platform = () -> Flux.just(
+				instance("a"), binding("a", "a-1"),
+				instance("c"),
+				instance("d"));
+		BackendInventorySource backend = () -> Flux.just(
+				instance("a"), binding("a", "a-1"), binding("a", "a-2"),
+				instance("b"), binding("b", "b-1"), binding("b", "b-2"),
+				instance("c"),
+				instance("e"));
+
+		StepVerifier.create(engine(platform, backend, 1, 0, 100).reconcile(new RecordingInstanceService(),
+				new RecordingBindingService()))
+				.assertNext(result -> {
+					assertThat(result.getMatchedItems()).isEqualTo(3);
+					assertThat(result.getMissingItems()).isEqualTo(1);
+					assertThat(result.getDeletedServiceInstances()).isEqualTo(2);
+					assertThat(result.getDeletedBindings()).isEqualTo(3);
+					assertThat(result.getFailedDeletes()).isEqualTo(0);
+				})
+				.verifyComplete();
+
+		assertThat(this.deleted).containsExactly("a/a-2", "b/b-1", "b/b-2", "b", "e");
+		assertThat(this.instanceRequests).allSatisfy(request -> {
+			assertThat(request.getServiceDefinition().getId()).isEqualTo("service-id");
+			assertThat(request.getPlan().getId()).isEqualTo("plan-id");
+			assertThat(request.isAsyncAccepted()).isTrue();
+		});
+	}
+
+	@Test
+	public void goneOrphansAreDeletedAndFailuresCounted() {
+		PlatformInventorySource platform = Flux::empty;
+		BackendInventorySource backend = () -> Flux.just(instance("gone"), instance("ok"), instance("broken"))
+				.sort();
+		ServiceInstanceService service = new RecordingInstanceService() {
+			@Override
+			public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+				if (request.getServiceInstanceId().equals("gone")) {
+					return Mono.error(new ServiceInstanceDoesNotExistException("gone"));
+				}
+				if (request.getServiceInstanceId().equals("broken")) {
+					return Mono.error(new IllegalStateException("backend unavailable"));
+				}
+				return super.deleteServiceInstance(request);
+			}
+		};
+
+		StepVerifier.create(engine(platform, backend, 2, 0, 100).reconcile(service, new RecordingBindingService()))
+				.assertNext(result -> {
+					assertThat(result.getDeletedServiceInstances()).isEqualTo(2);
+					assertThat(result.getFailedDeletes()).isEqualTo(1);
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	public void recentOrUndatedOrphansAreSkipped() {
+		PlatformInventorySource platform = () -> Flux.just(instance("a"));
+		BackendInventorySource backend = () -> Flux.just(
+				instance("a"), InventoryItem.binding("a", "a-1", "service-id", "plan-id", Instant.now()),
+				instance("b"), InventoryItem.binding("b", "b-1", "service-id", "plan-id"),
+				InventoryItem.serviceInstance("c", "service-id", "plan-id",
+						Instant.now().minus(Duration.ofMinutes(30))),
+				instance("d"));
+
+		StepVerifier.create(engine(platform, backend, 1, 0, 100).reconcile(new RecordingInstanceService(),
+				new RecordingBindingService()))
+				.assertNext(result -> {
+					assertThat(result.getMatchedItems()).isEqualTo(1);
+					assertThat(result.getSkippedItems()).isEqualTo(4);
+					assertThat(result.getDeletedServiceInstances()).isEqualTo(1);
+				})
+				.verifyComplete();
+
+		assertThat(this.deleted).containsExactly("d");
+	}
+
+	@Test
+	public void unorderedInventoryFailsRun() {
+		PlatformInventorySource platform = () -> Flux.just(instance("b"), instance("a"));
+		BackendInventorySource backend = () -> Flux.just(instance("a"), instance("b"));
+
+		StepVerifier.create(engine(platform, backend, 1, 0, 100).reconcile(new RecordingInstanceService(),
+				new RecordingBindingService()))
+				.expectErrorSatisfies(e -> assertThat(e)
+						.isInstanceOf(IllegalStateException.class)
+						.hasMessageStartingWith("The platform inventory is not in order"))
+				.verify();
+
+		assertThat(this.deleted).isEmpty();
+	}
+
+	@Test
+	public void runStopsBeforeDeletingWhenOrphansExceedMaximumDeletes() {
+		PlatformInventorySource platform = Flux::empty;
+		BackendInventorySource backend = () -> Flux.range(0, 100)
+				.map(i -> instance(String.format("instance-%03d", i)));
+
+		StepVerifier.create(engine(platform, backend, 1, 0, 10).reconcile(new RecordingInstanceService(),
+				new RecordingBindingService()))
+				.expectErrorSatisfies(e -> assertThat(e)
+						.isInstanceOf(IllegalStateException.class)
+						.hasMessageContaining("found 100 orphans, more than the maximum of 10 deletes"))
+				.verify();
+
+		assertThat(this.deleted).isEmpty();
+	}
+
+	@Test
+	public void runStopsBeforeDeletingWhenOrphansExceedMaximumRatio() {
+		PlatformInventorySource platform = () -> Flux.range(0, 10)
+				.map(i -> instance(String.format("instance-%03d", i)));
+		BackendInventorySource backend = () -> Flux.range(0, 20)
+				.map(i -> instance(String.format("instance-%03d", i)));
+
+		StepVerifier.create(new ReconciliationEngine(platform, backend, this.catalogService, 1, 0, 100, 0.1,
+				Duration.ofHours(1)).reconcile(new RecordingInstanceService(), new RecordingBindingService()))
+				.expectErrorSatisfies(e -> assertThat(e)
+						.isInstanceOf(IllegalStateException.class)
+						.hasMessageContaining("found 10 orphans among 20 backend items"))
+				.verify();
+
+		assertThat(this.deleted).isEmpty();
+	}
+
+	@Test
+	public void runStopsAtMaximumDeletesWhenInventoryGrows() {
+		AtomicInteger reads = new AtomicInteger();
+		PlatformInventorySource platform = Flux::empty;
+		BackendInventorySource backend = () -> Flux.range(0, reads.getAndIncrement() == 0 ? 5 : 100)
+				.map(i -> instance(String.format("instance-%03d", i)));
+
+		StepVerifier.create(engine(platform, backend, 1, 0, 10).reconcile(new RecordingInstanceService(),
+				new RecordingBindingService()))
+				.expectErrorSatisfies(e -> assertThat(e)
+						.isInstanceOf(IllegalStateException.class)
+						.hasMessageContaining("stopped after reaching the maximum of 10 deletes"))
+				.verify();
+
+		assertThat(this.deleted).hasSize(10);
+	}
+
+	@Test
+	public void deletesAreRateLimited() {
+		PlatformInventorySource platform = Flux::empty;
+		BackendInventorySource backend = () -> Flux.just(instance("a"), instance("b"), instance("c"),
+				instance("d"), instance("e"));
+
+		Duration elapsed = StepVerifier.create(engine(platform, backend, 5, 20, 100)
+				.reconcile(new RecordingInstanceService(), new RecordingBindingService()))
+				.expectNextCount(1)
+				.verifyComplete();
+
+		assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofMillis(190));
+		assertThat(this.deleted).hasSize(5);
+	}
+
+	@Test
+	public void largeInventoriesAreStreamed() {
+		int size = 200_000;
+		PlatformInventorySource platform = () -> Flux.range(0, size)
+				.map(i -> instance(String.format("instance-%07d", i)));
+		BackendInventorySource backend = () -> Flux.range(0, size + 1)
+				.map(i -> instance(String.format("instance-%07d", i)));
+
+		StepVerifier.create(engine(platform, backend, 4, 0, 100).reconcile(new RecordingInstanceService(),
+				new RecordingBindingService()))
+				.assertNext(result -> {
+					assertThat(result.getMatchedItems()).isEqualTo(size);
+					assertThat(result.getDeletedServiceInstances()).isEqualTo(1);
+				})
+				.verifyComplete();
+
+		assertThat(this.deleted).containsExactly(String.format("instance-%07d", size));
+	}
+
+	private ReconciliationEngine engine(PlatformInventorySource platform, BackendInventorySource backend,
+			int concurrency, int deletesPerSecond, long maxDeletes) {
+		return new ReconciliationEngine(platform, backend, this.catalogService, concurrency, deletesPerSecond,
+				maxDeletes, 1.0, Duration.ofHours(1));
+	}
+
+	private static InventoryItem instance(String serviceInstanceId) {
+		return InventoryItem.serviceInstance(serviceInstanceId, "service-id", "plan-id", CREATED_AT);
+	}
+
+	private static InventoryItem binding(String serviceInstanceId, String bindingId) {
+		return InventoryItem.binding(serviceInstanceId, bindingId, "service-id", "plan-id", CREATED_AT);
+	}
+
+	private class RecordingInstanceService implements ServiceInstanceService {
+
+		@Override
+		public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+			return Mono.error(new UnsupportedOperationException());
+		}
+
+		@Override
+		public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+			return Mono.fromCallable(() -> {
+				instanceRequests.add(request);
+				deleted.add(request.getServiceInstanceId());
+				return DeleteServiceInstanceResponse.builder().build();
+			});
+		}
+
+	}
+
+	private class RecordingBindingService implements ServiceInstanceBindingService {
+
+		@Override
+		public Mono<DeleteServiceInstanceBindingResponse> deleteServiceInstanceBinding(
+				DeleteServiceInstanceBindingRequest request) {
+			return Mono.fromCallable(() -> {
+				deleted.add(request.getServiceInstanceId() + "/" + request.getBindingId());
+				return DeleteServiceInstanceBindingResponse.builder().build();
+			});
+		}
+
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.replay;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReplayCacheTest {
+
+	private final AtomicLong nanos = new AtomicLong();
+
+	private final ReplayCache<String> cache = new ReplayCache<>(2, Duration.ofSeconds(10), this.nanos::get);
+
+	@Test
+	public void storedResponseIsReturnedForSameRequest() {
+		this.cache.put("id", "hash", "response");
+
+		assertThat(this.cache.get("id", "hash")).isEqualTo("response");
+	}
+
+	@Test
+	public void storedResponseIsNotReturnedForDifferentRequest() {
+		this.cache.put("id", "hash", "response");
+
+		assertThat(this.cache.get("id", "other-hash")).isNull();
+		assertThat(this.cache.get("other-id", "hash")).isNull();
+	}
+
+	@Test
+	public void expiredResponseIsRemoved() {
+		this.cache.put("id", "hash", "response");
+
+		this.nanos.set(Duration.ofSeconds(10).toNanos());
+		assertThat(this.cache.get("id", "hash")).isEqualTo("response");
+
+		this.nanos.set(Duration.ofSeconds(11).toNanos());
+		assertThat(this.cache.get("id", "hash")).isNull();
+		assertThat(this.cache.size()).isZero();
+	}
+
+	@Test
+	public void oldestResponseIsEvictedWhenFull() {
+		this.cache.put("id-1", "hash", "response-1");
+		this.cache.put("id-2", "hash", "response-2");
+		this.cache.put("id-1", "hash", "response-1");
+		this.cache.put("id-3", "hash", "response-3");
+
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(this.cache.get("id-2", "hash")).isNull();
+		assertThat(this.cache.get("id-1", "hash")).isEqualTo("response-1");
+		assertThat(this.cache.get("id-3", "hash")).isEqualTo("response-3");
+	}
+
+	@Test
+	public void invalidatedResponseIsRemoved() {
+		this.cache.put("id", "hash", "response");
+
+		this.cache.invalidate("id");
+
+		assertThat(this.cache.get("id", "hash")).isNull();
+	}
+
+	@Test
+	public void maxSizeMustBePositive() {
+		assertThatThrownBy(() -> new ReplayCache<String>(0, Duration.ofSeconds(10)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
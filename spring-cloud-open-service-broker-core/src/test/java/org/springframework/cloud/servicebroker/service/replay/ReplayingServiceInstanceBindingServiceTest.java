@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.replay;
+
+import java.time.Duration;
+
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.model.binding.BindResource;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceRouteBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ReplayingServiceInstanceBindingServiceTest {
+
+	private ServiceInstanceBindingService delegate;
+
+	private ReplayingServiceInstanceBindingService service;
+
+	@Before
+	public void setUp() {
+		this.delegate = mock(ServiceInstanceBindingService.class);
+		this.service = new ReplayingServiceInstanceBindingService(this.delegate,
+				new ReplayCache<>(10, Duration.ofMinutes(1)));
+	}
+
+	@Test
+	public void retriedAppBindingIsReplayed() {
+		given(this.delegate.createServiceInstanceBinding(any()))
+				.willReturn(Mono.just(CreateServiceInstanceAppBindingResponse.builder()
+						.credentials("password", "secret")
+						.build()));
+
+		this.service.createServiceInstanceBinding(createRequest("app-guid")).block();
+
+		StepVerifier.create(this.service.createServiceInstanceBinding(createRequest("app-guid")))
+				.expectNext(CreateServiceInstanceAppBindingResponse.builder()
+						.credentials("password", "secret")
+						.bindingExisted(true)
+						.build())
+				.verifyComplete();
+
+		verify(this.delegate, times(1)).createServiceInstanceBinding(any());
+	}
+
+	@Test
+	public void retriedRouteBindingIsReplayed() {
+		given(this.delegate.createServiceInstanceBinding(any()))
+				.willReturn(Mono.just(CreateServiceInstanceRouteBindingResponse.builder()
+						.routeServiceUrl("https://route.example.com")
+						.build()));
+
+		this.service.createServiceInstanceBinding(createRequest("app-guid")).block();
+
+		StepVerifier.create(this.service.createServiceInstanceBinding(createRequest("app-guid")))
+				.expectNext(CreateServiceInstanceRouteBindingResponse.builder()
+						.routeServiceUrl("https://route.example.com")
+						.bindingExisted(true)
+						.build())
+				.verifyComplete();
+
+		verify(this.delegate, times(1)).createServiceInstanceBinding(any());
+	}
+
+	@Test
+	public void bindingWithDifferentBindResourceIsNotReplayed() {
+		given(this.delegate.createServiceInstanceBinding(any()))
+				.willReturn(Mono.just(CreateServiceInstanceAppBindingResponse.builder().build()));
+
+		this.service.createServiceInstanceBinding(createRequest("app-guid")).block();
+		this.service.createServiceInstanceBinding(createRequest("other-app-guid")).block();
+
+		verify(this.delegate, times(2)).createServiceInstanceBinding(any());
+	}
+
+	@Test
+	public void deletionRemovesReplayedBinding() {
+		given(this.delegate.createServiceInstanceBinding(any()))
+				.willReturn(Mono.just(CreateServiceInstanceAppBindingResponse.builder().build()));
+		given(this.delegate.deleteServiceInstanceBinding(any()))
+				.willReturn(Mono.just(DeleteServiceInstanceBindingResponse.builder().build()));
+
+		this.service.createServiceInstanceBinding(createRequest("app-guid")).block();
+		this.service.deleteServiceInstanceBinding(DeleteServiceInstanceBindingRequest.builder()
+				.serviceInstanceId("instance-id")
+				.bindingId("binding-id")
+				.build()).block();
+		this.service.createServiceInstanceBinding(createRequest("app-guid")).block();
+
+		verify(this.delegate, times(2)).createServiceInstanceBinding(any());
+	}
+
+	private static CreateServiceInstanceBindingRequest createRequest(String appGuid) {
+		return CreateServiceInstanceBindingRequest.builder()
+				.serviceInstanceId("instance-id")
+				.bindingId("binding-id")
+				.serviceDefinitionId("service-definition-id")
+				.planId("plan-id")
+				.bindResource(BindResource.builder()
+						.appGuid(appGuid)
+						.build())
+				.build();
+	}
+
+}
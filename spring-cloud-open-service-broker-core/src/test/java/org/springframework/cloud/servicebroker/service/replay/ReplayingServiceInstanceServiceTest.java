@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.replay;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ReplayingServiceInstanceServiceTest {
+
+	private ServiceInstanceService delegate;
+
+	private ReplayingServiceInstanceService service;
+
+	@Before
+	public void setUp() {
+		this.delegate = mock(ServiceInstanceService.class);
+		this.service = new ReplayingServiceInstanceService(this.delegate,
+				new ReplayCache<>(10, Duration.ofMinutes(1)));
+	}
+
+	@Test
+	public void retriedCreationIsReplayed() {
+		given(this.delegate.createServiceInstance(any()))
+				.willReturn(Mono.just(CreateServiceInstanceResponse.builder()
+						.dashboardUrl("https://dashboard.example.com")
+						.build()));
+
+		StepVerifier.create(this.service.createServiceInstance(createRequest("b", "2", "a", "1")))
+				.expectNext(CreateServiceInstanceResponse.builder()
+						.dashboardUrl("https://dashboard.example.com")
+						.build())
+				.verifyComplete();
+
+		StepVerifier.create(this.service.createServiceInstance(createRequest("a", "1", "b", "2")))
+				.expectNext(CreateServiceInstanceResponse.builder()
+						.dashboardUrl("https://dashboard.example.com")
+						.instanceExisted(true)
+						.build())
+				.verifyComplete();
+
+		verify(this.delegate, times(1)).createServiceInstance(any());
+	}
+
+	@Test
+	public void creationWithDifferentParametersIsNotReplayed() {
+		given(this.delegate.createServiceInstance(any()))
+				.willReturn(Mono.just(CreateServiceInstanceResponse.builder().build()));
+
+		this.service.createServiceInstance(createRequest("a", "1", "b", "2")).block();
+		this.service.createServiceInstance(createRequest("a", "1", "b", "3")).block();
+
+		verify(this.delegate, times(2)).createServiceInstance(any());
+	}
+
+	@Test
+	public void asyncCreationIsNotReplayed() {
+		given(this.delegate.createServiceInstance(any()))
+				.willReturn(Mono.just(CreateServiceInstanceResponse.builder().async(true).build()));
+
+		this.service.createServiceInstance(createRequest("a", "1", "b", "2")).block();
+		this.service.createServiceInstance(createRequest("a", "1", "b", "2")).block();
+
+		verify(this.delegate, times(2)).createServiceInstance(any());
+	}
+
+	@Test
+	public void deletionRemovesReplayedCreation() {
+		given(this.delegate.createServiceInstance(any()))
+				.willReturn(Mono.just(CreateServiceInstanceResponse.builder().build()));
+		given(this.delegate.deleteServiceInstance(any()))
+				.willReturn(Mono.just(DeleteServiceInstanceResponse.builder().build()));
+
+		this.service.createServiceInstance(createRequest("a", "1", "b", "2")).block();
+		this.service.deleteServiceInstance(DeleteServiceInstanceRequest.builder()
+				.serviceInstanceId("instance-id")
+				.build()).block();
+		this.service.createServiceInstance(createRequest("a", "1", "b", "2")).block();
+
+		verify(this.delegate, times(2)).createServiceInstance(any());
+	}
+
+	private static CreateServiceInstanceRequest createRequest(String key1, Object value1, String key2, Object value2) {
+		Map<String, Object> parameters = new LinkedHashMap<>();
+		parameters.put(key1, value1);
+		parameters.put(key2, value2);
+		return CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("instance-id")
+				.serviceDefinitionId("service-definition-id")
+				.planId("plan-id")
+				.parameters(parameters)
+				.build();
+	}
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CircuitBreakerTest {
+
+	private final AtomicLong nanos = new AtomicLong();
+
+	private final CircuitBreaker circuitBreaker = new CircuitBreaker(50.0f, 4, Duration.ofSeconds(10),
+			Duration.ofSeconds(5), this.nanos::get);
+
+	@Test
+	public void breakerStaysClosedBelowMinimumNumberOfCalls() {
+		recordFailures(3);
+
+		assertThat(this.circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(this.circuitBreaker.getFailureRate()).isEqualTo(100.0f);
+		assertThat(this.circuitBreaker.tryAcquirePermission()).isNotNull();
+	}
+
+	@Test
+	public void breakerOpensWhenFailureRateReachesThreshold() {
+		recordSuccesses(2);
+		recordFailures(2);
+
+		assertThat(this.circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(this.circuitBreaker.tryAcquirePermission()).isNull();
+		assertThat(this.circuitBreaker.getRejectedCalls()).isEqualTo(1);
+	}
+
+	@Test
+	public void breakerStaysClosedBelowThreshold() {
+		recordSuccesses(3);
+		recordFailures(1);
+
+		assertThat(this.circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(this.circuitBreaker.getNumberOfCalls()).isEqualTo(4);
+	}
+
+	@Test
+	public void callsOutsideSlidingWindowAreForgotten() {
+		recordFailures(3);
+		this.nanos.addAndGet(Duration.ofSeconds(11).toNanos());
+		recordFailures(1);
+
+		assertThat(this.circuitBreaker.getNumberOfCalls()).isEqualTo(1);
+		assertThat(this.circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	public void breakerPermitsSingleTrialCallAfterOpenDuration() {
+		recordFailures(4);
+		this.nanos.addAndGet(Duration.ofSeconds(5).toNanos());
+
+		assertThat(this.circuitBreaker.tryAcquirePermission()).isNotNull();
+		assertThat(this.circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+		assertThat(this.circuitBreaker.tryAcquirePermission()).isNull();
+	}
+
+	@Test
+	public void successfulTrialCallClosesBreaker() {
+		recordFailures(4);
+		this.nanos.addAndGet(Duration.ofSeconds(5).toNanos());
+		CircuitBreaker.Permission trial = this.circuitBreaker.tryAcquirePermission();
+
+		this.circuitBreaker.onSuccess(trial);
+
+		assertThat(this.circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(this.circuitBreaker.getNumberOfCalls()).isEqualTo(0);
+		assertThat(this.circuitBreaker.tryAcquirePermission()).isNotNull();
+	}
+
+	@Test
+	public void failedTrialCallReopensBreaker() {
+		recordFailures(4);
+		this.nanos.addAndGet(Duration.ofSeconds(5).toNanos());
+		CircuitBreaker.Permission trial = this.circuitBreaker.tryAcquirePermission();
+
+		this.circuitBreaker.onFailure(trial);
+
+		assertThat(this.circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(this.circuitBreaker.tryAcquirePermission()).isNull();
+	}
+
+	@Test
+	public void callPermittedBeforeBreakerOpenedDoesNotCloseIt() {
+		CircuitBreaker.Permission slowCall = this.circuitBreaker.tryAcquirePermission();
+		recordFailures(4);
+		this.nanos.addAndGet(Duration.ofSeconds(5).toNanos());
+		CircuitBreaker.Permission trial = this.circuitBreaker.tryAcquirePermission();
+
+		this.circuitBreaker.onSuccess(slowCall);
+
+		assertThat(this.circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+		assertThat(this.circuitBreaker.tryAcquirePermission()).isNull();
+
+		this.circuitBreaker.onFailure(trial);
+
+		assertThat(this.circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+	}
+
+	@Test
+	public void callPermittedBeforeBreakerClosedIsNotCounted() {
+		CircuitBreaker.Permission slowCall = this.circuitBreaker.tryAcquirePermission();
+		recordFailures(4);
+		this.nanos.addAndGet(Duration.ofSeconds(5).toNanos());
+		this.circuitBreaker.onSuccess(this.circuitBreaker.tryAcquirePermission());
+
+		this.circuitBreaker.onFailure(slowCall);
+
+		assertThat(this.circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(this.circuitBreaker.getNumberOfCalls()).isEqualTo(0);
+	}
+
+	@Test
+	public void releasedTrialPermissionPermitsAnotherTrialCall() {
+		recordFailures(4);
+		this.nanos.addAndGet(Duration.ofSeconds(5).toNanos());
+
+		this.circuitBreaker.releasePermission(this.circuitBreaker.tryAcquirePermission());
+
+		assertThat(this.circuitBreaker.tryAcquirePermission()).isNotNull();
+	}
+
+	private void recordSuccesses(int count) {
+		for (int i = 0; i < count; i++) {
+			this.circuitBreaker.onSuccess(this.circuitBreaker.tryAcquirePermission());
+		}
+	}
+
+	private void recordFailures(int count) {
+		for (int i = 0; i < count; i++) {
+			this.circuitBreaker.onFailure(this.circuitBreaker.tryAcquirePermission());
+		}
+	}
+
+}
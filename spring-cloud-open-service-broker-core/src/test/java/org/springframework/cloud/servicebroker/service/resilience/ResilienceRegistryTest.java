@@ -0,0 +1,135 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerUnavailableException;
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceExistsException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResilienceRegistryTest {
+
+	private final ResilienceRegistry registry = new ResilienceRegistry(2, 50.0f, 2, Duration.ofMinutes(1),
+			Duration.ofMinutes(1));
+
+	@Test
+	public void successfulCallIsRecorded() {
+		StepVerifier.create(this.registry.execute("service-one", () -> Mono.just("done")))
+				.expectNext("done")
+				.verifyComplete();
+
+		CircuitBreaker circuitBreaker = this.registry.getGuard("service-one").getCircuitBreaker();
+		assertThat(circuitBreaker.getNumberOfCalls()).isEqualTo(1);
+		assertThat(circuitBreaker.getFailureRate()).isEqualTo(0.0f);
+		assertThat(this.registry.getGuard("service-one").getBulkhead().getConcurrentCalls()).isEqualTo(0);
+	}
+
+	@Test
+	public void repeatedFailuresSuspendCalls() {
+		AtomicInteger calls = new AtomicInteger();
+		for (int i = 0; i < 2; i++) {
+			StepVerifier.create(this.registry.execute("service-one", () -> {
+				calls.incrementAndGet();
+				return Mono.error(new IllegalStateException());
+			}))
+					.expectError(IllegalStateException.class)
+					.verify();
+		}
+
+		StepVerifier.create(this.registry.execute("service-one", () -> {
+			calls.incrementAndGet();
+			return Mono.just("done");
+		}))
+				.expectError(ServiceBrokerUnavailableException.class)
+				.verify();
+
+		assertThat(calls).hasValue(2);
+		assertThat(this.registry.getGuard("service-one").getCircuitBreaker().getState())
+				.isEqualTo(CircuitBreaker.State.OPEN);
+		StepVerifier.create(this.registry.execute("service-two", () -> Mono.just("done")))
+				.expectNext("done")
+				.verifyComplete();
+	}
+
+	@Test
+	public void requestErrorsAreNotCountedAsFailures() {
+		for (int i = 0; i < 2; i++) {
+			StepVerifier.create(this.registry.execute("service-one",
+					() -> Mono.error(new ServiceInstanceExistsException("instance-id", "service-one"))))
+					.expectError(ServiceInstanceExistsException.class)
+					.verify();
+		}
+
+		CircuitBreaker circuitBreaker = this.registry.getGuard("service-one").getCircuitBreaker();
+		assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(circuitBreaker.getFailureRate()).isEqualTo(0.0f);
+	}
+
+	@Test
+	public void callsBeyondConcurrencyLimitAreRejected() {
+		Disposable first = this.registry.execute("service-one", Mono::never).subscribe();
+		Disposable second = this.registry.execute("service-one", Mono::never).subscribe();
+
+		StepVerifier.create(this.registry.execute("service-one", () -> Mono.just("done")))
+				.expectError(ServiceBrokerUnavailableException.class)
+				.verify();
+
+		Bulkhead bulkhead = this.registry.getGuard("service-one").getBulkhead();
+		assertThat(bulkhead.getConcurrentCalls()).isEqualTo(2);
+		assertThat(bulkhead.getRejectedCalls()).isEqualTo(1);
+
+		first.dispose();
+		second.dispose();
+
+		assertThat(bulkhead.getConcurrentCalls()).isEqualTo(0);
+		assertThat(this.registry.getGuard("service-one").getCircuitBreaker().getState())
+				.isEqualTo(CircuitBreaker.State.OPEN);
+	}
+
+	@Test
+	public void callsWithoutServiceDefinitionAreNotGuarded() {
+		StepVerifier.create(this.registry.execute(null, () -> Mono.just("done")))
+				.expectNext("done")
+				.verifyComplete();
+
+		assertThat(this.registry.getGuards()).isEmpty();
+	}
+
+	@Test
+	public void callsForServiceDefinitionsNotAcceptedAreNotGuarded() {
+		ResilienceRegistry registry = new ResilienceRegistry(2, 50.0f, 2, Duration.ofMinutes(1),
+				Duration.ofMinutes(1), "service-one"::equals);
+
+		StepVerifier.create(registry.execute("service-two", () -> Mono.just("done")))
+				.expectNext("done")
+				.verifyComplete();
+
+		assertThat(registry.getGuard("service-two")).isNull();
+		assertThat(registry.getGuard("service-one")).isNotNull();
+		assertThat(registry.getGuards()).containsOnlyKeys("service-one");
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.tracing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompositeOperationTracerTest {
+
+	private final List<String> events = new ArrayList<>();
+
+	private final OperationAttributes attributes = OperationAttributes.builder()
+			.operation("create_service_instance")
+			.build();
+
+	@Test
+	public void ofReturnsNullWithoutTracers() {
+		assertThat(CompositeOperationTracer.of(Collections.emptyList())).isNull();
+	}
+
+	@Test
+	public void ofReturnsSingleTracer() {
+		OperationTracer tracer = new RecordingTracer("only");
+
+		assertThat(CompositeOperationTracer.of(Collections.singletonList(tracer))).isSameAs(tracer);
+	}
+
+	@Test
+	public void tracersAreNestedInOrder() {
+		OperationTracer tracer = CompositeOperationTracer.of(
+				Arrays.asList(new RecordingTracer("outer"), new RecordingTracer("inner")));
+
+		Mono<String> traced = tracer.trace("osb.create_service_instance", this.attributes, () -> {
+			this.events.add("phase");
+			return Mono.just("result");
+		});
+
+		assertThat(this.events).isEmpty();
+
+		StepVerifier.create(traced)
+				.expectNext("result")
+				.verifyComplete();
+
+		assertThat(this.events).containsExactly("outer start", "inner start", "phase", "inner end", "outer end");
+	}
+
+	private class RecordingTracer implements OperationTracer {
+
+		private final String id;
+
+		RecordingTracer(String id) {
+			this.id = id;
+		}
+
+		@Override
+		public <T> Mono<T> trace(String name, OperationAttributes attributes, Supplier<Mono<T>> phase) {
+			return Mono.defer(() -> {
+				events.add(this.id + " start");
+				return phase.get();
+			}).doOnTerminate(() -> events.add(this.id + " end"));
+		}
+
+	}
+
+}
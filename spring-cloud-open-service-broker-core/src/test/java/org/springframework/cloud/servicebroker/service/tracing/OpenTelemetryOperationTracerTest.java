@@ -0,0 +1,189 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.tracing;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerException;
+import org.springframework.cloud.servicebroker.model.PlatformContext;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceEventService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceCompletionFlow;
+import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceErrorFlow;
+import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceInitializationFlow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OpenTelemetryOperationTracerTest {
+
+	private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+
+	private final CreateServiceInstanceRequest request = CreateServiceInstanceRequest.builder()
+			.serviceInstanceId("instance-id")
+			.serviceDefinitionId("service-id")
+			.planId("plan-id")
+			.originatingIdentity(PlatformContext.builder()
+					.platform("test-platform")
+					.build())
+			.build();
+
+	private SdkTracerProvider tracerProvider;
+
+	private EventFlowRegistries eventFlowRegistries;
+
+	@Before
+	public void setUp() {
+		this.eventFlowRegistries = new EventFlowRegistries();
+		this.eventFlowRegistries.getCreateInstanceRegistry()
+				.addInitializationFlow(new CreateServiceInstanceInitializationFlow() {
+				})
+				.then(this.eventFlowRegistries.getCreateInstanceRegistry()
+						.addCompletionFlow(new CreateServiceInstanceCompletionFlow() {
+						}))
+				.then(this.eventFlowRegistries.getCreateInstanceRegistry()
+						.addErrorFlow(new CreateServiceInstanceErrorFlow() {
+						}))
+				.block();
+	}
+
+	@After
+	public void tearDown() {
+		if (this.tracerProvider != null) {
+			this.tracerProvider.shutdown();
+		}
+	}
+
+	@Test
+	public void phasesAreTracedWithinTheOperationSpan() {
+		OperationTracer tracer = tracer(Sampler.alwaysOn());
+		ServiceInstanceEventService service = new ServiceInstanceEventService(
+				serviceReturning(Mono.just(CreateServiceInstanceResponse.builder().build())), this.eventFlowRegistries,
+				null, tracer);
+
+		StepVerifier.create(tracer.trace("osb.create_service_instance",
+				OperationAttributes.of("create_service_instance", this.request),
+				() -> service.createServiceInstance(this.request)))
+				.expectNext(CreateServiceInstanceResponse.builder().build())
+				.verifyComplete();
+
+		Map<String, SpanData> spans = finishedSpansByName();
+		assertThat(spans).containsOnlyKeys("osb.create_service_instance", OperationTracer.INITIALIZATION_FLOWS_SPAN,
+				OperationTracer.SERVICE_SPAN, OperationTracer.COMPLETION_FLOWS_SPAN);
+
+		SpanData operation = spans.get("osb.create_service_instance");
+		assertThat(operation.getParentSpanContext().isValid()).isFalse();
+		for (String phase : new String[] {OperationTracer.INITIALIZATION_FLOWS_SPAN, OperationTracer.SERVICE_SPAN,
+				OperationTracer.COMPLETION_FLOWS_SPAN}) {
+			SpanData span = spans.get(phase);
+			assertThat(span.getTraceId()).isEqualTo(operation.getTraceId());
+			assertThat(span.getParentSpanId()).isEqualTo(operation.getSpanId());
+		}
+
+		SpanData serviceSpan = spans.get(OperationTracer.SERVICE_SPAN);
+		assertThat(serviceSpan.getAttributes().get(OpenTelemetryOperationTracer.OPERATION))
+				.isEqualTo("create_service_instance");
+		assertThat(serviceSpan.getAttributes().get(OpenTelemetryOperationTracer.SERVICE_INSTANCE_ID))
+				.isEqualTo("instance-id");
+		assertThat(serviceSpan.getAttributes().get(OpenTelemetryOperationTracer.SERVICE_ID)).isEqualTo("service-id");
+		assertThat(serviceSpan.getAttributes().get(OpenTelemetryOperationTracer.PLAN_ID)).isEqualTo("plan-id");
+		assertThat(serviceSpan.getAttributes().get(OpenTelemetryOperationTracer.PLATFORM)).isEqualTo("test-platform");
+		assertThat(serviceSpan.getAttributes().get(OpenTelemetryOperationTracer.BINDING_ID)).isNull();
+	}
+
+	@Test
+	public void failedPhasesAreRecorded() {
+		OperationTracer tracer = tracer(Sampler.alwaysOn());
+		ServiceInstanceEventService service = new ServiceInstanceEventService(
+				serviceReturning(Mono.error(new ServiceBrokerException("failed"))), this.eventFlowRegistries, null,
+				tracer);
+
+		StepVerifier.create(service.createServiceInstance(this.request))
+				.expectError(ServiceBrokerException.class)
+				.verify();
+
+		Map<String, SpanData> spans = finishedSpansByName();
+		assertThat(spans).containsOnlyKeys(OperationTracer.INITIALIZATION_FLOWS_SPAN, OperationTracer.SERVICE_SPAN,
+				OperationTracer.ERROR_FLOWS_SPAN);
+		assertThat(spans.get(OperationTracer.SERVICE_SPAN).getStatus().getStatusCode()).isEqualTo(StatusCode.ERROR);
+		assertThat(spans.get(OperationTracer.SERVICE_SPAN).getEvents()).hasSize(1);
+		assertThat(spans.get(OperationTracer.ERROR_FLOWS_SPAN).getStatus().getStatusCode())
+				.isNotEqualTo(StatusCode.ERROR);
+	}
+
+	@Test
+	public void nothingIsRecordedWhenSamplingIsOff() {
+		OperationTracer tracer = tracer(Sampler.alwaysOff());
+		ServiceInstanceEventService service = new ServiceInstanceEventService(
+				serviceReturning(Mono.just(CreateServiceInstanceResponse.builder().build())), this.eventFlowRegistries,
+				null, tracer);
+
+		StepVerifier.create(service.createServiceInstance(this.request))
+				.expectNext(CreateServiceInstanceResponse.builder().build())
+				.verifyComplete();
+
+		assertThat(this.exporter.getFinishedSpanItems()).isEmpty();
+	}
+
+	private OperationTracer tracer(Sampler sampler) {
+		this.tracerProvider = SdkTracerProvider.builder()
+				.setSampler(sampler)
+				.addSpanProcessor(SimpleSpanProcessor.create(this.exporter))
+				.build();
+		return new OpenTelemetryOperationTracer(this.tracerProvider.get("test"));
+	}
+
+	private Map<String, SpanData> finishedSpansByName() {
+		List<SpanData> spans = this.exporter.getFinishedSpanItems();
+		return spans.stream().collect(Collectors.toMap(SpanData::getName, Function.identity()));
+	}
+
+	private static ServiceInstanceService serviceReturning(Mono<CreateServiceInstanceResponse> response) {
+		return new ServiceInstanceService() {
+			@Override
+			public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+				return response;
+			}
+
+			@Override
+			public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+				return Mono.empty();
+			}
+		};
+	}
+
+}
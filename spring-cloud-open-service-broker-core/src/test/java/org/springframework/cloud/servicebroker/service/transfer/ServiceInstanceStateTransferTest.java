@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.transfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.model.PlatformContext;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ServiceInstanceStateTransferTest {
+
+	private final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	@Test
+	public void exportWritesOneLinePerServiceInstance() {
+		InMemoryRepository repository = new InMemoryRepository(record("instance-1"), record("instance-2"));
+		ServiceInstanceStateTransfer transfer = new ServiceInstanceStateTransfer(repository, new ObjectMapper(), 10, 2);
+
+		StepVerifier.create(transfer.exportRecords(this.bufferFactory).map(this::release))
+				.assertNext(line -> assertThat(line)
+						.contains("\"service_instance_id\":\"instance-1\"")
+						.endsWith("}\n")
+						.containsOnlyOnce("\n"))
+				.assertNext(line -> assertThat(line).contains("\"service_instance_id\":\"instance-2\""))
+				.verifyComplete();
+	}
+
+	@Test
+	public void exportedServiceInstancesAreImported() {
+		InMemoryRepository source = new InMemoryRepository(record("instance-1"), record("instance-2"),
+				record("instance-3"));
+		InMemoryRepository target = new InMemoryRepository();
+		ByteArrayOutputStream exported = new ByteArrayOutputStream();
+
+		new ServiceInstanceStateTransfer(source, new ObjectMapper(), 10, 2).exportTo(exported).block();
+
+		StepVerifier.create(new ServiceInstanceStateTransfer(target, new ObjectMapper(), 2, 2)
+				.importFrom(new ByteArrayInputStream(exported.toByteArray())))
+				.expectNext(3L)
+				.verifyComplete();
+
+		assertThat(target.records).isEqualTo(source.records);
+		assertThat(target.batches).hasValue(2);
+	}
+
+	@Test
+	public void linesSplitAcrossBuffersAreImported() {
+		InMemoryRepository repository = new InMemoryRepository();
+		ServiceInstanceStateTransfer transfer = new ServiceInstanceStateTransfer(repository, new ObjectMapper(), 10, 2);
+		String content = "{\"service_instance_id\":\"instance-1\",\"service_id\":\"service-id\"}\n" +
+				"\n" +
+				"{\"service_instance_id\":\"instance-2\",\"plan_id\":\"plan-id\"}";
+
+		StepVerifier.create(transfer.importRecords(split(content, 7)))
+				.expectNext(2L)
+				.verifyComplete();
+
+		assertThat(repository.records.get("instance-1").getServiceDefinitionId()).isEqualTo("service-id");
+		assertThat(repository.records.get("instance-2").getPlanId()).isEqualTo("plan-id");
+	}
+
+	@Test
+	public void invalidLineFailsImport() {
+		InMemoryRepository repository = new InMemoryRepository();
+		ServiceInstanceStateTransfer transfer = new ServiceInstanceStateTransfer(repository, new ObjectMapper(), 10, 2);
+		String content = "{\"service_instance_id\":\"instance-1\"}\n{\"service_instance_id\":";
+
+		StepVerifier.create(transfer.importRecords(split(content, 64)))
+				.expectErrorSatisfies(e -> assertThat(e)
+						.isInstanceOf(IllegalArgumentException.class)
+						.hasMessage("Invalid service instance on line 2"))
+				.verify();
+	}
+
+	private static ServiceInstanceRecord record(String serviceInstanceId) {
+		return ServiceInstanceRecord.builder()
+				.serviceInstanceId(serviceInstanceId)
+				.serviceDefinitionId("service-definition-id")
+				.planId("plan-id")
+				.parameters(Collections.singletonMap("size", "large"))
+				.context(PlatformContext.builder()
+						.platform("sample-platform")
+						.property("context-property", "value")
+						.build())
+				.bindings(ServiceInstanceBindingRecord.builder()
+						.bindingId(serviceInstanceId + "-binding")
+						.credentials(Collections.singletonMap("password", "secret"))
+						.build())
+				.build();
+	}
+
+	private Flux<DataBuffer> split(String content, int size) {
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		List<DataBuffer> buffers = new ArrayList<>();
+		for (int offset = 0; offset < bytes.length; offset += size) {
+			DataBuffer buffer = this.bufferFactory.allocateBuffer(size);
+			buffer.write(bytes, offset, Math.min(size, bytes.length - offset));
+			buffers.add(buffer);
+		}
+		return Flux.fromIterable(buffers);
+	}
+
+	private String release(DataBuffer buffer) {
+		byte[] bytes = new byte[buffer.readableByteCount()];
+		buffer.read(bytes);
+		DataBufferUtils.release(buffer);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static final class InMemoryRepository implements ServiceInstanceStateRepository {
+
+		private final Map<String, ServiceInstanceRecord> records = new ConcurrentHashMap<>();
+
+		private final AtomicInteger batches = new AtomicInteger();
+
+		private InMemoryRepository(ServiceInstanceRecord... records) {
+			for (ServiceInstanceRecord record : records) {
+				this.records.put(record.getServiceInstanceId(), record);
+			}
+		}
+
+		@Override
+		public Flux<ServiceInstanceRecord> findAll() {
+			return Flux.fromIterable(this.records.keySet())
+					.sort()
+					.map(this.records::get);
+		}
+
+		@Override
+		public Mono<Void> saveAll(List<ServiceInstanceRecord> records) {
+			return Mono.fromRunnable(() -> {
+				this.batches.incrementAndGet();
+				records.forEach(record -> this.records.put(record.getServiceInstanceId(), record));
+			});
+		}
+
+	}
+
+}
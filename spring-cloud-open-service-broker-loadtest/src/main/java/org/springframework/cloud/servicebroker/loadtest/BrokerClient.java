@@ -0,0 +1,286 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import reactor.core.publisher.Mono;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * A {@link WebClient} based client that issues service broker API requests the way a platform does, recording the
+ * latency of each request.
+ */
+public class BrokerClient {
+
+	static final String CATALOG = "catalog";
+
+	static final String PROVISION = "provision";
+
+	static final String DEPROVISION = "deprovision";
+
+	static final String LAST_OPERATION = "last_operation";
+
+	static final String BIND = "bind";
+
+	static final String UNBIND = "unbind";
+
+	private static final String API_VERSION = "2.14";
+
+	private final WebClient webClient;
+
+	private final LatencyRecorder recorder;
+
+	public BrokerClient(String baseUrl, PlatformProfile profile, LatencyRecorder recorder) {
+		this.recorder = recorder;
+		this.webClient = WebClient.builder()
+				.baseUrl(baseUrl)
+				.defaultHeader("X-Broker-API-Version", API_VERSION)
+				.defaultHeader("X-Broker-API-Originating-Identity", originatingIdentity(profile))
+				.defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+				.build();
+	}
+
+	/**
+	 * Retrieve the catalog.
+	 *
+	 * @return the catalog document
+	 */
+	public Mono<JsonNode> getCatalog() {
+		return timed(CATALOG, () -> this.webClient.get()
+				.uri("/v2/catalog")
+				.exchange()
+				.flatMap(response -> body(response, JsonNode.class)));
+	}
+
+	/**
+	 * Request asynchronous provisioning of a service instance.
+	 *
+	 * @param target the service and plan to provision
+	 * @param instanceId the service instance ID
+	 * @return the HTTP status returned by the broker
+	 */
+	public Mono<HttpStatus> provision(CatalogTarget target, String instanceId) {
+		Map<String, Object> body = new HashMap<>();
+		body.put("service_id", target.getServiceId());
+		body.put("plan_id", target.getPlanId());
+		body.put("organization_guid", "load-test-org");
+		body.put("space_guid", "load-test-space");
+		return timed(PROVISION, () -> this.webClient.put()
+				.uri("/v2/service_instances/{instanceId}?accepts_incomplete=true", instanceId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.syncBody(body)
+				.exchange()
+				.flatMap(BrokerClient::status));
+	}
+
+	/**
+	 * Request asynchronous deprovisioning of a service instance.
+	 *
+	 * @param target the service and plan of the instance
+	 * @param instanceId the service instance ID
+	 * @return the HTTP status returned by the broker
+	 */
+	public Mono<HttpStatus> deprovision(CatalogTarget target, String instanceId) {
+		return timed(DEPROVISION, () -> this.webClient.delete()
+				.uri("/v2/service_instances/{instanceId}?service_id={serviceId}&plan_id={planId}&accepts_incomplete=true",
+						instanceId, target.getServiceId(), target.getPlanId())
+				.exchange()
+				.flatMap(BrokerClient::status));
+	}
+
+	/**
+	 * Poll the state of the last operation on a service instance.
+	 *
+	 * @param target the service and plan of the instance
+	 * @param instanceId the service instance ID
+	 * @return the state of the operation
+	 */
+	public Mono<LastOperation> getLastOperation(CatalogTarget target, String instanceId) {
+		return timed(LAST_OPERATION, () -> this.webClient.get()
+				.uri("/v2/service_instances/{instanceId}/last_operation?service_id={serviceId}&plan_id={planId}",
+						instanceId, target.getServiceId(), target.getPlanId())
+				.exchange()
+				.flatMap(response -> {
+					if (response.statusCode() == HttpStatus.GONE) {
+						return response.bodyToMono(Void.class)
+								.then(Mono.just(new LastOperation("succeeded", null)));
+					}
+					Duration retryAfter = retryAfter(response);
+					return body(response, JsonNode.class)
+							.map(json -> new LastOperation(json.path("state").asText(), retryAfter));
+				}));
+	}
+
+	/**
+	 * Create a service instance binding.
+	 *
+	 * @param target the service and plan of the instance
+	 * @param instanceId the service instance ID
+	 * @param bindingId the service binding ID
+	 * @return the HTTP status returned by the broker
+	 */
+	public Mono<HttpStatus> bind(CatalogTarget target, String instanceId, String bindingId) {
+		Map<String, Object> body = new HashMap<>();
+		body.put("service_id", target.getServiceId());
+		body.put("plan_id", target.getPlanId());
+		body.put("bind_resource", Collections.singletonMap("app_guid", "load-test-app"));
+		return timed(BIND, () -> this.webClient.put()
+				.uri("/v2/service_instances/{instanceId}/service_bindings/{bindingId}", instanceId, bindingId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.syncBody(body)
+				.exchange()
+				.flatMap(BrokerClient::status));
+	}
+
+	/**
+	 * Delete a service instance binding.
+	 *
+	 * @param target the service and plan of the instance
+	 * @param instanceId the service instance ID
+	 * @param bindingId the service binding ID
+	 * @return the HTTP status returned by the broker
+	 */
+	public Mono<HttpStatus> unbind(CatalogTarget target, String instanceId, String bindingId) {
+		return timed(UNBIND, () -> this.webClient.delete()
+				.uri("/v2/service_instances/{instanceId}/service_bindings/{bindingId}?service_id={serviceId}&plan_id={planId}",
+						instanceId, bindingId, target.getServiceId(), target.getPlanId())
+				.exchange()
+				.flatMap(BrokerClient::status));
+	}
+
+	private <T> Mono<T> timed(String operation, Supplier<Mono<T>> request) {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			return request.get()
+					.doOnSuccess(result -> this.recorder.recordSuccess(operation, System.nanoTime() - start))
+					.doOnError(e -> this.recorder.recordError(operation));
+		});
+	}
+
+	private static <T> Mono<T> body(ClientResponse response, Class<T> type) {
+		if (response.statusCode().isError()) {
+			return response.bodyToMono(Void.class)
+					.then(Mono.error(new IllegalStateException("Unexpected response status " + response.statusCode())));
+		}
+		return response.bodyToMono(type);
+	}
+
+	private static Mono<HttpStatus> status(ClientResponse response) {
+		return body(response, Void.class).then(Mono.just(response.statusCode()));
+	}
+
+	private static Duration retryAfter(ClientResponse response) {
+		String value = response.headers().asHttpHeaders().getFirst("Retry-After");
+		if (value == null) {
+			return null;
+		}
+		try {
+			return Duration.ofSeconds(Long.parseLong(value.trim()));
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static String originatingIdentity(PlatformProfile profile) {
+		String properties = "{\"user_id\":\"load-test-user\"}";
+		return profile.getPlatform() + " "
+				+ Base64.getEncoder().encodeToString(properties.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * The service and plan used for the requests of a load test.
+	 */
+	public static class CatalogTarget {
+
+		private final String serviceId;
+
+		private final String planId;
+
+		public CatalogTarget(String serviceId, String planId) {
+			this.serviceId = serviceId;
+			this.planId = planId;
+		}
+
+		/**
+		 * Select the first plan of the first service in a catalog.
+		 *
+		 * @param catalog the catalog document
+		 * @return the target
+		 */
+		public static CatalogTarget firstPlan(JsonNode catalog) {
+			JsonNode service = catalog.path("services").path(0);
+			JsonNode plan = service.path("plans").path(0);
+			if (service.isMissingNode() || plan.isMissingNode()) {
+				throw new IllegalStateException("The broker catalog does not contain a service plan");
+			}
+			return new CatalogTarget(service.path("id").asText(), plan.path("id").asText());
+		}
+
+		public String getServiceId() {
+			return this.serviceId;
+		}
+
+		public String getPlanId() {
+			return this.planId;
+		}
+
+	}
+
+	/**
+	 * The state of the last operation on a service instance.
+	 */
+	public static class LastOperation {
+
+		private final String state;
+
+		private final Duration retryAfter;
+
+		public LastOperation(String state, Duration retryAfter) {
+			this.state = state;
+			this.retryAfter = retryAfter;
+		}
+
+		public boolean isInProgress() {
+			return "in progress".equals(this.state);
+		}
+
+		public String getState() {
+			return this.state;
+		}
+
+		public Duration getRetryAfter() {
+			return this.retryAfter;
+		}
+
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.cloud.servicebroker.autoconfigure.web.CatalogSnapshot;
+import org.springframework.cloud.servicebroker.autoconfigure.web.CatalogSnapshotLoader;
+import org.springframework.cloud.servicebroker.autoconfigure.web.ServiceBrokerProperties;
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * Compares the startup cost of building a large catalog from configuration properties,
+ * by binding {@link ServiceBrokerProperties} and converting it to the model, with loading
+ * the same catalog from a {@link CatalogSnapshot}.
+ *
+ * <p>
+ * Supported arguments, all optional: {@code <services>} (default {@code 100}) and
+ * {@code <plansPerService>} (default {@code 20}), giving a 2,000-plan catalog by default.
+ */
+public final class CatalogStartupBenchmark {
+
+	private static final int WARMUP_ROUNDS = 3;
+
+	private static final int MEASURED_ROUNDS = 5;
+
+	private CatalogStartupBenchmark() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		int services = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int plansPerService = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+		Path directory = Files.createTempDirectory("catalog-snapshot");
+		Path location = directory.resolve("catalog.snapshot");
+		StandardEnvironment environment = environment(services, plansPerService, location);
+		try {
+			Catalog catalog = bindAndConvert(environment);
+			CatalogSnapshot.write(location, CatalogSnapshot.fingerprint(environment), catalog);
+
+			for (int i = 0; i < WARMUP_ROUNDS; i++) {
+				bindAndConvert(environment);
+				loadSnapshot(environment);
+			}
+
+			long bindNanos = 0;
+			long snapshotNanos = 0;
+			for (int i = 0; i < MEASURED_ROUNDS; i++) {
+				long start = System.nanoTime();
+				bindAndConvert(environment);
+				bindNanos += System.nanoTime() - start;
+
+				start = System.nanoTime();
+				loadSnapshot(environment);
+				snapshotNanos += System.nanoTime() - start;
+			}
+
+			System.out.println(String.format("Catalog with %d services and %d plans (%d KB snapshot)",
+					services, services * plansPerService, Files.size(location) / 1024));
+			System.out.println(String.format("  bind properties and convert: %8.1f ms",
+					bindNanos / 1_000_000.0 / MEASURED_ROUNDS));
+			System.out.println(String.format("  load snapshot:               %8.1f ms",
+					snapshotNanos / 1_000_000.0 / MEASURED_ROUNDS));
+		}
+		finally {
+			Files.deleteIfExists(location);
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	private static Catalog bindAndConvert(StandardEnvironment environment) {
+		return new Binder(ConfigurationPropertySources.get(environment))
+				.bind("spring.cloud.openservicebroker", ServiceBrokerProperties.class)
+				.get()
+				.getCatalog()
+				.toModel();
+	}
+
+	private static Catalog loadSnapshot(StandardEnvironment environment) {
+		Catalog catalog = new CatalogSnapshotLoader(environment).getCatalog();
+		if (catalog == null) {
+			throw new IllegalStateException("Catalog snapshot was not loaded");
+		}
+		return catalog;
+	}
+
+	private static StandardEnvironment environment(int services, int plansPerService, Path location) {
+		Map<String, Object> properties = new LinkedHashMap<>();
+		properties.put(CatalogSnapshotLoader.LOCATION_PROPERTY, location.toString());
+		for (int s = 0; s < services; s++) {
+			String service = "spring.cloud.openservicebroker.catalog.services[" + s + "].";
+			properties.put(service + "id", "service-" + s);
+			properties.put(service + "name", "service-" + s);
+			properties.put(service + "description", "Service " + s);
+			properties.put(service + "bindable", "true");
+			properties.put(service + "tags[0]", "benchmark");
+			for (int p = 0; p < plansPerService; p++) {
+				String plan = service + "plans[" + p + "].";
+				properties.put(plan + "id", "service-" + s + "-plan-" + p);
+				properties.put(plan + "name", "plan-" + p);
+				properties.put(plan + "description", "Plan " + p + " of service " + s);
+				properties.put(plan + "free", String.valueOf(p == 0));
+				properties.put(plan + "metadata.properties[tier]", "tier-" + p);
+				String parameters = plan + "schemas.serviceinstance.create.parameters";
+				properties.put(parameters + "[$schema]", "https://json-schema.org/draft-04/schema#");
+				properties.put(parameters + "[type]", "object");
+				properties.put(parameters + ".properties.size.type", "string");
+				properties.put(parameters + ".properties.size.enum[0]", "small");
+				properties.put(parameters + ".properties.size.enum[1]", "large");
+			}
+		}
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new MapPropertySource("catalog", properties));
+		ConfigurationPropertySources.attach(environment);
+		return environment;
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the startup time of the example broker with and without an AppCDS archive created by
+ * {@link CdsTrainingRun}. Each run starts a new JVM with the classpath of this process, which must be the classpath the
+ * archive was created with, and times {@link StartupProbe} from launch to exit. Runs with and without the archive
+ * alternate, after one untimed run of each.
+ *
+ * <p>
+ * The runs with the archive use {@code -Xshare:on}, so the comparison fails instead of silently falling back when the
+ * archive cannot be used.
+ *
+ * <p>
+ * Supported arguments: {@code <archive>} (required), {@code <runs>} (default {@code 5}) and {@code <stack>}
+ * ({@code servlet} or {@code reactive}, default {@code servlet}).
+ */
+public final class CdsStartupBenchmark {
+
+	private static final long PROCESS_TIMEOUT_SECONDS = 120;
+
+	private CdsStartupBenchmark() {
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 1) {
+			throw new IllegalArgumentException("The location of the AppCDS archive is required");
+		}
+		String archive = args[0];
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		String stack = args.length > 2 ? args[2] : "servlet";
+		if (!new File(archive).isFile()) {
+			throw new IllegalArgumentException("AppCDS archive " + archive + " does not exist");
+		}
+
+		List<String> withoutArchive = Collections.emptyList();
+		List<String> withArchive = Arrays.asList("-XX:SharedArchiveFile=" + archive, "-Xshare:on");
+
+		start(withoutArchive, stack);
+		start(withArchive, stack);
+
+		long[] baselineMillis = new long[runs];
+		long[] archiveMillis = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			baselineMillis[i] = start(withoutArchive, stack);
+			archiveMillis[i] = start(withArchive, stack);
+		}
+
+		long baselineMedian = median(baselineMillis);
+		long archiveMedian = median(archiveMillis);
+		System.out.println(String.format("Startup of the %s example broker over %d runs (median)", stack, runs));
+		System.out.println(String.format("  without AppCDS archive: %6d ms", baselineMedian));
+		System.out.println(String.format("  with AppCDS archive:    %6d ms (%+.1f%%)", archiveMedian,
+				(archiveMedian - baselineMedian) * 100.0 / baselineMedian));
+	}
+
+	private static long start(List<String> jvmArguments, String stack) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(jvmArguments);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(StartupProbe.class.getName());
+		command.add(stack);
+
+		long started = System.nanoTime();
+		Process process = new ProcessBuilder(command).inheritIO().start();
+		if (!process.waitFor(PROCESS_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+			process.destroyForcibly();
+			throw new IllegalStateException("Example broker did not start and stop within "
+					+ PROCESS_TIMEOUT_SECONDS + " seconds");
+		}
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+		if (process.exitValue() != 0) {
+			throw new IllegalStateException("Example broker exited with status " + process.exitValue()
+					+ " when started with " + jvmArguments);
+		}
+		return elapsed;
+	}
+
+	private static long median(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+}
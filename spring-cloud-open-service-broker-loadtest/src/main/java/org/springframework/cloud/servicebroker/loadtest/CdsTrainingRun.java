@@ -0,0 +1,51 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.time.Duration;
+
+/**
+ * The training run used to create a class data sharing archive of the example broker. Starts the broker on each web
+ * stack and sends platform traffic to it, so that the classes loaded to serve requests are listed along with the
+ * classes loaded at startup.
+ *
+ * <p>
+ * Supported arguments, all optional: {@code <seconds>} of traffic for each stack (default {@code 5}).
+ */
+public final class CdsTrainingRun {
+
+	private static final int TENANTS = 10;
+
+	private static final int BINDINGS = 2;
+
+	private CdsTrainingRun() {
+	}
+
+	public static void main(String[] args) {
+		Duration duration = Duration.ofSeconds(args.length > 0 ? Long.parseLong(args[0]) : 5);
+
+		for (WebStack stack : WebStack.values()) {
+			try (EmbeddedBroker broker = EmbeddedBroker.start(stack)) {
+				for (PlatformProfile profile : PlatformProfile.values()) {
+					new PlatformSimulator(broker.getBaseUrl(), profile, TENANTS, BINDINGS).run(duration);
+				}
+			}
+		}
+	}
+
+}
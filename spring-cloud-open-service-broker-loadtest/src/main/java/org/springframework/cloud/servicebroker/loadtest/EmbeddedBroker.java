@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The example service broker running on an embedded server with a random port.
+ */
+public final class EmbeddedBroker implements AutoCloseable {
+
+	private final ConfigurableApplicationContext context;
+
+	private final int port;
+
+	private EmbeddedBroker(ConfigurableApplicationContext context, int port) {
+		this.context = context;
+		this.port = port;
+	}
+
+	/**
+	 * Start the example broker.
+	 *
+	 * @param stack the web stack to serve the broker with
+	 * @return the running broker
+	 */
+	public static EmbeddedBroker start(WebStack stack) {
+		return start(stack, new String[0]);
+	}
+
+	/**
+	 * Start the example broker with additional configuration.
+	 *
+	 * @param stack the web stack to serve the broker with
+	 * @param properties additional properties in {@code key=value} form
+	 * @return the running broker
+	 */
+	public static EmbeddedBroker start(WebStack stack, String... properties) {
+		return start(ExampleBrokerApplication.class, stack, properties);
+	}
+
+	/**
+	 * Start a broker application.
+	 *
+	 * @param application the configuration class of the broker
+	 * @param stack the web stack to serve the broker with
+	 * @param properties additional properties in {@code key=value} form
+	 * @return the running broker
+	 */
+	public static EmbeddedBroker start(Class<?> application, WebStack stack, String... properties) {
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(application)
+				.web(stack.getWebApplicationType())
+				.properties("server.port=0",
+						"spring.main.banner-mode=off",
+						"logging.level.root=WARN")
+				.properties(properties)
+				.run();
+		Integer port = context.getEnvironment().getProperty("local.server.port", Integer.class);
+		if (port == null) {
+			context.close();
+			throw new IllegalStateException("Broker did not start an embedded server");
+		}
+		return new EmbeddedBroker(context, port);
+	}
+
+	/**
+	 * @return the base URL of the broker
+	 */
+	public String getBaseUrl() {
+		return "http://localhost:" + this.port;
+	}
+
+	@Override
+	public void close() {
+		this.context.close();
+	}
+
+}
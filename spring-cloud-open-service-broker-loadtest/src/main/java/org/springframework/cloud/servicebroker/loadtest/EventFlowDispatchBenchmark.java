@@ -0,0 +1,145 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.events.CreateServiceInstanceEventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceCompletionFlow;
+import org.springframework.cloud.servicebroker.service.events.flows.TargetedEventFlow;
+
+/**
+ * Compares completion flow dispatch for a registry holding flows for many service offerings, when the flows filter
+ * requests themselves and when they declare their service definition through {@link TargetedEventFlow}.
+ *
+ * <p>
+ * Supported arguments, all optional: {@code <services> <flowsPerService> <iterations>} (default {@code 50 2 200000}).
+ */
+public final class EventFlowDispatchBenchmark {
+
+	private static final int WARMUP_ROUNDS = 3;
+
+	private EventFlowDispatchBenchmark() {
+	}
+
+	public static void main(String[] args) {
+		int services = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int flowsPerService = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+
+		CreateServiceInstanceEventFlowRegistry filtering = registry(services, flowsPerService, false);
+		CreateServiceInstanceEventFlowRegistry indexed = registry(services, flowsPerService, true);
+		List<CreateServiceInstanceRequest> requests = requests(services);
+		CreateServiceInstanceResponse response = CreateServiceInstanceResponse.builder().build();
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			run(filtering, requests, response, iterations);
+			run(indexed, requests, response, iterations);
+		}
+
+		System.out.println(String.format("%d flows across %d services, %d dispatches",
+				services * flowsPerService, services, iterations));
+		System.out.println(String.format("  self-filtering flows: %8.1f ns/dispatch",
+				run(filtering, requests, response, iterations)));
+		System.out.println(String.format("  targeted flows:       %8.1f ns/dispatch",
+				run(indexed, requests, response, iterations)));
+	}
+
+	private static double run(CreateServiceInstanceEventFlowRegistry registry,
+			List<CreateServiceInstanceRequest> requests, CreateServiceInstanceResponse response, int iterations) {
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			registry.getCompletionFlows(requests.get(i % requests.size()), response).blockLast();
+		}
+		return (double) (System.nanoTime() - start) / iterations;
+	}
+
+	private static CreateServiceInstanceEventFlowRegistry registry(int services, int flowsPerService,
+			boolean targeted) {
+		List<CreateServiceInstanceCompletionFlow> flows = new ArrayList<>(services * flowsPerService);
+		for (int service = 0; service < services; service++) {
+			for (int flow = 0; flow < flowsPerService; flow++) {
+				String serviceDefinitionId = serviceDefinitionId(service);
+				flows.add(targeted ? new TargetedFlow(serviceDefinitionId) : new FilteringFlow(serviceDefinitionId));
+			}
+		}
+		return new CreateServiceInstanceEventFlowRegistry(null, flows, null);
+	}
+
+	private static List<CreateServiceInstanceRequest> requests(int services) {
+		List<CreateServiceInstanceRequest> requests = new ArrayList<>(services);
+		for (int service = 0; service < services; service++) {
+			requests.add(CreateServiceInstanceRequest.builder()
+					.serviceInstanceId("instance-" + service)
+					.serviceDefinitionId(serviceDefinitionId(service))
+					.planId("plan")
+					.build());
+		}
+		return requests;
+	}
+
+	private static String serviceDefinitionId(int service) {
+		return "service-" + service;
+	}
+
+	private static final class FilteringFlow implements CreateServiceInstanceCompletionFlow {
+
+		private final String serviceDefinitionId;
+
+		private FilteringFlow(String serviceDefinitionId) {
+			this.serviceDefinitionId = serviceDefinitionId;
+		}
+
+		@Override
+		public Mono<Void> complete(CreateServiceInstanceRequest request, CreateServiceInstanceResponse response) {
+			if (!this.serviceDefinitionId.equals(request.getServiceDefinitionId())) {
+				return Mono.empty();
+			}
+			return Mono.fromRunnable(() -> { });
+		}
+
+	}
+
+	private static final class TargetedFlow implements CreateServiceInstanceCompletionFlow, TargetedEventFlow {
+
+		private final Set<String> serviceDefinitionIds;
+
+		private TargetedFlow(String serviceDefinitionId) {
+			this.serviceDefinitionIds = Collections.singleton(serviceDefinitionId);
+		}
+
+		@Override
+		public Mono<Void> complete(CreateServiceInstanceRequest request, CreateServiceInstanceResponse response) {
+			return Mono.fromRunnable(() -> { });
+		}
+
+		@Override
+		public Set<String> getServiceDefinitionIds() {
+			return this.serviceDefinitionIds;
+		}
+
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceEventService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.events.AsyncOperationServiceInstanceBindingEventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.AsyncOperationServiceInstanceEventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.CreateServiceInstanceBindingEventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.CreateServiceInstanceEventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.DeleteServiceInstanceBindingEventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.DeleteServiceInstanceEventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.UpdateServiceInstanceEventFlowRegistry;
+
+/**
+ * Compares calling a service instance service directly with calling it through the {@link ServiceInstanceEventService}
+ * when no event flows are registered, which is the configuration of most brokers.
+ *
+ * <p>
+ * Supported arguments, all optional: {@code <iterations>} (default {@code 1000000}).
+ */
+public final class EventServiceOverheadBenchmark {
+
+	private static final int WARMUP_ROUNDS = 5;
+
+	private EventServiceOverheadBenchmark() {
+	}
+
+	public static void main(String[] args) {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+		ServiceInstanceService service = new ServiceInstanceService() {
+			@Override
+			public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+				return Mono.just(CreateServiceInstanceResponse.builder().build());
+			}
+
+			@Override
+			public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+				return Mono.just(DeleteServiceInstanceResponse.builder().build());
+			}
+		};
+		ServiceInstanceService eventService = new ServiceInstanceEventService(service, emptyRegistries());
+		CreateServiceInstanceRequest request = CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("instance")
+				.serviceDefinitionId("service")
+				.planId("plan")
+				.build();
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			run(service, request, iterations);
+			run(eventService, request, iterations);
+		}
+
+		System.out.println(String.format("%d create requests without event flows", iterations));
+		System.out.println(String.format("  service:               %8.1f ns/request", run(service, request, iterations)));
+		System.out.println(String.format("  event service wrapper: %8.1f ns/request",
+				run(eventService, request, iterations)));
+	}
+
+	private static double run(ServiceInstanceService service, CreateServiceInstanceRequest request, int iterations) {
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			service.createServiceInstance(request).block();
+		}
+		return (double) (System.nanoTime() - start) / iterations;
+	}
+
+	private static EventFlowRegistries emptyRegistries() {
+		return new EventFlowRegistries(
+				new CreateServiceInstanceEventFlowRegistry(null, null, null),
+				new UpdateServiceInstanceEventFlowRegistry(null, null, null),
+				new DeleteServiceInstanceEventFlowRegistry(null, null, null),
+				new AsyncOperationServiceInstanceEventFlowRegistry(null, null, null),
+				new CreateServiceInstanceBindingEventFlowRegistry(null, null, null),
+				new DeleteServiceInstanceBindingEventFlowRegistry(null, null, null),
+				new AsyncOperationServiceInstanceBindingEventFlowRegistry(null, null, null));
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.UUID;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.loadtest.BrokerClient.CatalogTarget;
+
+/**
+ * Starts the example broker, sends it its first requests and prints the 99th percentile of their latency in
+ * nanoseconds as the last line on standard output. The requests cycle through catalog, provision, bind and
+ * {@literal last_operation} requests. Each run needs a new JVM, so that none of the request handling code has been
+ * run before.
+ *
+ * <p>
+ * Supported arguments, all optional: {@code <stack>} ({@code servlet} or {@code reactive}, default
+ * {@code servlet}), {@code <warm-up>} ({@code true} or {@code false}, default {@code false}), {@code <requests>}
+ * (default {@code 1000}) and {@code <concurrency>} (default {@code 10}).
+ */
+public final class FirstRequestsProbe {
+
+	private static final String FIRST_REQUESTS = "first_requests";
+
+	private FirstRequestsProbe() {
+	}
+
+	public static void main(String[] args) {
+		WebStack stack = WebStack.valueOf((args.length > 0 ? args[0] : "servlet").toUpperCase(Locale.ROOT));
+		boolean warmUp = args.length > 1 && Boolean.parseBoolean(args[1]);
+		int requests = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+		LoadReport.OperationStatistics statistics;
+		try (EmbeddedBroker broker = EmbeddedBroker.start(stack,
+				"spring.cloud.openservicebroker.warm-up.enabled=" + warmUp)) {
+			LatencyRecorder recorder = new LatencyRecorder();
+			BrokerClient client = new BrokerClient(broker.getBaseUrl(), PlatformProfile.CLOUD_FOUNDRY,
+					new LatencyRecorder());
+			CatalogTarget target = timed(recorder, client.getCatalog())
+					.map(CatalogTarget::firstPlan)
+					.block();
+
+			Flux.range(1, requests - 1)
+					.flatMap(i -> timed(recorder, request(client, target, i))
+							.onErrorResume(e -> Mono.empty()), concurrency)
+					.blockLast();
+
+			statistics = recorder.report(Duration.ZERO).getOperations().get(FIRST_REQUESTS);
+		}
+		System.out.println(statistics == null ? 0 : statistics.getPercentile(99));
+	}
+
+	private static Mono<Void> request(BrokerClient client, CatalogTarget target, int index) {
+		String instanceId = "instance-" + index / 4;
+		switch (index % 4) {
+			case 0:
+				return client.getCatalog().then();
+			case 1:
+				return client.provision(target, instanceId).then();
+			case 2:
+				return client.bind(target, instanceId, UUID.randomUUID().toString()).then();
+			default:
+				return client.getLastOperation(target, instanceId).then();
+		}
+	}
+
+	private static <T> Mono<T> timed(LatencyRecorder recorder, Mono<T> request) {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			return request
+					.doOnSuccess(result -> recorder.recordSuccess(FIRST_REQUESTS, System.nanoTime() - start))
+					.doOnError(e -> recorder.recordError(FIRST_REQUESTS));
+		});
+	}
+
+}
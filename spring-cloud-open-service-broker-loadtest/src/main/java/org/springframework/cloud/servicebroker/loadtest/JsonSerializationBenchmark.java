@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.model.util.ServiceBrokerJacksonModule;
+
+/**
+ * Compares serializing the responses to asynchronous provisioning requests and last operation polls with Jackson's
+ * annotation-driven serializers and with the streaming serializers of the {@link ServiceBrokerJacksonModule}.
+ *
+ * <p>
+ * Supported arguments, all optional: {@code <iterations>} (default {@code 1000000}).
+ */
+public final class JsonSerializationBenchmark {
+
+	private static final int WARMUP_ROUNDS = 5;
+
+	private JsonSerializationBenchmark() {
+	}
+
+	public static void main(String[] args) throws JsonProcessingException {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+		ObjectMapper reflective = new ObjectMapper();
+		ObjectMapper streaming = new ObjectMapper().registerModule(new ServiceBrokerJacksonModule());
+		Object[] responses = {
+				CreateServiceInstanceResponse.builder()
+						.async(true)
+						.operation("provision-task")
+						.dashboardUrl("https://dashboard.example.local/instances/1")
+						.build(),
+				GetLastServiceOperationResponse.builder()
+						.operationState(OperationState.IN_PROGRESS)
+						.description("provisioning")
+						.build()
+		};
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			run(reflective, responses, iterations);
+			run(streaming, responses, iterations);
+		}
+
+		System.out.println(String.format("%d create and last operation responses", iterations));
+		System.out.println(String.format("  annotation-driven: %8.1f ns/response", run(reflective, responses, iterations)));
+		System.out.println(String.format("  streaming:         %8.1f ns/response", run(streaming, responses, iterations)));
+	}
+
+	private static double run(ObjectMapper objectMapper, Object[] responses, int iterations)
+			throws JsonProcessingException {
+		long bytes = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			bytes += objectMapper.writeValueAsBytes(responses[i % responses.length]).length;
+		}
+		long elapsed = System.nanoTime() - start;
+		if (bytes == 0) {
+			throw new IllegalStateException("No responses were serialized");
+		}
+		return (double) elapsed / iterations;
+	}
+
+}
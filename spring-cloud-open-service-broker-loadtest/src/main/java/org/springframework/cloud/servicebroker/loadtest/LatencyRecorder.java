@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the latency and outcome of each request made against the broker, grouped by operation.
+ */
+public class LatencyRecorder {
+
+	private final Map<String, Queue<Long>> latencies = new ConcurrentHashMap<>();
+
+	private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+	/**
+	 * Record a successful request.
+	 *
+	 * @param operation the operation name
+	 * @param nanos the latency of the request in nanoseconds
+	 */
+	public void recordSuccess(String operation, long nanos) {
+		this.latencies.computeIfAbsent(operation, key -> new ConcurrentLinkedQueue<>()).add(nanos);
+	}
+
+	/**
+	 * Record a failed request.
+	 *
+	 * @param operation the operation name
+	 */
+	public void recordError(String operation) {
+		this.errors.computeIfAbsent(operation, key -> new AtomicLong()).incrementAndGet();
+	}
+
+	/**
+	 * Create a report of the requests recorded so far.
+	 *
+	 * @param elapsed the duration of the load test
+	 * @return the report
+	 */
+	public LoadReport report(Duration elapsed) {
+		Map<String, LoadReport.OperationStatistics> statistics = new TreeMap<>();
+		for (Map.Entry<String, Queue<Long>> entry : this.latencies.entrySet()) {
+			long[] samples = entry.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+			statistics.put(entry.getKey(), new LoadReport.OperationStatistics(samples, errorCount(entry.getKey())));
+		}
+		for (String operation : this.errors.keySet()) {
+			statistics.computeIfAbsent(operation,
+					key -> new LoadReport.OperationStatistics(new long[0], errorCount(key)));
+		}
+		return new LoadReport(elapsed, statistics);
+	}
+
+	private long errorCount(String operation) {
+		AtomicLong count = this.errors.get(operation);
+		return count == null ? 0 : count.get();
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency percentiles and throughput of a load test run, per operation.
+ */
+public class LoadReport {
+
+	private final Duration elapsed;
+
+	private final Map<String, OperationStatistics> operations;
+
+	public LoadReport(Duration elapsed, Map<String, OperationStatistics> operations) {
+		this.elapsed = elapsed;
+		this.operations = Collections.unmodifiableMap(operations);
+	}
+
+	public Duration getElapsed() {
+		return this.elapsed;
+	}
+
+	public Map<String, OperationStatistics> getOperations() {
+		return this.operations;
+	}
+
+	/**
+	 * @return the total number of failed requests
+	 */
+	public long getErrorCount() {
+		return this.operations.values().stream().mapToLong(OperationStatistics::getErrorCount).sum();
+	}
+
+	/**
+	 * Calculate the throughput of an operation over the whole run.
+	 *
+	 * @param operation the operation name
+	 * @return the number of successful requests per second
+	 */
+	public double getThroughput(String operation) {
+		OperationStatistics statistics = this.operations.get(operation);
+		if (statistics == null || this.elapsed.isZero()) {
+			return 0;
+		}
+		return statistics.getCount() * 1000.0 / this.elapsed.toMillis();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder(256);
+		report.append(String.format("%-22s %8s %7s %9s %9s %9s %9s %9s%n",
+				"operation", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+		for (Map.Entry<String, OperationStatistics> entry : this.operations.entrySet()) {
+			OperationStatistics statistics = entry.getValue();
+			report.append(String.format("%-22s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+					entry.getKey(), statistics.getCount(), statistics.getErrorCount(),
+					getThroughput(entry.getKey()),
+					toMillis(statistics.getPercentile(50)), toMillis(statistics.getPercentile(90)),
+					toMillis(statistics.getPercentile(99)), toMillis(statistics.getPercentile(100))));
+		}
+		report.append(String.format("elapsed %d ms", this.elapsed.toMillis()));
+		return report.toString();
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 * The recorded latencies and errors of a single operation.
+	 */
+	public static class OperationStatistics {
+
+		private final long[] sortedLatencies;
+
+		private final long errorCount;
+
+		public OperationStatistics(long[] sortedLatencies, long errorCount) {
+			this.sortedLatencies = sortedLatencies.clone();
+			this.errorCount = errorCount;
+		}
+
+		/**
+		 * @return the number of successful requests
+		 */
+		public long getCount() {
+			return this.sortedLatencies.length;
+		}
+
+		public long getErrorCount() {
+			return this.errorCount;
+		}
+
+		/**
+		 * Get a latency percentile using the nearest-rank method.
+		 *
+		 * @param percentile the percentile, between 0 and 100
+		 * @return the latency in nanoseconds, or 0 if no request succeeded
+		 */
+		public long getPercentile(double percentile) {
+			if (this.sortedLatencies.length == 0) {
+				return 0;
+			}
+			int rank = (int) Math.ceil(percentile / 100.0 * this.sortedLatencies.length);
+			return this.sortedLatencies[Math.max(0, Math.min(rank, this.sortedLatencies.length) - 1)];
+		}
+
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+/**
+ * Runs the platform traffic simulation against the example broker and prints latency percentiles and throughput.
+ *
+ * <p>
+ * Supported arguments, all optional:
+ * <ul>
+ *     <li>{@code --stack=servlet|reactive|both} (default {@code both})</li>
+ *     <li>{@code --platform=cloud_foundry|kubernetes} (default {@code cloud_foundry})</li>
+ *     <li>{@code --duration=<seconds>} (default {@code 30})</li>
+ *     <li>{@code --tenants=<count>} (default {@code 50})</li>
+ *     <li>{@code --bindings=<count>} (default {@code 3})</li>
+ * </ul>
+ */
+public final class LoadTestApplication {
+
+	private LoadTestApplication() {
+	}
+
+	public static void main(String[] args) {
+		SimpleCommandLinePropertySource arguments = new SimpleCommandLinePropertySource(args);
+		PlatformProfile profile = PlatformProfile.valueOf(
+				argument(arguments, "platform", "cloud_foundry").toUpperCase(Locale.ROOT));
+		Duration duration = Duration.ofSeconds(Long.parseLong(argument(arguments, "duration", "30")));
+		int tenants = Integer.parseInt(argument(arguments, "tenants", "50"));
+		int bindings = Integer.parseInt(argument(arguments, "bindings", "3"));
+
+		for (WebStack stack : stacks(argument(arguments, "stack", "both"))) {
+			try (EmbeddedBroker broker = EmbeddedBroker.start(stack)) {
+				LoadReport report = new PlatformSimulator(broker.getBaseUrl(), profile, tenants, bindings)
+						.run(duration);
+				System.out.println(String.format("%n%s broker, %s traffic, %d tenants%n%s",
+						stack, profile, tenants, report));
+			}
+		}
+	}
+
+	private static List<WebStack> stacks(String value) {
+		if ("both".equalsIgnoreCase(value)) {
+			return Arrays.asList(WebStack.values());
+		}
+		return Collections.singletonList(WebStack.valueOf(value.toUpperCase(Locale.ROOT)));
+	}
+
+	private static String argument(SimpleCommandLinePropertySource arguments, String name, String defaultValue) {
+		String value = arguments.getProperty(name);
+		return value == null ? defaultValue : value;
+	}
+
+}
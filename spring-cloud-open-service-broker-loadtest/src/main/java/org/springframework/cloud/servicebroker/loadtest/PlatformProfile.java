@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.time.Duration;
+
+/**
+ * The traffic patterns of the platforms simulated by the load test.
+ */
+public enum PlatformProfile {
+
+	/**
+	 * Cloud Foundry polls the catalog rarely and polls {@literal last_operation} at a fixed interval, honoring
+	 * {@literal Retry-After} when the broker provides it.
+	 */
+	CLOUD_FOUNDRY("cloudfoundry", Duration.ofSeconds(30), Duration.ofMillis(500), false),
+
+	/**
+	 * The Kubernetes service catalog relists the catalog frequently and polls {@literal last_operation} with an
+	 * exponential backoff.
+	 */
+	KUBERNETES("kubernetes", Duration.ofSeconds(5), Duration.ofMillis(100), true);
+
+	private final String platform;
+
+	private final Duration catalogPollInterval;
+
+	private final Duration lastOperationPollInterval;
+
+	private final boolean lastOperationBackoff;
+
+	PlatformProfile(String platform, Duration catalogPollInterval, Duration lastOperationPollInterval,
+			boolean lastOperationBackoff) {
+		this.platform = platform;
+		this.catalogPollInterval = catalogPollInterval;
+		this.lastOperationPollInterval = lastOperationPollInterval;
+		this.lastOperationBackoff = lastOperationBackoff;
+	}
+
+	/**
+	 * @return the platform name sent in the originating identity header
+	 */
+	public String getPlatform() {
+		return this.platform;
+	}
+
+	public Duration getCatalogPollInterval() {
+		return this.catalogPollInterval;
+	}
+
+	public Duration getLastOperationPollInterval() {
+		return this.lastOperationPollInterval;
+	}
+
+	public boolean isLastOperationBackoff() {
+		return this.lastOperationBackoff;
+	}
+
+	/**
+	 * Calculate the delay before the next {@literal last_operation} request.
+	 *
+	 * @param attempt the number of polls already made
+	 * @param retryAfter the delay requested by the broker, or {@literal null}
+	 * @return the delay
+	 */
+	public Duration nextPollDelay(int attempt, Duration retryAfter) {
+		if (retryAfter != null) {
+			return retryAfter;
+		}
+		if (!this.lastOperationBackoff) {
+			return this.lastOperationPollInterval;
+		}
+		return this.lastOperationPollInterval.multipliedBy(1L << Math.min(attempt, 6));
+	}
+
+}
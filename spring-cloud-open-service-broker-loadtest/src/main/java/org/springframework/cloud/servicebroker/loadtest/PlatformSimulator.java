@@ -0,0 +1,119 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.loadtest.BrokerClient.CatalogTarget;
+
+/**
+ * Simulates platform traffic against a service broker: periodic catalog polling, a burst of concurrent
+ * provisioning requests, {@literal last_operation} polling loops and binding churn.
+ */
+public class PlatformSimulator {
+
+	private static final int MAX_POLL_ATTEMPTS = 60;
+
+	private final String baseUrl;
+
+	private final PlatformProfile profile;
+
+	private final int tenants;
+
+	private final int bindingsPerInstance;
+
+	/**
+	 * Construct a simulator.
+	 *
+	 * @param baseUrl the base URL of the broker
+	 * @param profile the platform traffic pattern
+	 * @param tenants the number of concurrent tenants, each repeatedly provisioning, binding and deprovisioning
+	 * @param bindingsPerInstance the number of bind and unbind requests made for each service instance
+	 */
+	public PlatformSimulator(String baseUrl, PlatformProfile profile, int tenants, int bindingsPerInstance) {
+		this.baseUrl = baseUrl;
+		this.profile = profile;
+		this.tenants = tenants;
+		this.bindingsPerInstance = bindingsPerInstance;
+	}
+
+	/**
+	 * Run the simulation.
+	 *
+	 * @param duration how long new service instance lifecycles are started for
+	 * @return the report of the run
+	 */
+	public LoadReport run(Duration duration) {
+		LatencyRecorder recorder = new LatencyRecorder();
+		BrokerClient client = new BrokerClient(this.baseUrl, this.profile, recorder);
+		CatalogTarget target = client.getCatalog()
+				.map(CatalogTarget::firstPlan)
+				.block();
+
+		long start = System.nanoTime();
+		long deadline = start + duration.toNanos();
+
+		Mono<Void> catalogPolling = Flux.interval(this.profile.getCatalogPollInterval())
+				.takeUntilOther(Mono.delay(duration))
+				.concatMap(tick -> client.getCatalog().onErrorResume(e -> Mono.empty()))
+				.then();
+
+		Mono<Void> tenantLifecycles = Flux.range(0, this.tenants)
+				.flatMap(tenant -> instanceLifecycle(client, target)
+						.repeat(() -> System.nanoTime() < deadline)
+						.then(), this.tenants)
+				.then();
+
+		Mono.when(catalogPolling, tenantLifecycles).block();
+
+		return recorder.report(Duration.ofNanos(System.nanoTime() - start));
+	}
+
+	private Mono<Void> instanceLifecycle(BrokerClient client, CatalogTarget target) {
+		String instanceId = UUID.randomUUID().toString();
+		return client.provision(target, instanceId)
+				.then(awaitLastOperation(client, target, instanceId, 0))
+				.then(Flux.range(0, this.bindingsPerInstance)
+						.concatMap(i -> {
+							String bindingId = UUID.randomUUID().toString();
+							return client.bind(target, instanceId, bindingId)
+									.then(client.unbind(target, instanceId, bindingId));
+						})
+						.then())
+				.then(client.deprovision(target, instanceId))
+				.then(awaitLastOperation(client, target, instanceId, 0))
+				.onErrorResume(e -> Mono.empty());
+	}
+
+	private Mono<Void> awaitLastOperation(BrokerClient client, CatalogTarget target, String instanceId, int attempt) {
+		return client.getLastOperation(target, instanceId)
+				.flatMap(operation -> {
+					if (!operation.isInProgress() || attempt >= MAX_POLL_ATTEMPTS) {
+						return Mono.empty();
+					}
+					Duration delay = this.profile.nextPollDelay(attempt, operation.getRetryAfter());
+					return Mono.delay(delay)
+							.then(awaitLastOperation(client, target, instanceId, attempt + 1));
+				});
+	}
+
+}
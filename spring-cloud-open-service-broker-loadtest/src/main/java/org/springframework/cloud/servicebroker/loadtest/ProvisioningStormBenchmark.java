@@ -0,0 +1,209 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.example.servicebroker.ExampleCatalogConfiguration;
+import com.example.servicebroker.ExampleServiceBindingService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveSecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveUserDetailsServiceAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.cloud.servicebroker.loadtest.BrokerClient.CatalogTarget;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Measures the latency of deprovisioning requests while a storm of provisioning requests saturates the backend, with
+ * and without {@code spring.cloud.openservicebroker.priority-scheduling.enabled}. The broker's service instance
+ * service hands creations and deletions to a simulated backend that runs {@value #BACKEND_CAPACITY} operations at a
+ * time, in arrival order, so without priority scheduling each deletion waits behind the queued creations. With
+ * priority scheduling the broker admits as many operations as the backend can run, favoring deletions.
+ *
+ * <p>
+ * One client sends a deprovisioning request every {@code 100} ms, first on an idle broker as a reference and then
+ * during each storm.
+ *
+ * <p>
+ * Supported arguments, all optional: {@code <seconds>} (default {@code 30}), {@code <storm concurrency>} (default
+ * {@code 200}) and {@code <stack>} ({@code servlet} or {@code reactive}, default {@code servlet}).
+ */
+public final class ProvisioningStormBenchmark {
+
+	private static final int BACKEND_CAPACITY = 8;
+
+	private static final Duration BACKEND_LATENCY = Duration.ofMillis(20);
+
+	private static final Duration DELETE_INTERVAL = Duration.ofMillis(100);
+
+	private static final Duration WARMUP = Duration.ofSeconds(5);
+
+	private ProvisioningStormBenchmark() {
+	}
+
+	public static void main(String[] args) {
+		Duration duration = Duration.ofSeconds(args.length > 0 ? Long.parseLong(args[0]) : 30);
+		int stormConcurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		WebStack stack = WebStack.valueOf((args.length > 2 ? args[2] : "servlet").toUpperCase(Locale.ROOT));
+
+		LoadReport idle = measure(stack, duration, 0);
+		LoadReport storm = measure(stack, duration, stormConcurrency);
+		LoadReport prioritizedStorm = measure(stack, duration, stormConcurrency,
+				"spring.cloud.openservicebroker.priority-scheduling.enabled=true",
+				"spring.cloud.openservicebroker.priority-scheduling.max-concurrent-operations=" + BACKEND_CAPACITY);
+
+		System.out.println(String.format("Deprovisioning latency of the %s broker, backend running %d operations "
+				+ "of %d ms at a time, %d provisioning clients", stack, BACKEND_CAPACITY, BACKEND_LATENCY.toMillis(),
+				stormConcurrency));
+		print("idle broker:                  ", idle);
+		print("storm:                        ", storm);
+		print("storm with priority scheduling:", prioritizedStorm);
+	}
+
+	private static LoadReport measure(WebStack stack, Duration duration, int stormConcurrency, String... properties) {
+		try (EmbeddedBroker broker = EmbeddedBroker.start(LimitedBackendBrokerApplication.class, stack,
+				properties)) {
+			run(broker, WARMUP, stormConcurrency);
+			return run(broker, duration, stormConcurrency);
+		}
+	}
+
+	private static LoadReport run(EmbeddedBroker broker, Duration duration, int stormConcurrency) {
+		LatencyRecorder recorder = new LatencyRecorder();
+		BrokerClient client = new BrokerClient(broker.getBaseUrl(), PlatformProfile.CLOUD_FOUNDRY, recorder);
+		CatalogTarget target = client.getCatalog()
+				.map(CatalogTarget::firstPlan)
+				.block();
+
+		long start = System.nanoTime();
+		long deadline = start + duration.toNanos();
+
+		Mono<Void> storm = Flux.range(0, stormConcurrency)
+				.flatMap(worker -> Mono.defer(() -> client.provision(target, UUID.randomUUID().toString()))
+						.onErrorResume(e -> Mono.empty())
+						.repeat(() -> System.nanoTime() < deadline)
+						.then(), Math.max(1, stormConcurrency))
+				.then();
+
+		Mono<Void> deletes = Mono.defer(() -> client.deprovision(target, UUID.randomUUID().toString()))
+				.onErrorResume(e -> Mono.empty())
+				.then(Mono.delay(DELETE_INTERVAL))
+				.repeat(() -> System.nanoTime() < deadline)
+				.then();
+
+		Mono.when(storm, deletes).block();
+
+		return recorder.report(Duration.ofNanos(System.nanoTime() - start));
+	}
+
+	private static void print(String label, LoadReport report) {
+		LoadReport.OperationStatistics deletes = report.getOperations().get(BrokerClient.DEPROVISION);
+		if (deletes == null) {
+			System.out.println(String.format("  %s no deprovisioning request succeeded", label));
+			return;
+		}
+		System.out.println(String.format("  %s p50 %8.2f ms, p99 %8.2f ms, max %8.2f ms, %.1f provisions/s, "
+				+ "%d errors", label, toMillis(deletes.getPercentile(50)), toMillis(deletes.getPercentile(99)),
+				toMillis(deletes.getPercentile(100)), report.getThroughput(BrokerClient.PROVISION),
+				report.getErrorCount()));
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 * The example broker with a service instance service backed by a backend of limited capacity.
+	 */
+	@SpringBootConfiguration
+	@EnableAutoConfiguration(exclude = {
+			SecurityAutoConfiguration.class, UserDetailsServiceAutoConfiguration.class,
+			ReactiveSecurityAutoConfiguration.class, ReactiveUserDetailsServiceAutoConfiguration.class})
+	@Import({ExampleCatalogConfiguration.class, ExampleServiceBindingService.class})
+	static class LimitedBackendBrokerApplication {
+
+		@Bean(destroyMethod = "dispose")
+		public Scheduler backendScheduler() {
+			return Schedulers.fromExecutorService(Executors.newFixedThreadPool(BACKEND_CAPACITY));
+		}
+
+		@Bean
+		public ServiceInstanceService serviceInstanceService(Scheduler backendScheduler) {
+			return new LimitedBackendServiceInstanceService(backendScheduler);
+		}
+
+	}
+
+	private static class LimitedBackendServiceInstanceService implements ServiceInstanceService {
+
+		private final Scheduler backend;
+
+		LimitedBackendServiceInstanceService(Scheduler backend) {
+			this.backend = backend;
+		}
+
+		@Override
+		public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+			return onBackend(CreateServiceInstanceResponse.builder()
+					.async(true)
+					.build());
+		}
+
+		@Override
+		public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+			return onBackend(DeleteServiceInstanceResponse.builder()
+					.async(true)
+					.build());
+		}
+
+		@Override
+		public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+			return Mono.just(GetLastServiceOperationResponse.builder()
+					.operationState(OperationState.SUCCEEDED)
+					.build());
+		}
+
+		private <T> Mono<T> onBackend(T response) {
+			return Mono.fromCallable(() -> {
+				Thread.sleep(BACKEND_LATENCY.toMillis());
+				return response;
+			}).subscribeOn(this.backend);
+		}
+
+	}
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.util.Locale;
+
+/**
+ * Starts the example broker and stops it as soon as it is ready to serve requests, so that the time taken by the
+ * process measures the startup of the broker.
+ *
+ * <p>
+ * Supported arguments, all optional: {@code <stack>} ({@code servlet} or {@code reactive}, default
+ * {@code servlet}).
+ */
+public final class StartupProbe {
+
+	private StartupProbe() {
+	}
+
+	public static void main(String[] args) {
+		WebStack stack = WebStack.valueOf((args.length > 0 ? args[0] : "servlet").toUpperCase(Locale.ROOT));
+		EmbeddedBroker.start(stack).close();
+	}
+
+}
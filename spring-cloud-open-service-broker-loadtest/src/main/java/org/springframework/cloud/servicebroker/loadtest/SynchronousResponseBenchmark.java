@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.loadtest.BrokerClient.CatalogTarget;
+
+/**
+ * Compares the throughput of the example broker on Tomcat with and without
+ * {@code spring.cloud.openservicebroker.synchronous-response-enabled}. The example services return already completed
+ * results, so with the property set the responses are written on the container thread instead of through an async
+ * dispatch. Each broker is loaded with provision and deprovision requests for an untimed warm-up period before the
+ * measured run.
+ *
+ * <p>
+ * Supported arguments, all optional: {@code <seconds>} (default {@code 30}) and {@code <concurrency>} (default
+ * {@code 64}).
+ */
+public final class SynchronousResponseBenchmark {
+
+	private static final Duration WARMUP = Duration.ofSeconds(10);
+
+	private SynchronousResponseBenchmark() {
+	}
+
+	public static void main(String[] args) {
+		Duration duration = Duration.ofSeconds(args.length > 0 ? Long.parseLong(args[0]) : 30);
+		int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+		LoadReport asyncDispatch = measure(duration, concurrency);
+		LoadReport synchronousResponses = measure(duration, concurrency,
+				"spring.cloud.openservicebroker.synchronous-response-enabled=true");
+
+		System.out.println(String.format("Servlet broker, %d concurrent clients for %d s",
+				concurrency, duration.getSeconds()));
+		print("async dispatch:       ", asyncDispatch);
+		print("synchronous responses:", synchronousResponses);
+	}
+
+	private static LoadReport measure(Duration duration, int concurrency, String... properties) {
+		try (EmbeddedBroker broker = EmbeddedBroker.start(WebStack.SERVLET, properties)) {
+			run(broker, WARMUP, concurrency);
+			return run(broker, duration, concurrency);
+		}
+	}
+
+	private static LoadReport run(EmbeddedBroker broker, Duration duration, int concurrency) {
+		LatencyRecorder recorder = new LatencyRecorder();
+		BrokerClient client = new BrokerClient(broker.getBaseUrl(), PlatformProfile.CLOUD_FOUNDRY, recorder);
+		CatalogTarget target = client.getCatalog()
+				.map(CatalogTarget::firstPlan)
+				.block();
+
+		long start = System.nanoTime();
+		long deadline = start + duration.toNanos();
+		Flux.range(0, concurrency)
+				.flatMap(worker -> Mono.defer(() -> {
+					String instanceId = UUID.randomUUID().toString();
+					return client.provision(target, instanceId)
+							.then(client.deprovision(target, instanceId))
+							.onErrorResume(e -> Mono.empty());
+				})
+						.repeat(() -> System.nanoTime() < deadline)
+						.then(), concurrency)
+				.blockLast();
+
+		return recorder.report(Duration.ofNanos(System.nanoTime() - start));
+	}
+
+	private static void print(String label, LoadReport report) {
+		LoadReport.OperationStatistics provision = report.getOperations().get(BrokerClient.PROVISION);
+		double throughput = report.getThroughput(BrokerClient.PROVISION)
+				+ report.getThroughput(BrokerClient.DEPROVISION);
+		long p99 = provision == null ? 0 : provision.getPercentile(99);
+		System.out.println(String.format("  %s %9.1f req/s, provision p99 %7.2f ms, %d errors", label, throughput,
+				p99 / (double) TimeUnit.MILLISECONDS.toNanos(1), report.getErrorCount()));
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the 99th percentile latency of the first requests served by the example broker with and without
+ * {@code spring.cloud.openservicebroker.warm-up.enabled}. Each run starts a new JVM running {@link FirstRequestsProbe},
+ * so every run begins with cold request handling code. Runs with and without warm-up alternate.
+ *
+ * <p>
+ * Supported arguments, all optional: {@code <runs>} (default {@code 5}), {@code <stack>} ({@code servlet} or
+ * {@code reactive}, default {@code servlet}) and {@code <requests>} (default {@code 1000}).
+ */
+public final class WarmUpBenchmark {
+
+	private static final long PROCESS_TIMEOUT_SECONDS = 120;
+
+	private WarmUpBenchmark() {
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		String stack = args.length > 1 ? args[1] : "servlet";
+		String requests = args.length > 2 ? args[2] : "1000";
+
+		long[] coldNanos = new long[runs];
+		long[] warmNanos = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			coldNanos[i] = probe(stack, false, requests);
+			warmNanos[i] = probe(stack, true, requests);
+		}
+
+		double coldMedian = toMillis(median(coldNanos));
+		double warmMedian = toMillis(median(warmNanos));
+		System.out.println(String.format("p99 latency of the first %s requests to the %s example broker "
+				+ "over %d runs (median)", requests, stack, runs));
+		System.out.println(String.format("  without warm-up: %8.2f ms", coldMedian));
+		System.out.println(String.format("  with warm-up:    %8.2f ms (%+.1f%%)", warmMedian,
+				(warmMedian - coldMedian) * 100.0 / coldMedian));
+	}
+
+	private static long probe(String stack, boolean warmUp, String requests)
+			throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(FirstRequestsProbe.class.getName());
+		command.add(stack);
+		command.add(String.valueOf(warmUp));
+		command.add(requests);
+
+		Process process = new ProcessBuilder(command)
+				.redirectError(ProcessBuilder.Redirect.INHERIT)
+				.start();
+		String result = null;
+		try (BufferedReader output = new BufferedReader(
+				new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = output.readLine()) != null) {
+				if (!line.trim().isEmpty()) {
+					result = line.trim();
+				}
+			}
+		}
+		if (!process.waitFor(PROCESS_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+			process.destroyForcibly();
+			throw new IllegalStateException("Example broker did not serve its first requests within "
+					+ PROCESS_TIMEOUT_SECONDS + " seconds");
+		}
+		if (process.exitValue() != 0 || result == null) {
+			throw new IllegalStateException("First requests probe exited with status " + process.exitValue()
+					+ (warmUp ? " with warm-up" : " without warm-up"));
+		}
+		return Long.parseLong(result);
+	}
+
+	private static long median(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+}
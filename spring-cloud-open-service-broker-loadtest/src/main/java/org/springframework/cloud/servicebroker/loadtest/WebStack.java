@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import org.springframework.boot.WebApplicationType;
+
+/**
+ * The web stack used to serve the broker under test.
+ */
+public enum WebStack {
+
+	/**
+	 * Spring MVC on an embedded servlet container.
+	 */
+	SERVLET(WebApplicationType.SERVLET),
+
+	/**
+	 * Spring WebFlux on an embedded reactive server.
+	 */
+	REACTIVE(WebApplicationType.REACTIVE);
+
+	private final WebApplicationType webApplicationType;
+
+	WebStack(WebApplicationType webApplicationType) {
+		this.webApplicationType = webApplicationType;
+	}
+
+	public WebApplicationType getWebApplicationType() {
+		return this.webApplicationType;
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.loadtest;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PlatformSimulatorTest {
+
+	@Test
+	public void simulatesTrafficAgainstServletBroker() {
+		assertShortRunSucceeds(WebStack.SERVLET, PlatformProfile.CLOUD_FOUNDRY);
+	}
+
+	@Test
+	public void simulatesTrafficAgainstReactiveBroker() {
+		assertShortRunSucceeds(WebStack.REACTIVE, PlatformProfile.KUBERNETES);
+	}
+
+	@Test
+	public void percentilesUseNearestRank() {
+		LoadReport.OperationStatistics statistics =
+				new LoadReport.OperationStatistics(new long[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, 0);
+
+		assertThat(statistics.getPercentile(50)).isEqualTo(5);
+		assertThat(statistics.getPercentile(90)).isEqualTo(9);
+		assertThat(statistics.getPercentile(99)).isEqualTo(10);
+		assertThat(statistics.getPercentile(100)).isEqualTo(10);
+	}
+
+	@Test
+	public void lastOperationPollingHonorsRetryAfter() {
+		assertThat(PlatformProfile.KUBERNETES.nextPollDelay(3, Duration.ofSeconds(2))).isEqualTo(Duration.ofSeconds(2));
+		assertThat(PlatformProfile.KUBERNETES.nextPollDelay(3, null)).isEqualTo(Duration.ofMillis(800));
+		assertThat(PlatformProfile.CLOUD_FOUNDRY.nextPollDelay(3, null)).isEqualTo(Duration.ofMillis(500));
+	}
+
+	private void assertShortRunSucceeds(WebStack stack, PlatformProfile profile) {
+		try (EmbeddedBroker broker = EmbeddedBroker.start(stack)) {
+			LoadReport report = new PlatformSimulator(broker.getBaseUrl(), profile, 4, 2)
+					.run(Duration.ofMillis(500));
+
+			assertThat(report.getErrorCount()).isZero();
+			assertThat(report.getOperations()).containsKeys(BrokerClient.CATALOG, BrokerClient.PROVISION,
+					BrokerClient.LAST_OPERATION, BrokerClient.BIND, BrokerClient.UNBIND, BrokerClient.DEPROVISION);
+			assertThat(report.getThroughput(BrokerClient.PROVISION)).isPositive();
+		}
+	}
+
+}